@@ -25,7 +25,6 @@ import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
-import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
 import com.amazonaws.athena.connector.lambda.handlers.MetadataHandler;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsResponse;
@@ -36,7 +35,6 @@ import com.amazonaws.athena.connector.lambda.metadata.ListSchemasRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListSchemasResponse;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
-import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.TableProvider;
 import com.amazonaws.services.athena.AmazonAthena;
@@ -45,6 +43,7 @@ import org.apache.arrow.util.VisibleForTesting;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Handles metadata requests for the Athena AWS CMDB Connector.
@@ -158,9 +157,12 @@ public class AwsCmdbMetadataHandler
     }
 
     /**
-     * Delegates to the TableProvider that is registered for the requested table.
+     * Delegates to the TableProvider that is registered for the requested table, which makes at least one Split for
+     * every account and region configured by the regions and account_role_arns config options. Tables whose resources
+     * are global get one Split per account.
      *
      * @see MetadataHandler
+     * @see ScanTarget
      */
     @Override
     public GetSplitsResponse doGetSplits(BlockAllocator blockAllocator, GetSplitsRequest getSplitsRequest)
@@ -170,10 +172,10 @@ public class AwsCmdbMetadataHandler
             throw new RuntimeException("Unknown table " + getSplitsRequest.getTableName());
         }
 
+        List<ScanTarget> targets = ScanTarget.fromConfig(configOptions, tableProvider.isRegional());
         //Every split needs a unique spill location.
-        SpillLocation spillLocation = makeSpillLocation(getSplitsRequest);
-        EncryptionKey encryptionKey = makeEncryptionKey();
-        Split split = Split.newBuilder(spillLocation, encryptionKey).build();
-        return new GetSplitsResponse(getSplitsRequest.getCatalogName(), split);
+        Set<Split> splits = tableProvider.getSplits(getSplitsRequest, targets,
+                () -> Split.newBuilder(makeSpillLocation(getSplitsRequest), makeEncryptionKey()));
+        return new GetSplitsResponse(getSplitsRequest.getCatalogName(), splits);
     }
 }
@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connectors.aws.cmdb;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
@@ -29,6 +30,8 @@ import com.amazonaws.services.athena.AmazonAthena;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import org.apache.arrow.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 
@@ -44,7 +47,11 @@ import java.util.Map;
 public class AwsCmdbRecordHandler
         extends RecordHandler
 {
+    private static final Logger logger = LoggerFactory.getLogger(AwsCmdbRecordHandler.class);
+
     private static final String SOURCE_TYPE = "cmdb";
+    //Suffix of the error codes AWS services use when a requested resource id does not exist (e.g. InvalidInstanceID.NotFound).
+    private static final String NOT_FOUND_ERROR_SUFFIX = "NotFound";
 
     //Map of available fully qualified TableNames to their respective TableProviders.
     private Map<TableName, TableProvider> tableProviders;
@@ -71,6 +78,17 @@ public class AwsCmdbRecordHandler
     protected void readWithConstraint(BlockSpiller blockSpiller, ReadRecordsRequest readRecordsRequest, QueryStatusChecker queryStatusChecker)
     {
         TableProvider tableProvider = tableProviders.get(readRecordsRequest.getTableName());
-        tableProvider.readWithConstraint(blockSpiller, readRecordsRequest, queryStatusChecker);
+        try {
+            tableProvider.readWithConstraint(blockSpiller, readRecordsRequest, queryStatusChecker);
+        }
+        catch (AmazonServiceException ex) {
+            //When scanning several accounts or regions a resource requested by id (e.g. WHERE instance_id = 'i-123')
+            //only exists in one of them, the others reject the id rather than returning an empty result.
+            ScanTarget target = ScanTarget.fromSplit(readRecordsRequest.getSplit());
+            if (target.equals(ScanTarget.DEFAULT) || ex.getErrorCode() == null || !ex.getErrorCode().endsWith(NOT_FOUND_ERROR_SUFFIX)) {
+                throw ex;
+            }
+            logger.info("readWithConstraint: Requested resource not found in {}, {}", target, ex.getErrorCode());
+        }
     }
 }
@@ -0,0 +1,170 @@
+/*-
+ * #%L
+ * athena-aws-cmdb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.aws.cmdb;
+
+import com.amazonaws.athena.connector.lambda.domain.Split;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * The account and region that a Split scans. Splits carry their ScanTarget as properties, Splits without them scan
+ * the Lambda function's own account and region.
+ */
+public class ScanTarget
+{
+    //Config that lists the regions to scan, comma separated. Defaults to the Lambda function's own region.
+    public static final String REGIONS = "regions";
+    //Config that lists the IAM roles to assume in order to scan other accounts, comma separated. Defaults to the
+    //Lambda function's own account. Once set, only the listed accounts are scanned.
+    public static final String ACCOUNT_ROLE_ARNS = "account_role_arns";
+
+    //The Split property that holds the region to scan.
+    public static final String REGION_PROPERTY = "region";
+    //The Split property that holds the role to assume.
+    public static final String ROLE_ARN_PROPERTY = "account_role_arn";
+
+    public static final ScanTarget DEFAULT = new ScanTarget(null, null);
+
+    private final String roleArn;
+    private final String region;
+
+    public ScanTarget(String roleArn, String region)
+    {
+        this.roleArn = roleArn;
+        this.region = region;
+    }
+
+    /**
+     * Lists the ScanTargets configured by the regions and account_role_arns config options, one per account and region.
+     *
+     * @param configOptions The connector's config options.
+     * @param regional False for services whose resources are global (e.g. S3 buckets), these get one ScanTarget per account.
+     * @return The ScanTargets to make Splits for.
+     */
+    public static List<ScanTarget> fromConfig(Map<String, String> configOptions, boolean regional)
+    {
+        List<String> roleArns = parseList(configOptions.get(ACCOUNT_ROLE_ARNS));
+        List<String> regions = regional ? parseList(configOptions.get(REGIONS)) : Collections.singletonList(null);
+
+        List<ScanTarget> targets = new ArrayList<>();
+        for (String roleArn : roleArns) {
+            for (String region : regions) {
+                targets.add(new ScanTarget(roleArn, region));
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * @param split The Split being read.
+     * @return The ScanTarget of the Split.
+     */
+    public static ScanTarget fromSplit(Split split)
+    {
+        String roleArn = split.getProperty(ROLE_ARN_PROPERTY);
+        String region = split.getProperty(REGION_PROPERTY);
+        return (roleArn == null && region == null) ? DEFAULT : new ScanTarget(roleArn, region);
+    }
+
+    /**
+     * Adds this ScanTarget's properties to the Split being built.
+     *
+     * @param builder The builder of the Split.
+     * @return The builder.
+     */
+    public Split.Builder addTo(Split.Builder builder)
+    {
+        if (roleArn != null) {
+            builder.add(ROLE_ARN_PROPERTY, roleArn);
+        }
+        if (region != null) {
+            builder.add(REGION_PROPERTY, region);
+        }
+        return builder;
+    }
+
+    /**
+     * @return The ARN of the role to assume, null for the Lambda function's own account.
+     */
+    public String getRoleArn()
+    {
+        return roleArn;
+    }
+
+    /**
+     * @return The region to scan, null for the Lambda function's own region.
+     */
+    public String getRegion()
+    {
+        return region;
+    }
+
+    /**
+     * Parses a comma separated list, an empty list is returned as a list containing null (i.e. the default).
+     */
+    private static List<String> parseList(String value)
+    {
+        if (value == null) {
+            return Collections.singletonList(null);
+        }
+        List<String> values = Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(next -> !next.isEmpty())
+                .distinct()
+                .collect(Collectors.toList());
+        return values.isEmpty() ? Collections.singletonList(null) : values;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ScanTarget that = (ScanTarget) o;
+        return Objects.equals(roleArn, that.roleArn) && Objects.equals(region, that.region);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(roleArn, region);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("roleArn", roleArn)
+                .add("region", region)
+                .toString();
+    }
+}
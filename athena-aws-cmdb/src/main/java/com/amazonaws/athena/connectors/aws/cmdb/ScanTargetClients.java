@@ -0,0 +1,107 @@
+/*-
+ * #%L
+ * athena-aws-cmdb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.aws.cmdb;
+
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.auth.STSAssumeRoleSessionCredentialsProvider;
+import com.amazonaws.client.builder.AwsSyncClientBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Provides the client of an AWS service for the ScanTarget (account and region) of each Split. Clients are created
+ * on first use and then cached for the lifetime of the Lambda function, clients for other accounts assume the
+ * account's role and refresh their credentials before they expire.
+ *
+ * @param <T> The type of the service client (e.g. AmazonEC2).
+ */
+public class ScanTargetClients<T>
+{
+    private static final Logger logger = LoggerFactory.getLogger(ScanTargetClients.class);
+
+    private static final String ROLE_SESSION_NAME = "athena-aws-cmdb";
+
+    private final Supplier<? extends AwsSyncClientBuilder<?, T>> builderSupplier;
+    private final ConcurrentMap<ScanTarget, T> clients = new ConcurrentHashMap<>();
+
+    /**
+     * @param builderSupplier Creates a new, default, builder for the service's client (e.g. AmazonEC2ClientBuilder::standard).
+     */
+    public ScanTargetClients(Supplier<? extends AwsSyncClientBuilder<?, T>> builderSupplier)
+    {
+        this.builderSupplier = builderSupplier;
+    }
+
+    /**
+     * Creates a ScanTargetClients which uses the given client for every Split, regardless of its ScanTarget.
+     *
+     * @param client The client to use.
+     * @param <T> The type of the service client.
+     * @return The ScanTargetClients.
+     */
+    public static <T> ScanTargetClients<T> of(T client)
+    {
+        return new ScanTargetClients<T>(() -> {
+            throw new IllegalStateException("Only the given client is available.");
+        })
+        {
+            @Override
+            public T getClient(ScanTarget target)
+            {
+                return client;
+            }
+        };
+    }
+
+    /**
+     * @param split The Split being read.
+     * @return The client for the Split's ScanTarget.
+     */
+    public T getClient(Split split)
+    {
+        return getClient(ScanTarget.fromSplit(split));
+    }
+
+    /**
+     * @param target The account and region to scan.
+     * @return The client for the ScanTarget.
+     */
+    public T getClient(ScanTarget target)
+    {
+        return clients.computeIfAbsent(target, this::createClient);
+    }
+
+    private T createClient(ScanTarget target)
+    {
+        logger.info("createClient: Creating client for {}", target);
+        AwsSyncClientBuilder<?, T> builder = builderSupplier.get();
+        if (target.getRegion() != null) {
+            builder.setRegion(target.getRegion());
+        }
+        if (target.getRoleArn() != null) {
+            builder.setCredentials(new STSAssumeRoleSessionCredentialsProvider.Builder(target.getRoleArn(), ROLE_SESSION_NAME).build());
+        }
+        return builder.build();
+    }
+}
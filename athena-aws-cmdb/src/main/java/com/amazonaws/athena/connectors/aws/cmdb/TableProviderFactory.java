@@ -59,15 +59,24 @@ public class TableProviderFactory
     public TableProviderFactory(java.util.Map<String, String> configOptions)
     {
         this(
-            AmazonEC2ClientBuilder.standard().build(),
-            AmazonElasticMapReduceClientBuilder.standard().build(),
-            AmazonRDSClientBuilder.standard().build(),
-            AmazonS3ClientBuilder.standard().build(),
+            new ScanTargetClients<>(AmazonEC2ClientBuilder::standard),
+            new ScanTargetClients<>(AmazonElasticMapReduceClientBuilder::standard),
+            new ScanTargetClients<>(AmazonRDSClientBuilder::standard),
+            new ScanTargetClients<>(AmazonS3ClientBuilder::standard),
             configOptions);
     }
 
     @VisibleForTesting
     protected TableProviderFactory(AmazonEC2 ec2, AmazonElasticMapReduce emr, AmazonRDS rds, AmazonS3 amazonS3, java.util.Map<String, String> configOptions)
+    {
+        this(ScanTargetClients.of(ec2), ScanTargetClients.of(emr), ScanTargetClients.of(rds), ScanTargetClients.of(amazonS3), configOptions);
+    }
+
+    private TableProviderFactory(ScanTargetClients<AmazonEC2> ec2,
+            ScanTargetClients<AmazonElasticMapReduce> emr,
+            ScanTargetClients<AmazonRDS> rds,
+            ScanTargetClients<AmazonS3> amazonS3,
+            java.util.Map<String, String> configOptions)
     {
         addProvider(new Ec2TableProvider(ec2));
         addProvider(new EbsTableProvider(ec2));
@@ -29,6 +29,7 @@ import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTargetClients;
 import com.amazonaws.services.elasticmapreduce.AmazonElasticMapReduce;
 import com.amazonaws.services.elasticmapreduce.model.Cluster;
 import com.amazonaws.services.elasticmapreduce.model.ClusterSummary;
@@ -49,11 +50,16 @@ public class EmrClusterTableProvider
         implements TableProvider
 {
     private static final Schema SCHEMA;
-    private AmazonElasticMapReduce emr;
+    private ScanTargetClients<AmazonElasticMapReduce> emrClients;
 
     public EmrClusterTableProvider(AmazonElasticMapReduce emr)
     {
-        this.emr = emr;
+        this(ScanTargetClients.of(emr));
+    }
+
+    public EmrClusterTableProvider(ScanTargetClients<AmazonElasticMapReduce> emrClients)
+    {
+        this.emrClients = emrClients;
     }
 
     /**
@@ -92,6 +98,7 @@ public class EmrClusterTableProvider
     @Override
     public void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
     {
+        AmazonElasticMapReduce emr = emrClients.getClient(recordsRequest.getSplit());
         boolean done = false;
         ListClustersRequest request = new ListClustersRequest();
 
@@ -0,0 +1,98 @@
+/*-
+ * #%L
+ * athena-aws-cmdb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.aws.cmdb.tables;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Pages through a NextToken style AWS API, fetching the next page in the background while the caller writes the
+ * rows of the current one. Pages are still requested one at a time, as each request needs the previous page's
+ * token, but the time spent waiting on the API no longer adds to the time spent converting rows.
+ */
+public final class PrefetchingPaginator
+{
+    private static final ExecutorService PREFETCH_POOL = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("cmdb-page-prefetch-%d")
+            .setDaemon(true)
+            .build());
+
+    private PrefetchingPaginator() {}
+
+    /**
+     * Calls onPage for every page, in order, on the calling thread.
+     *
+     * @param fetchPage Fetches the page for the given token, null for the first page. Must not modify shared state
+     * because it runs on a background thread.
+     * @param nextToken Gets the token of the page after the given one, null if it is the last page.
+     * @param onPage Processes a page.
+     * @param queryStatusChecker Used to stop fetching pages once the query is no longer running.
+     * @param <R> The type of the API's response.
+     */
+    public static <R> void forEachPage(Function<String, R> fetchPage,
+            Function<R, String> nextToken,
+            Consumer<R> onPage,
+            QueryStatusChecker queryStatusChecker)
+    {
+        R page = fetchPage.apply(null);
+        while (page != null) {
+            String token = nextToken.apply(page);
+            Future<R> next = (token != null) ? PREFETCH_POOL.submit(() -> fetchPage.apply(token)) : null;
+            try {
+                onPage.accept(page);
+            }
+            catch (RuntimeException ex) {
+                if (next != null) {
+                    next.cancel(true);
+                }
+                throw ex;
+            }
+
+            if (next != null && !queryStatusChecker.isQueryRunning()) {
+                next.cancel(true);
+                next = null;
+            }
+            page = (next != null) ? getPage(next) : null;
+        }
+    }
+
+    private static <R> R getPage(Future<R> next)
+    {
+        try {
+            return next.get();
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            next.cancel(true);
+            throw new RuntimeException(ex);
+        }
+        catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            throw (cause instanceof RuntimeException) ? (RuntimeException) cause : new RuntimeException(cause);
+        }
+    }
+}
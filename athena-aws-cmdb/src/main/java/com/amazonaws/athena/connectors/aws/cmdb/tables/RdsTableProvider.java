@@ -30,6 +30,7 @@ import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTargetClients;
 import com.amazonaws.services.rds.AmazonRDS;
 import com.amazonaws.services.rds.model.DBInstance;
 import com.amazonaws.services.rds.model.DBInstanceStatusInfo;
@@ -56,11 +57,16 @@ public class RdsTableProvider
         implements TableProvider
 {
     private static final Schema SCHEMA;
-    private AmazonRDS rds;
+    private ScanTargetClients<AmazonRDS> rdsClients;
 
     public RdsTableProvider(AmazonRDS rds)
     {
-        this.rds = rds;
+        this(ScanTargetClients.of(rds));
+    }
+
+    public RdsTableProvider(ScanTargetClients<AmazonRDS> rdsClients)
+    {
+        this.rdsClients = rdsClients;
     }
 
     /**
@@ -99,6 +105,7 @@ public class RdsTableProvider
     @Override
     public void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
     {
+        AmazonRDS rds = rdsClients.getClient(recordsRequest.getSplit());
         boolean done = false;
         DescribeDBInstancesRequest request = new DescribeDBInstancesRequest();
 
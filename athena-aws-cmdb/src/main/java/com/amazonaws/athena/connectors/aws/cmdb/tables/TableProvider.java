@@ -24,11 +24,19 @@ import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableLayoutRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTarget;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Defines the functionality required to supply the metadata and data required for the Athena AWS CMDB connector to
@@ -79,6 +87,36 @@ public interface TableProvider
         //NoOp as we do not support partitioning or added partition data
     }
 
+    /**
+     * Default implementation reports the table's resources as regional, so a Split is made for every configured
+     * region. TableProviders for global resources (e.g. S3 buckets) override this to get one Split per account.
+     *
+     * @return True if the table's resources belong to a region.
+     */
+    default boolean isRegional()
+    {
+        return true;
+    }
+
+    /**
+     * Default implementation makes one Split per ScanTarget. TableProviders that can break up the scan of a table
+     * override this to make several Splits per ScanTarget.
+     *
+     * @param request The request for the table's Splits.
+     * @param targets The accounts and regions to scan.
+     * @param newSplit Makes the builder of a new Split, each with its own spill location and encryption key.
+     * @return The Splits to read.
+     * @See MetadataHandler
+     */
+    default Set<Split> getSplits(GetSplitsRequest request, List<ScanTarget> targets, Supplier<Split.Builder> newSplit)
+    {
+        Set<Split> splits = new HashSet<>();
+        for (ScanTarget target : targets) {
+            splits.add(target.addTo(newSplit.get()).build());
+        }
+        return splits;
+    }
+
     /**
      * Effects the requested read against the table, writing result row data using the supplied BlockSpliller.
      *
@@ -30,6 +30,7 @@ import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTargetClients;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.TableProvider;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.DescribeVolumesRequest;
@@ -52,11 +53,16 @@ public class EbsTableProvider
 {
     private static final Logger logger = LoggerFactory.getLogger(EbsTableProvider.class);
     private static final Schema SCHEMA;
-    private AmazonEC2 ec2;
+    private ScanTargetClients<AmazonEC2> ec2Clients;
 
     public EbsTableProvider(AmazonEC2 ec2)
     {
-        this.ec2 = ec2;
+        this(ScanTargetClients.of(ec2));
+    }
+
+    public EbsTableProvider(ScanTargetClients<AmazonEC2> ec2Clients)
+    {
+        this.ec2Clients = ec2Clients;
     }
 
     /**
@@ -95,6 +101,7 @@ public class EbsTableProvider
     @Override
     public void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
     {
+        AmazonEC2 ec2 = ec2Clients.getClient(recordsRequest.getSplit());
         boolean done = false;
         DescribeVolumesRequest request = new DescribeVolumesRequest();
 
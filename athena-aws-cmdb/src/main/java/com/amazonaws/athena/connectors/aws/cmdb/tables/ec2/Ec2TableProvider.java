@@ -27,27 +27,36 @@ import com.amazonaws.athena.connector.lambda.data.FieldBuilder;
 import com.amazonaws.athena.connector.lambda.data.FieldResolver;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTargetClients;
+import com.amazonaws.athena.connectors.aws.cmdb.tables.PrefetchingPaginator;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.TableProvider;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
 import com.amazonaws.services.ec2.model.DescribeInstancesResult;
+import com.amazonaws.services.ec2.model.Filter;
 import com.amazonaws.services.ec2.model.Instance;
 import com.amazonaws.services.ec2.model.InstanceNetworkInterface;
 import com.amazonaws.services.ec2.model.InstanceState;
 import com.amazonaws.services.ec2.model.Reservation;
 import com.amazonaws.services.ec2.model.StateReason;
 import com.amazonaws.services.ec2.model.Tag;
+import com.google.common.collect.ImmutableMap;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -57,11 +66,24 @@ public class Ec2TableProvider
         implements TableProvider
 {
     private static final Schema SCHEMA;
-    private AmazonEC2 ec2;
+    //The most values DescribeInstances accepts for a single filter.
+    private static final int MAX_FILTER_VALUES = 200;
+    //Columns whose constraints are pushed down to DescribeInstances, mapped to the filter that applies them.
+    private static final Map<String, String> FILTERS = ImmutableMap.of(
+            "vpc_id", "vpc-id",
+            "subnet_id", "subnet-id",
+            "image_id", "image-id",
+            "instance_type", "instance-type");
+    private ScanTargetClients<AmazonEC2> ec2Clients;
 
     public Ec2TableProvider(AmazonEC2 ec2)
     {
-        this.ec2 = ec2;
+        this(ScanTargetClients.of(ec2));
+    }
+
+    public Ec2TableProvider(ScanTargetClients<AmazonEC2> ec2Clients)
+    {
+        this.ec2Clients = ec2Clients;
     }
 
     /**
@@ -93,36 +115,88 @@ public class Ec2TableProvider
 
     /**
      * Calls DescribeInstances on the AWS EC2 Client returning all instances that match the supplied predicate and attempting
-     * to push down certain predicates (namely queries for specific ec2 instance) to EC2.
+     * to push down certain predicates (namely queries for specific ec2 instances, vpcs, subnets, images and instance types)
+     * to EC2. The next page of instances is fetched while the current one is being written.
      *
      * @See TableProvider
      */
     @Override
     public void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
     {
-        boolean done = false;
+        AmazonEC2 ec2 = ec2Clients.getClient(recordsRequest.getSplit());
         DescribeInstancesRequest request = new DescribeInstancesRequest();
+        Map<String, ValueSet> summary = recordsRequest.getConstraints().getSummary();
 
-        ValueSet idConstraint = recordsRequest.getConstraints().getSummary().get("instance_id");
+        ValueSet idConstraint = summary.get("instance_id");
         if (idConstraint != null && idConstraint.isSingleValue()) {
             request.setInstanceIds(Collections.singletonList(idConstraint.getSingleValue().toString()));
         }
+        else {
+            addFilter(request, "instance-id", idConstraint);
+        }
+        for (Map.Entry<String, String> next : FILTERS.entrySet()) {
+            addFilter(request, next.getValue(), summary.get(next.getKey()));
+        }
 
-        while (!done) {
-            DescribeInstancesResult response = ec2.describeInstances(request);
+        PrefetchingPaginator.forEachPage(
+                (String nextToken) -> ec2.describeInstances(request.clone().withNextToken(nextToken)),
+                DescribeInstancesResult::getNextToken,
+                (DescribeInstancesResult response) -> {
+                    for (Reservation reservation : response.getReservations()) {
+                        for (Instance instance : reservation.getInstances()) {
+                            instanceToRow(instance, spiller);
+                        }
+                    }
+                },
+                queryStatusChecker);
+    }
 
-            for (Reservation reservation : response.getReservations()) {
-                for (Instance instance : reservation.getInstances()) {
-                    instanceToRow(instance, spiller);
-                }
-            }
+    /**
+     * Adds a DescribeInstances filter for the given constraint if it is a list of values, other constraints (e.g. ranges)
+     * are left for the BlockSpiller to apply.
+     *
+     * @param request The request to add the filter to.
+     * @param filterName The name of the DescribeInstances filter (e.g. vpc-id).
+     * @param constraint The constraint on the filter's column, may be null.
+     */
+    private static void addFilter(DescribeInstancesRequest request, String filterName, ValueSet constraint)
+    {
+        List<String> values = getDiscreteValues(constraint);
+        if (values != null) {
+            request.getFilters().add(new Filter(filterName, values));
+        }
+    }
 
-            request.setNextToken(response.getNextToken());
+    /**
+     * @param constraint The constraint on a column, may be null.
+     * @return The values the constraint allows if it is a list of non-null values (e.g. IN ('a', 'b')), null otherwise.
+     */
+    private static List<String> getDiscreteValues(ValueSet constraint)
+    {
+        if (constraint == null || constraint.isNullAllowed() || constraint.isNone()) {
+            return null;
+        }
 
-            if (response.getNextToken() == null || !queryStatusChecker.isQueryRunning()) {
-                done = true;
+        List<String> values = new ArrayList<>();
+        if (constraint instanceof EquatableValueSet && ((EquatableValueSet) constraint).isWhiteList()) {
+            EquatableValueSet equatableValueSet = (EquatableValueSet) constraint;
+            for (int i = 0; i < equatableValueSet.getValues().getRowCount(); i++) {
+                values.add(equatableValueSet.getValue(i).toString());
+            }
+        }
+        else if (constraint instanceof SortedRangeSet) {
+            for (Range range : constraint.getRanges().getOrderedRanges()) {
+                if (!range.isSingleValue()) {
+                    return null;
+                }
+                values.add(range.getSingleValue().toString());
             }
         }
+        else {
+            return null;
+        }
+
+        return (values.isEmpty() || values.size() > MAX_FILTER_VALUES) ? null : values;
     }
 
     /**
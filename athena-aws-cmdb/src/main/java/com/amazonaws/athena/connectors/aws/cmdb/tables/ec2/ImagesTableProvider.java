@@ -30,6 +30,7 @@ import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTargetClients;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.TableProvider;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.BlockDeviceMapping;
@@ -58,11 +59,16 @@ public class ImagesTableProvider
     //query for a specific owner.
     private final String defaultOwner;
     private static final Schema SCHEMA;
-    private AmazonEC2 ec2;
+    private ScanTargetClients<AmazonEC2> ec2Clients;
 
     public ImagesTableProvider(AmazonEC2 ec2, java.util.Map<String, String> configOptions)
     {
-        this.ec2 = ec2;
+        this(ScanTargetClients.of(ec2), configOptions);
+    }
+
+    public ImagesTableProvider(ScanTargetClients<AmazonEC2> ec2Clients, java.util.Map<String, String> configOptions)
+    {
+        this.ec2Clients = ec2Clients;
         this.defaultOwner = configOptions.get(DEFAULT_OWNER_ENV);
     }
 
@@ -104,6 +110,7 @@ public class ImagesTableProvider
     @Override
     public void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
     {
+        AmazonEC2 ec2 = ec2Clients.getClient(recordsRequest.getSplit());
         DescribeImagesRequest request = new DescribeImagesRequest();
 
         ValueSet idConstraint = recordsRequest.getConstraints().getSummary().get("id");
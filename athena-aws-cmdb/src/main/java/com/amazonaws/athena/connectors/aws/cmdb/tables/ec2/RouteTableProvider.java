@@ -30,6 +30,7 @@ import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTargetClients;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.TableProvider;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.DescribeRouteTablesRequest;
@@ -50,11 +51,16 @@ public class RouteTableProvider
         implements TableProvider
 {
     private static final Schema SCHEMA;
-    private AmazonEC2 ec2;
+    private ScanTargetClients<AmazonEC2> ec2Clients;
 
     public RouteTableProvider(AmazonEC2 ec2)
     {
-        this.ec2 = ec2;
+        this(ScanTargetClients.of(ec2));
+    }
+
+    public RouteTableProvider(ScanTargetClients<AmazonEC2> ec2Clients)
+    {
+        this.ec2Clients = ec2Clients;
     }
 
     /**
@@ -93,6 +99,7 @@ public class RouteTableProvider
     @Override
     public void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
     {
+        AmazonEC2 ec2 = ec2Clients.getClient(recordsRequest.getSplit());
         boolean done = false;
         DescribeRouteTablesRequest request = new DescribeRouteTablesRequest();
 
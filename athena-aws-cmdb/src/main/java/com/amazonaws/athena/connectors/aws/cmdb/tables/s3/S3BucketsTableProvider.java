@@ -28,6 +28,7 @@ import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTargetClients;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.TableProvider;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.Bucket;
@@ -41,11 +42,16 @@ public class S3BucketsTableProvider
         implements TableProvider
 {
     private static final Schema SCHEMA;
-    private AmazonS3 amazonS3;
+    private ScanTargetClients<AmazonS3> amazonS3Clients;
 
     public S3BucketsTableProvider(AmazonS3 amazonS3)
     {
-        this.amazonS3 = amazonS3;
+        this(ScanTargetClients.of(amazonS3));
+    }
+
+    public S3BucketsTableProvider(ScanTargetClients<AmazonS3> amazonS3Clients)
+    {
+        this.amazonS3Clients = amazonS3Clients;
     }
 
     /**
@@ -66,6 +72,17 @@ public class S3BucketsTableProvider
         return new TableName(getSchema(), "buckets");
     }
 
+    /**
+     * S3 buckets are global, the account's client lists them regardless of the region they are in.
+     *
+     * @See TableProvider
+     */
+    @Override
+    public boolean isRegional()
+    {
+        return false;
+    }
+
     /**
      * @See TableProvider
      */
@@ -84,6 +101,7 @@ public class S3BucketsTableProvider
     @Override
     public void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
     {
+        AmazonS3 amazonS3 = amazonS3Clients.getClient(recordsRequest.getSplit());
         for (Bucket next : amazonS3.listBuckets()) {
             toRow(next, spiller);
         }
@@ -24,18 +24,38 @@ import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTarget;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTargetClients;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.TableProvider;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.ListObjectsV2Request;
 import com.amazonaws.services.s3.model.ListObjectsV2Result;
 import com.amazonaws.services.s3.model.Owner;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.base.Strings;
 import org.apache.arrow.vector.types.pojo.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Maps your S3 Objects to a table.
@@ -43,13 +63,38 @@ import org.apache.arrow.vector.types.pojo.Schema;
 public class S3ObjectsTableProvider
         implements TableProvider
 {
+    private static final Logger logger = LoggerFactory.getLogger(S3ObjectsTableProvider.class);
+
     private static final int MAX_KEYS = 1000;
+    private static final String DELIMITER = "/";
+    private static final String ACCESS_DENIED = "AccessDenied";
+    private static final String NO_SUCH_BUCKET = "NoSuchBucket";
+    //The most single sub-folders to descend through when looking for a folder to break up.
+    private static final int MAX_FOLDER_DEPTH = 5;
+    //The most pages of sub-folders to list upfront, larger folders are broken up by KEY_RANGE_BOUNDARIES instead.
+    private static final int MAX_FOLDER_PAGES = 10;
+    //Characters that break up the keys of a large folder into ranges, suits keys that start with digits or
+    //letters (e.g. dates, hashes and uuids).
+    private static final String KEY_RANGE_BOUNDARIES = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    //The Split property that holds the key prefix to list.
+    private static final String KEY_PREFIX_PROPERTY = "key_prefix";
+    //The Split property that is set when only the objects directly in the key prefix's folder are listed.
+    private static final String DELIMITER_PROPERTY = "delimiter";
+    //The Split property that holds the key after which to start listing.
+    private static final String START_AFTER_PROPERTY = "start_after";
+    //The Split property that holds the last key to list.
+    private static final String END_AT_PROPERTY = "end_at";
     private static final Schema SCHEMA;
-    private AmazonS3 amazonS3;
+    private ScanTargetClients<AmazonS3> amazonS3Clients;
 
     public S3ObjectsTableProvider(AmazonS3 amazonS3)
     {
-        this.amazonS3 = amazonS3;
+        this(ScanTargetClients.of(amazonS3));
+    }
+
+    public S3ObjectsTableProvider(ScanTargetClients<AmazonS3> amazonS3Clients)
+    {
+        this.amazonS3Clients = amazonS3Clients;
     }
 
     /**
@@ -70,6 +115,17 @@ public class S3ObjectsTableProvider
         return new TableName(getSchema(), "objects");
     }
 
+    /**
+     * S3 buckets are global, the account's client lists them regardless of the region they are in.
+     *
+     * @See TableProvider
+     */
+    @Override
+    public boolean isRegional()
+    {
+        return false;
+    }
+
     /**
      * @See TableProvider
      */
@@ -80,29 +136,76 @@ public class S3ObjectsTableProvider
     }
 
     /**
-     * Calls DescribeDBInstances on the AWS RDS Client returning all DB Instances that match the supplied predicate and attempting
-     * to push down certain predicates (namely queries for specific DB Instance) to EC2.
+     * Breaks up the listing of the requested bucket into Splits that each list a disjoint part of its keys. Folders
+     * (common prefixes of the / delimiter) get a Split each, the objects directly in the folder get another. Folders
+     * with too many objects or sub-folders to list upfront are broken up into ranges of keys instead. Only the first
+     * account that can list the bucket is scanned, as bucket names are global.
      *
      * @See TableProvider
      */
     @Override
-    public void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
+    public Set<Split> getSplits(GetSplitsRequest request, List<ScanTarget> targets, Supplier<Split.Builder> newSplit)
     {
-        ValueSet bucketConstraint = recordsRequest.getConstraints().getSummary().get("bucket_name");
-        String bucket;
-        if (bucketConstraint != null && bucketConstraint.isSingleValue()) {
-            bucket = bucketConstraint.getSingleValue().toString();
-        }
-        else {
-            throw new IllegalArgumentException("Queries against the objects table must filter on a single bucket " +
-                    "(e.g. where bucket_name='my_bucket'.");
+        String bucket = getBucket(request.getConstraints());
+        String keyPrefix = getKeyPrefix(request.getConstraints());
+
+        for (int i = 0; i < targets.size(); i++) {
+            ScanTarget target = targets.get(i);
+            List<Map<String, String>> keyRanges;
+            try {
+                keyRanges = makeKeyRanges(amazonS3Clients.getClient(target), bucket, keyPrefix);
+            }
+            catch (AmazonS3Exception ex) {
+                //Another account may own the bucket.
+                boolean otherAccount = ACCESS_DENIED.equals(ex.getErrorCode()) || NO_SUCH_BUCKET.equals(ex.getErrorCode());
+                if (!otherAccount || i == targets.size() - 1) {
+                    throw ex;
+                }
+                logger.info("getSplits: Unable to list bucket {} from {}, {}", bucket, target, ex.getErrorCode());
+                continue;
+            }
+
+            logger.info("getSplits: Listing bucket {} from {} with {} splits", bucket, target, keyRanges.size());
+            Set<Split> splits = new HashSet<>();
+            for (Map<String, String> keyRange : keyRanges) {
+                Split.Builder split = target.addTo(newSplit.get());
+                keyRange.forEach(split::add);
+                splits.add(split.build());
+            }
+            return splits;
         }
+        throw new IllegalArgumentException("No account to list bucket " + bucket + " from.");
+    }
 
-        ListObjectsV2Request req = new ListObjectsV2Request().withBucketName(bucket).withMaxKeys(MAX_KEYS);
+    /**
+     * Calls ListObjectsV2 on the AWS S3 Client returning all objects in the Split's range of keys that match the supplied
+     * predicate. The bucket_name predicate is required, predicates on key are pushed down to S3 as a key prefix.
+     *
+     * @See TableProvider
+     */
+    @Override
+    public void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
+    {
+        AmazonS3 amazonS3 = amazonS3Clients.getClient(recordsRequest.getSplit());
+        Split split = recordsRequest.getSplit();
+        String bucket = getBucket(recordsRequest.getConstraints());
+        String keyPrefix = (split.getProperty(KEY_PREFIX_PROPERTY) != null) ?
+                split.getProperty(KEY_PREFIX_PROPERTY) : getKeyPrefix(recordsRequest.getConstraints());
+        String endAt = split.getProperty(END_AT_PROPERTY);
+
+        ListObjectsV2Request req = new ListObjectsV2Request()
+                .withBucketName(bucket)
+                .withMaxKeys(MAX_KEYS)
+                .withPrefix(keyPrefix)
+                .withDelimiter(split.getProperty(DELIMITER_PROPERTY))
+                .withStartAfter(split.getProperty(START_AFTER_PROPERTY));
         ListObjectsV2Result result;
         do {
             result = amazonS3.listObjectsV2(req);
             for (S3ObjectSummary objectSummary : result.getObjectSummaries()) {
+                if (endAt != null && objectSummary.getKey().compareTo(endAt) > 0) {
+                    return;
+                }
                 toRow(objectSummary, spiller);
             }
             req.setContinuationToken(result.getNextContinuationToken());
@@ -110,6 +213,127 @@ public class S3ObjectsTableProvider
         while (result.isTruncated() && queryStatusChecker.isQueryRunning());
     }
 
+    /**
+     * Lists the folders under the given key prefix to decide how to break up the listing of the bucket.
+     *
+     * @param amazonS3 The client to list the bucket with.
+     * @param bucket The bucket to list.
+     * @param keyPrefix The key prefix to list, null for the whole bucket.
+     * @return The Split properties of each range of keys.
+     */
+    private List<Map<String, String>> makeKeyRanges(AmazonS3 amazonS3, String bucket, String keyPrefix)
+    {
+        String folder = keyPrefix;
+        ListObjectsV2Result result = listFolder(amazonS3, bucket, folder, null);
+
+        //Skip past folders that only contain a single sub-folder (e.g. data/year=2020/), they can't be broken up.
+        for (int depth = 0; depth < MAX_FOLDER_DEPTH && !result.isTruncated() && result.getObjectSummaries().isEmpty()
+                && result.getCommonPrefixes().size() == 1; depth++) {
+            folder = result.getCommonPrefixes().get(0);
+            result = listFolder(amazonS3, bucket, folder, null);
+        }
+
+        List<String> subFolders = new ArrayList<>(result.getCommonPrefixes());
+        for (int page = 1; page < MAX_FOLDER_PAGES && result.isTruncated() && !subFolders.isEmpty(); page++) {
+            result = listFolder(amazonS3, bucket, folder, result.getNextContinuationToken());
+            subFolders.addAll(result.getCommonPrefixes());
+        }
+
+        List<Map<String, String>> keyRanges = new ArrayList<>();
+        if (result.isTruncated()) {
+            //Too many objects or sub-folders to list upfront, break up the folder's keys by their next character.
+            String previous = null;
+            for (char boundary : KEY_RANGE_BOUNDARIES.toCharArray()) {
+                String next = Strings.nullToEmpty(folder) + boundary;
+                keyRanges.add(makeKeyRange(folder, null, previous, next));
+                previous = next;
+            }
+            keyRanges.add(makeKeyRange(folder, null, previous, null));
+        }
+        else if (subFolders.isEmpty()) {
+            keyRanges.add(makeKeyRange(folder, null, null, null));
+        }
+        else {
+            //The objects directly in the folder, then each of its sub-folders.
+            keyRanges.add(makeKeyRange(folder, DELIMITER, null, null));
+            for (String subFolder : subFolders) {
+                keyRanges.add(makeKeyRange(subFolder, null, null, null));
+            }
+        }
+        return keyRanges;
+    }
+
+    private ListObjectsV2Result listFolder(AmazonS3 amazonS3, String bucket, String folder, String continuationToken)
+    {
+        return amazonS3.listObjectsV2(new ListObjectsV2Request()
+                .withBucketName(bucket)
+                .withMaxKeys(MAX_KEYS)
+                .withPrefix(folder)
+                .withDelimiter(DELIMITER)
+                .withContinuationToken(continuationToken));
+    }
+
+    /**
+     * @return The Split properties of the range of keys, properties that are null are left out.
+     */
+    private Map<String, String> makeKeyRange(String keyPrefix, String delimiter, String startAfter, String endAt)
+    {
+        Map<String, String> keyRange = new HashMap<>();
+        if (keyPrefix != null) {
+            keyRange.put(KEY_PREFIX_PROPERTY, keyPrefix);
+        }
+        if (delimiter != null) {
+            keyRange.put(DELIMITER_PROPERTY, delimiter);
+        }
+        if (startAfter != null) {
+            keyRange.put(START_AFTER_PROPERTY, startAfter);
+        }
+        if (endAt != null) {
+            keyRange.put(END_AT_PROPERTY, endAt);
+        }
+        return keyRange;
+    }
+
+    private String getBucket(Constraints constraints)
+    {
+        ValueSet bucketConstraint = constraints.getSummary().get("bucket_name");
+        if (bucketConstraint != null && bucketConstraint.isSingleValue()) {
+            return bucketConstraint.getSingleValue().toString();
+        }
+        throw new IllegalArgumentException("Queries against the objects table must filter on a single bucket " +
+                "(e.g. where bucket_name='my_bucket'.");
+    }
+
+    /**
+     * Finds the key prefix that every key allowed by the key predicate starts with (e.g. key >= 'logs/2020'
+     * AND key < 'logs/2021' gives logs/202).
+     *
+     * @return The key prefix, null if there is no such prefix.
+     */
+    private String getKeyPrefix(Constraints constraints)
+    {
+        ValueSet keyConstraint = constraints.getSummary().get("key");
+        if (keyConstraint == null || keyConstraint.isNullAllowed() || keyConstraint.isNone()) {
+            return null;
+        }
+
+        String keyPrefix = null;
+        if (keyConstraint instanceof EquatableValueSet && ((EquatableValueSet) keyConstraint).isWhiteList()) {
+            EquatableValueSet values = (EquatableValueSet) keyConstraint;
+            keyPrefix = values.getValue(0).toString();
+            for (int i = 1; i < values.getValues().getRowCount(); i++) {
+                keyPrefix = Strings.commonPrefix(keyPrefix, values.getValue(i).toString());
+            }
+        }
+        else if (keyConstraint instanceof SortedRangeSet) {
+            Range span = keyConstraint.getRanges().getSpan();
+            if (!span.getLow().isLowerUnbounded() && !span.getHigh().isUpperUnbounded()) {
+                keyPrefix = Strings.commonPrefix(span.getLow().getValue().toString(), span.getHigh().getValue().toString());
+            }
+        }
+        return Strings.emptyToNull(keyPrefix);
+    }
+
     /**
      * Maps a DBInstance into a row in our Apache Arrow response block(s).
      *
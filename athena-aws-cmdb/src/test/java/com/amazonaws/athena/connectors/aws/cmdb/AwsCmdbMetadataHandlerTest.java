@@ -53,6 +53,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest.UNLIMITED_PAGE_SIZE_VALUE;
@@ -205,4 +207,45 @@ public class AwsCmdbMetadataHandlerTest
 
         assertNotNull(response);
     }
+
+    @Test
+    public void doGetSplitsPerScanTarget()
+    {
+        AwsCmdbMetadataHandler handler = new AwsCmdbMetadataHandler(mockTableProviderFactory, new LocalKeyFactory(), mockSecretsManager, mockAthena, bucket, prefix,
+                com.google.common.collect.ImmutableMap.of(ScanTarget.REGIONS, "us-east-1, us-west-2",
+                        ScanTarget.ACCOUNT_ROLE_ARNS, "arn:aws:iam::111:role/cmdb,arn:aws:iam::222:role/cmdb"));
+        when(mockTableProvider1.isRegional()).thenReturn(true);
+        when(mockTableProvider1.getSplits(any(), any(), any())).thenCallRealMethod();
+        when(mockTableProvider2.getSplits(any(), any(), any())).thenCallRealMethod();
+
+        GetSplitsRequest request = new GetSplitsRequest(identity, queryId, catalog,
+                new TableName("schema1", "table1"),
+                mockBlock,
+                Collections.emptyList(),
+                new Constraints(new HashMap<>(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT),
+                null);
+
+        GetSplitsResponse response = handler.doGetSplits(blockAllocator, request);
+
+        Set<ScanTarget> targets = response.getSplits().stream().map(ScanTarget::fromSplit).collect(Collectors.toSet());
+        assertEquals(4, response.getSplits().size());
+        assertEquals(4, response.getSplits().stream().map(next -> next.getSpillLocation()).distinct().count());
+        assertTrue(targets.contains(new ScanTarget("arn:aws:iam::111:role/cmdb", "us-east-1")));
+        assertTrue(targets.contains(new ScanTarget("arn:aws:iam::111:role/cmdb", "us-west-2")));
+        assertTrue(targets.contains(new ScanTarget("arn:aws:iam::222:role/cmdb", "us-east-1")));
+        assertTrue(targets.contains(new ScanTarget("arn:aws:iam::222:role/cmdb", "us-west-2")));
+
+        //Global resources are only scanned once per account.
+        GetSplitsRequest globalRequest = new GetSplitsRequest(identity, queryId, catalog,
+                new TableName("schema1", "table2"),
+                mockBlock,
+                Collections.emptyList(),
+                new Constraints(new HashMap<>(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT),
+                null);
+
+        GetSplitsResponse globalResponse = handler.doGetSplits(blockAllocator, globalRequest);
+
+        assertEquals(2, globalResponse.getSplits().size());
+        assertEquals(Collections.singleton(null), globalResponse.getSplits().stream().map(next -> next.getProperty(ScanTarget.REGION_PROPERTY)).collect(Collectors.toSet()));
+    }
 }
@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connectors.aws.cmdb;
 
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
@@ -46,8 +47,11 @@ import java.util.Collections;
 import java.util.UUID;
 
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -123,4 +127,43 @@ public class AwsCmdbRecordHandlerTest
 
         verify(mockTableProvider, times(1)).readWithConstraint(nullable(BlockSpiller.class), eq(request), eq(queryStatusChecker));
     }
+
+    @Test
+    public void readWithConstraintResourceNotFoundInScanTarget()
+    {
+        AmazonServiceException notFound = new AmazonServiceException("The instance ID 'i-123' does not exist");
+        notFound.setErrorCode("InvalidInstanceID.NotFound");
+        doThrow(notFound).when(mockTableProvider).readWithConstraint(nullable(BlockSpiller.class), nullable(ReadRecordsRequest.class), eq(queryStatusChecker));
+
+        //A region that doesn't have the requested resource returns no rows.
+        handler.readWithConstraint(mockBlockSpiller, makeRequest(new ScanTarget(null, "us-west-2")), queryStatusChecker);
+
+        //Without fan-out the error is still reported.
+        try {
+            handler.readWithConstraint(mockBlockSpiller, makeRequest(ScanTarget.DEFAULT), queryStatusChecker);
+            fail("Expected an AmazonServiceException");
+        }
+        catch (AmazonServiceException ex) {
+            assertEquals("InvalidInstanceID.NotFound", ex.getErrorCode());
+        }
+    }
+
+    private ReadRecordsRequest makeRequest(ScanTarget target)
+    {
+        Split.Builder split = Split.newBuilder(S3SpillLocation.newBuilder()
+                .withBucket(bucket)
+                .withSplitId(UUID.randomUUID().toString())
+                .withQueryId(UUID.randomUUID().toString())
+                .withIsDirectory(true)
+                .build(), keyFactory.create());
+
+        return new ReadRecordsRequest(identity, "catalog",
+                "queryId",
+                new TableName("schema", "table"),
+                SchemaBuilder.newBuilder().build(),
+                target.addTo(split).build(),
+                new Constraints(Collections.EMPTY_MAP, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT),
+                100_000,
+                100_000);
+    }
 }
@@ -0,0 +1,65 @@
+/*-
+ * #%L
+ * athena-aws-cmdb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.aws.cmdb;
+
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ScanTargetTest
+{
+    @Test
+    public void fromConfig()
+    {
+        assertEquals(ImmutableList.of(ScanTarget.DEFAULT), ScanTarget.fromConfig(ImmutableMap.of(), true));
+        assertEquals(ImmutableList.of(ScanTarget.DEFAULT), ScanTarget.fromConfig(ImmutableMap.of(ScanTarget.REGIONS, " , "), true));
+
+        assertEquals(ImmutableList.of(new ScanTarget(null, "us-east-1"), new ScanTarget(null, "eu-west-1")),
+                ScanTarget.fromConfig(ImmutableMap.of(ScanTarget.REGIONS, "us-east-1, eu-west-1,us-east-1"), true));
+
+        ImmutableMap<String, String> config = ImmutableMap.of(ScanTarget.REGIONS, "us-east-1,eu-west-1",
+                ScanTarget.ACCOUNT_ROLE_ARNS, "arn:aws:iam::111:role/cmdb,arn:aws:iam::222:role/cmdb");
+        assertEquals(ImmutableList.of(new ScanTarget("arn:aws:iam::111:role/cmdb", "us-east-1"),
+                new ScanTarget("arn:aws:iam::111:role/cmdb", "eu-west-1"),
+                new ScanTarget("arn:aws:iam::222:role/cmdb", "us-east-1"),
+                new ScanTarget("arn:aws:iam::222:role/cmdb", "eu-west-1")),
+                ScanTarget.fromConfig(config, true));
+        assertEquals(ImmutableList.of(new ScanTarget("arn:aws:iam::111:role/cmdb", null), new ScanTarget("arn:aws:iam::222:role/cmdb", null)),
+                ScanTarget.fromConfig(config, false));
+    }
+
+    @Test
+    public void splitRoundTrip()
+    {
+        assertSame(ScanTarget.DEFAULT, ScanTarget.fromSplit(ScanTarget.DEFAULT.addTo(Split.newBuilder(null, null)).build()));
+
+        ScanTarget target = new ScanTarget("arn:aws:iam::111:role/cmdb", "eu-west-1");
+        Split split = target.addTo(Split.newBuilder(null, null)).build();
+        assertEquals("eu-west-1", split.getProperty(ScanTarget.REGION_PROPERTY));
+        assertEquals(target, ScanTarget.fromSplit(split));
+
+        ScanTarget regionOnly = new ScanTarget(null, "eu-west-1");
+        assertEquals(regionOnly, ScanTarget.fromSplit(regionOnly.addTo(Split.newBuilder(null, null)).build()));
+    }
+}
@@ -19,14 +19,29 @@
  */
 package com.amazonaws.athena.connectors.aws.cmdb.tables.ec2;
 
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.AbstractTableProviderTest;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.TableProvider;
 import com.amazonaws.services.ec2.AmazonEC2;
 import com.amazonaws.services.ec2.model.DescribeInstancesRequest;
 import com.amazonaws.services.ec2.model.DescribeInstancesResult;
 import com.amazonaws.services.ec2.model.EbsInstanceBlockDevice;
+import com.amazonaws.services.ec2.model.Filter;
 import com.amazonaws.services.ec2.model.GroupIdentifier;
 import com.amazonaws.services.ec2.model.Instance;
 import com.amazonaws.services.ec2.model.InstanceBlockDeviceMapping;
@@ -36,9 +51,11 @@ import com.amazonaws.services.ec2.model.Reservation;
 import com.amazonaws.services.ec2.model.StateReason;
 import com.amazonaws.services.ec2.model.Tag;
 
+import com.google.common.collect.ImmutableSet;
 import org.apache.arrow.vector.complex.reader.FieldReader;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.invocation.InvocationOnMock;
@@ -47,12 +64,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -110,6 +136,58 @@ public class Ec2TableProviderTest
         });
     }
 
+    @Test
+    public void readWithFiltersAndPages()
+    {
+        try (BlockAllocator allocator = new BlockAllocatorImpl()) {
+            Map<String, ValueSet> constraintsMap = new HashMap<>();
+            constraintsMap.put("vpc_id", EquatableValueSet.newBuilder(allocator, Types.MinorType.VARCHAR.getType(), true, false)
+                    .add("vpc-1").add("vpc-2").build());
+            constraintsMap.put("instance_id", SortedRangeSet.of(false,
+                    Range.equal(allocator, Types.MinorType.VARCHAR.getType(), "i-1"),
+                    Range.equal(allocator, Types.MinorType.VARCHAR.getType(), "i-2")));
+            //Ranges can't be pushed down to EC2.
+            constraintsMap.put("subnet_id", SortedRangeSet.of(false,
+                    Range.greaterThan(allocator, Types.MinorType.VARCHAR.getType(), "subnet-1")));
+
+            ReadRecordsRequest request = new ReadRecordsRequest(new FederatedIdentity("arn", "account", Collections.emptyMap(), Collections.emptyList()),
+                    "catalog",
+                    "queryId",
+                    new TableName(getExpectedSchema(), getExpectedTable()),
+                    SchemaBuilder.newBuilder().build(),
+                    Split.newBuilder(null, null).build(),
+                    new Constraints(constraintsMap, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT),
+                    100_000_000,
+                    100_000_000);
+
+            List<DescribeInstancesRequest> requests = new ArrayList<>();
+            when(mockEc2.describeInstances(nullable(DescribeInstancesRequest.class))).thenAnswer((InvocationOnMock invocation) -> {
+                DescribeInstancesRequest next = (DescribeInstancesRequest) invocation.getArguments()[0];
+                requests.add(next);
+                return new DescribeInstancesResult()
+                        .withReservations(makeReservation())
+                        .withNextToken(next.getNextToken() == null ? "page2" : null);
+            });
+
+            QueryStatusChecker queryStatusChecker = mock(QueryStatusChecker.class);
+            when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+            BlockSpiller spiller = mock(BlockSpiller.class);
+
+            setUpSource().readWithConstraint(spiller, request, queryStatusChecker);
+
+            assertEquals(2, requests.size());
+            assertEquals("page2", requests.get(1).getNextToken());
+            for (DescribeInstancesRequest next : requests) {
+                assertTrue(next.getInstanceIds().isEmpty());
+                assertEquals(2, next.getFilters().size());
+                assertTrue(next.getFilters().contains(new Filter("instance-id", Arrays.asList("i-1", "i-2"))));
+                Filter vpcFilter = next.getFilters().stream().filter(filter -> filter.getName().equals("vpc-id")).findFirst().get();
+                assertEquals(ImmutableSet.of("vpc-1", "vpc-2"), new HashSet<>(vpcFilter.getValues()));
+            }
+            verify(spiller, times(6)).writeRows(any());
+        }
+    }
+
     protected void validateRow(Block block, int pos)
     {
         for (FieldReader fieldReader : block.getFieldReaders()) {
@@ -19,8 +19,24 @@
  */
 package com.amazonaws.athena.connectors.aws.cmdb.tables.s3;
 
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
+import com.amazonaws.athena.connectors.aws.cmdb.ScanTarget;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.AbstractTableProviderTest;
 import com.amazonaws.athena.connectors.aws.cmdb.tables.TableProvider;
 import com.amazonaws.services.s3.AmazonS3;
@@ -28,24 +44,39 @@ import com.amazonaws.services.s3.model.ListObjectsV2Request;
 import com.amazonaws.services.s3.model.ListObjectsV2Result;
 import com.amazonaws.services.s3.model.Owner;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.apache.arrow.vector.complex.reader.FieldReader;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Field;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class S3ObjectsTableProviderTest
@@ -56,6 +87,21 @@ public class S3ObjectsTableProviderTest
     @Mock
     private AmazonS3 mockS3;
 
+    private final FederatedIdentity identity = new FederatedIdentity("arn", "account", Collections.emptyMap(), Collections.emptyList());
+    private BlockAllocator allocator;
+
+    @Before
+    public void setUpAllocator()
+    {
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @After
+    public void closeAllocator()
+    {
+        allocator.close();
+    }
+
     protected String getIdField()
     {
         return "bucket_name";
@@ -114,6 +160,122 @@ public class S3ObjectsTableProviderTest
         });
     }
 
+    @Test
+    public void getSplitsByFolder()
+    {
+        when(mockS3.listObjectsV2(nullable(ListObjectsV2Request.class))).thenAnswer((InvocationOnMock invocation) -> {
+            ListObjectsV2Request request = (ListObjectsV2Request) invocation.getArguments()[0];
+            assertEquals("/", request.getDelimiter());
+            ListObjectsV2Result result = new ListObjectsV2Result();
+            if (request.getPrefix() == null) {
+                result.getCommonPrefixes().add("data/");
+            }
+            else {
+                assertEquals("data/", request.getPrefix());
+                result.getObjectSummaries().add(makeObjectSummary(getIdValue()));
+                result.getCommonPrefixes().add("data/a/");
+                result.getCommonPrefixes().add("data/b/");
+            }
+            return result;
+        });
+
+        Set<Map<String, String>> splits = getSplits(Collections.emptyMap());
+
+        assertEquals(ImmutableSet.of(ImmutableMap.of("key_prefix", "data/", "delimiter", "/"),
+                ImmutableMap.of("key_prefix", "data/a/"),
+                ImmutableMap.of("key_prefix", "data/b/")), splits);
+    }
+
+    @Test
+    public void getSplitsByKeyRange()
+    {
+        when(mockS3.listObjectsV2(nullable(ListObjectsV2Request.class))).thenAnswer((InvocationOnMock invocation) -> {
+            ListObjectsV2Request request = (ListObjectsV2Request) invocation.getArguments()[0];
+            assertEquals("logs/2020-", request.getPrefix());
+            ListObjectsV2Result result = new ListObjectsV2Result();
+            result.getObjectSummaries().add(makeObjectSummary(getIdValue()));
+            result.setTruncated(true);
+            result.setNextContinuationToken("token");
+            return result;
+        });
+
+        Set<Map<String, String>> splits = getSplits(Collections.singletonMap("key", SortedRangeSet.of(false,
+                Range.range(allocator, Types.MinorType.VARCHAR.getType(), "logs/2020-01", true, "logs/2020-12", false))));
+
+        assertEquals(63, splits.size());
+        assertTrue(splits.contains(ImmutableMap.of("key_prefix", "logs/2020-", "end_at", "logs/2020-0")));
+        assertTrue(splits.contains(ImmutableMap.of("key_prefix", "logs/2020-", "start_after", "logs/2020-0", "end_at", "logs/2020-1")));
+        assertTrue(splits.contains(ImmutableMap.of("key_prefix", "logs/2020-", "start_after", "logs/2020-z")));
+    }
+
+    @Test
+    public void readKeyRange()
+    {
+        when(mockS3.listObjectsV2(nullable(ListObjectsV2Request.class))).thenAnswer((InvocationOnMock invocation) -> {
+            ListObjectsV2Request request = (ListObjectsV2Request) invocation.getArguments()[0];
+            assertEquals("data/", request.getPrefix());
+            assertEquals("data/b", request.getStartAfter());
+            ListObjectsV2Result result = new ListObjectsV2Result();
+            for (String key : new String[] {"data/b1", "data/c", "data/c1"}) {
+                S3ObjectSummary summary = makeObjectSummary(getIdValue());
+                summary.setKey(key);
+                result.getObjectSummaries().add(summary);
+            }
+            //The listing stops at the end of the range, before the next page.
+            result.setTruncated(true);
+            result.setNextContinuationToken("token");
+            return result;
+        });
+
+        Split split = Split.newBuilder(null, null)
+                .add("key_prefix", "data/")
+                .add("start_after", "data/b")
+                .add("end_at", "data/c")
+                .build();
+        ReadRecordsRequest request = new ReadRecordsRequest(identity,
+                "catalog",
+                "queryId",
+                new TableName(getExpectedSchema(), getExpectedTable()),
+                SchemaBuilder.newBuilder().build(),
+                split,
+                makeConstraints(Collections.emptyMap()),
+                100_000_000,
+                100_000_000);
+        BlockSpiller spiller = mock(BlockSpiller.class);
+        QueryStatusChecker queryStatusChecker = mock(QueryStatusChecker.class);
+        Mockito.lenient().when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+        setUpSource().readWithConstraint(spiller, request, queryStatusChecker);
+
+        verify(spiller, times(2)).writeRows(any());
+        verify(mockS3, times(1)).listObjectsV2(nullable(ListObjectsV2Request.class));
+    }
+
+    private Set<Map<String, String>> getSplits(Map<String, ValueSet> keyConstraint)
+    {
+        GetSplitsRequest request = new GetSplitsRequest(identity,
+                "queryId",
+                "catalog",
+                new TableName(getExpectedSchema(), getExpectedTable()),
+                mock(Block.class),
+                Collections.emptyList(),
+                makeConstraints(keyConstraint),
+                null);
+
+        return setUpSource().getSplits(request, Collections.singletonList(ScanTarget.DEFAULT), () -> Split.newBuilder(null, null))
+                .stream()
+                .map(Split::getProperties)
+                .collect(Collectors.toSet());
+    }
+
+    private Constraints makeConstraints(Map<String, ValueSet> keyConstraint)
+    {
+        Map<String, ValueSet> constraints = new HashMap<>(keyConstraint);
+        constraints.put(getIdField(), EquatableValueSet.newBuilder(allocator, Types.MinorType.VARCHAR.getType(), true, false)
+                .add(getIdValue()).build());
+        return new Constraints(constraints, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT);
+    }
+
     protected void validateRow(Block block, int pos)
     {
         for (FieldReader fieldReader : block.getFieldReaders()) {
@@ -0,0 +1,130 @@
+/*-
+ * #%L
+ * athena-cloudwatch-metrics
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.cloudwatch.metrics;
+
+import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
+import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.model.ListMetricsRequest;
+import com.amazonaws.services.cloudwatch.model.ListMetricsResult;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Caches the pages returned by Cloudwatch Metrics' ListMetrics API so that metric discovery is not repeated for
+ * every query (and every split) that targets the same namespace, metric name, and dimension filter. Each page is
+ * cached independently, keyed by the pushed down filters plus the page's NextToken, which keeps the cache compatible
+ * with the continuation token based paging used when generating splits.
+ *
+ * @note Cloudwatch itself can take several minutes to make new metrics visible to ListMetrics so a short TTL does not
+ * meaningfully change the freshness of the results. Setting the TTL to 0 disables caching.
+ */
+public class ListMetricsCache
+{
+    private static final Logger logger = LoggerFactory.getLogger(ListMetricsCache.class);
+
+    //Config that controls how long (in seconds) ListMetrics pages are cached for, 0 disables caching.
+    protected static final String LIST_METRICS_CACHE_TTL_SECONDS = "list_metrics_cache_ttl_seconds";
+    //Config that controls the max number of ListMetrics pages to keep in the cache.
+    protected static final String LIST_METRICS_CACHE_MAX_ENTRIES = "list_metrics_cache_max_entries";
+
+    private static final long DEFAULT_TTL_SECONDS = 300;
+    private static final long DEFAULT_MAX_ENTRIES = 1_000;
+
+    private final AmazonCloudWatch metrics;
+    private final ThrottlingInvoker invoker;
+    //Null when caching has been disabled.
+    private final Cache<ListMetricsRequest, ListMetricsResult> cache;
+
+    /**
+     * Constructs a ListMetricsCache using the TTL and size limits found in the supplied config.
+     *
+     * @param metrics The Cloudwatch Metrics client to use for cache misses.
+     * @param invoker The ThrottlingInvoker to use when calling ListMetrics.
+     * @param configOptions The connector's config, used to resolve the TTL and size of the cache.
+     */
+    public ListMetricsCache(AmazonCloudWatch metrics, ThrottlingInvoker invoker, Map<String, String> configOptions)
+    {
+        this(metrics, invoker, getLong(configOptions, LIST_METRICS_CACHE_TTL_SECONDS, DEFAULT_TTL_SECONDS),
+                getLong(configOptions, LIST_METRICS_CACHE_MAX_ENTRIES, DEFAULT_MAX_ENTRIES));
+    }
+
+    /**
+     * Constructs a ListMetricsCache.
+     *
+     * @param metrics The Cloudwatch Metrics client to use for cache misses.
+     * @param invoker The ThrottlingInvoker to use when calling ListMetrics.
+     * @param ttlSeconds How long a cached page remains valid, 0 disables caching.
+     * @param maxEntries The max number of pages to cache.
+     */
+    public ListMetricsCache(AmazonCloudWatch metrics, ThrottlingInvoker invoker, long ttlSeconds, long maxEntries)
+    {
+        this.metrics = metrics;
+        this.invoker = invoker;
+        this.cache = (ttlSeconds <= 0) ? null : CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Returns the ListMetrics page for the supplied request, calling Cloudwatch Metrics only if the page was not already
+     * cached. The returned result is shared with other callers and must not be modified.
+     *
+     * @param request The ListMetricsRequest, including any pushed down filters and the NextToken of the page to list.
+     * @return The ListMetricsResult for the requested page.
+     * @throws TimeoutException If the ThrottlingInvoker timed out while calling ListMetrics.
+     */
+    public ListMetricsResult listMetrics(ListMetricsRequest request)
+            throws TimeoutException
+    {
+        if (cache == null) {
+            return invoker.invoke(() -> metrics.listMetrics(request));
+        }
+
+        //Copy the request so that later mutations by the caller (e.g. setNextToken) can't corrupt the cache key.
+        ListMetricsRequest key = request.clone();
+        try {
+            return cache.get(key, () -> {
+                logger.info("listMetrics: cache miss for {}", key);
+                return invoker.invoke(() -> metrics.listMetrics(key));
+            });
+        }
+        catch (ExecutionException | UncheckedExecutionException ex) {
+            if (ex.getCause() instanceof TimeoutException) {
+                throw (TimeoutException) ex.getCause();
+            }
+            throw (ex.getCause() instanceof RuntimeException) ? (RuntimeException) ex.getCause() : new RuntimeException(ex.getCause());
+        }
+    }
+
+    private static long getLong(Map<String, String> configOptions, String key, long defaultValue)
+    {
+        String value = configOptions.get(key);
+        return (value != null) ? Long.parseLong(value) : defaultValue;
+    }
+}
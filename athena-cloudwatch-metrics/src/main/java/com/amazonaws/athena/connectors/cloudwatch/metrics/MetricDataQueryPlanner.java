@@ -0,0 +1,139 @@
+/*-
+ * #%L
+ * athena-cloudwatch-metrics
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.cloudwatch.metrics;
+
+import com.amazonaws.services.cloudwatch.model.GetMetricDataRequest;
+import com.amazonaws.services.cloudwatch.model.MetricDataQuery;
+import com.amazonaws.services.cloudwatch.model.MetricStat;
+import com.google.common.collect.Lists;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides how the MetricStats that match a query are packed into Splits and how each Split's MetricStats are packed
+ * into GetMetricData requests. GetMetricData accepts up to 500 MetricDataQuery entries per call, so the planner
+ * fills each request as close to that limit as possible while still producing enough splits for some parallelism.
+ * <p>
+ * Splits may be configured to hold more MetricStats than fit in a single GetMetricData request, in which case the
+ * MetricsRecordHandler will page through the resulting requests concurrently.
+ */
+public class MetricDataQueryPlanner
+{
+    //The max number of MetricDataQuery entries that GetMetricData accepts in a single request.
+    protected static final int MAX_QUERIES_PER_REQUEST = 500;
+    //Config that controls the max number of MetricStats placed in a single split.
+    protected static final String METRICS_PER_SPLIT = "metrics_per_split";
+    //Config that controls how many GetMetricData requests a single split may page through concurrently.
+    protected static final String METRIC_DATA_CONCURRENCY = "metric_data_concurrency";
+
+    //By default each split holds exactly one maximally sized GetMetricData request.
+    private static final int DEFAULT_METRICS_PER_SPLIT = MAX_QUERIES_PER_REQUEST;
+    private static final int DEFAULT_METRIC_DATA_CONCURRENCY = 4;
+    //The minimum number of splits we'd like to have for some parallelization
+    private static final int MIN_NUM_SPLITS_FOR_PARALLELIZATION = 3;
+
+    private final int metricsPerSplit;
+    private final int concurrency;
+
+    public MetricDataQueryPlanner(Map<String, String> configOptions)
+    {
+        this(getInt(configOptions, METRICS_PER_SPLIT, DEFAULT_METRICS_PER_SPLIT),
+                getInt(configOptions, METRIC_DATA_CONCURRENCY, DEFAULT_METRIC_DATA_CONCURRENCY));
+    }
+
+    public MetricDataQueryPlanner(int metricsPerSplit, int concurrency)
+    {
+        if (metricsPerSplit < 1) {
+            throw new IllegalArgumentException("metricsPerSplit was " + metricsPerSplit + " but must be >= 1");
+        }
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency was " + concurrency + " but must be >= 1");
+        }
+        this.metricsPerSplit = metricsPerSplit;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Groups the supplied MetricStats into the batches that should each become a Split.
+     *
+     * @param metricStats The MetricStats which matched the query's constraints.
+     * @return The MetricStats for each split.
+     */
+    public List<List<MetricStat>> planSplits(List<MetricStat> metricStats)
+    {
+        if (metricStats.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return Lists.partition(metricStats, calculateSplitSize(metricStats.size()));
+    }
+
+    /**
+     * Breaks the supplied GetMetricData request into as few requests as possible while respecting the per request
+     * limit on MetricDataQuery entries. The resulting requests share the original time range and query ids.
+     *
+     * @param dataRequest The GetMetricDataRequest containing all the queries for a split.
+     * @return The GetMetricDataRequests to issue.
+     */
+    public List<GetMetricDataRequest> planRequests(GetMetricDataRequest dataRequest)
+    {
+        List<MetricDataQuery> queries = dataRequest.getMetricDataQueries();
+        if (queries.size() <= MAX_QUERIES_PER_REQUEST) {
+            return Lists.newArrayList(dataRequest);
+        }
+
+        List<GetMetricDataRequest> requests = new ArrayList<>();
+        for (List<MetricDataQuery> next : Lists.partition(queries, MAX_QUERIES_PER_REQUEST)) {
+            requests.add(new GetMetricDataRequest()
+                    .withMetricDataQueries(next)
+                    .withStartTime(dataRequest.getStartTime())
+                    .withEndTime(dataRequest.getEndTime())
+                    .withScanBy(dataRequest.getScanBy())
+                    .withMaxDatapoints(dataRequest.getMaxDatapoints()));
+        }
+        return requests;
+    }
+
+    /**
+     * @return The max number of GetMetricData requests that a single split should page through concurrently.
+     */
+    public int getConcurrency()
+    {
+        return concurrency;
+    }
+
+    /**
+     * Heuristically determines a split size by finding the minimum between:
+     * 1. a split size that will allow for some parallelization.
+     * 2. the configured maximum split size, which defaults to the largest possible GetMetricData request.
+     */
+    private int calculateSplitSize(int datapointCount)
+    {
+        int numDataPointsForParallelization = (int) Math.ceil((double) datapointCount / MIN_NUM_SPLITS_FOR_PARALLELIZATION);
+        return Math.min(numDataPointsForParallelization, metricsPerSplit);
+    }
+
+    private static int getInt(Map<String, String> configOptions, String key, int defaultValue)
+    {
+        String value = configOptions.get(key);
+        return (value != null) ? Integer.parseInt(value) : defaultValue;
+    }
+}
@@ -51,7 +51,6 @@ import com.amazonaws.services.cloudwatch.model.Metric;
 import com.amazonaws.services.cloudwatch.model.MetricStat;
 import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import com.amazonaws.util.CollectionUtils;
-import com.google.common.collect.Lists;
 import org.apache.arrow.util.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -100,12 +99,12 @@ public class MetricsMetadataHandler
     private static final Map<String, Table> TABLES = new HashMap<>();
     //The default metric period to query (60 seconds)
     private static final int DEFAULT_PERIOD_SEC = 60;
-    //GetMetricData supports up to 100 Metrics per split
-    private static final int MAX_METRICS_PER_SPLIT = 100;
-    //The minimum number of splits we'd like to have for some parallelization
-    private static final int MIN_NUM_SPLITS_FOR_PARALLELIZATION = 3;
     //Used to handle throttling events by applying AIMD congestion control
     private final ThrottlingInvoker invoker;
+    //Caches ListMetrics pages so that metric discovery isn't repeated for every query.
+    private final ListMetricsCache listMetricsCache;
+    //Decides how matching metrics are packed into splits.
+    private final MetricDataQueryPlanner planner;
 
     private final AmazonCloudWatch metrics;
 
@@ -135,6 +134,8 @@ public class MetricsMetadataHandler
         super(SOURCE_TYPE, configOptions);
         this.metrics = AmazonCloudWatchClientBuilder.standard().build();
         this.invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).build();
+        this.listMetricsCache = new ListMetricsCache(metrics, invoker, configOptions);
+        this.planner = new MetricDataQueryPlanner(configOptions);
     }
 
     @VisibleForTesting
@@ -150,6 +151,8 @@ public class MetricsMetadataHandler
         super(keyFactory, secretsManager, athena, SOURCE_TYPE, spillBucket, spillPrefix, configOptions);
         this.metrics = metrics;
         this.invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).build();
+        this.listMetricsCache = new ListMetricsCache(metrics, invoker, configOptions);
+        this.planner = new MetricDataQueryPlanner(configOptions);
     }
 
     /**
@@ -241,7 +244,7 @@ public class MetricsMetadataHandler
 
             String period = getPeriodFromConstraint(getSplitsRequest.getConstraints());
             Set<Split> splits = new HashSet<>();
-            ListMetricsResult result = invoker.invoke(() -> metrics.listMetrics(listMetricsRequest));
+            ListMetricsResult result = listMetricsCache.listMetrics(listMetricsRequest);
 
             List<MetricStat> metricStats = new ArrayList<>(100);
             for (Metric nextMetric : result.getMetrics()) {
@@ -269,8 +272,7 @@ public class MetricsMetadataHandler
                 return new GetSplitsResponse(getSplitsRequest.getCatalogName(), splits, continuationToken);
             }
 
-            List<List<MetricStat>> partitions = Lists.partition(metricStats, calculateSplitSize(metricStats.size()));
-            for (List<MetricStat> partition : partitions) {
+            for (List<MetricStat> partition : planner.planSplits(metricStats)) {
                 String serializedMetricStats = MetricStatSerDe.serialize(partition);
                 splits.add(Split.newBuilder(makeSpillLocation(getSplitsRequest), makeEncryptionKey())
                         .add(MetricStatSerDe.SERIALIZED_METRIC_STATS_FIELD_NAME, serializedMetricStats)
@@ -307,15 +309,4 @@ public class MetricsMetadataHandler
             throw new RuntimeException("Unknown table " + tableName);
         }
     }
-
-    /**
-     * Heuristically determines a split size by finding the minimum between:
-     * 1. a split size that will allow for some parallelization.
-     * 2. the maximum split size possible for a GetMetricData request.
-     */
-    private int calculateSplitSize(int datapointCount)
-    {
-        int numDataPointsForParallelization = (int) Math.ceil((double) datapointCount / MIN_NUM_SPLITS_FOR_PARALLELIZATION);
-        return Math.min(numDataPointsForParallelization, MAX_METRICS_PER_SPLIT);
-    }
 }
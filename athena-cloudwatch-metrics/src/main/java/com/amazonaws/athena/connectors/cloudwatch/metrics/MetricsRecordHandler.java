@@ -51,13 +51,22 @@ import org.apache.arrow.vector.types.pojo.Field;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
 import java.util.Date;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 
 import static com.amazonaws.athena.connector.lambda.data.FieldResolver.DEFAULT;
 import static com.amazonaws.athena.connectors.cloudwatch.metrics.MetricsExceptionFilter.EXCEPTION_FILTER;
@@ -101,6 +110,10 @@ public class MetricsRecordHandler
 
     private final AmazonS3 amazonS3;
     private final AmazonCloudWatch metrics;
+    //Caches ListMetrics pages so that metric discovery isn't repeated for every query.
+    private final ListMetricsCache listMetricsCache;
+    //Decides how a split's metrics are packed into GetMetricData requests.
+    private final MetricDataQueryPlanner planner;
 
     public MetricsRecordHandler(java.util.Map<String, String> configOptions)
     {
@@ -120,6 +133,8 @@ public class MetricsRecordHandler
             .withInitialDelayMs(THROTTLING_INITIAL_DELAY)
             .withIncrease(THROTTLING_INCREMENTAL_INCREASE)
             .build();
+        this.listMetricsCache = new ListMetricsCache(metrics, invoker, configOptions);
+        this.planner = new MetricDataQueryPlanner(configOptions);
     }
 
     /**
@@ -155,7 +170,7 @@ public class MetricsRecordHandler
         ValueSet dimensionValueConstraint = request.getConstraints().getSummary().get(DIMENSION_VALUE_FIELD);
         do {
             prevToken = listMetricsRequest.getNextToken();
-            ListMetricsResult result = invoker.invoke(() -> metrics.listMetrics(listMetricsRequest));
+            ListMetricsResult result = listMetricsCache.listMetrics(listMetricsRequest);
             for (Metric nextMetric : result.getMetrics()) {
                 blockSpiller.writeRows((Block block, int row) -> {
                     boolean matches = MetricUtils.applyMetricConstraints(blockSpiller.getConstraintEvaluator(), nextMetric, null);
@@ -199,7 +214,9 @@ public class MetricsRecordHandler
     }
 
     /**
-     * Handles retrieving the samples for a specific metric from Cloudwatch Metrics.
+     * Handles retrieving the samples for a specific metric from Cloudwatch Metrics. If the split contains more MetricStats
+     * than fit in a single GetMetricData request, the resulting requests are paged through concurrently (bounded by
+     * the planner's concurrency) while all rows are written from the calling thread.
      */
     private void readMetricSamplesWithConstraint(BlockSpiller blockSpiller, ReadRecordsRequest request, QueryStatusChecker queryStatusChecker)
             throws TimeoutException
@@ -210,66 +227,164 @@ public class MetricsRecordHandler
             queries.put(query.getId(), query);
         }
 
-        String prevToken;
         ValueSet dimensionNameConstraint = request.getConstraints().getSummary().get(DIMENSION_NAME_FIELD);
         ValueSet dimensionValueConstraint = request.getConstraints().getSummary().get(DIMENSION_VALUE_FIELD);
-        do {
-            prevToken = dataRequest.getNextToken();
-            GetMetricDataResult result = invoker.invoke(() -> metrics.getMetricData(dataRequest));
-            for (MetricDataResult nextMetric : result.getMetricDataResults()) {
-                MetricStat metricStat = queries.get(nextMetric.getId()).getMetricStat();
-                List<Date> timestamps = nextMetric.getTimestamps();
-                List<Double> values = nextMetric.getValues();
-                for (int i = 0; i < nextMetric.getValues().size(); i++) {
-                    int sampleNum = i;
-                    blockSpiller.writeRows((Block block, int row) -> {
-                        /**
-                         * Most constraints were already applied at split generation so we only need to apply
-                         * a subset.
-                         */
-                        block.offerValue(METRIC_NAME_FIELD, row, metricStat.getMetric().getMetricName());
-                        block.offerValue(NAMESPACE_FIELD, row, metricStat.getMetric().getNamespace());
-                        block.offerValue(STATISTIC_FIELD, row, metricStat.getStat());
-
-                        block.offerComplexValue(DIMENSIONS_FIELD,
-                                row,
-                                (Field field, Object val) -> {
-                                    if (field.getName().equals(DIMENSION_NAME_FIELD)) {
-                                        return ((Dimension) val).getName();
-                                    }
-                                    else if (field.getName().equals(DIMENSION_VALUE_FIELD)) {
-                                        return ((Dimension) val).getValue();
-                                    }
+        List<GetMetricDataRequest> dataRequests = planner.planRequests(dataRequest);
+        if (dataRequests.size() == 1 || planner.getConcurrency() == 1) {
+            for (GetMetricDataRequest next : dataRequests) {
+                String prevToken;
+                do {
+                    prevToken = next.getNextToken();
+                    GetMetricDataResult result = invoker.invoke(() -> metrics.getMetricData(next));
+                    writeMetricData(blockSpiller, result, queries, dimensionNameConstraint, dimensionValueConstraint);
+                    next.setNextToken(result.getNextToken());
+                }
+                while (hasMorePages(next, prevToken) && queryStatusChecker.isQueryRunning());
+            }
+            return;
+        }
 
-                                    throw new RuntimeException("Unexpected field " + field.getName());
-                                },
-                                metricStat.getMetric().getDimensions());
+        logger.info("readMetricSamplesWithConstraint: Reading {} GetMetricData requests with concurrency {}",
+                dataRequests.size(), planner.getConcurrency());
+        readConcurrently(dataRequests, queryStatusChecker,
+                (GetMetricDataResult result) -> writeMetricData(blockSpiller, result, queries, dimensionNameConstraint, dimensionValueConstraint));
+    }
 
-                        //This field is 'faked' in that we just use it as a convenient way to filter single dimensions. As such
-                        //we always populate it with the value of the filter if the constraint passed and the filter was singleValue
-                        String dimName = (dimensionNameConstraint == null || !dimensionNameConstraint.isSingleValue())
-                                ? null : dimensionNameConstraint.getSingleValue().toString();
-                        block.offerValue(DIMENSION_NAME_FIELD, row, dimName);
+    /**
+     * Pages through the supplied GetMetricData requests with up to planner.getConcurrency() pages in flight at once. Each
+     * request only ever has one page in flight, since the next page depends on the previous page's NextToken. Results
+     * are handed to the consumer on the calling thread because BlockSpiller is not thread safe.
+     */
+    private void readConcurrently(List<GetMetricDataRequest> dataRequests,
+            QueryStatusChecker queryStatusChecker,
+            Consumer<GetMetricDataResult> consumer)
+            throws TimeoutException
+    {
+        int numThreads = Math.min(planner.getConcurrency(), dataRequests.size());
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread thread = new Thread(runnable, "GetMetricDataThread");
+            thread.setDaemon(true);
+            return thread;
+        });
 
-                        //This field is 'faked' in that we just use it as a convenient way to filter single dimensions. As such
-                        //we always populate it with the value of the filter if the constraint passed and the filter was singleValue
-                        String dimVal = (dimensionValueConstraint == null || !dimensionValueConstraint.isSingleValue())
-                                ? null : dimensionValueConstraint.getSingleValue().toString();
-                        block.offerValue(DIMENSION_VALUE_FIELD, row, dimVal);
+        try {
+            CompletionService<GetMetricDataResult> completionService = new ExecutorCompletionService<>(executor);
+            Map<Future<GetMetricDataResult>, GetMetricDataRequest> inFlight = new HashMap<>();
+            Deque<GetMetricDataRequest> pending = new ArrayDeque<>(dataRequests);
+            while (inFlight.size() < numThreads && !pending.isEmpty()) {
+                GetMetricDataRequest next = pending.poll();
+                inFlight.put(completionService.submit(() -> invoker.invoke(() -> metrics.getMetricData(next))), next);
+            }
 
-                        block.offerValue(PERIOD_FIELD, row, metricStat.getPeriod());
+            while (!inFlight.isEmpty()) {
+                Future<GetMetricDataResult> completed = completionService.take();
+                GetMetricDataRequest completedRequest = inFlight.remove(completed);
+                GetMetricDataResult result = getResult(completed);
+                consumer.accept(result);
 
-                        boolean matches = true;
-                        block.offerValue(VALUE_FIELD, row, values.get(sampleNum));
-                        long timestamp = timestamps.get(sampleNum).getTime() / 1000;
-                        block.offerValue(TIMESTAMP_FIELD, row, timestamp);
+                String prevToken = completedRequest.getNextToken();
+                completedRequest.setNextToken(result.getNextToken());
+                if (!queryStatusChecker.isQueryRunning()) {
+                    continue;
+                }
 
-                        return matches ? 1 : 0;
-                    });
+                GetMetricDataRequest next = hasMorePages(completedRequest, prevToken) ? completedRequest : pending.poll();
+                if (next != null) {
+                    inFlight.put(completionService.submit(() -> invoker.invoke(() -> metrics.getMetricData(next))), next);
                 }
             }
-            dataRequest.setNextToken(result.getNextToken());
         }
-        while (dataRequest.getNextToken() != null && !dataRequest.getNextToken().equalsIgnoreCase(prevToken) && queryStatusChecker.isQueryRunning());
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Unwraps the result of a completed GetMetricData call, surfacing the underlying failure if there was one.
+     */
+    private GetMetricDataResult getResult(Future<GetMetricDataResult> future)
+            throws TimeoutException, InterruptedException
+    {
+        try {
+            return future.get();
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof TimeoutException) {
+                throw (TimeoutException) ex.getCause();
+            }
+            throw (ex.getCause() instanceof RuntimeException) ? (RuntimeException) ex.getCause() : new RuntimeException(ex.getCause());
+        }
+    }
+
+    private boolean hasMorePages(GetMetricDataRequest dataRequest, String prevToken)
+    {
+        return dataRequest.getNextToken() != null && !dataRequest.getNextToken().equalsIgnoreCase(prevToken);
+    }
+
+    /**
+     * Writes the samples contained in a single page of GetMetricData results.
+     */
+    private void writeMetricData(BlockSpiller blockSpiller,
+            GetMetricDataResult result,
+            Map<String, MetricDataQuery> queries,
+            ValueSet dimensionNameConstraint,
+            ValueSet dimensionValueConstraint)
+    {
+        for (MetricDataResult nextMetric : result.getMetricDataResults()) {
+            MetricStat metricStat = queries.get(nextMetric.getId()).getMetricStat();
+            List<Date> timestamps = nextMetric.getTimestamps();
+            List<Double> values = nextMetric.getValues();
+            for (int i = 0; i < nextMetric.getValues().size(); i++) {
+                int sampleNum = i;
+                blockSpiller.writeRows((Block block, int row) -> {
+                    /**
+                     * Most constraints were already applied at split generation so we only need to apply
+                     * a subset.
+                     */
+                    block.offerValue(METRIC_NAME_FIELD, row, metricStat.getMetric().getMetricName());
+                    block.offerValue(NAMESPACE_FIELD, row, metricStat.getMetric().getNamespace());
+                    block.offerValue(STATISTIC_FIELD, row, metricStat.getStat());
+
+                    block.offerComplexValue(DIMENSIONS_FIELD,
+                            row,
+                            (Field field, Object val) -> {
+                                if (field.getName().equals(DIMENSION_NAME_FIELD)) {
+                                    return ((Dimension) val).getName();
+                                }
+                                else if (field.getName().equals(DIMENSION_VALUE_FIELD)) {
+                                    return ((Dimension) val).getValue();
+                                }
+
+                                throw new RuntimeException("Unexpected field " + field.getName());
+                            },
+                            metricStat.getMetric().getDimensions());
+
+                    //This field is 'faked' in that we just use it as a convenient way to filter single dimensions. As such
+                    //we always populate it with the value of the filter if the constraint passed and the filter was singleValue
+                    String dimName = (dimensionNameConstraint == null || !dimensionNameConstraint.isSingleValue())
+                            ? null : dimensionNameConstraint.getSingleValue().toString();
+                    block.offerValue(DIMENSION_NAME_FIELD, row, dimName);
+
+                    //This field is 'faked' in that we just use it as a convenient way to filter single dimensions. As such
+                    //we always populate it with the value of the filter if the constraint passed and the filter was singleValue
+                    String dimVal = (dimensionValueConstraint == null || !dimensionValueConstraint.isSingleValue())
+                            ? null : dimensionValueConstraint.getSingleValue().toString();
+                    block.offerValue(DIMENSION_VALUE_FIELD, row, dimVal);
+
+                    block.offerValue(PERIOD_FIELD, row, metricStat.getPeriod());
+
+                    boolean matches = true;
+                    block.offerValue(VALUE_FIELD, row, values.get(sampleNum));
+                    long timestamp = timestamps.get(sampleNum).getTime() / 1000;
+                    block.offerValue(TIMESTAMP_FIELD, row, timestamp);
+
+                    return matches ? 1 : 0;
+                });
+            }
+        }
     }
 }
@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * athena-cloudwatch-metrics
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.cloudwatch.metrics;
+
+import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
+import com.amazonaws.services.cloudwatch.AmazonCloudWatch;
+import com.amazonaws.services.cloudwatch.model.ListMetricsRequest;
+import com.amazonaws.services.cloudwatch.model.ListMetricsResult;
+import com.amazonaws.services.cloudwatch.model.Metric;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import static com.amazonaws.athena.connectors.cloudwatch.metrics.ListMetricsCache.LIST_METRICS_CACHE_TTL_SECONDS;
+import static com.amazonaws.athena.connectors.cloudwatch.metrics.MetricsExceptionFilter.EXCEPTION_FILTER;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ListMetricsCacheTest
+{
+    @Mock
+    private AmazonCloudWatch mockMetrics;
+
+    private ThrottlingInvoker invoker;
+
+    @Before
+    public void setUp()
+    {
+        invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, ImmutableMap.of()).build();
+        when(mockMetrics.listMetrics(nullable(ListMetricsRequest.class))).thenAnswer((InvocationOnMock invocation) -> {
+            ListMetricsRequest request = invocation.getArgument(0, ListMetricsRequest.class);
+            String nextToken = (request.getNextToken() == null) ? "page2" : null;
+            return new ListMetricsResult().withNextToken(nextToken)
+                    .withMetrics(new Metric().withNamespace(request.getNamespace()).withMetricName("metric"));
+        });
+    }
+
+    @Test
+    public void listMetricsCachesPages()
+            throws Exception
+    {
+        ListMetricsCache cache = new ListMetricsCache(mockMetrics, invoker, ImmutableMap.of());
+
+        ListMetricsRequest request = new ListMetricsRequest().withNamespace("namespace");
+        ListMetricsResult firstPage = cache.listMetrics(request);
+        assertEquals("page2", firstPage.getNextToken());
+
+        //mutating the caller's request must not affect the cached entry
+        request.setNextToken(firstPage.getNextToken());
+        ListMetricsResult secondPage = cache.listMetrics(request);
+        assertEquals(null, secondPage.getNextToken());
+
+        assertSame(firstPage, cache.listMetrics(new ListMetricsRequest().withNamespace("namespace")));
+        assertSame(secondPage, cache.listMetrics(new ListMetricsRequest().withNamespace("namespace").withNextToken("page2")));
+        cache.listMetrics(new ListMetricsRequest().withNamespace("other"));
+
+        verify(mockMetrics, times(3)).listMetrics(nullable(ListMetricsRequest.class));
+    }
+
+    @Test
+    public void listMetricsCacheDisabled()
+            throws Exception
+    {
+        ListMetricsCache cache = new ListMetricsCache(mockMetrics, invoker, ImmutableMap.of(LIST_METRICS_CACHE_TTL_SECONDS, "0"));
+
+        cache.listMetrics(new ListMetricsRequest().withNamespace("namespace"));
+        cache.listMetrics(new ListMetricsRequest().withNamespace("namespace"));
+
+        verify(mockMetrics, times(2)).listMetrics(nullable(ListMetricsRequest.class));
+    }
+}
@@ -0,0 +1,115 @@
+/*-
+ * #%L
+ * athena-cloudwatch-metrics
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.cloudwatch.metrics;
+
+import com.amazonaws.services.cloudwatch.model.GetMetricDataRequest;
+import com.amazonaws.services.cloudwatch.model.Metric;
+import com.amazonaws.services.cloudwatch.model.MetricDataQuery;
+import com.amazonaws.services.cloudwatch.model.MetricStat;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.amazonaws.athena.connectors.cloudwatch.metrics.MetricDataQueryPlanner.MAX_QUERIES_PER_REQUEST;
+import static com.amazonaws.athena.connectors.cloudwatch.metrics.MetricDataQueryPlanner.METRICS_PER_SPLIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MetricDataQueryPlannerTest
+{
+    @Test
+    public void planSplitsSmall()
+    {
+        MetricDataQueryPlanner planner = new MetricDataQueryPlanner(ImmutableMap.of());
+        List<List<MetricStat>> splits = planner.planSplits(makeMetricStats(10));
+        //small result sets are still spread across a few splits for parallelism
+        assertEquals(3, splits.size());
+        assertTrue(planner.planSplits(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    public void planSplitsPacksFullRequests()
+    {
+        MetricDataQueryPlanner planner = new MetricDataQueryPlanner(ImmutableMap.of());
+        List<List<MetricStat>> splits = planner.planSplits(makeMetricStats(5_000));
+        assertEquals(10, splits.size());
+        for (List<MetricStat> next : splits) {
+            assertEquals(MAX_QUERIES_PER_REQUEST, next.size());
+        }
+    }
+
+    @Test
+    public void planRequests()
+    {
+        MetricDataQueryPlanner planner = new MetricDataQueryPlanner(ImmutableMap.of(METRICS_PER_SPLIT, "1200"));
+        List<List<MetricStat>> splits = planner.planSplits(makeMetricStats(5_000));
+        assertEquals(5, splits.size());
+        assertEquals(1200, splits.get(0).size());
+
+        List<MetricDataQuery> queries = new ArrayList<>();
+        int id = 1;
+        for (MetricStat next : splits.get(0)) {
+            queries.add(new MetricDataQuery().withMetricStat(next).withId("m" + id++));
+        }
+        Date start = new Date(0);
+        Date end = new Date(1_000);
+        GetMetricDataRequest dataRequest = new GetMetricDataRequest()
+                .withMetricDataQueries(queries)
+                .withStartTime(start)
+                .withEndTime(end);
+
+        List<GetMetricDataRequest> requests = planner.planRequests(dataRequest);
+        assertEquals(3, requests.size());
+        assertEquals(500, requests.get(0).getMetricDataQueries().size());
+        assertEquals(500, requests.get(1).getMetricDataQueries().size());
+        assertEquals(200, requests.get(2).getMetricDataQueries().size());
+
+        Set<String> ids = new HashSet<>();
+        for (GetMetricDataRequest next : requests) {
+            assertEquals(start, next.getStartTime());
+            assertEquals(end, next.getEndTime());
+            next.getMetricDataQueries().forEach(query -> ids.add(query.getId()));
+        }
+        assertEquals(1200, ids.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidConcurrency()
+    {
+        new MetricDataQueryPlanner(MAX_QUERIES_PER_REQUEST, 0);
+    }
+
+    private List<MetricStat> makeMetricStats(int count)
+    {
+        List<MetricStat> metricStats = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            metricStats.add(new MetricStat()
+                    .withMetric(new Metric().withNamespace("namespace").withMetricName("metric-" + i))
+                    .withPeriod(60)
+                    .withStat("p90"));
+        }
+        return metricStats;
+    }
+}
@@ -74,7 +74,9 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.amazonaws.athena.connectors.cloudwatch.metrics.TestUtils.makeStringEquals;
@@ -310,6 +312,83 @@ public class MetricsRecordHandlerTest
         logger.info("readMetricSamplesWithConstraint: exit");
     }
 
+    @Test
+    public void readMetricSamplesWithConstraintConcurrently()
+            throws Exception
+    {
+        logger.info("readMetricSamplesWithConstraintConcurrently: enter");
+
+        String namespace = "namespace";
+        String statistic = "p90";
+        int numMetricStats = 1_200;
+        Set<String> seenIds = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        AtomicLong numCalls = new AtomicLong(0);
+        when(mockMetrics.getMetricData(nullable(GetMetricDataRequest.class))).thenAnswer((InvocationOnMock invocation) -> {
+            numCalls.incrementAndGet();
+            GetMetricDataRequest request = invocation.getArgument(0, GetMetricDataRequest.class);
+            assertTrue(request.getMetricDataQueries().size() <= MetricDataQueryPlanner.MAX_QUERIES_PER_REQUEST);
+
+            //each request has 2 pages, each page has 1 sample for every query in the request
+            String nextToken = (request.getNextToken() == null) ? "valid" : null;
+            List<MetricDataResult> samples = new ArrayList<>();
+            for (MetricDataQuery next : request.getMetricDataQueries()) {
+                seenIds.add(next.getId());
+                samples.add(new MetricDataResult()
+                        .withValues(Collections.singletonList(1.0D))
+                        .withTimestamps(Collections.singletonList(new Date()))
+                        .withId(next.getId()));
+            }
+            return new GetMetricDataResult().withNextToken(nextToken).withMetricDataResults(samples);
+        });
+
+        List<MetricStat> metricStats = new ArrayList<>();
+        for (int i = 0; i < numMetricStats; i++) {
+            metricStats.add(new MetricStat()
+                    .withMetric(new Metric()
+                            .withNamespace(namespace)
+                            .withMetricName("metric-" + i)
+                            .withDimensions(Collections.emptyList()))
+                    .withPeriod(60)
+                    .withStat(statistic));
+        }
+
+        S3SpillLocation spillLocation = S3SpillLocation.newBuilder()
+                .withBucket(UUID.randomUUID().toString())
+                .withSplitId(UUID.randomUUID().toString())
+                .withQueryId(UUID.randomUUID().toString())
+                .withIsDirectory(true)
+                .build();
+
+        Split split = Split.newBuilder(spillLocation, keyFactory.create())
+                .add(MetricStatSerDe.SERIALIZED_METRIC_STATS_FIELD_NAME, MetricStatSerDe.serialize(metricStats))
+                .build();
+
+        ReadRecordsRequest request = new ReadRecordsRequest(identity,
+                "catalog",
+                "queryId-" + System.currentTimeMillis(),
+                METRIC_SAMPLES_TABLE_NAME,
+                METRIC_DATA_TABLE.getSchema(),
+                split,
+                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT),
+                100_000_000_000L,
+                100_000_000_000L//100GB don't expect this to spill
+        );
+
+        RecordResponse rawResponse = handler.doReadRecords(allocator, request);
+
+        assertTrue(rawResponse instanceof ReadRecordsResponse);
+
+        ReadRecordsResponse response = (ReadRecordsResponse) rawResponse;
+        logger.info("readMetricSamplesWithConstraintConcurrently: rows[{}]", response.getRecordCount());
+
+        //1200 metric stats are packed into 3 requests of 2 pages each.
+        assertEquals(6, numCalls.get());
+        assertEquals(numMetricStats, seenIds.size());
+        assertEquals(numMetricStats * 2, response.getRecords().getRowCount());
+
+        logger.info("readMetricSamplesWithConstraintConcurrently: exit");
+    }
+
     private GetMetricDataResult mockMetricData(InvocationOnMock invocation, int numMetrics, int numSamples)
     {
         GetMetricDataRequest request = invocation.getArgument(0, GetMetricDataRequest.class);
@@ -38,6 +38,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListSchemasResponse;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequest;
+import com.amazonaws.athena.connector.lambda.metadata.SchemaCache;
 import com.amazonaws.athena.connector.lambda.metadata.glue.GlueFieldLexer;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.OptimizationSubType;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
@@ -104,12 +105,15 @@ public class DocDBMetadataHandler
     private final AWSGlue glue;
     private final DocDBConnectionFactory connectionFactory;
     private final DocDBQueryPassthrough queryPassthrough = new DocDBQueryPassthrough();
+    //Caches the schemas we infer by sampling documents, since sampling adds a round trip to every query.
+    private final SchemaCache schemaCache;
 
     public DocDBMetadataHandler(java.util.Map<String, String> configOptions)
     {
         super(SOURCE_TYPE, configOptions);
         glue = getAwsGlue();
         connectionFactory = new DocDBConnectionFactory();
+        schemaCache = new SchemaCache(configOptions);
     }
 
     @VisibleForTesting
@@ -126,6 +130,7 @@ public class DocDBMetadataHandler
         super(glue, keyFactory, secretsManager, athena, SOURCE_TYPE, spillBucket, spillPrefix, configOptions);
         this.glue = glue;
         this.connectionFactory = connectionFactory;
+        this.schemaCache = new SchemaCache(configOptions);
     }
 
     private MongoClient getOrCreateConn(MetadataRequest request)
@@ -311,8 +316,10 @@ public class DocDBMetadataHandler
             schemaNameInput = DocDBCaseInsensitiveResolver.getSchemaNameCaseInsensitiveMatch(configOptions, client, schemaNameInput);
             MongoDatabase db = client.getDatabase(schemaNameInput);
             tableNameInput = DocDBCaseInsensitiveResolver.getTableNameCaseInsensitiveMatch(configOptions, db, tableNameInput);
-            tableName = new TableName(schemaNameInput, tableNameInput);
-            schema = SchemaUtils.inferSchema(db, tableName, SCHEMA_INFERRENCE_NUM_DOCS);
+            TableName resolvedTableName = new TableName(schemaNameInput, tableNameInput);
+            schema = schemaCache.get(request.getCatalogName(), resolvedTableName, null,
+                    () -> SchemaUtils.inferSchema(db, resolvedTableName, SCHEMA_INFERRENCE_NUM_DOCS));
+            tableName = resolvedTableName;
         }
         return new GetTableResponse(request.getCatalogName(), tableName, schema);
     }
@@ -78,6 +78,7 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -251,6 +252,11 @@ public class DocDBMetadataHandlerTest
 
         Field unsupported = res.getSchema().findField("unsupported");
         assertEquals(Types.MinorType.VARCHAR, Types.getMinorTypeForArrowType(unsupported.getType()));
+
+        //The inferred schema is cached so a second request doesn't sample the collection again.
+        GetTableResponse cachedRes = handler.doGetTable(allocator, req);
+        assertEquals(res.getSchema(), cachedRes.getSchema());
+        verify(mockCollection, times(1)).find();
     }
 
     @Test
@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connectors.dynamodb;
 
+import com.amazonaws.athena.connector.lambda.CongestionController;
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
 import com.amazonaws.athena.connector.lambda.data.Block;
@@ -107,7 +108,8 @@ public class DynamoDBRecordHandler
     private static final TypeReference<HashMap<String, String>> STRING_MAP_TYPE_REFERENCE = new TypeReference<HashMap<String, String>>() {};
     private static final TypeReference<HashMap<String, AttributeValue>> ATTRIBUTE_VALUE_MAP_TYPE_REFERENCE = new TypeReference<HashMap<String, AttributeValue>>() {};
 
-    private final LoadingCache<String, ThrottlingInvoker> invokerCache;
+    //Every split reading a table shares one call rate, since DynamoDB throttles each table separately.
+    private final LoadingCache<String, CongestionController> controllerCache;
     private final DynamoDbClient ddbClient;
 
     private final DDBQueryPassthrough queryPassthrough = new DDBQueryPassthrough();
@@ -118,13 +120,13 @@ public class DynamoDBRecordHandler
         this.ddbClient = DynamoDbClient.builder()
                 .credentialsProvider(CrossAccountCredentialsProviderV2.getCrossAccountCredentialsIfPresent(configOptions, "DynamoDBMetadataHandler_CrossAccountRoleSession"))
                 .build();
-        this.invokerCache = CacheBuilder.newBuilder().build(
-            new CacheLoader<String, ThrottlingInvoker>() {
+        this.controllerCache = CacheBuilder.newBuilder().build(
+            new CacheLoader<String, CongestionController>() {
                 @Override
-                public ThrottlingInvoker load(String tableName)
+                public CongestionController load(String tableName)
                         throws Exception
                 {
-                    return ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).build();
+                    return ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).buildController();
                 }
             }
         );
@@ -135,13 +137,13 @@ public class DynamoDBRecordHandler
     {
         super(amazonS3, secretsManager, athena, sourceType, configOptions);
         this.ddbClient = ddbClient;
-        this.invokerCache = CacheBuilder.newBuilder().build(
-            new CacheLoader<String, ThrottlingInvoker>() {
+        this.controllerCache = CacheBuilder.newBuilder().build(
+            new CacheLoader<String, CongestionController>() {
                 @Override
-                public ThrottlingInvoker load(String tableName)
+                public CongestionController load(String tableName)
                         throws Exception
                 {
-                    return ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).build();
+                    return ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).buildController();
                 }
             }
         );
@@ -165,7 +167,11 @@ public class DynamoDBRecordHandler
         Split split = recordsRequest.getSplit();
         // use the property instead of the request table name because of case sensitivity
         String tableName = split.getProperty(TABLE_METADATA);
-        invokerCache.get(tableName).setBlockSpiller(spiller);
+        //Each split gets its own invoker since whether throttling can be propagated to Athena depends on its spiller.
+        ThrottlingInvoker invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions)
+                .withCongestionController(controllerCache.get(tableName))
+                .withSpiller(spiller)
+                .build();
         DDBRecordMetadata recordMetadata = new DDBRecordMetadata(recordsRequest.getSchema());
 
         String disableProjectionAndCasingEnvValue = configOptions.getOrDefault(DISABLE_PROJECTION_AND_CASING_ENV, "auto").toLowerCase();
@@ -202,7 +208,7 @@ public class DynamoDBRecordHandler
             logger.info("Resolving disableProjectionAndCasing to: " + disableProjectionAndCasing);
         }
 
-        Iterator<Map<String, AttributeValue>> itemIterator = getIterator(split, tableName, recordsRequest.getSchema(), recordsRequest.getConstraints(), disableProjectionAndCasing);
+        Iterator<Map<String, AttributeValue>> itemIterator = getIterator(split, tableName, recordsRequest.getSchema(), recordsRequest.getConstraints(), disableProjectionAndCasing, invoker);
         writeItemsToBlock(spiller, recordsRequest, queryStatusChecker, recordMetadata, itemIterator, disableProjectionAndCasing);
     }
 
@@ -430,7 +436,7 @@ public class DynamoDBRecordHandler
     /*
     Creates an iterator that can iterate through a Query or Scan, sending paginated requests as necessary
      */
-    private Iterator<Map<String, AttributeValue>> getIterator(Split split, String tableName, Schema schema, Constraints constraints, boolean disableProjectionAndCasing)
+    private Iterator<Map<String, AttributeValue>> getIterator(Split split, String tableName, Schema schema, Constraints constraints, boolean disableProjectionAndCasing, ThrottlingInvoker invoker)
     {
         return new Iterator<Map<String, AttributeValue>>() {
             AtomicReference<Map<String, AttributeValue>> lastKeyEvaluated = new AtomicReference<>();
@@ -455,19 +461,19 @@ public class DynamoDBRecordHandler
                     if (isQueryRequest(split)) {
                         QueryRequest request = buildQueryRequest(split, tableName, schema, constraints, disableProjectionAndCasing, lastKeyEvaluated.get());
                         logger.info("Invoking DDB with Query request: {}", request);
-                        QueryResponse response = invokerCache.get(tableName).invoke(() -> ddbClient.query(request));
+                        QueryResponse response = invoker.invoke(() -> ddbClient.query(request));
                         lastKeyEvaluated.set(response.lastEvaluatedKey());
                         iterator = response.items().iterator();
                     }
                     else {
                         ScanRequest request = buildScanRequest(split, tableName, schema, constraints, disableProjectionAndCasing, lastKeyEvaluated.get());
                         logger.info("Invoking DDB with Scan request: {}", request);
-                        ScanResponse response = invokerCache.get(tableName).invoke(() -> ddbClient.scan(request));
+                        ScanResponse response = invoker.invoke(() -> ddbClient.scan(request));
                         lastKeyEvaluated.set(response.lastEvaluatedKey());
                         iterator = response.items().iterator();
                     }
                 }
-                catch (TimeoutException | ExecutionException e) {
+                catch (TimeoutException e) {
                     throw new AthenaConnectorException(e.getMessage(), new ErrorDetails().withErrorCode(FederationSourceErrorCode.OperationTimeoutException.toString()));
                 }
                 currentPageIterator.set(iterator);
@@ -37,6 +37,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListSchemasRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListSchemasResponse;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
+import com.amazonaws.athena.connector.lambda.metadata.SchemaCache;
 import com.amazonaws.athena.connector.lambda.metadata.glue.GlueFieldLexer;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.OptimizationSubType;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
@@ -115,6 +116,8 @@ public class ElasticsearchMetadataHandler
 
     private ElasticsearchGlueTypeMapper glueTypeMapper;
     private final ElasticsearchQueryPassthrough queryPassthrough = new ElasticsearchQueryPassthrough();
+    //Caches the schemas we derive from index mappings, since fetching the mapping adds a round trip to every query.
+    private final SchemaCache schemaCache;
 
     public ElasticsearchMetadataHandler(Map<String, String> configOptions)
     {
@@ -126,6 +129,7 @@ public class ElasticsearchMetadataHandler
         this.clientFactory = new AwsRestHighLevelClientFactory(this.autoDiscoverEndpoint);
         this.glueTypeMapper = new ElasticsearchGlueTypeMapper();
         this.queryTimeout = Long.parseLong(configOptions.getOrDefault(QUERY_TIMEOUT_CLUSTER, ""));
+        this.schemaCache = new SchemaCache(configOptions);
     }
 
     @VisibleForTesting
@@ -148,6 +152,7 @@ public class ElasticsearchMetadataHandler
         this.clientFactory = clientFactory;
         this.glueTypeMapper = new ElasticsearchGlueTypeMapper();
         this.queryTimeout = queryTimeout;
+        this.schemaCache = new SchemaCache(configOptions);
     }
 
     /**
@@ -246,7 +251,7 @@ public class ElasticsearchMetadataHandler
         if (schema == null) {
             String index = request.getTableName().getTableName();
             String endpoint = getDomainEndpoint(request.getTableName().getSchemaName());
-            schema = getSchema(index, endpoint);
+            schema = getSchema(request.getCatalogName(), request.getTableName().getSchemaName(), index, endpoint);
         }
 
         return new GetTableResponse(request.getCatalogName(), request.getTableName(),
@@ -328,26 +333,27 @@ public class ElasticsearchMetadataHandler
         }
         queryPassthrough.verify(request.getQueryPassthroughArguments());
         String index = request.getQueryPassthroughArguments().get(ElasticsearchQueryPassthrough.INDEX);
-        String endpoint = getDomainEndpoint(request.getQueryPassthroughArguments().get(ElasticsearchQueryPassthrough.SCHEMA));
-        Schema schema = getSchema(index, endpoint);
+        String domain = request.getQueryPassthroughArguments().get(ElasticsearchQueryPassthrough.SCHEMA);
+        String endpoint = getDomainEndpoint(domain);
+        Schema schema = getSchema(request.getCatalogName(), domain, index, endpoint);
 
         return new GetTableResponse(request.getCatalogName(), request.getTableName(),
                 (schema == null) ? SchemaBuilder.newBuilder().build() : schema, Collections.emptySet());
     }
 
-    private Schema getSchema(String index, String endpoint)
+    private Schema getSchema(String catalogName, String domain, String index, String endpoint)
     {
-        Schema schema;
-        AwsRestHighLevelClient client = clientFactory.getOrCreateClient(endpoint);
-        try {
-            Map<String, Object> mappings = client.getMapping(index);
-            schema = ElasticsearchSchemaUtils.parseMapping(mappings);
-        }
-        catch (IOException error) {
-            throw new RuntimeException("Error retrieving mapping information for index (" +
-                    index + ") ", error);
-        }
-        return schema;
+        return schemaCache.get(catalogName, new TableName(domain, index), null, () -> {
+            AwsRestHighLevelClient client = clientFactory.getOrCreateClient(endpoint);
+            try {
+                Map<String, Object> mappings = client.getMapping(index);
+                return ElasticsearchSchemaUtils.parseMapping(mappings);
+            }
+            catch (IOException error) {
+                throw new RuntimeException("Error retrieving mapping information for index (" +
+                        index + ") ", error);
+            }
+        });
     }
 
     /**
@@ -0,0 +1,87 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.security.AesGcmCipherEngine;
+import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures AesGcmCipherEngine on its own, without Arrow serialization, for each JCE provider it can use. Encryption
+ * gets a new Cipher on every call while decryption reuses a Cipher per thread, so encrypt includes the cost of
+ * creating a Cipher. The same key and nonce are used on every call, as when a spiller writes several blocks for one
+ * split. Scores are in operations (buffers) per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class AesGcmCipherEngineBenchmark
+{
+    @Param({AesGcmCipherEngine.SUN_JCE, AesGcmCipherEngine.BOUNCY_CASTLE})
+    public String provider;
+
+    //A small inline block and a full 16MB spill.
+    @Param({"65536", "16777216"})
+    public int bytes;
+
+    private AesGcmCipherEngine engine;
+    private EncryptionKey key;
+    private byte[] clear;
+    private byte[] encrypted;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        engine = new AesGcmCipherEngine(provider);
+        key = EncryptionKeys.create();
+        clear = new byte[bytes];
+        new Random(bytes).nextBytes(clear);
+        encrypted = engine.encrypt(key, clear, 0, clear.length);
+    }
+
+    @Benchmark
+    public byte[] encrypt()
+    {
+        return engine.encrypt(key, clear, 0, clear.length);
+    }
+
+    @Benchmark
+    public byte[] decrypt()
+    {
+        return engine.decrypt(key, encrypted);
+    }
+}
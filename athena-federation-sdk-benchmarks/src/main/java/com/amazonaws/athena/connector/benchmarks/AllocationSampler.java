@@ -0,0 +1,123 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Approximates the number of bytes allocated by all threads of this JVM while it runs. HotSpot only tracks
+ * allocations per thread, and forgets them when the thread exits, so a daemon thread samples every live thread's
+ * counter and keeps the last value it saw. Allocations made by a short lived thread after its last sample are
+ * missed, which is why the result is a (slight) underestimate.
+ */
+final class AllocationSampler
+        implements AutoCloseable
+{
+    private static final long SAMPLE_INTERVAL_MS = 10;
+
+    private final com.sun.management.ThreadMXBean threads;
+    private final Map<Long, Long> baseline = new HashMap<>();
+    private final Map<Long, Long> latest = new HashMap<>();
+    private final Thread sampler;
+    private volatile boolean running = true;
+
+    private AllocationSampler(com.sun.management.ThreadMXBean threads)
+    {
+        this.threads = threads;
+        sample(baseline);
+        this.sampler = new Thread(this::run, "AllocationSampler");
+        this.sampler.setDaemon(true);
+        this.sampler.start();
+    }
+
+    /**
+     * @return A started sampler, or null if this JVM doesn't support measuring per thread allocations.
+     */
+    static AllocationSampler start()
+    {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return null;
+        }
+        com.sun.management.ThreadMXBean hotSpotThreads = (com.sun.management.ThreadMXBean) threads;
+        if (!hotSpotThreads.isThreadAllocatedMemorySupported() || !hotSpotThreads.isThreadAllocatedMemoryEnabled()) {
+            return null;
+        }
+        return new AllocationSampler(hotSpotThreads);
+    }
+
+    /**
+     * Stops sampling, after which getAllocatedBytes() no longer changes.
+     */
+    @Override
+    public void close()
+            throws InterruptedException
+    {
+        running = false;
+        sampler.interrupt();
+        sampler.join();
+        synchronized (latest) {
+            sample(latest);
+        }
+    }
+
+    /**
+     * @return The approximate number of bytes allocated since this sampler was started.
+     */
+    long getAllocatedBytes()
+    {
+        long allocated = 0;
+        synchronized (latest) {
+            for (Map.Entry<Long, Long> next : latest.entrySet()) {
+                allocated += next.getValue() - baseline.getOrDefault(next.getKey(), 0L);
+            }
+        }
+        return allocated;
+    }
+
+    private void run()
+    {
+        while (running) {
+            synchronized (latest) {
+                sample(latest);
+            }
+            try {
+                Thread.sleep(SAMPLE_INTERVAL_MS);
+            }
+            catch (InterruptedException ex) {
+                return;
+            }
+        }
+    }
+
+    private void sample(Map<Long, Long> target)
+    {
+        long[] ids = threads.getAllThreadIds();
+        long[] allocated = threads.getThreadAllocatedBytes(ids);
+        for (int i = 0; i < ids.length; i++) {
+            //-1 means the thread exited between the two calls above.
+            if (allocated[i] >= 0) {
+                target.put(ids[i], allocated[i]);
+            }
+        }
+    }
+}
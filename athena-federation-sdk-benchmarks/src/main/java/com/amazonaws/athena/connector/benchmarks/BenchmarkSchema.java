@@ -0,0 +1,176 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.FieldResolver;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import java.util.List;
+
+/**
+ * The table shapes the benchmarks are parameterized by. Every shape starts with an INT column named
+ * {@link #KEY_COLUMN} holding the row number, that is the column which {@link ConstraintShape} constrains.
+ */
+public enum BenchmarkSchema
+{
+    NARROW_PRIMITIVE(primitiveSchema(4)),
+    WIDE_PRIMITIVE(primitiveSchema(32)),
+    NARROW_VARCHAR(varcharSchema(4)),
+    WIDE_VARCHAR(varcharSchema(32)),
+    COMPLEX(SchemaBuilder.newBuilder()
+            .addIntField(BenchmarkSchema.KEY_COLUMN)
+            .addListField("c1", Types.MinorType.INT.getType())
+            .addStructField("c2")
+            .addChildField("c2", "a", Types.MinorType.BIGINT.getType())
+            .addChildField("c2", "b", Types.MinorType.VARCHAR.getType())
+            .addStringField("c3")
+            .build());
+
+    public static final String KEY_COLUMN = "c0";
+
+    //Number of distinct VARCHAR values, we reuse them so that generating input doesn't dominate the measurements.
+    private static final int DISTINCT_STRINGS = 64;
+
+    private final Schema schema;
+
+    BenchmarkSchema(Schema schema)
+    {
+        this.schema = schema;
+    }
+
+    public Schema getSchema()
+    {
+        return schema;
+    }
+
+    /**
+     * Generates deterministic input rows for this shape, one Object per column in the form accepted by
+     * BlockUtils.setValue (primitives) and BlockUtils.setComplexValue (LIST as a List, STRUCT as a Map).
+     *
+     * @param numRows The number of rows to generate.
+     * @return The rows, indexed by row then column.
+     */
+    public Object[][] generateRows(int numRows)
+    {
+        List<Field> fields = schema.getFields();
+        Object[][] rows = new Object[numRows][];
+        for (int row = 0; row < numRows; row++) {
+            rows[row] = new Object[fields.size()];
+            for (int col = 0; col < fields.size(); col++) {
+                rows[row][col] = makeValue(fields.get(col), row, col);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Writes the supplied row into the block using BlockUtils, the generic path most connectors use.
+     *
+     * @param block The block to write to.
+     * @param rowNum The row number to write.
+     * @param row The values to write, one per column.
+     */
+    public static void writeRow(Block block, int rowNum, Object[] row)
+    {
+        List<FieldVector> vectors = block.getFieldVectors();
+        for (int col = 0; col < row.length; col++) {
+            FieldVector vector = vectors.get(col);
+            if (isComplex(vector.getField())) {
+                BlockUtils.setComplexValue(vector, rowNum, FieldResolver.DEFAULT, row[col]);
+            }
+            else {
+                BlockUtils.setValue(vector, rowNum, row[col]);
+            }
+        }
+    }
+
+    public static boolean isComplex(Field field)
+    {
+        Types.MinorType type = Types.getMinorTypeForArrowType(field.getType());
+        return type == Types.MinorType.LIST || type == Types.MinorType.STRUCT;
+    }
+
+    private static Object makeValue(Field field, int row, int col)
+    {
+        switch (Types.getMinorTypeForArrowType(field.getType())) {
+            case INT:
+                return row + col;
+            case BIGINT:
+                return row * 31L + col;
+            case FLOAT8:
+                return row * 0.5D + col;
+            case BIT:
+                return (row + col) % 2 == 0;
+            case VARCHAR:
+                return makeString(row + col);
+            case LIST:
+                return ImmutableList.of(row, row + 1, row + 2, row + 3);
+            case STRUCT:
+                return ImmutableMap.of("a", (long) row, "b", makeString(row));
+            default:
+                throw new IllegalArgumentException("Unsupported field " + field);
+        }
+    }
+
+    private static String makeString(int value)
+    {
+        return String.format("value-%08d-%s", value % DISTINCT_STRINGS, "abcdefghijklmnop");
+    }
+
+    private static Schema primitiveSchema(int numColumns)
+    {
+        SchemaBuilder builder = SchemaBuilder.newBuilder().addIntField(KEY_COLUMN);
+        for (int col = 1; col < numColumns; col++) {
+            builder.addField("c" + col, primitiveType(col).getType());
+        }
+        return builder.build();
+    }
+
+    private static Types.MinorType primitiveType(int col)
+    {
+        switch (col % 4) {
+            case 0:
+                return Types.MinorType.INT;
+            case 1:
+                return Types.MinorType.BIGINT;
+            case 2:
+                return Types.MinorType.FLOAT8;
+            default:
+                return Types.MinorType.BIT;
+        }
+    }
+
+    private static Schema varcharSchema(int numColumns)
+    {
+        SchemaBuilder builder = SchemaBuilder.newBuilder().addIntField(KEY_COLUMN);
+        for (int col = 1; col < numColumns; col++) {
+            builder.addStringField("c" + col);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,134 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.security.AesGcmBlockCrypto;
+import com.amazonaws.athena.connector.lambda.security.BlockCrypto;
+import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
+import com.amazonaws.athena.connector.lambda.security.NoOpBlockCrypto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting a Block to and from the bytes which get spilled, with AES-GCM encryption (the default when
+ * a spill key is configured) and without (NoOpBlockCrypto) to isolate the cost of encryption from that of Arrow
+ * serialization. Scores are in rows per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class BlockCryptoBenchmark
+{
+    private static final int ROWS = BlockWriteBenchmark.ROWS;
+
+    public enum CryptoType
+    {
+        AES_GCM,
+        NONE
+    }
+
+    @Param
+    public BenchmarkSchema schema;
+
+    @Param
+    public CryptoType crypto;
+
+    private BlockAllocatorImpl blockAllocator;
+    private Block block;
+    private EncryptionKey key;
+    private byte[] encrypted;
+    private BlockAllocatorImpl allocator;
+    private BlockCrypto blockCrypto;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        blockAllocator = new BlockAllocatorImpl();
+        Object[][] rows = schema.generateRows(ROWS);
+        block = blockAllocator.createBlock(schema.getSchema());
+        for (int row = 0; row < ROWS; row++) {
+            BenchmarkSchema.writeRow(block, row, rows[row]);
+        }
+        block.setRowCount(ROWS);
+        key = (crypto == CryptoType.AES_GCM) ? EncryptionKeys.create() : null;
+        encrypted = makeBlockCrypto(blockAllocator).encrypt(key, block);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial()
+    {
+        blockAllocator.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration()
+    {
+        //Decrypted Blocks are tracked by the allocator, we use one per iteration to keep that bookkeeping bounded.
+        allocator = new BlockAllocatorImpl();
+        blockCrypto = makeBlockCrypto(allocator);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration()
+    {
+        allocator.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int encrypt()
+    {
+        return blockCrypto.encrypt(key, block).length;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int decrypt()
+            throws Exception
+    {
+        try (Block next = blockCrypto.decrypt(key, encrypted, schema.getSchema())) {
+            return next.getRowCount();
+        }
+    }
+
+    private BlockCrypto makeBlockCrypto(BlockAllocatorImpl allocator)
+    {
+        return (crypto == CryptoType.AES_GCM) ? new AesGcmBlockCrypto(allocator) : new NoOpBlockCrypto(allocator);
+    }
+}
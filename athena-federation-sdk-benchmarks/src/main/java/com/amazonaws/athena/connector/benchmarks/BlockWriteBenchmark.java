@@ -0,0 +1,94 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of writing rows into a Block via the generic BlockUtils.setValue/setComplexValue path used by
+ * most connectors. Constraints are not applied on this path, S3BlockSpiller applies them per row via the
+ * ConstraintEvaluator (see ConstraintBenchmark). Scores are in rows per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class BlockWriteBenchmark
+{
+    public static final int ROWS = 10_000;
+
+    @Param
+    public BenchmarkSchema schema;
+
+    private Object[][] rows;
+    private BlockAllocatorImpl allocator;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        rows = schema.generateRows(ROWS);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration()
+    {
+        //The allocator tracks every Block it creates, we use one per iteration to keep that bookkeeping bounded.
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration()
+    {
+        allocator.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int blockUtilsSetValue()
+            throws Exception
+    {
+        try (Block block = allocator.createBlock(schema.getSchema())) {
+            for (int row = 0; row < ROWS; row++) {
+                BenchmarkSchema.writeRow(block, row, rows[row]);
+            }
+            block.setRowCount(ROWS);
+            return block.getRowCount();
+        }
+    }
+}
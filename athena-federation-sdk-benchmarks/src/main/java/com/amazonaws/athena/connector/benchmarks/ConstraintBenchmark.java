@@ -0,0 +1,125 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import org.apache.arrow.vector.types.Types;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per value cost of evaluating a pushed down predicate, both through ConstraintEvaluator.apply (as
+ * S3BlockSpiller and most connectors do) and directly against the SortedRangeSet. Scores are in values per second.
+ * <p>
+ * Every result goes to a Blackhole, otherwise a predicate which accepts every value (ConstraintShape.NONE) lets the
+ * JIT fold the whole loop into a constant and the score only measures the loop.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class ConstraintBenchmark
+{
+    private static final int ROWS = BlockWriteBenchmark.ROWS;
+
+    @Param
+    public ConstraintShape constraint;
+
+    private Integer[] values;
+    private BlockAllocatorImpl allocator;
+    private ConstraintEvaluator evaluator;
+    private ValueSet valueSet;
+
+    @Setup(Level.Trial)
+    public void setup()
+    {
+        values = new Integer[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            values[i] = i;
+        }
+
+        allocator = new BlockAllocatorImpl();
+        evaluator = new ConstraintEvaluator(allocator, BenchmarkSchema.NARROW_PRIMITIVE.getSchema(),
+                constraint.makeConstraints(allocator, ROWS));
+        valueSet = constraint.makeValueSet(allocator, ROWS);
+        if (valueSet == null) {
+            //Without a predicate we measure the cheapest ValueSet, one which accepts every value.
+            valueSet = SortedRangeSet.all(allocator, Types.MinorType.INT.getType());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+            throws Exception
+    {
+        evaluator.close();
+        allocator.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int constraintEvaluatorApply(Blackhole blackhole)
+    {
+        int matched = 0;
+        for (Integer next : values) {
+            boolean match = evaluator.apply(BenchmarkSchema.KEY_COLUMN, next);
+            blackhole.consume(match);
+            if (match) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int sortedRangeSetContainsValue(Blackhole blackhole)
+    {
+        int matched = 0;
+        for (Integer next : values) {
+            boolean match = valueSet.containsValue(next);
+            blackhole.consume(match);
+            if (match) {
+                matched++;
+            }
+        }
+        return matched;
+    }
+}
@@ -0,0 +1,96 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+
+/**
+ * The predicates the benchmarks are parameterized by, each one applies to the {@link BenchmarkSchema#KEY_COLUMN}
+ * of a table with numRows rows (whose key column holds the row number). These mirror what Athena pushes down:
+ * no predicate, key = x, a BETWEEN style range and key IN (...), which arrives as a SortedRangeSet of single
+ * value ranges.
+ */
+public enum ConstraintShape
+{
+    NONE,
+    EQUALITY,
+    RANGE,
+    IN_LIST;
+
+    //Number of values in the IN_LIST predicate.
+    public static final int IN_LIST_SIZE = 100;
+
+    private static final ArrowType KEY_TYPE = Types.MinorType.INT.getType();
+
+    /**
+     * @param allocator The allocator to use when creating the ValueSet.
+     * @param numRows The number of rows in the table being constrained.
+     * @return The ValueSet for the key column, or null for NONE.
+     */
+    public ValueSet makeValueSet(BlockAllocator allocator, int numRows)
+    {
+        switch (this) {
+            case NONE:
+                return null;
+            case EQUALITY:
+                return SortedRangeSet.of(Range.equal(allocator, KEY_TYPE, numRows / 2));
+            case RANGE:
+                //Matches half of the rows.
+                return SortedRangeSet.of(Range.range(allocator, KEY_TYPE, numRows / 4, true, numRows * 3 / 4, false));
+            case IN_LIST:
+                List<Range> ranges = new ArrayList<>(IN_LIST_SIZE);
+                int step = Math.max(1, numRows / IN_LIST_SIZE);
+                for (int i = 0; i < IN_LIST_SIZE; i++) {
+                    ranges.add(Range.equal(allocator, KEY_TYPE, i * step));
+                }
+                return SortedRangeSet.copyOf(KEY_TYPE, ranges, false);
+            default:
+                throw new IllegalStateException("Unknown constraint shape " + this);
+        }
+    }
+
+    /**
+     * @param allocator The allocator to use when creating the ValueSet.
+     * @param numRows The number of rows in the table being constrained.
+     * @return Constraints containing this shape's predicate, if any.
+     */
+    public Constraints makeConstraints(BlockAllocator allocator, int numRows)
+    {
+        ValueSet valueSet = makeValueSet(allocator, numRows);
+        Map<String, ValueSet> summary = (valueSet == null)
+                ? Collections.emptyMap()
+                : ImmutableMap.of(BenchmarkSchema.KEY_COLUMN, valueSet);
+        return new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT);
+    }
+}
@@ -0,0 +1,57 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
+
+import javax.crypto.KeyGenerator;
+
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+
+/**
+ * Creates spill encryption keys for the benchmarks. LocalKeyFactory generates keys on a non-daemon thread, using a
+ * strong (potentially blocking) source of randomness, which would keep every forked benchmark JVM alive after
+ * its measurements are done.
+ */
+final class EncryptionKeys
+{
+    //Same key spec as AesGcmBlockCrypto, which keeps its constants protected.
+    private static final String KEYSPEC = "AES";
+    private static final int KEY_BYTES = 32;
+    private static final int NONCE_BYTES = 12;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private EncryptionKeys() {}
+
+    static EncryptionKey create()
+    {
+        try {
+            KeyGenerator keyGen = KeyGenerator.getInstance(KEYSPEC);
+            keyGen.init(KEY_BYTES * 8, RANDOM);
+            byte[] nonce = new byte[NONCE_BYTES];
+            RANDOM.nextBytes(nonce);
+            return new EncryptionKey(keyGen.generateKey().getEncoded(), nonce);
+        }
+        catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread safe stand-in for the parts of AmazonS3 used by S3BlockSpiller which stores each object as a file under
+ * root/bucket/key. Unlike InMemoryAmazonS3 it can hold spills for data sets larger than the heap, which makes it
+ * suitable for end to end runs at larger scale factors. Any other AmazonS3 method throws
+ * UnsupportedOperationException.
+ */
+public class FileSystemAmazonS3
+        extends AbstractAmazonS3
+{
+    private final Path root;
+    private final AtomicLong putCount = new AtomicLong();
+    private final AtomicLong putBytes = new AtomicLong();
+
+    /**
+     * @param root The directory under which buckets and objects are stored, it is created if it doesn't exist.
+     */
+    public FileSystemAmazonS3(Path root)
+    {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request)
+    {
+        Path path = resolve(request.getBucketName(), request.getKey());
+        try (InputStream in = request.getInputStream()) {
+            Files.createDirectories(path.getParent());
+            long bytes = Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+            putCount.incrementAndGet();
+            putBytes.addAndGet(bytes);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return new PutObjectResult();
+    }
+
+    @Override
+    public S3Object getObject(String bucketName, String key)
+    {
+        Path path = resolve(bucketName, key);
+        try {
+            ObjectMetadata metadata = new ObjectMetadata();
+            metadata.setContentLength(Files.size(path));
+            S3Object object = new S3Object();
+            object.setBucketName(bucketName);
+            object.setKey(key);
+            object.setObjectMetadata(metadata);
+            object.setObjectContent(Files.newInputStream(path));
+            return object;
+        }
+        catch (NoSuchFileException ex) {
+            AmazonS3Exception notFound = new AmazonS3Exception("The specified key does not exist.");
+            notFound.setStatusCode(404);
+            throw notFound;
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request)
+    {
+        return getObject(request.getBucketName(), request.getKey());
+    }
+
+    @Override
+    public boolean doesObjectExist(String bucketName, String key)
+    {
+        return Files.exists(resolve(bucketName, key));
+    }
+
+    /**
+     * @return The number of objects which have been put since this instance was created.
+     */
+    public long getPutCount()
+    {
+        return putCount.get();
+    }
+
+    /**
+     * @return The total size, in bytes, of the objects which have been put since this instance was created.
+     */
+    public long getPutBytes()
+    {
+        return putBytes.get();
+    }
+
+    private Path resolve(String bucketName, String key)
+    {
+        Path path = root.resolve(bucketName).resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Key " + key + " resolves outside of " + root);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,127 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.google.common.io.ByteStreams;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal, thread safe, in-memory stand-in for the parts of AmazonS3 used by S3BlockSpiller. This keeps network
+ * latency and S3 request costs out of the benchmarks so that they only measure the SDK's own serialization,
+ * encryption and copying. Any other AmazonS3 method throws UnsupportedOperationException.
+ */
+public class InMemoryAmazonS3
+        extends AbstractAmazonS3
+{
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final AtomicLong putCount = new AtomicLong();
+    private final AtomicLong putBytes = new AtomicLong();
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request)
+    {
+        byte[] bytes;
+        try (InputStream in = request.getInputStream()) {
+            bytes = ByteStreams.toByteArray(in);
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        objects.put(makeKey(request.getBucketName(), request.getKey()), bytes);
+        putCount.incrementAndGet();
+        putBytes.addAndGet(bytes.length);
+        return new PutObjectResult();
+    }
+
+    @Override
+    public S3Object getObject(String bucketName, String key)
+    {
+        byte[] bytes = objects.get(makeKey(bucketName, key));
+        if (bytes == null) {
+            AmazonS3Exception ex = new AmazonS3Exception("The specified key does not exist.");
+            ex.setStatusCode(404);
+            throw ex;
+        }
+
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(bytes.length);
+        S3Object object = new S3Object();
+        object.setBucketName(bucketName);
+        object.setKey(key);
+        object.setObjectMetadata(metadata);
+        object.setObjectContent(new ByteArrayInputStream(bytes));
+        return object;
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request)
+    {
+        return getObject(request.getBucketName(), request.getKey());
+    }
+
+    @Override
+    public boolean doesObjectExist(String bucketName, String key)
+    {
+        return objects.containsKey(makeKey(bucketName, key));
+    }
+
+    /**
+     * @return The number of objects which have been put since this instance was created.
+     */
+    public long getPutCount()
+    {
+        return putCount.get();
+    }
+
+    /**
+     * @return The total size, in bytes, of the objects which have been put since this instance was created.
+     */
+    public long getPutBytes()
+    {
+        return putBytes.get();
+    }
+
+    /**
+     * Drops all stored objects, benchmarks call this between iterations to keep their heap usage bounded.
+     */
+    public void clear()
+    {
+        objects.clear();
+    }
+
+    private static String makeKey(String bucketName, String key)
+    {
+        return bucketName + "/" + key;
+    }
+}
@@ -0,0 +1,81 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
+import com.amazonaws.athena.connector.lambda.metadata.GetSplitsResponse;
+import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
+import com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler;
+import com.amazonaws.athena.connectors.tpcds.TPCDSUtils;
+import com.amazonaws.services.athena.AmazonAthena;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * TPCDSMetadataHandler which runs offline and generates at least a minimum number of splits. The connector sizes
+ * its splits for Lambda (one per ~48 scale factor units), so small scale factors would otherwise produce a single
+ * split and leave the harness unable to exercise concurrent reads.
+ */
+public class LocalTPCDSMetadataHandler
+        extends TPCDSMetadataHandler
+{
+    private final int minSplits;
+
+    /**
+     * @param keyFactory The factory used to create each split's spill encryption key, null disables spill encryption.
+     * @param athena The Athena client used by QueryStatusCheckers.
+     * @param spillBucket The bucket that spill locations point to.
+     * @param spillPrefix The prefix that spill locations start with.
+     * @param minSplits The minimum number of splits to generate for a table.
+     */
+    public LocalTPCDSMetadataHandler(EncryptionKeyFactory keyFactory,
+            AmazonAthena athena,
+            String spillBucket,
+            String spillPrefix,
+            int minSplits)
+    {
+        super(keyFactory, null, athena, spillBucket, spillPrefix, Collections.emptyMap());
+        this.minSplits = minSplits;
+    }
+
+    /**
+     * Uses the connector's own splits if there are at least minSplits of them, otherwise divides the table into
+     * minSplits chunks which TPCDSRecordHandler generates independently.
+     */
+    @Override
+    public GetSplitsResponse doGetSplits(BlockAllocator allocator, GetSplitsRequest request)
+    {
+        int scaleFactor = TPCDSUtils.extractScaleFactor(request.getTableName().getSchemaName());
+        int connectorSplits = (int) Math.ceil(((double) scaleFactor / 48D));
+        if (connectorSplits >= minSplits) {
+            return super.doGetSplits(allocator, request);
+        }
+
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < minSplits; i++) {
+            splits.add(makeSplit(request, i, minSplits, scaleFactor));
+        }
+        return new GetSplitsResponse(request.getCatalogName(), splits);
+    }
+}
@@ -0,0 +1,126 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetrics;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connectors.tpcds.TPCDSRecordHandler;
+import com.amazonaws.services.athena.AmazonAthena;
+import com.amazonaws.services.s3.AmazonS3;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TPCDSRecordHandler which runs offline and counts the rows it writes. Spilled Blocks are opaque (and possibly
+ * encrypted) once they reach S3, so rows are counted as the connector hands them to the BlockSpiller.
+ */
+public class LocalTPCDSRecordHandler
+        extends TPCDSRecordHandler
+{
+    private final LongAdder rows = new LongAdder();
+
+    /**
+     * @param amazonS3 The S3 client that spilled Blocks are written to.
+     * @param athena The Athena client used by QueryStatusCheckers.
+     */
+    public LocalTPCDSRecordHandler(AmazonS3 amazonS3, AmazonAthena athena)
+    {
+        super(amazonS3, null, athena, Collections.emptyMap());
+    }
+
+    @Override
+    protected void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
+            throws Exception
+    {
+        super.readWithConstraint(new CountingBlockSpiller(spiller), recordsRequest, queryStatusChecker);
+    }
+
+    /**
+     * @return The total number of rows written by this handler since it was created.
+     */
+    public long getRows()
+    {
+        return rows.sum();
+    }
+
+    private class CountingBlockSpiller
+            implements BlockSpiller
+    {
+        private final BlockSpiller delegate;
+
+        private CountingBlockSpiller(BlockSpiller delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void writeRows(RowWriter rowWriter)
+        {
+            delegate.writeRows((Block block, int rowNum) -> {
+                int written = rowWriter.writeRows(block, rowNum);
+                rows.add(written);
+                return written;
+            });
+        }
+
+        @Override
+        public boolean spilled()
+        {
+            return delegate.spilled();
+        }
+
+        @Override
+        public Block getBlock()
+        {
+            return delegate.getBlock();
+        }
+
+        @Override
+        public List<SpillLocation> getSpillLocations()
+        {
+            return delegate.getSpillLocations();
+        }
+
+        @Override
+        public void close()
+        {
+            delegate.close();
+        }
+
+        @Override
+        public ConstraintEvaluator getConstraintEvaluator()
+        {
+            return delegate.getConstraintEvaluator();
+        }
+
+        @Override
+        public SplitMetrics getMetrics()
+        {
+            return delegate.getMetrics();
+        }
+    }
+}
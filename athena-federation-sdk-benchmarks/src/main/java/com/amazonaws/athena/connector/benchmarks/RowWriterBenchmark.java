@@ -0,0 +1,161 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.FieldResolver;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BigIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BitExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float8Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.IntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarCharExtractor;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of writing rows into a Block via GeneratedRowWriter, including the evaluation of a constraint
+ * on the key column. Rows which don't match are overwritten by the next row, as a connector would. Scores are in
+ * rows per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class RowWriterBenchmark
+{
+    private static final int ROWS = BlockWriteBenchmark.ROWS;
+
+    @Param
+    public BenchmarkSchema schema;
+
+    @Param
+    public ConstraintShape constraint;
+
+    private Object[][] rows;
+    private BlockAllocatorImpl allocator;
+    private GeneratedRowWriter rowWriter;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        rows = schema.generateRows(ROWS);
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration()
+    {
+        //The allocator tracks every Block it creates, we use one per iteration to keep that bookkeeping bounded.
+        allocator = new BlockAllocatorImpl();
+        GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder(constraint.makeConstraints(allocator, ROWS));
+        List<Field> fields = schema.getSchema().getFields();
+        for (int col = 0; col < fields.size(); col++) {
+            addExtractor(builder, fields.get(col), col);
+        }
+        rowWriter = builder.build();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration()
+    {
+        allocator.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int generatedRowWriter()
+            throws Exception
+    {
+        try (Block block = allocator.createBlock(schema.getSchema())) {
+            int matched = 0;
+            for (int row = 0; row < ROWS; row++) {
+                if (rowWriter.writeRow(block, matched, rows[row])) {
+                    matched++;
+                }
+            }
+            block.setRowCount(matched);
+            return matched;
+        }
+    }
+
+    private static void addExtractor(GeneratedRowWriter.RowWriterBuilder builder, Field field, int col)
+    {
+        String name = field.getName();
+        switch (Types.getMinorTypeForArrowType(field.getType())) {
+            case INT:
+                builder.withExtractor(name, (IntExtractor) (context, dst) -> {
+                    dst.isSet = 1;
+                    dst.value = (Integer) ((Object[]) context)[col];
+                });
+                break;
+            case BIGINT:
+                builder.withExtractor(name, (BigIntExtractor) (context, dst) -> {
+                    dst.isSet = 1;
+                    dst.value = (Long) ((Object[]) context)[col];
+                });
+                break;
+            case FLOAT8:
+                builder.withExtractor(name, (Float8Extractor) (context, dst) -> {
+                    dst.isSet = 1;
+                    dst.value = (Double) ((Object[]) context)[col];
+                });
+                break;
+            case BIT:
+                builder.withExtractor(name, (BitExtractor) (context, dst) -> {
+                    dst.isSet = 1;
+                    dst.value = (Boolean) ((Object[]) context)[col] ? 1 : 0;
+                });
+                break;
+            case VARCHAR:
+                builder.withExtractor(name, (VarCharExtractor) (context, dst) -> {
+                    dst.isSet = 1;
+                    dst.value = (String) ((Object[]) context)[col];
+                });
+                break;
+            default:
+                //GeneratedRowWriter has no extractors for complex types, connectors supply a FieldWriterFactory.
+                builder.withFieldWriterFactory(name, (vector, extractor, constraint) -> (Object context, int rowNum) -> {
+                    BlockUtils.setComplexValue(vector, rowNum, FieldResolver.DEFAULT, ((Object[]) context)[col]);
+                    return true;
+                });
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.S3BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.SpillConfig;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
+import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures S3BlockSpiller.writeRows end to end: writing rows into the in progress Block, serializing and optionally
+ * encrypting full Blocks and handing them to S3 (an in memory stand-in). Spilling is done synchronously so that
+ * the score reflects the total CPU cost of a split rather than how well it overlaps with the writer thread.
+ * Scores are in rows per second, the spills and spilledBytes counters are totals per iteration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class S3BlockSpillerBenchmark
+{
+    public static final int ROWS = 50_000;
+    private static final long MAX_BLOCK_BYTES = 512 * 1024;
+
+    @Param
+    public BenchmarkSchema schema;
+
+    @Param({"true", "false"})
+    public boolean encrypted;
+
+    private Object[][] rows;
+    private InMemoryAmazonS3 amazonS3;
+    private EncryptionKey key;
+    private BlockAllocatorImpl allocator;
+    private int split;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SpillCounters
+    {
+        public long spills;
+        public long spilledBytes;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            spills = 0;
+            spilledBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+    {
+        rows = schema.generateRows(ROWS);
+        amazonS3 = new InMemoryAmazonS3();
+        key = encrypted ? EncryptionKeys.create() : null;
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration()
+    {
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration()
+    {
+        allocator.close();
+        amazonS3.clear();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int writeRows(SpillCounters counters)
+            throws Exception
+    {
+        long putCount = amazonS3.getPutCount();
+        long putBytes = amazonS3.getPutBytes();
+
+        SpillConfig spillConfig = SpillConfig.newBuilder()
+                .withEncryptionKey(key)
+                .withRequestId("benchmark")
+                .withSpillLocation(S3SpillLocation.newBuilder()
+                        .withBucket("benchmark-bucket")
+                        .withPrefix("spill")
+                        .withQueryId("query")
+                        .withSplitId("split-" + split++)
+                        .withIsDirectory(true)
+                        .build())
+                .withNumSpillThreads(0)
+                .withMaxBlockBytes(MAX_BLOCK_BYTES)
+                .withMaxInlineBlockBytes(0)
+                .build();
+
+        S3BlockSpiller spiller = new S3BlockSpiller(amazonS3, spillConfig, allocator, schema.getSchema(),
+                ConstraintEvaluator.emptyEvaluator(), Collections.emptyMap());
+        try {
+            for (Object[] next : rows) {
+                spiller.writeRows((block, rowNum) -> {
+                    BenchmarkSchema.writeRow(block, rowNum, next);
+                    return 1;
+                });
+            }
+            int spills = spiller.getSpillLocations().size();
+            counters.spills += amazonS3.getPutCount() - putCount;
+            counters.spilledBytes += amazonS3.getPutBytes() - putBytes;
+            return spills;
+        }
+        finally {
+            spiller.close();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsResponse;
+import com.amazonaws.athena.connector.lambda.request.FederationResponse;
+import com.amazonaws.athena.connector.lambda.serde.VersionedObjectMapperFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures serializing and deserializing a ReadRecordsResponse with an inline Block, the path every non-spilled
+ * split takes on its way back to Athena, for each of the SerDe versions the SDK can still be asked to speak.
+ * Scores are in rows per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-opens=java.base/java.nio=ALL-UNNAMED")
+public class SerDeBenchmark
+{
+    private static final int ROWS = BlockWriteBenchmark.ROWS;
+
+    @Param
+    public BenchmarkSchema schema;
+
+    @Param({"4", "5", "6"})
+    public int serDeVersion;
+
+    private BlockAllocatorImpl responseAllocator;
+    private ReadRecordsResponse response;
+    private byte[] serialized;
+    private ByteArrayOutputStream out;
+    private BlockAllocatorImpl allocator;
+    private ObjectMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setupTrial()
+            throws Exception
+    {
+        responseAllocator = new BlockAllocatorImpl();
+        Object[][] rows = schema.generateRows(ROWS);
+        Block block = responseAllocator.createBlock(schema.getSchema());
+        for (int row = 0; row < ROWS; row++) {
+            BenchmarkSchema.writeRow(block, row, rows[row]);
+        }
+        block.setRowCount(ROWS);
+        response = new ReadRecordsResponse("catalog", block);
+        serialized = VersionedObjectMapperFactory.create(responseAllocator, serDeVersion).writeValueAsBytes(response);
+        out = new ByteArrayOutputStream(serialized.length);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial()
+            throws Exception
+    {
+        response.close();
+        responseAllocator.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void setupIteration()
+    {
+        //Deserialized Blocks are tracked by the mapper's allocator, we use one per iteration to keep that bounded.
+        allocator = new BlockAllocatorImpl();
+        mapper = VersionedObjectMapperFactory.create(allocator, serDeVersion);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownIteration()
+    {
+        allocator.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int serialize()
+            throws Exception
+    {
+        out.reset();
+        mapper.writeValue(out, response);
+        return out.size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public int deserialize()
+            throws Exception
+    {
+        try (ReadRecordsResponse next = (ReadRecordsResponse) mapper.readValue(serialized, FederationResponse.class)) {
+            return next.getRecordCount();
+        }
+    }
+}
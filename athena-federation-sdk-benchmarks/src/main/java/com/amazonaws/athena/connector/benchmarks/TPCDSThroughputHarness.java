@@ -0,0 +1,463 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
+import com.amazonaws.athena.connector.lambda.metadata.GetSplitsResponse;
+import com.amazonaws.athena.connector.lambda.metadata.GetTableLayoutRequest;
+import com.amazonaws.athena.connector.lambda.metadata.GetTableLayoutResponse;
+import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
+import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsResponse;
+import com.amazonaws.athena.connector.lambda.records.RecordResponse;
+import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Offline, in-process load generator for the Athena Query Federation SDK. It drives the same request sequence Athena
+ * sends to a connector (GetTable, GetTableLayout, GetSplits and then ReadRecords for every split, concurrently)
+ * against the TPC-DS connector, which generates its data on the fly, and spills to the local filesystem instead of
+ * S3. For each scale factor it reports rows/s, bytes/s, spills, GC activity and the allocation rate of the
+ * ReadRecords phase, which makes it a repeatable way to compare two versions of the SDK on the same machine.
+ * <p>
+ * You can run this tool using the following command:
+ * java -cp athena-federation-sdk-benchmarks/target/benchmarks.jar com.amazonaws.athena.connector.benchmarks.TPCDSThroughputHarness [args]
+ */
+public class TPCDSThroughputHarness
+{
+    private static final Logger logger = LoggerFactory.getLogger(TPCDSThroughputHarness.class);
+
+    private static final String CATALOG = "tpcds";
+    private static final String SPILL_BUCKET = "tpcds-harness";
+    private static final String SPILL_PREFIX = "athena-spill";
+    private static final FederatedIdentity IDENTITY = new FederatedIdentity("HARNESS_ARN",
+            "HARNESS_ACCOUNT",
+            Collections.emptyMap(),
+            Collections.emptyList());
+
+    private TPCDSThroughputHarness()
+    {
+        // Intentionally left blank.
+    }
+
+    /**
+     * The main method of this class allows the following argument pattern:
+     * [--scale-factors sf[,sf...]] [--table table] [--concurrency threads] [--splits splits] [--spill-dir dir]
+     * [--max-block-bytes bytes] [--max-inline-block-bytes bytes] [--warmup-runs runs] [--disable-encryption] [--help]
+     * <p>
+     * Run with the -h or --help options to see full argument descriptions, or see {@link HarnessConfig} below.
+     */
+    public static void main(String[] args)
+            throws Exception
+    {
+        HarnessConfig config = HarnessConfig.fromArgs(args);
+
+        List<ThroughputResult> results = new ArrayList<>();
+        for (int scaleFactor : config.getScaleFactors()) {
+            for (int i = 0; i < config.getWarmupRuns(); i++) {
+                logger.info("Warming up with {} at scale factor {}, run {} of {}", config.getTable(), scaleFactor, i + 1, config.getWarmupRuns());
+                run(config, scaleFactor);
+            }
+            ThroughputResult result = run(config, scaleFactor);
+            logger.info("Finished {} at scale factor {}: {}", config.getTable(), scaleFactor, result);
+            results.add(result);
+        }
+
+        System.out.println("Table " + config.getTable() + ", " + config.getConcurrency() + " concurrent splits, spill encryption "
+                + (config.isEncryptionEnabled() ? "enabled" : "disabled"));
+        System.out.println(ThroughputResult.header());
+        for (ThroughputResult next : results) {
+            System.out.println(next.toRow());
+        }
+    }
+
+    /**
+     * Plans and reads the configured table once at the given scale factor. Only the ReadRecords phase is measured,
+     * planning a TPC-DS table doesn't involve any I/O and is negligible in comparison.
+     *
+     * @param config The harness configuration.
+     * @param scaleFactor The TPC-DS scale factor to read the table at.
+     * @return The measurements of the ReadRecords phase.
+     */
+    static ThroughputResult run(HarnessConfig config, int scaleFactor)
+            throws Exception
+    {
+        //MetadataHandler builds an S3 client, which the harness never calls but which can't be built without a region.
+        if (System.getenv("AWS_REGION") == null && System.getProperty("aws.region") == null) {
+            System.setProperty("aws.region", "us-east-1");
+        }
+
+        Path spillRoot = Files.createTempDirectory(config.getSpillDirectory(), "sf" + scaleFactor + "-");
+        ExecutorService executor = Executors.newFixedThreadPool(config.getConcurrency(),
+                new ThreadFactoryBuilder().setNameFormat("tpcds-harness-%d").setDaemon(true).build());
+        try (BlockAllocator allocator = new BlockAllocatorImpl()) {
+            FileSystemAmazonS3 amazonS3 = new FileSystemAmazonS3(spillRoot);
+            LocalAmazonAthena athena = new LocalAmazonAthena();
+            LocalTPCDSMetadataHandler metadataHandler = new LocalTPCDSMetadataHandler(
+                    config.isEncryptionEnabled() ? EncryptionKeys::create : null,
+                    athena,
+                    SPILL_BUCKET,
+                    SPILL_PREFIX,
+                    config.getSplits());
+            LocalTPCDSRecordHandler recordHandler = new LocalTPCDSRecordHandler(amazonS3, athena);
+
+            String queryId = "tpcds-harness-" + spillRoot.getFileName();
+            TableName tableName = new TableName("tpcds" + scaleFactor, config.getTable());
+            Constraints constraints = new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT);
+
+            GetTableResponse table = metadataHandler.doGetTable(allocator,
+                    new GetTableRequest(IDENTITY, queryId, CATALOG, tableName, Collections.emptyMap()));
+            Schema schema = table.getSchema();
+            List<Split> splits = getSplits(allocator, metadataHandler, queryId, tableName, schema, table.getPartitionColumns(), constraints);
+            logger.info("run: reading {} at scale factor {} as {} splits", config.getTable(), scaleFactor, splits.size());
+
+            long gcCountBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            AllocationSampler allocationSampler = AllocationSampler.start();
+            long start = System.nanoTime();
+
+            List<Future<Long>> reads = new ArrayList<>();
+            for (Split split : splits) {
+                ReadRecordsRequest request = new ReadRecordsRequest(IDENTITY,
+                        CATALOG,
+                        queryId,
+                        tableName,
+                        schema,
+                        split,
+                        constraints,
+                        config.getMaxBlockBytes(),
+                        config.getMaxInlineBlockBytes());
+                reads.add(executor.submit(() -> readSplit(recordHandler, request)));
+            }
+
+            long inlineBytes = 0;
+            for (Future<Long> next : reads) {
+                inlineBytes += next.get();
+            }
+
+            long elapsedNanos = System.nanoTime() - start;
+            long allocatedBytes = -1;
+            if (allocationSampler != null) {
+                allocationSampler.close();
+                allocatedBytes = allocationSampler.getAllocatedBytes();
+            }
+
+            return new ThroughputResult(scaleFactor,
+                    splits.size(),
+                    recordHandler.getRows(),
+                    elapsedNanos,
+                    amazonS3.getPutCount(),
+                    amazonS3.getPutBytes(),
+                    inlineBytes,
+                    gcCount() - gcCountBefore,
+                    gcMillis() - gcMillisBefore,
+                    allocatedBytes);
+        }
+        finally {
+            executor.shutdownNow();
+            deleteRecursively(spillRoot);
+        }
+    }
+
+    private static List<Split> getSplits(BlockAllocator allocator,
+            LocalTPCDSMetadataHandler metadataHandler,
+            String queryId,
+            TableName tableName,
+            Schema schema,
+            Set<String> partitionColumns,
+            Constraints constraints)
+            throws Exception
+    {
+        try (GetTableLayoutResponse layout = metadataHandler.doGetTableLayout(allocator,
+                new GetTableLayoutRequest(IDENTITY, queryId, CATALOG, tableName, constraints, schema, partitionColumns))) {
+            List<Split> splits = new ArrayList<>();
+            String continuationToken = null;
+            do {
+                GetSplitsRequest request = new GetSplitsRequest(IDENTITY,
+                        queryId,
+                        CATALOG,
+                        tableName,
+                        layout.getPartitions(),
+                        new ArrayList<>(partitionColumns),
+                        constraints,
+                        continuationToken);
+                try (GetSplitsResponse response = metadataHandler.doGetSplits(allocator, request)) {
+                    splits.addAll(response.getSplits());
+                    continuationToken = response.getContinuationToken();
+                }
+            }
+            while (continuationToken != null);
+            return splits;
+        }
+    }
+
+    /**
+     * Reads one split, with its own BlockAllocator just like a RecordHandler Lambda invocation.
+     *
+     * @return The size of the Block returned inline, 0 if the split spilled.
+     */
+    private static long readSplit(LocalTPCDSRecordHandler recordHandler, ReadRecordsRequest request)
+            throws Exception
+    {
+        try (BlockAllocator allocator = new BlockAllocatorImpl();
+                RecordResponse response = recordHandler.doReadRecords(allocator, request)) {
+            if (response instanceof ReadRecordsResponse) {
+                return ((ReadRecordsResponse) response).getRecords().getSize();
+            }
+            return 0;
+        }
+    }
+
+    private static long gcCount()
+    {
+        long count = 0;
+        for (GarbageCollectorMXBean next : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, next.getCollectionCount());
+        }
+        return count;
+    }
+
+    private static long gcMillis()
+    {
+        long millis = 0;
+        for (GarbageCollectorMXBean next : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, next.getCollectionTime());
+        }
+        return millis;
+    }
+
+    private static void deleteRecursively(Path root)
+    {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path next : paths.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(next);
+            }
+        }
+        catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static class HarnessConfig
+    {
+        private static final String SCALE_FACTORS_ARG = "scale-factors";
+        private static final String TABLE_ARG = "table";
+        private static final String CONCURRENCY_ARG = "concurrency";
+        private static final String SPLITS_ARG = "splits";
+        private static final String SPILL_DIR_ARG = "spill-dir";
+        private static final String MAX_BLOCK_BYTES_ARG = "max-block-bytes";
+        private static final String MAX_INLINE_BLOCK_BYTES_ARG = "max-inline-block-bytes";
+        private static final String WARMUP_RUNS_ARG = "warmup-runs";
+        private static final String DISABLE_ENCRYPTION_ARG = "disable-encryption";
+        private static final String HELP_ARG = "help";
+
+        //Same limits the ConnectorValidator sends, which match what Athena sends.
+        private static final long DEFAULT_MAX_BLOCK_BYTES = 16000000;
+        private static final long DEFAULT_MAX_INLINE_BLOCK_BYTES = 5242880;
+
+        private final List<Integer> scaleFactors;
+        private final String table;
+        private final int concurrency;
+        private final int splits;
+        private final Path spillDirectory;
+        private final long maxBlockBytes;
+        private final long maxInlineBlockBytes;
+        private final int warmupRuns;
+        private final boolean encryptionEnabled;
+
+        private HarnessConfig(List<Integer> scaleFactors,
+                String table,
+                int concurrency,
+                int splits,
+                Path spillDirectory,
+                long maxBlockBytes,
+                long maxInlineBlockBytes,
+                int warmupRuns,
+                boolean encryptionEnabled)
+        {
+            this.scaleFactors = scaleFactors;
+            this.table = table;
+            this.concurrency = concurrency;
+            this.splits = splits;
+            this.spillDirectory = spillDirectory;
+            this.maxBlockBytes = maxBlockBytes;
+            this.maxInlineBlockBytes = maxInlineBlockBytes;
+            this.warmupRuns = warmupRuns;
+            this.encryptionEnabled = encryptionEnabled;
+        }
+
+        List<Integer> getScaleFactors()
+        {
+            return scaleFactors;
+        }
+
+        String getTable()
+        {
+            return table;
+        }
+
+        int getConcurrency()
+        {
+            return concurrency;
+        }
+
+        int getSplits()
+        {
+            return splits;
+        }
+
+        Path getSpillDirectory()
+        {
+            return spillDirectory;
+        }
+
+        long getMaxBlockBytes()
+        {
+            return maxBlockBytes;
+        }
+
+        long getMaxInlineBlockBytes()
+        {
+            return maxInlineBlockBytes;
+        }
+
+        int getWarmupRuns()
+        {
+            return warmupRuns;
+        }
+
+        boolean isEncryptionEnabled()
+        {
+            return encryptionEnabled;
+        }
+
+        static HarnessConfig fromArgs(String[] args)
+                throws ParseException, IOException
+        {
+            requireNonNull(args);
+
+            Options options = new Options();
+            options.addOption("s", SCALE_FACTORS_ARG, true,
+                    "A comma-separated list of TPC-DS scale factors to read the table at, in order. Defaults to 1.");
+            options.addOption("t", TABLE_ARG, true,
+                    "The TPC-DS table to read. Defaults to store_sales.");
+            options.addOption("c", CONCURRENCY_ARG, true,
+                    "The number of splits to read concurrently. Defaults to the number of available processors.");
+            options.addOption("n", SPLITS_ARG, true,
+                    "The minimum number of splits to divide the table into. Defaults to the concurrency.");
+            options.addOption("d", SPILL_DIR_ARG, true,
+                    "The directory to spill to, each run spills to (and then deletes) its own sub-directory. "
+                            + "Defaults to the system's temporary directory.");
+            options.addOption("b", MAX_BLOCK_BYTES_ARG, true,
+                    "The maximum size of a spilled Block. Defaults to " + DEFAULT_MAX_BLOCK_BYTES + ".");
+            options.addOption("i", MAX_INLINE_BLOCK_BYTES_ARG, true,
+                    "The maximum size of a Block returned inline, larger splits spill. Defaults to " + DEFAULT_MAX_INLINE_BLOCK_BYTES + ".");
+            options.addOption("w", WARMUP_RUNS_ARG, true,
+                    "The number of unmeasured runs before each measured one, to let the JIT compiler warm up. Defaults to 1.");
+            options.addOption("e", DISABLE_ENCRYPTION_ARG, false,
+                    "If this option is set, spilled Blocks are not encrypted.");
+            options.addOption("h", HELP_ARG, false, "Prints usage information.");
+            DefaultParser argParser = new DefaultParser();
+            CommandLine parsedArgs = argParser.parse(options, args);
+
+            if (parsedArgs.hasOption(HELP_ARG)) {
+                new HelpFormatter().printHelp(150, "java -cp benchmarks.jar " + TPCDSThroughputHarness.class.getName()
+                                + " [--" + SCALE_FACTORS_ARG + " sf[,sf...]] [--" + TABLE_ARG + " table]"
+                                + " [--" + CONCURRENCY_ARG + " threads] [--" + SPLITS_ARG + " splits]"
+                                + " [--" + SPILL_DIR_ARG + " dir] [--" + MAX_BLOCK_BYTES_ARG + " bytes]"
+                                + " [--" + MAX_INLINE_BLOCK_BYTES_ARG + " bytes] [--" + WARMUP_RUNS_ARG + " runs]"
+                                + " [--" + DISABLE_ENCRYPTION_ARG + "] [--" + HELP_ARG + "]",
+                        null,
+                        options,
+                        null);
+                System.exit(0);
+            }
+
+            List<Integer> scaleFactors = new ArrayList<>();
+            for (String next : parsedArgs.getOptionValue(SCALE_FACTORS_ARG, "1").split(",")) {
+                int scaleFactor = Integer.parseInt(next.trim());
+                checkArgument(scaleFactor > 0, "Scale factors must be positive, found %s.", scaleFactor);
+                scaleFactors.add(scaleFactor);
+            }
+
+            int concurrency = Integer.parseInt(parsedArgs.getOptionValue(CONCURRENCY_ARG,
+                    String.valueOf(Runtime.getRuntime().availableProcessors())));
+            checkArgument(concurrency > 0, "The --%s argument must be positive.", CONCURRENCY_ARG);
+
+            int splits = Integer.parseInt(parsedArgs.getOptionValue(SPLITS_ARG, String.valueOf(concurrency)));
+            checkArgument(splits > 0, "The --%s argument must be positive.", SPLITS_ARG);
+
+            int warmupRuns = Integer.parseInt(parsedArgs.getOptionValue(WARMUP_RUNS_ARG, "1"));
+            checkArgument(warmupRuns >= 0, "The --%s argument must not be negative.", WARMUP_RUNS_ARG);
+
+            Path spillDirectory = Optional.ofNullable(parsedArgs.getOptionValue(SPILL_DIR_ARG))
+                    .map(Paths::get)
+                    .orElse(Paths.get(System.getProperty("java.io.tmpdir")));
+            Files.createDirectories(spillDirectory);
+
+            return new HarnessConfig(scaleFactors,
+                    parsedArgs.getOptionValue(TABLE_ARG, "store_sales"),
+                    concurrency,
+                    splits,
+                    spillDirectory,
+                    Long.parseLong(parsedArgs.getOptionValue(MAX_BLOCK_BYTES_ARG, String.valueOf(DEFAULT_MAX_BLOCK_BYTES))),
+                    Long.parseLong(parsedArgs.getOptionValue(MAX_INLINE_BLOCK_BYTES_ARG, String.valueOf(DEFAULT_MAX_INLINE_BLOCK_BYTES))),
+                    warmupRuns,
+                    !parsedArgs.hasOption(DISABLE_ENCRYPTION_ARG));
+        }
+    }
+}
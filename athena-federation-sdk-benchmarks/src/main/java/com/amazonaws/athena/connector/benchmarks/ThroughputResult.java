@@ -0,0 +1,198 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outcome of reading one TPC-DS table at one scale factor with the TPCDSThroughputHarness.
+ */
+public class ThroughputResult
+{
+    private static final double MB = 1024 * 1024;
+
+    private final int scaleFactor;
+    private final int splits;
+    private final long rows;
+    private final long elapsedNanos;
+    private final long spills;
+    private final long spilledBytes;
+    private final long inlineBytes;
+    private final long gcCount;
+    private final long gcMillis;
+    private final long allocatedBytes;
+
+    /**
+     * @param scaleFactor The TPC-DS scale factor that was read.
+     * @param splits The number of splits the table was read as.
+     * @param rows The number of rows written by the RecordHandler.
+     * @param elapsedNanos The wall clock time it took to read all splits.
+     * @param spills The number of Blocks spilled to S3.
+     * @param spilledBytes The total size of the spilled (serialized and possibly encrypted) Blocks.
+     * @param inlineBytes The total size of the Blocks which were small enough to be returned inline.
+     * @param gcCount The number of garbage collections while reading.
+     * @param gcMillis The time spent in garbage collection while reading, which may overlap with other collections.
+     * @param allocatedBytes The approximate number of bytes allocated while reading, -1 if it wasn't measured.
+     */
+    public ThroughputResult(int scaleFactor,
+            int splits,
+            long rows,
+            long elapsedNanos,
+            long spills,
+            long spilledBytes,
+            long inlineBytes,
+            long gcCount,
+            long gcMillis,
+            long allocatedBytes)
+    {
+        this.scaleFactor = scaleFactor;
+        this.splits = splits;
+        this.rows = rows;
+        this.elapsedNanos = elapsedNanos;
+        this.spills = spills;
+        this.spilledBytes = spilledBytes;
+        this.inlineBytes = inlineBytes;
+        this.gcCount = gcCount;
+        this.gcMillis = gcMillis;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public int getScaleFactor()
+    {
+        return scaleFactor;
+    }
+
+    public int getSplits()
+    {
+        return splits;
+    }
+
+    public long getRows()
+    {
+        return rows;
+    }
+
+    public long getElapsedNanos()
+    {
+        return elapsedNanos;
+    }
+
+    public long getSpills()
+    {
+        return spills;
+    }
+
+    public long getSpilledBytes()
+    {
+        return spilledBytes;
+    }
+
+    public long getInlineBytes()
+    {
+        return inlineBytes;
+    }
+
+    public long getGcCount()
+    {
+        return gcCount;
+    }
+
+    public long getGcMillis()
+    {
+        return gcMillis;
+    }
+
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes;
+    }
+
+    public double getRowsPerSecond()
+    {
+        return perSecond(rows);
+    }
+
+    /**
+     * @return The rate at which the RecordHandler produced response bytes, both spilled and inline.
+     */
+    public double getBytesPerSecond()
+    {
+        return perSecond(spilledBytes + inlineBytes);
+    }
+
+    /**
+     * @return The approximate allocation rate in bytes per second, -1 if it wasn't measured.
+     */
+    public double getAllocatedBytesPerSecond()
+    {
+        return (allocatedBytes < 0) ? -1 : perSecond(allocatedBytes);
+    }
+
+    /**
+     * @return The column headers matching toRow().
+     */
+    public static String header()
+    {
+        return String.format("%6s %7s %12s %9s %12s %10s %8s %11s %9s %8s %14s",
+                "sf", "splits", "rows", "seconds", "rows/s", "MB/s", "spills", "spilled MB", "gc count", "gc ms", "alloc MB/s");
+    }
+
+    /**
+     * @return This result formatted as a row of the table started by header().
+     */
+    public String toRow()
+    {
+        double allocationRate = getAllocatedBytesPerSecond();
+        return String.format("%6d %7d %12d %9.2f %12.0f %10.2f %8d %11.2f %9d %8d %14s",
+                scaleFactor,
+                splits,
+                rows,
+                elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1),
+                getRowsPerSecond(),
+                getBytesPerSecond() / MB,
+                spills,
+                spilledBytes / MB,
+                gcCount,
+                gcMillis,
+                (allocationRate < 0) ? "n/a" : String.format("%.2f", allocationRate / MB));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ThroughputResult{" +
+                "scaleFactor=" + scaleFactor +
+                ", splits=" + splits +
+                ", rows=" + rows +
+                ", elapsedNanos=" + elapsedNanos +
+                ", spills=" + spills +
+                ", spilledBytes=" + spilledBytes +
+                ", inlineBytes=" + inlineBytes +
+                ", gcCount=" + gcCount +
+                ", gcMillis=" + gcMillis +
+                ", allocatedBytes=" + allocatedBytes +
+                '}';
+    }
+
+    private double perSecond(long value)
+    {
+        return value / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+    }
+}
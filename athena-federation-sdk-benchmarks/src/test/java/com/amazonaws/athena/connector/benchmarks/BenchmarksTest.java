@@ -0,0 +1,170 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import com.amazonaws.athena.connector.lambda.security.AesGcmCipherEngine;
+import org.junit.Test;
+import org.openjdk.jmh.infra.Blackhole;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs a single invocation of every benchmark, for every parameter value, so that a change to the SDK which breaks
+ * a benchmark is caught by the build instead of by the next person who tries to measure something.
+ */
+public class BenchmarksTest
+{
+    //JMH injects Blackholes into benchmarks, outside of JMH they can only be created with this acknowledgement.
+    private static final Blackhole BLACKHOLE =
+            new Blackhole("Today's password is swordfish. I understand instantiating Blackholes directly is dangerous.");
+
+    @Test
+    public void blockWrite()
+            throws Exception
+    {
+        for (BenchmarkSchema schema : BenchmarkSchema.values()) {
+            BlockWriteBenchmark benchmark = new BlockWriteBenchmark();
+            benchmark.schema = schema;
+            benchmark.setupTrial();
+            benchmark.setupIteration();
+            assertEquals(BlockWriteBenchmark.ROWS, benchmark.blockUtilsSetValue());
+            benchmark.tearDownIteration();
+        }
+    }
+
+    @Test
+    public void rowWriter()
+            throws Exception
+    {
+        for (BenchmarkSchema schema : BenchmarkSchema.values()) {
+            for (ConstraintShape constraint : ConstraintShape.values()) {
+                RowWriterBenchmark benchmark = new RowWriterBenchmark();
+                benchmark.schema = schema;
+                benchmark.constraint = constraint;
+                benchmark.setupTrial();
+                benchmark.setupIteration();
+                assertEquals(schema + " " + constraint, expectedMatches(constraint), benchmark.generatedRowWriter());
+                benchmark.tearDownIteration();
+            }
+        }
+    }
+
+    @Test
+    public void constraint()
+            throws Exception
+    {
+        for (ConstraintShape constraint : ConstraintShape.values()) {
+            ConstraintBenchmark benchmark = new ConstraintBenchmark();
+            benchmark.constraint = constraint;
+            benchmark.setup();
+            assertEquals(constraint.toString(), expectedMatches(constraint), benchmark.constraintEvaluatorApply(BLACKHOLE));
+            assertEquals(constraint.toString(), expectedMatches(constraint), benchmark.sortedRangeSetContainsValue(BLACKHOLE));
+            benchmark.tearDown();
+        }
+    }
+
+    @Test
+    public void s3BlockSpiller()
+            throws Exception
+    {
+        for (BenchmarkSchema schema : BenchmarkSchema.values()) {
+            for (boolean encrypted : new boolean[] {true, false}) {
+                S3BlockSpillerBenchmark benchmark = new S3BlockSpillerBenchmark();
+                benchmark.schema = schema;
+                benchmark.encrypted = encrypted;
+                S3BlockSpillerBenchmark.SpillCounters counters = new S3BlockSpillerBenchmark.SpillCounters();
+                benchmark.setupTrial();
+                benchmark.setupIteration();
+                int spills = benchmark.writeRows(counters);
+                assertTrue(schema + " spilled " + spills, spills > 1);
+                assertEquals(spills, counters.spills);
+                assertTrue(counters.spilledBytes > 0);
+                benchmark.tearDownIteration();
+            }
+        }
+    }
+
+    @Test
+    public void serDe()
+            throws Exception
+    {
+        for (BenchmarkSchema schema : BenchmarkSchema.values()) {
+            for (int serDeVersion : new int[] {4, 5, 6}) {
+                SerDeBenchmark benchmark = new SerDeBenchmark();
+                benchmark.schema = schema;
+                benchmark.serDeVersion = serDeVersion;
+                benchmark.setupTrial();
+                benchmark.setupIteration();
+                assertTrue(benchmark.serialize() > 0);
+                assertEquals(BlockWriteBenchmark.ROWS, benchmark.deserialize());
+                benchmark.tearDownIteration();
+                benchmark.tearDownTrial();
+            }
+        }
+    }
+
+    @Test
+    public void blockCrypto()
+            throws Exception
+    {
+        for (BenchmarkSchema schema : BenchmarkSchema.values()) {
+            for (BlockCryptoBenchmark.CryptoType crypto : BlockCryptoBenchmark.CryptoType.values()) {
+                BlockCryptoBenchmark benchmark = new BlockCryptoBenchmark();
+                benchmark.schema = schema;
+                benchmark.crypto = crypto;
+                benchmark.setupTrial();
+                benchmark.setupIteration();
+                assertTrue(benchmark.encrypt() > 0);
+                assertEquals(BlockWriteBenchmark.ROWS, benchmark.decrypt());
+                benchmark.tearDownIteration();
+                benchmark.tearDownTrial();
+            }
+        }
+    }
+
+    @Test
+    public void aesGcmCipherEngine()
+    {
+        for (String provider : new String[] {AesGcmCipherEngine.SUN_JCE, AesGcmCipherEngine.BOUNCY_CASTLE}) {
+            AesGcmCipherEngineBenchmark benchmark = new AesGcmCipherEngineBenchmark();
+            benchmark.provider = provider;
+            benchmark.bytes = 65536;
+            benchmark.setupTrial();
+            //Ciphertext followed by a 16 byte tag.
+            assertEquals(provider, 65536 + 16, benchmark.encrypt().length);
+            assertEquals(provider, 65536, benchmark.decrypt().length);
+        }
+    }
+
+    private static int expectedMatches(ConstraintShape constraint)
+    {
+        switch (constraint) {
+            case EQUALITY:
+                return 1;
+            case RANGE:
+                return BlockWriteBenchmark.ROWS / 2;
+            case IN_LIST:
+                return ConstraintShape.IN_LIST_SIZE;
+            default:
+                return BlockWriteBenchmark.ROWS;
+        }
+    }
+}
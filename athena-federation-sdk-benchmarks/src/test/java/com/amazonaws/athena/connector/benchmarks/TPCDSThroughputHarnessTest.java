@@ -0,0 +1,103 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK Benchmarks
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.benchmarks;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TPCDSThroughputHarnessTest
+{
+    //The number of rows in the TPC-DS customer table at scale factor 1.
+    private static final long CUSTOMER_ROWS = 100_000;
+
+    @Rule
+    public TemporaryFolder spillDirectory = new TemporaryFolder();
+
+    @Test
+    public void runSpilled()
+            throws Exception
+    {
+        TPCDSThroughputHarness.HarnessConfig config = TPCDSThroughputHarness.HarnessConfig.fromArgs(new String[] {
+                "--scale-factors", "1",
+                "--table", "customer",
+                "--concurrency", "2",
+                "--splits", "3",
+                "--spill-dir", spillDirectory.getRoot().getAbsolutePath(),
+                "--max-block-bytes", "1000000",
+                "--max-inline-block-bytes", "0",
+                "--warmup-runs", "0"});
+
+        ThroughputResult result = TPCDSThroughputHarness.run(config, 1);
+
+        assertEquals(1, result.getScaleFactor());
+        assertEquals(3, result.getSplits());
+        assertEquals(CUSTOMER_ROWS, result.getRows());
+        assertTrue(result.getSpills() > result.getSplits());
+        assertTrue(result.getSpilledBytes() > 0);
+        assertEquals(0, result.getInlineBytes());
+        assertTrue(result.getRowsPerSecond() > 0);
+        //Each run deletes its spills once it has been measured.
+        assertEquals(0, spillDirectory.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void runInline()
+            throws Exception
+    {
+        TPCDSThroughputHarness.HarnessConfig config = TPCDSThroughputHarness.HarnessConfig.fromArgs(new String[] {
+                "--table", "customer",
+                "--splits", "4",
+                "--spill-dir", spillDirectory.getRoot().getAbsolutePath(),
+                "--max-block-bytes", "100000000",
+                "--max-inline-block-bytes", "100000000",
+                "--disable-encryption",
+                "--warmup-runs", "0"});
+
+        ThroughputResult result = TPCDSThroughputHarness.run(config, 1);
+
+        assertEquals(4, result.getSplits());
+        assertEquals(CUSTOMER_ROWS, result.getRows());
+        assertEquals(0, result.getSpills());
+        assertTrue(result.getInlineBytes() > 0);
+        assertTrue(result.getBytesPerSecond() > 0);
+    }
+
+    @Test
+    public void defaults()
+            throws Exception
+    {
+        TPCDSThroughputHarness.HarnessConfig config = TPCDSThroughputHarness.HarnessConfig.fromArgs(new String[] {"--scale-factors", "1, 10"});
+
+        assertEquals(Arrays.asList(1, 10), config.getScaleFactors());
+        assertEquals("store_sales", config.getTable());
+        assertEquals(Runtime.getRuntime().availableProcessors(), config.getConcurrency());
+        assertEquals(config.getConcurrency(), config.getSplits());
+        assertEquals(new File(System.getProperty("java.io.tmpdir")).toPath(), config.getSpillDirectory());
+        assertEquals(1, config.getWarmupRuns());
+        assertTrue(config.isEncryptionEnabled());
+    }
+}
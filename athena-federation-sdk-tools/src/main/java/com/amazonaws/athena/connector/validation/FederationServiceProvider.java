@@ -36,7 +36,6 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
-import static com.amazonaws.athena.connector.lambda.handlers.SerDeVersion.SERDE_VERSION;
 import static com.amazonaws.athena.connector.validation.ConnectorValidator.BLOCK_ALLOCATOR;
 
 public class FederationServiceProvider
@@ -61,17 +60,18 @@ public class FederationServiceProvider
 
         service = LambdaInvokerFactory.builder()
                 .lambdaClient(AWSLambdaClientBuilder.defaultClient())
-                .objectMapper(VersionedObjectMapperFactory.create(BLOCK_ALLOCATOR))
+                .objectMapper(VersionedObjectMapperFactory.create(BLOCK_ALLOCATOR, VersionedObjectMapperFactory.UNVERSIONED_REQUEST_SERDE_VERSION))
                 .lambdaFunctionNameResolver(new Mapper(lambdaFunction))
                 .build(FederationService.class);
 
         PingRequest pingRequest = new PingRequest(identity, catalog, generateQueryId());
         PingResponse pingResponse = (PingResponse) service.call(pingRequest);
 
-        int actualSerDeVersion = pingResponse.getSerDeVersion();
+        // LambdaInvokerFactory can only exchange JSON, so we never ask for binary (SerDe version 6+) responses.
+        int actualSerDeVersion = Math.min(pingResponse.getSerDeVersion(), VersionedObjectMapperFactory.UNVERSIONED_REQUEST_SERDE_VERSION);
         log.info("SerDe version for function {}, catalog {} is {}", lambdaFunction, catalog, actualSerDeVersion);
 
-        if (actualSerDeVersion != SERDE_VERSION) {
+        if (actualSerDeVersion != VersionedObjectMapperFactory.UNVERSIONED_REQUEST_SERDE_VERSION) {
             service = LambdaInvokerFactory.builder()
                     .lambdaClient(AWSLambdaClientBuilder.defaultClient())
                     .objectMapper(VersionedObjectMapperFactory.create(BLOCK_ALLOCATOR, actualSerDeVersion))
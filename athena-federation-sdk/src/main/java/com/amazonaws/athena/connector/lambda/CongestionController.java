@@ -0,0 +1,287 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda;
+
+import com.google.common.base.MoreObjects;
+import org.apache.arrow.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The congestion control state behind ThrottlingInvoker, which any number of threads and ThrottlingInvokers calling the
+ * same dependency can share. It combines two pieces of lock-free state:
+ * <p>
+ * 1. An Additive Increase, Multiplicative Decrease (AIMD) delay between calls, which throttling events increase and
+ * successful calls decrease.
+ * 2. A token bucket holding a single permit, refilled once per (jittered) delay. Every caller takes its permit from
+ * the same bucket so that the delay bounds the combined call rate of all callers, rather than that of each caller.
+ * <p>
+ * Each ThrottlingInvoker gets its own instance unless one is provided, see ThrottlingInvoker.Builder. Instances shared
+ * across handlers in the same Lambda can be looked up by name with getOrCreate(...).
+ */
+public class CongestionController
+{
+    private static final Logger logger = LoggerFactory.getLogger(CongestionController.class);
+
+    //Shared controllers by name, these live as long as the Lambda container does.
+    private static final ConcurrentMap<String, CongestionController> SHARED = new ConcurrentHashMap<>();
+
+    //The delay and the State are updated together so we pack them into a single long, the State uses the low bits.
+    private static final int STATE_BITS = 2;
+    private static final long STATE_MASK = (1 << STATE_BITS) - 1;
+    private static final ThrottlingInvoker.State[] STATES = ThrottlingInvoker.State.values();
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final double decrease;
+    private final long increase;
+    private final double jitter;
+    private final AtomicLong delayAndState = new AtomicLong(pack(0, ThrottlingInvoker.State.FAST_START));
+    //The System.nanoTime() at which the bucket's next permit becomes available.
+    private final AtomicLong nextPermitNanos = new AtomicLong(System.nanoTime());
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder throttles = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    /**
+     * @param initialDelayMs The delay applied between calls at the initial occurrence of congestion.
+     * @param maxDelayMs The max milliseconds to wait between calls in periods of high congestion.
+     * @param decrease The multiplicative factor by which the call rate decreases when congestion occurs.
+     * @param increase The milliseconds by which the delay decreases after each call that is free of congestion.
+     * @param jitter The fraction (between 0 and 1) by which each delay is randomly shortened or lengthened, so that
+     * callers which were throttled together don't all retry together. The average delay is unchanged.
+     */
+    public CongestionController(long initialDelayMs, long maxDelayMs, double decrease, long increase, double jitter)
+    {
+        if (decrease > 1 || decrease < .001) {
+            throw new IllegalArgumentException("decrease was " + decrease + " but should be between .001 and 1");
+        }
+
+        if (maxDelayMs < 1) {
+            throw new IllegalArgumentException("maxDelayMs was " + maxDelayMs + " but must be >= 1");
+        }
+
+        if (increase < 1) {
+            throw new IllegalArgumentException("increase was " + increase + " but must be >= 1");
+        }
+
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("jitter was " + jitter + " but should be between 0 and 1");
+        }
+
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.decrease = decrease;
+        this.increase = increase;
+        this.jitter = jitter;
+    }
+
+    /**
+     * Gets the shared CongestionController with the given name, creating it if this is the first request for it.
+     *
+     * @param name Identifies the dependency being called, e.g. the endpoint or the table.
+     * @param factory Creates the controller if it doesn't exist yet. Settings of later factories are ignored.
+     * @return The shared CongestionController.
+     */
+    public static CongestionController getOrCreate(String name, Supplier<CongestionController> factory)
+    {
+        return SHARED.computeIfAbsent(name, (String key) -> factory.get());
+    }
+
+    /**
+     * Blocks the calling thread until it may make its next call, calls never wait while there is no congestion.
+     */
+    public void acquire()
+    {
+        calls.increment();
+        long delayMs = getDelayMs();
+        if (delayMs == 0) {
+            return;
+        }
+
+        long intervalNanos = jitter(TimeUnit.MILLISECONDS.toNanos(delayMs));
+        long now = System.nanoTime();
+        long permitNanos;
+        long next;
+        do {
+            next = nextPermitNanos.get();
+            permitNanos = Math.max(now, next);
+        }
+        while (!nextPermitNanos.compareAndSet(next, permitNanos + intervalNanos));
+
+        long sleepNanos = permitNanos - now;
+        if (sleepNanos > 0) {
+            waitNanos.add(sleepNanos);
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(ex);
+            }
+        }
+    }
+
+    /**
+     * Records a call that was free of congestion, additively increasing the call rate if we were congested.
+     */
+    public void onSuccess()
+    {
+        long previous = delayAndState.getAndUpdate((long current) -> {
+            long delayMs = unpackDelay(current);
+            return (delayMs > 0) ? pack(Math.max(0, delayMs - increase), ThrottlingInvoker.State.AVOIDANCE) : current;
+        });
+
+        long previousDelayMs = unpackDelay(previous);
+        if (previousDelayMs > 0) {
+            long newDelayMs = Math.max(0, previousDelayMs - increase);
+            logger.info("onSuccess: Congestion AVOIDANCE active, decreasing delay to {} ms @ {} TPS",
+                    newDelayMs, (newDelayMs > 0) ? 1000 / newDelayMs : "unlimited");
+        }
+    }
+
+    /**
+     * Records a throttling event, multiplicatively decreasing the call rate. The next permit is pushed out by the new
+     * delay so that every caller backs off, including those that already waited for their permit.
+     *
+     * @param ex The exception that signaled the congestion.
+     * @return The new delay between calls, in milliseconds.
+     */
+    public long onThrottle(Exception ex)
+    {
+        throttles.increment();
+        long newDelayMs = unpackDelay(delayAndState.updateAndGet((long current) -> {
+            long delayMs = (long) Math.ceil(unpackDelay(current) / decrease);
+            if (delayMs == 0) {
+                delayMs = initialDelayMs;
+            }
+            else if (delayMs > maxDelayMs) {
+                delayMs = maxDelayMs;
+            }
+            return pack(delayMs, ThrottlingInvoker.State.CONGESTED);
+        }));
+
+        long backoffNanos = System.nanoTime() + jitter(TimeUnit.MILLISECONDS.toNanos(newDelayMs));
+        nextPermitNanos.accumulateAndGet(backoffNanos, Math::max);
+        logger.info("onThrottle: Encountered a Throttling event[{}] adjusting delay to {} ms @ {} TPS",
+                ex, newDelayMs, 1000D / newDelayMs);
+        return newDelayMs;
+    }
+
+    public ThrottlingInvoker.State getState()
+    {
+        return unpackState(delayAndState.get());
+    }
+
+    /**
+     * @return The current delay between calls, in milliseconds. 0 if calls aren't being delayed.
+     */
+    public long getDelayMs()
+    {
+        return unpackDelay(delayAndState.get());
+    }
+
+    /**
+     * @return The current maximum number of calls per second across all callers, Double.POSITIVE_INFINITY if calls
+     * aren't being delayed.
+     */
+    public double getCurrentRate()
+    {
+        long delayMs = getDelayMs();
+        return (delayMs > 0) ? 1000D / delayMs : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return The number of calls made through this controller, including those that were throttled.
+     */
+    public long getCallCount()
+    {
+        return calls.sum();
+    }
+
+    /**
+     * @return The number of throttling events this controller has seen.
+     */
+    public long getThrottleCount()
+    {
+        return throttles.sum();
+    }
+
+    /**
+     * @return The total milliseconds callers have waited for permits.
+     */
+    public long getWaitMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(waitNanos.sum());
+    }
+
+    @VisibleForTesting
+    static void clearShared()
+    {
+        SHARED.clear();
+    }
+
+    @Override
+    public String toString()
+    {
+        return MoreObjects.toStringHelper(this)
+                .add("initialDelayMs", initialDelayMs)
+                .add("maxDelayMs", maxDelayMs)
+                .add("decrease", decrease)
+                .add("increase", increase)
+                .add("jitter", jitter)
+                .add("delay", getDelayMs())
+                .add("state", getState())
+                .add("calls", getCallCount())
+                .add("throttles", getThrottleCount())
+                .toString();
+    }
+
+    private long jitter(long nanos)
+    {
+        if (jitter == 0) {
+            return nanos;
+        }
+        return (long) (nanos * (1 - jitter + 2 * jitter * ThreadLocalRandom.current().nextDouble()));
+    }
+
+    private static long pack(long delayMs, ThrottlingInvoker.State state)
+    {
+        return (delayMs << STATE_BITS) | state.ordinal();
+    }
+
+    private static long unpackDelay(long delayAndState)
+    {
+        return delayAndState >>> STATE_BITS;
+    }
+
+    private static ThrottlingInvoker.State unpackState(long delayAndState)
+    {
+        return STATES[(int) (delayAndState & STATE_MASK)];
+    }
+}
@@ -0,0 +1,352 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.athena.connector.lambda.exceptions.FederationThrottleException;
+import com.amazonaws.services.athena.AmazonAthena;
+import com.amazonaws.services.athena.model.BatchGetQueryExecutionRequest;
+import com.amazonaws.services.athena.model.BatchGetQueryExecutionResult;
+import com.amazonaws.services.athena.model.GetQueryExecutionRequest;
+import com.amazonaws.services.athena.model.GetQueryExecutionResult;
+import com.amazonaws.services.athena.model.InvalidRequestException;
+import com.amazonaws.services.athena.model.QueryExecution;
+import com.amazonaws.services.athena.model.TooManyRequestsException;
+import com.amazonaws.services.athena.model.UnprocessedQueryExecutionId;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.arrow.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Process wide registry of the Athena queries that QueryStatusCheckers are waiting on. A warm Lambda container (or any
+ * other long lived process) may work on many splits of the same query at once, so rather than giving each
+ * QueryStatusChecker its own polling thread:
+ * <p>
+ * 1. There is one poller per query id, reference counted by the QueryStatusCheckers subscribed to it.
+ * 2. All pollers run on a single scheduled thread, each on its own Fibonacci schedule.
+ * 3. Queries that are due to be polled at about the same time, through the same Athena client, are looked up together
+ * with BatchGetQueryExecution. Clients which aren't allowed to call it fall back to GetQueryExecution.
+ */
+public class QueryStatusRegistry
+{
+    private static final Logger logger = LoggerFactory.getLogger(QueryStatusRegistry.class);
+
+    // progressively longer delays at which to poll
+    private static final int[] FIBONACCI = new int[] { 1, 1, 2, 3, 5, 8, 13, 21, 34, 55};
+    // Athena terminal states
+    private static final Set<String> TERMINAL_STATES = ImmutableSet.of("SUCCEEDED", "FAILED", "CANCELLED");
+    // BatchGetQueryExecution accepts at most 50 query ids per call.
+    private static final int MAX_BATCH_SIZE = 50;
+    // Error codes for a caller that is not allowed to call BatchGetQueryExecution.
+    private static final Set<String> ACCESS_DENIED_ERROR_CODES = ImmutableSet.of("AccessDeniedException", "UnauthorizedOperation");
+    // Queries due within this long of the one being polled are polled with it, a little earlier than scheduled.
+    private static final long BATCH_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+    private static final QueryStatusRegistry INSTANCE = new QueryStatusRegistry(newDefaultExecutor());
+
+    private final ScheduledExecutorService executor;
+    private final ConcurrentMap<String, QueryPoller> pollers = new ConcurrentHashMap<>();
+    // Athena clients that can't call BatchGetQueryExecution, e.g. because their role doesn't allow it.
+    private final Set<AmazonAthena> batchUnsupported = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    @VisibleForTesting
+    QueryStatusRegistry(ScheduledExecutorService executor)
+    {
+        this.executor = executor;
+    }
+
+    /**
+     * @return The registry shared by every QueryStatusChecker in this process.
+     */
+    public static QueryStatusRegistry getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * @return The number of queries currently being polled.
+     */
+    public int getActiveQueryCount()
+    {
+        return pollers.size();
+    }
+
+    /**
+     * Subscribes to the status of the given query, starting to poll it if this is its first subscriber.
+     *
+     * @param athena The Athena client to poll with, if this is the query's first subscriber.
+     * @param athenaInvoker The ThrottlingInvoker to call Athena through, if this is the query's first subscriber.
+     * @param queryId The id of the query.
+     * @return The query's poller, which must be passed to unsubscribe(...) once the subscriber is done with it.
+     */
+    QueryPoller subscribe(AmazonAthena athena, ThrottlingInvoker athenaInvoker, String queryId)
+    {
+        return pollers.compute(queryId, (String key, QueryPoller existing) -> {
+            if (existing != null) {
+                existing.subscribers++;
+                return existing;
+            }
+            QueryPoller poller = new QueryPoller(athena, athenaInvoker, queryId);
+            poller.subscribers = 1;
+            poller.scheduleNext();
+            return poller;
+        });
+    }
+
+    /**
+     * Releases a subscription made by subscribe(...), polling stops once a query has no more subscribers.
+     *
+     * @param poller The poller returned by subscribe(...).
+     */
+    void unsubscribe(QueryPoller poller)
+    {
+        pollers.computeIfPresent(poller.queryId, (String key, QueryPoller existing) -> {
+            if (existing != poller || --existing.subscribers > 0) {
+                return existing;
+            }
+            existing.stop();
+            return null;
+        });
+    }
+
+    private void poll(QueryPoller trigger)
+    {
+        if (trigger.stopped) {
+            return;
+        }
+
+        List<QueryPoller> due = new ArrayList<>();
+        due.add(trigger);
+        if (!batchUnsupported.contains(trigger.athena)) {
+            long horizon = System.nanoTime() + BATCH_WINDOW_NANOS;
+            for (QueryPoller next : pollers.values()) {
+                if (next != trigger && next.athena == trigger.athena && !next.stopped && next.nextPollNanos <= horizon) {
+                    due.add(next);
+                }
+            }
+        }
+
+        try {
+            for (List<QueryPoller> batch : Lists.partition(due, MAX_BATCH_SIZE)) {
+                if (batch.size() == 1) {
+                    checkStatus(batch.get(0));
+                }
+                else {
+                    checkStatuses(batch);
+                }
+            }
+        }
+        catch (RuntimeException e) {
+            //The executor would silently drop an exception, along with the next poll of every query in the batch.
+            logger.warn("Exception {} thrown when checking query statuses: {}", e.getClass().getSimpleName(), e.getMessage());
+        }
+
+        for (QueryPoller next : due) {
+            if (!next.stopped) {
+                next.attempt++;
+                next.scheduleNext();
+            }
+        }
+    }
+
+    private void checkStatus(QueryPoller poller)
+    {
+        logger.debug("Checking status of Athena query {}, attempt {}", poller.queryId, poller.attempt);
+        try {
+            GetQueryExecutionResult queryExecution = poller.athenaInvoker.invoke(() ->
+                    poller.athena.getQueryExecution(new GetQueryExecutionRequest().withQueryExecutionId(poller.queryId)));
+            updateState(poller, queryExecution.getQueryExecution().getStatus().getState());
+        }
+        catch (Exception e) {
+            logger.warn("Exception {} thrown when calling Athena for query status: {}", e.getClass().getSimpleName(), e.getMessage());
+            if (e instanceof InvalidRequestException) {
+                // query does not exist, so no need to keep calling Athena
+                logger.debug("Athena reports query {} not found. Ceasing status polling", poller.queryId);
+                stopPolling(poller);
+            }
+        }
+    }
+
+    private void checkStatuses(List<QueryPoller> batch)
+    {
+        Map<String, QueryPoller> byQueryId = new HashMap<>();
+        for (QueryPoller next : batch) {
+            byQueryId.put(next.queryId, next);
+        }
+        logger.debug("Checking status of {} Athena queries", byQueryId.size());
+
+        AmazonAthena athena = batch.get(0).athena;
+        BatchGetQueryExecutionResult result;
+        try {
+            result = batch.get(0).athenaInvoker.invoke(() -> athena.batchGetQueryExecution(
+                    new BatchGetQueryExecutionRequest().withQueryExecutionIds(byQueryId.keySet())));
+        }
+        catch (Exception e) {
+            if (isBatchUnsupported(e)) {
+                logger.warn("BatchGetQueryExecution is not available ({}), polling queries individually", e.getMessage());
+                batchUnsupported.add(athena);
+                batch.forEach(this::checkStatus);
+            }
+            else if (isThrottled(e)) {
+                // Polling each query would only add to the throttling, so wait for the next round instead.
+                logger.warn("Exception {} thrown when calling Athena for query statuses: {}", e.getClass().getSimpleName(), e.getMessage());
+            }
+            else {
+                logger.warn("Exception {} thrown when calling Athena for query statuses, polling queries individually: {}",
+                        e.getClass().getSimpleName(), e.getMessage());
+                batch.forEach(this::checkStatus);
+            }
+            return;
+        }
+
+        for (QueryExecution next : nullToEmpty(result.getQueryExecutions())) {
+            QueryPoller poller = byQueryId.get(next.getQueryExecutionId());
+            if (poller != null) {
+                updateState(poller, next.getStatus().getState());
+            }
+        }
+        // Queries Athena couldn't look up in bulk (e.g. ones that don't exist) get the same handling as when polled alone.
+        for (UnprocessedQueryExecutionId next : nullToEmpty(result.getUnprocessedQueryExecutionIds())) {
+            QueryPoller poller = byQueryId.get(next.getQueryExecutionId());
+            if (poller != null) {
+                checkStatus(poller);
+            }
+        }
+    }
+
+    private void updateState(QueryPoller poller, String state)
+    {
+        if (TERMINAL_STATES.contains(state)) {
+            logger.debug("Query {} has terminated with state {}", poller.queryId, state);
+            poller.running = false;
+            stopPolling(poller);
+        }
+    }
+
+    /**
+     * Stops polling a query that has terminated, or doesn't exist. Its subscribers keep the poller, and with it the
+     * final state, while anyone subscribing later starts a new poller.
+     */
+    private void stopPolling(QueryPoller poller)
+    {
+        poller.stop();
+        pollers.remove(poller.queryId, poller);
+    }
+
+    private static <T> List<T> nullToEmpty(List<T> list)
+    {
+        return (list != null) ? list : Collections.emptyList();
+    }
+
+    /**
+     * Athena reports a missing athena:BatchGetQueryExecution permission as an AccessDeniedException with HTTP 400,
+     * other AWS services use 403, so both the error code and the status code are checked.
+     */
+    private static boolean isBatchUnsupported(Exception e)
+    {
+        if (e instanceof UnsupportedOperationException) {
+            return true;
+        }
+        if (!(e instanceof AmazonServiceException)) {
+            return false;
+        }
+        AmazonServiceException serviceException = (AmazonServiceException) e;
+        return serviceException.getStatusCode() == 403 || ACCESS_DENIED_ERROR_CODES.contains(serviceException.getErrorCode());
+    }
+
+    private static boolean isThrottled(Exception e)
+    {
+        return e instanceof TooManyRequestsException || e instanceof FederationThrottleException || e instanceof TimeoutException;
+    }
+
+    private static ScheduledExecutorService newDefaultExecutor()
+    {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setNameFormat("QueryStatusRegistry-%d").setDaemon(true).build());
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * The polling state of one query. Apart from subscribers, which is guarded by the registry's map, and the flags
+     * read by subscribers, it is only accessed by the registry's polling thread.
+     */
+    class QueryPoller
+    {
+        private final AmazonAthena athena;
+        private final ThrottlingInvoker athenaInvoker;
+        private final String queryId;
+        private volatile boolean running = true;
+        private volatile boolean stopped = false;
+        private volatile long nextPollNanos;
+        private volatile ScheduledFuture<?> future;
+        private int attempt;
+        private int subscribers;
+
+        private QueryPoller(AmazonAthena athena, ThrottlingInvoker athenaInvoker, String queryId)
+        {
+            this.athena = athena;
+            this.athenaInvoker = athenaInvoker;
+            this.queryId = queryId;
+        }
+
+        boolean isRunning()
+        {
+            return running;
+        }
+
+        private void scheduleNext()
+        {
+            ScheduledFuture<?> previous = future;
+            if (previous != null) {
+                previous.cancel(false);
+            }
+            long delaySeconds = FIBONACCI[Math.min(attempt, FIBONACCI.length - 1)];
+            nextPollNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(delaySeconds);
+            future = executor.schedule(() -> poll(this), delaySeconds, TimeUnit.SECONDS);
+        }
+
+        private void stop()
+        {
+            stopped = true;
+            ScheduledFuture<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+    }
+}
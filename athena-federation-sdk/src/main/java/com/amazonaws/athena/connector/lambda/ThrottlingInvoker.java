@@ -22,6 +22,8 @@ package com.amazonaws.athena.connector.lambda;
 
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.exceptions.FederationThrottleException;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetric;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetrics;
 import com.google.common.base.MoreObjects;
 import org.apache.arrow.util.VisibleForTesting;
 import org.slf4j.Logger;
@@ -29,7 +31,6 @@ import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -39,7 +40,11 @@ import java.util.concurrent.atomic.AtomicReference;
  * thread or entity its own instance the logic will still work but may take a bit longer (couple extra calls)
  * to detect the congestion and converge. This utility works best when all callers use it, otherwise callers
  * that do not use this logic will get a larger % of the available call capacity because the other callers
- * will back off when they see congestion and get starved out by the greedy caller
+ * will back off when they see congestion and get starved out by the greedy caller.
+ * <p>
+ * The congestion control state lives in a lock-free CongestionController. Invokers built with the same controller,
+ * see Builder.withCongestionController(...) and Builder.withSharedCongestionController(...), share one call rate
+ * between all of their callers.
  */
 public class ThrottlingInvoker
 {
@@ -53,6 +58,8 @@ public class ThrottlingInvoker
     private static final String THROTTLE_DECREASE_FACTOR = "throttle_decrease_factor";
     //The additive factor by which we should increase our call rate (e.g. decrease delay) when we seem free of congestion.
     private static final String THROTTLE_INCREASE_MS = "throttle_increase_ms";
+    //The fraction by which each delay is randomly lengthened or shortened, so that callers don't retry in lockstep.
+    private static final String THROTTLE_JITTER = "throttle_jitter";
 
     //10ms is our initial delay, this takes us from unlimited TPS to 100 TPS as a first step.
     private static final long DEFAULT_INITIAL_DELAY_MS = 10;
@@ -62,15 +69,12 @@ public class ThrottlingInvoker
     private static final double DEFAULT_DECREASE_FACTOR = 0.5D;
     //We reduce our delay by 10ms every time we appear free of congestion.
     private static final long DEFAULT_INCREASE_MS = 10;
+    //Delays vary by up to 20% either way.
+    private static final double DEFAULT_JITTER = 0.2D;
 
-    private final long initialDelayMs;
-    private final long maxDelayMs;
-    private final double decrease;
-    private final long increase;
+    private final CongestionController controller;
     private final ExceptionFilter filter;
     private final AtomicReference<BlockSpiller> spillerRef;
-    private final AtomicLong delay = new AtomicLong(0);
-    private volatile State state = State.FAST_START;
 
     public enum State
     {FAST_START, CONGESTED, AVOIDANCE}
@@ -82,38 +86,15 @@ public class ThrottlingInvoker
 
     public ThrottlingInvoker(Builder builder)
     {
-        this(builder.initialDelayMs,
-                builder.maxDelayMs,
-                builder.decrease,
-                builder.increase,
+        this((builder.controller != null) ? builder.controller : builder.buildController(),
                 builder.filter,
                 builder.spiller);
     }
 
     @VisibleForTesting
-    ThrottlingInvoker(long initialDelayMs,
-            long maxDelayMs,
-            double decrease,
-            long increase,
-            ExceptionFilter filter,
-            BlockSpiller spiller)
+    ThrottlingInvoker(CongestionController controller, ExceptionFilter filter, BlockSpiller spiller)
     {
-        if (decrease > 1 || decrease < .001) {
-            throw new IllegalArgumentException("decrease was " + decrease + " but should be between .001 and 1");
-        }
-
-        if (maxDelayMs < 1) {
-            throw new IllegalArgumentException("maxDelayMs was " + maxDelayMs + " but must be >= 1");
-        }
-
-        if (increase < 1) {
-            throw new IllegalArgumentException("increase was " + increase + " but must be >= 1");
-        }
-
-        this.initialDelayMs = initialDelayMs;
-        this.maxDelayMs = maxDelayMs;
-        this.decrease = decrease;
-        this.increase = increase;
+        this.controller = controller;
         this.filter = filter;
         this.spillerRef = new AtomicReference<>(spiller);
     }
@@ -141,15 +122,18 @@ public class ThrottlingInvoker
         long maxDelayMs = (configOptions.get(THROTTLE_MAX_DELAY_MS) != null) ?
                 Long.parseLong(configOptions.get(THROTTLE_MAX_DELAY_MS)) : DEFAULT_MAX_DELAY_MS;
         double decreaseFactor = (configOptions.get(THROTTLE_DECREASE_FACTOR) != null) ?
-                Long.parseLong(configOptions.get(THROTTLE_DECREASE_FACTOR)) : DEFAULT_DECREASE_FACTOR;
+                Double.parseDouble(configOptions.get(THROTTLE_DECREASE_FACTOR)) : DEFAULT_DECREASE_FACTOR;
         long increase = (configOptions.get(THROTTLE_INCREASE_MS) != null) ?
                 Long.parseLong(configOptions.get(THROTTLE_INCREASE_MS)) : DEFAULT_INCREASE_MS;
+        double jitter = (configOptions.get(THROTTLE_JITTER) != null) ?
+                Double.parseDouble(configOptions.get(THROTTLE_JITTER)) : DEFAULT_JITTER;
 
         return newBuilder()
                 .withInitialDelayMs(initialDelayMs)
                 .withMaxDelayMs(maxDelayMs)
                 .withDecrease(decreaseFactor)
                 .withIncrease(increase)
+                .withJitter(jitter)
                 .withFilter(filter);
     }
 
@@ -183,9 +167,9 @@ public class ThrottlingInvoker
         long startTime = System.currentTimeMillis();
         do {
             try {
-                applySleep();
+                controller.acquire();
                 T result = callable.call();
-                handleAvoidance();
+                controller.onSuccess();
                 return result;
             }
             catch (Exception ex) {
@@ -216,41 +200,41 @@ public class ThrottlingInvoker
     
     public State getState()
     {
-        return state;
+        return controller.getState();
+    }
+
+    /**
+     * @return The CongestionController this invoker paces its calls with, which exposes the current call rate and
+     * the number of throttling events.
+     */
+    public CongestionController getCongestionController()
+    {
+        return controller;
     }
 
     @VisibleForTesting
     long getDelay()
     {
-        return delay.get();
+        return controller.getDelayMs();
     }
 
     @Override
     public String toString()
     {
         return MoreObjects.toStringHelper(this)
-                .add("initialDelayMs", initialDelayMs)
-                .add("maxDelayMs", maxDelayMs)
-                .add("decrease", decrease)
-                .add("increase", increase)
-                .add("delay", delay)
-                .add("state", state)
+                .add("controller", controller)
                 .toString();
     }
 
-    private synchronized void handleThrottle(Exception ex)
+    private void handleThrottle(Exception ex)
     {
-        long newDelay = (long) Math.ceil(delay.get() / decrease);
-        if (newDelay == 0) {
-            newDelay = initialDelayMs;
-        }
-        else if (newDelay > maxDelayMs) {
-            newDelay = maxDelayMs;
+        controller.onThrottle(ex);
+
+        BlockSpiller spiller = spillerRef.get();
+        SplitMetrics metrics = (spiller != null) ? spiller.getMetrics() : null;
+        if (metrics != null) {
+            metrics.add(SplitMetric.THROTTLE_EVENTS, 1);
         }
-        logger.info("handleThrottle: Encountered a Throttling event[{}] adjusting delay to {} ms @ {} TPS",
-                ex, newDelay, 1000D / newDelay);
-        state = State.CONGESTED;
-        delay.set(newDelay);
 
         if (spillerRef.get() != null && !spillerRef.get().spilled()) {
             //If no blocks have spilled, it is better to signal the Throttle to Athena by propagating.
@@ -258,34 +242,6 @@ public class ThrottlingInvoker
         }
     }
 
-    private synchronized void handleAvoidance()
-    {
-        long newDelay = delay.get() - increase;
-        if (newDelay <= 0) {
-            newDelay = 0;
-        }
-
-        if (delay.get() > 0) {
-            state = State.AVOIDANCE;
-            logger.info("handleAvoidance: Congestion AVOIDANCE active, decreasing delay to {} ms @ {} TPS",
-                    newDelay, (newDelay > 0) ? 1000 / newDelay : "unlimited");
-            delay.set(newDelay);
-        }
-    }
-
-    private void applySleep()
-    {
-        if (delay.get() > 0) {
-            try {
-                Thread.sleep(delay.get());
-            }
-            catch (InterruptedException ex) {
-                Thread.currentThread().interrupt();
-                throw new RuntimeException(ex);
-            }
-        }
-    }
-
     private boolean isTimedOut(long startTime, long timeoutMillis)
     {
         return (timeoutMillis > 0) ? System.currentTimeMillis() - startTime > timeoutMillis : false;
@@ -297,8 +253,10 @@ public class ThrottlingInvoker
         private long maxDelayMs;
         private double decrease;
         private long increase;
+        private double jitter;
         private ExceptionFilter filter;
         private BlockSpiller spiller;
+        private CongestionController controller;
 
         public Builder withInitialDelayMs(long initialDelayMs)
         {
@@ -324,6 +282,12 @@ public class ThrottlingInvoker
             return this;
         }
 
+        public Builder withJitter(double jitter)
+        {
+            this.jitter = jitter;
+            return this;
+        }
+
         public Builder withFilter(ExceptionFilter filter)
         {
             this.filter = filter;
@@ -336,6 +300,41 @@ public class ThrottlingInvoker
             return this;
         }
 
+        /**
+         * Shares the provided CongestionController, instead of creating one from this Builder's settings, so that the
+         * new invoker and every other user of the controller are held to the same call rate.
+         *
+         * @param controller The CongestionController to share.
+         * @return This Builder.
+         */
+        public Builder withCongestionController(CongestionController controller)
+        {
+            this.controller = controller;
+            return this;
+        }
+
+        /**
+         * Shares the CongestionController with the given name, which is created from this Builder's settings if it
+         * doesn't exist yet. Use it to give all invokers calling the same dependency (e.g. a service endpoint or a
+         * table) in this Lambda a single call rate.
+         *
+         * @param name Identifies the dependency being called.
+         * @return This Builder.
+         */
+        public Builder withSharedCongestionController(String name)
+        {
+            this.controller = CongestionController.getOrCreate(name, this::buildController);
+            return this;
+        }
+
+        /**
+         * @return A new CongestionController with this Builder's settings.
+         */
+        public CongestionController buildController()
+        {
+            return new CongestionController(initialDelayMs, maxDelayMs, decrease, increase, jitter);
+        }
+
         public ThrottlingInvoker build()
         {
             return new ThrottlingInvoker(this);
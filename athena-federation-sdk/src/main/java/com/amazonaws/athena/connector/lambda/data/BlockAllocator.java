@@ -65,7 +65,7 @@ public interface BlockAllocator
      * your code having to implement the boiler plate for handling those edge cases.
      *
      * @param generator The generator which is expected to create an ArrowRecordBatch.
-     * @return THe resulting Apache Arrow Batch..
+     * @return THe resulting Apache Arrow Batch, or null if the generator returned null (e.g. for an empty input).
      * @note Once created the batch is also registered with this BlockAllocator such that closing this BlockAllocator
      * also closes this batch, freeing its Apache Arrow resources.
      */
@@ -78,6 +78,16 @@ public interface BlockAllocator
      */
     long getUsage();
 
+    /**
+     * Provides access to the most memory the underlying Apache Arrow BufferAllocator has had allocated at once.
+     *
+     * @return The peak number of bytes used, implementations that don't track it return the current usage.
+     */
+    default long getPeakUsage()
+    {
+        return getUsage();
+    }
+
     /**
      * Closes all Apache Arrow resources tracked by this BlockAllocator, freeing their memory.
      */
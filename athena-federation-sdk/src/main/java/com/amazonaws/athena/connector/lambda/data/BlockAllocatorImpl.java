@@ -186,7 +186,9 @@ public class BlockAllocatorImpl
         try {
             logger.debug("registerBatch: {}", recordBatches.size());
             ArrowRecordBatch batch = generator.generate(getRawAllocator());
-            recordBatches.add(batch);
+            if (batch != null) {
+                recordBatches.add(batch);
+            }
             return batch;
         }
         catch (org.apache.arrow.memory.OutOfMemoryException ex) {
@@ -277,6 +279,18 @@ public class BlockAllocatorImpl
         return rootAllocator.getAllocatedMemory();
     }
 
+    /**
+     * Returns the most bytes the Apache Arrow Pool has had allocated at once. If the pool is a RootAllocator shared
+     * with other BlockAllocators, this includes their usage.
+     *
+     * @see com.amazonaws.athena.connector.lambda.data.BlockAllocator
+     */
+    @Override
+    public long getPeakUsage()
+    {
+        return rootAllocator.getPeakMemoryAllocation();
+    }
+
     /**
      * Closes all Apache Arrow Resources allocated via this BlockAllocator and then attempts to
      * close the underlying Apache Arrow Allocator which would actually free memory. This operation may
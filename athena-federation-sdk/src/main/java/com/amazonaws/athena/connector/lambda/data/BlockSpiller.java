@@ -22,6 +22,8 @@ package com.amazonaws.athena.connector.lambda.data;
 
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connector.lambda.metrics.NoOpSplitMetrics;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetrics;
 
 import java.util.List;
 
@@ -61,4 +63,13 @@ public interface BlockSpiller
      * Provides access to the ConstraintEvaluator that will be applied to the generated Blocks.
      */
     ConstraintEvaluator getConstraintEvaluator();
+
+    /**
+     * Provides access to the SplitMetrics of the Split this BlockSpiller is writing, so that callers can record their
+     * own metrics (e.g. throttling events) alongside the SDK's.
+     */
+    default SplitMetrics getMetrics()
+    {
+        return NoOpSplitMetrics.INSTANCE;
+    }
 }
@@ -0,0 +1,303 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2024 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.data;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import org.apache.arrow.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Reads records from a source using three stages connected by bounded queues:
+ * <p>
+ * 1. A polling thread which is the only user of the RecordSource and hands off chunks of raw records.
+ * 2. One or more decoder threads, each with its own RecordDecoder so that decoders need not be thread safe.
+ * 3. The calling thread, which writes the decoded records, e.g. to a BlockSpiller (which is not thread safe).
+ * <p>
+ * The bounded queues provide back pressure so the poller can't run arbitrarily far ahead of the writer. With more
+ * than one decoder thread, chunks of records may be written out of order.
+ *
+ * @param <R> The type of the raw records returned by the source.
+ * @param <T> The type of the decoded records given to the writer.
+ */
+public class RecordPipeline<R, T>
+{
+    private static final Logger logger = LoggerFactory.getLogger(RecordPipeline.class);
+
+    //Max number of records handed to a decoder thread at once.
+    private static final int CHUNK_SIZE = 500;
+    //Max number of chunks waiting in each queue.
+    private static final int QUEUE_CAPACITY = 8;
+    private static final long DEFAULT_SHUTDOWN_MILLIS = 5_000;
+    private static final long HANDOFF_POLL_MILLIS = 100;
+
+    private final String name;
+    private final int decoderThreads;
+    private final long shutdownMillis;
+    //Marks the end of each queue, compared by identity.
+    private final List<R> endOfRawRecords = new ArrayList<>(0);
+    private final List<T> endOfRecords = new ArrayList<>(0);
+
+    /**
+     * Produces the raw records, only ever called from the polling thread apart from wakeup().
+     */
+    public interface RecordSource<R>
+    {
+        /**
+         * @return The next batch of raw records, which may be empty, or null once there are no more records.
+         */
+        List<R> poll()
+                throws InterruptedException;
+
+        /**
+         * Asks a poll() that is blocked waiting on the source to return early, called from another thread when the
+         * pipeline is stopping. Exceptions thrown by poll() once the pipeline is stopping are ignored.
+         */
+        void wakeup();
+    }
+
+    /**
+     * Decodes raw records, each decoder thread gets its own instance which it closes when it exits.
+     */
+    public interface RecordDecoder<R, T>
+            extends AutoCloseable
+    {
+        T decode(R raw);
+
+        @Override
+        void close();
+    }
+
+    /**
+     * Writes a single decoded record, called on the thread that invoked run(...).
+     */
+    public interface RecordWriter<T>
+    {
+        void write(T record);
+    }
+
+    /**
+     * @param name Names the pipeline's threads, e.g. after the partition being read.
+     * @param decoderThreads The number of threads decoding records, at least 1.
+     */
+    public RecordPipeline(String name, int decoderThreads)
+    {
+        this(name, decoderThreads, DEFAULT_SHUTDOWN_MILLIS);
+    }
+
+    @VisibleForTesting
+    RecordPipeline(String name, int decoderThreads, long shutdownMillis)
+    {
+        if (decoderThreads < 1) {
+            throw new IllegalArgumentException("decoderThreads was " + decoderThreads + " but must be >= 1");
+        }
+        this.name = name;
+        this.decoderThreads = decoderThreads;
+        this.shutdownMillis = shutdownMillis;
+    }
+
+    /**
+     * Reads every record from the source, or until the query stops running. The source is only used from the polling
+     * thread while this method is running, and the polling thread has exited by the time it returns so the caller
+     * may then close the source's resources.
+     *
+     * @param source The source of the raw records.
+     * @param decoderFactory Creates one RecordDecoder per decoder thread.
+     * @param queryStatusChecker Used to stop reading once the query is no longer running.
+     * @param writer Writes each decoded record.
+     * @return True if every record was read, false if reading stopped because the query is no longer running.
+     */
+    public boolean run(RecordSource<R> source,
+            Supplier<? extends RecordDecoder<R, T>> decoderFactory,
+            QueryStatusChecker queryStatusChecker,
+            RecordWriter<T> writer)
+    {
+        BlockingQueue<List<R>> rawRecords = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<List<T>> records = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        AtomicInteger runningDecoders = new AtomicInteger(decoderThreads);
+        CountDownLatch pollerExited = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(decoderThreads + 1, runnable -> {
+            Thread thread = new Thread(runnable, "RecordPipeline-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            executor.execute(() -> {
+                try {
+                    poll(source, rawRecords, stopped, failure);
+                }
+                finally {
+                    pollerExited.countDown();
+                }
+            });
+            for (int i = 0; i < decoderThreads; i++) {
+                executor.execute(() -> decode(decoderFactory.get(), rawRecords, records, runningDecoders, failure));
+            }
+
+            while (true) {
+                List<T> next = records.poll(HANDOFF_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (failure.get() != null) {
+                    throw failure.get();
+                }
+                if (!queryStatusChecker.isQueryRunning()) {
+                    logger.debug("run: {} stopping as the query is no longer running", name);
+                    return false;
+                }
+                if (next == endOfRecords) {
+                    return true;
+                }
+                if (next != null) {
+                    next.forEach(writer::write);
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        }
+        finally {
+            stopped.set(true);
+            source.wakeup();
+            executor.shutdownNow();
+            awaitTermination(executor, source, pollerExited);
+        }
+    }
+
+    /**
+     * Polling stage, chunks up each batch from the source until it runs out of records.
+     */
+    private void poll(RecordSource<R> source,
+            BlockingQueue<List<R>> rawRecords,
+            AtomicBoolean stopped,
+            AtomicReference<RuntimeException> failure)
+    {
+        try {
+            while (!stopped.get()) {
+                List<R> polled = source.poll();
+                if (polled == null) {
+                    break;
+                }
+                for (int start = 0; start < polled.size(); start += CHUNK_SIZE) {
+                    rawRecords.put(new ArrayList<>(polled.subList(start, Math.min(start + CHUNK_SIZE, polled.size()))));
+                }
+            }
+            rawRecords.put(endOfRawRecords);
+        }
+        catch (InterruptedException ex) {
+            //We were asked to stop.
+            Thread.currentThread().interrupt();
+        }
+        catch (RuntimeException ex) {
+            if (!stopped.get()) {
+                failure.compareAndSet(null, ex);
+            }
+        }
+    }
+
+    /**
+     * Decoding stage, the last decoder to finish signals the end of the pipeline to the writer.
+     */
+    private void decode(RecordDecoder<R, T> decoder,
+            BlockingQueue<List<R>> rawRecords,
+            BlockingQueue<List<T>> records,
+            AtomicInteger runningDecoders,
+            AtomicReference<RuntimeException> failure)
+    {
+        try {
+            while (true) {
+                List<R> chunk = rawRecords.take();
+                if (chunk == endOfRawRecords) {
+                    //Let the other decoders see the end marker too.
+                    rawRecords.put(endOfRawRecords);
+                    break;
+                }
+
+                List<T> decoded = new ArrayList<>(chunk.size());
+                for (R next : chunk) {
+                    decoded.add(decoder.decode(next));
+                }
+                records.put(decoded);
+            }
+
+            if (runningDecoders.decrementAndGet() == 0) {
+                records.put(endOfRecords);
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        catch (RuntimeException ex) {
+            failure.compareAndSet(null, ex);
+        }
+        finally {
+            decoder.close();
+        }
+    }
+
+    /**
+     * Waits for the pipeline threads to exit. Decoder threads that are slow to exit are left behind, but the caller
+     * closes the source's resources once run(...) returns, so this keeps waking up the poller until it has exited.
+     */
+    private void awaitTermination(ExecutorService executor, RecordSource<R> source, CountDownLatch pollerExited)
+    {
+        boolean interrupted = false;
+        try {
+            if (!executor.awaitTermination(shutdownMillis, TimeUnit.MILLISECONDS)) {
+                logger.warn("awaitTermination: {} pipeline threads did not exit within {} ms", name, shutdownMillis);
+            }
+        }
+        catch (InterruptedException ex) {
+            interrupted = true;
+        }
+
+        while (pollerExited.getCount() > 0) {
+            try {
+                if (!pollerExited.await(shutdownMillis, TimeUnit.MILLISECONDS)) {
+                    logger.warn("awaitTermination: {} still waiting for the polling thread to exit", name);
+                    source.wakeup();
+                }
+            }
+            catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -23,6 +23,9 @@ package com.amazonaws.athena.connector.lambda.data;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connector.lambda.metrics.NoOpSplitMetrics;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetric;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetrics;
 import com.amazonaws.athena.connector.lambda.security.AesGcmBlockCrypto;
 import com.amazonaws.athena.connector.lambda.security.BlockCrypto;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
@@ -109,6 +112,8 @@ public class S3BlockSpiller
     private final AtomicLong totalBytesSpilled = new AtomicLong();
     //Time this BlockSpiller wss created.
     private final long startTime = System.currentTimeMillis();
+    //Records the time spent writing, serializing, encrypting and spilling Blocks.
+    private final SplitMetrics metrics;
 
     // Config options
     // These are from System.getenv() when the connector is being used from an AWS Lambda (*CompositeHandler).
@@ -135,6 +140,28 @@ public class S3BlockSpiller
         this(amazonS3, spillConfig, allocator, schema, constraintEvaluator, MAX_ROWS_PER_CALL, configOptions);
     }
 
+    /**
+     * Constructor which uses the default maxRowsPerCall and records its metrics.
+     *
+     * @param amazonS3 AmazonS3 client to use for writing to S3.
+     * @param spillConfig The spill config for this instance. Includes things like encryption key, s3 path, etc...
+     * @param allocator The BlockAllocator to use when creating blocks.
+     * @param schema The schema for blocks that should be written.
+     * @param constraintEvaluator The ConstraintEvaluator that should be used to constrain writes.
+     * @param metrics The SplitMetrics of the Split being written.
+     */
+    public S3BlockSpiller(
+        AmazonS3 amazonS3,
+        SpillConfig spillConfig,
+        BlockAllocator allocator,
+        Schema schema,
+        ConstraintEvaluator constraintEvaluator,
+        java.util.Map<String, String> configOptions,
+        SplitMetrics metrics)
+    {
+        this(amazonS3, spillConfig, allocator, schema, constraintEvaluator, MAX_ROWS_PER_CALL, configOptions, metrics);
+    }
+
     /**
      * Constructs a new S3BlockSpiller.
      *
@@ -153,6 +180,30 @@ public class S3BlockSpiller
         ConstraintEvaluator constraintEvaluator,
         int maxRowsPerCall,
         java.util.Map<String, String> configOptions)
+    {
+        this(amazonS3, spillConfig, allocator, schema, constraintEvaluator, maxRowsPerCall, configOptions, NoOpSplitMetrics.INSTANCE);
+    }
+
+    /**
+     * Constructs a new S3BlockSpiller which records its metrics.
+     *
+     * @param amazonS3 AmazonS3 client to use for writing to S3.
+     * @param spillConfig The spill config for this instance. Includes things like encryption key, s3 path, etc...
+     * @param allocator The BlockAllocator to use when creating blocks.
+     * @param schema The schema for blocks that should be written.
+     * @param constraintEvaluator The ConstraintEvaluator that should be used to constrain writes.
+     * @param maxRowsPerCall The max number of rows to allow callers to write in one call.
+     * @param metrics The SplitMetrics of the Split being written.
+     */
+    public S3BlockSpiller(
+        AmazonS3 amazonS3,
+        SpillConfig spillConfig,
+        BlockAllocator allocator,
+        Schema schema,
+        ConstraintEvaluator constraintEvaluator,
+        int maxRowsPerCall,
+        java.util.Map<String, String> configOptions,
+        SplitMetrics metrics)
     {
         this.configOptions = configOptions;
         this.amazonS3 = requireNonNull(amazonS3, "amazonS3 was null");
@@ -163,6 +214,18 @@ public class S3BlockSpiller
         asyncSpillPool = (spillConfig.getNumSpillThreads() <= 0) ? null : makeAsyncSpillPool(spillConfig);
         this.maxRowsPerCall = maxRowsPerCall;
         this.constraintEvaluator = constraintEvaluator;
+        this.metrics = requireNonNull(metrics, "metrics was null");
+    }
+
+    /**
+     * Provides access to the SplitMetrics this BlockSpiller records in.
+     *
+     * @see BlockSpiller
+     */
+    @Override
+    public SplitMetrics getMetrics()
+    {
+        return metrics;
     }
 
     /**
@@ -183,6 +246,21 @@ public class S3BlockSpiller
      * @see BlockSpiller
      */
     public void writeRows(RowWriter rowWriter)
+    {
+        if (!metrics.isEnabled()) {
+            doWriteRows(rowWriter);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            doWriteRows(rowWriter);
+        }
+        finally {
+            metrics.add(SplitMetric.SPILLER_TIME, System.nanoTime() - start);
+        }
+    }
+
+    private void doWriteRows(RowWriter rowWriter)
     {
         ensureInit();
 
@@ -190,12 +268,17 @@ public class S3BlockSpiller
         int rowCount = block.getRowCount();
 
         int rows;
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
         try {
             rows = rowWriter.writeRows(block, rowCount);
         }
         catch (Exception ex) {
             throw (ex instanceof RuntimeException) ? (RuntimeException) ex : new RuntimeException(ex);
         }
+        if (metrics.isEnabled()) {
+            metrics.add(SplitMetric.ROW_CONVERSION_TIME, System.nanoTime() - start);
+            metrics.add(SplitMetric.ROWS_WRITTEN, rows);
+        }
 
         if (rows > maxRowsPerCall) {
             throw new RuntimeException("Call generated more than " + maxRowsPerCall + "rows. Generating " +
@@ -353,7 +436,7 @@ public class S3BlockSpiller
             EncryptionKey encryptionKey = spillConfig.getEncryptionKey();
 
             logger.info("write: Started encrypting block for write to {}", spillLocation);
-            byte[] bytes = blockCrypto.encrypt(encryptionKey, block);
+            byte[] bytes = blockCrypto.encrypt(encryptionKey, block, metrics);
 
             totalBytesSpilled.addAndGet(bytes.length);
 
@@ -369,7 +452,13 @@ public class S3BlockSpiller
                     new ByteArrayInputStream(bytes),
                     objMeta);
             setRequestHeadersFromEnv(request);
+            long start = metrics.isEnabled() ? System.nanoTime() : 0;
             amazonS3.putObject(request);
+            if (metrics.isEnabled()) {
+                metrics.add(SplitMetric.S3_PUT_TIME, System.nanoTime() - start);
+                metrics.add(SplitMetric.BLOCKS_SPILLED, 1);
+                metrics.add(SplitMetric.BYTES_WRITTEN, bytes.length);
+            }
             logger.info("write: Completed spilling block of size {} bytes", bytes.length);
 
             return spillLocation;
@@ -47,6 +47,7 @@ import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.SmallIntF
 import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.TinyIntFieldWriter;
 import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.VarBinaryFieldWriter;
 import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.VarCharFieldWriter;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintProjector;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
@@ -138,13 +139,22 @@ public class GeneratedRowWriter
         }
     }
 
+    /**
+     * Times the constraint if the Block's ConstraintEvaluator records metrics.
+     */
+    private ConstraintProjector timeConstraint(ConstraintProjector constraint)
+    {
+        ConstraintEvaluator evaluator = block.getConstraintEvaluator();
+        return (evaluator != null) ? ConstraintEvaluator.timed(evaluator.getMetrics(), constraint) : constraint;
+    }
+
     private FieldWriter makeFieldWriter(FieldVector vector)
     {
         Field field = vector.getField();
         String fieldName = field.getName();
         Types.MinorType fieldType = Types.getMinorTypeForArrowType(field.getType());
         Extractor extractor = extractors.get(fieldName);
-        ConstraintProjector constraint = constraints.get(fieldName);
+        ConstraintProjector constraint = timeConstraint(constraints.get(fieldName));
         FieldWriterFactory factory = fieldWriterFactories.get(fieldName);
 
         if (factory != null) {
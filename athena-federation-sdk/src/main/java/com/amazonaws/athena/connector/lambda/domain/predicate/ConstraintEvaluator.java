@@ -22,6 +22,9 @@ package com.amazonaws.athena.connector.lambda.domain.predicate;
 
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.metrics.NoOpSplitMetrics;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetric;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetrics;
 import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
@@ -67,10 +70,22 @@ public class ConstraintEvaluator
     private final MarkerFactory markerFactory;
     //Holds the type for each field.
     private final Map<String, ArrowType> typeMap = new HashMap<>();
+    //Records the time spent applying constraints.
+    private final SplitMetrics metrics;
 
     public ConstraintEvaluator(BlockAllocator allocator, Schema schema, Constraints constraints)
+    {
+        this(allocator, schema, constraints, NoOpSplitMetrics.INSTANCE);
+    }
+
+    /**
+     * @param metrics The SplitMetrics to record CONSTRAINT_EVALUATION_TIME in, this evaluator and the ConstraintProjectors
+     * it makes only read the clock if they are enabled.
+     */
+    public ConstraintEvaluator(BlockAllocator allocator, Schema schema, Constraints constraints, SplitMetrics metrics)
     {
         this.constraints = constraints;
+        this.metrics = metrics;
         for (Field next : schema.getFields()) {
             typeMap.put(next.getName(), next.getType());
         }
@@ -96,6 +111,20 @@ public class ConstraintEvaluator
      * True if the field has no constraints, including if the field is unknown.
      */
     public boolean apply(String fieldName, Object value)
+    {
+        if (!metrics.isEnabled()) {
+            return doApply(fieldName, value);
+        }
+        long start = System.nanoTime();
+        try {
+            return doApply(fieldName, value);
+        }
+        finally {
+            metrics.add(SplitMetric.CONSTRAINT_EVALUATION_TIME, System.nanoTime() - start);
+        }
+    }
+
+    private boolean doApply(String fieldName, Object value)
     {
         try {
             ValueSet constraint = constraints.getSummary().get(fieldName);
@@ -118,11 +147,42 @@ public class ConstraintEvaluator
     {
         ValueSet constraint = constraints.getSummary().get(fieldName);
         if (constraint != null && typeMap.get(fieldName) != null) {
-            return Optional.of((Object value) -> constraint.containsValue(value));
+            return Optional.of(timed(metrics, (Object value) -> constraint.containsValue(value)));
         }
         return Optional.empty();
     }
 
+    /**
+     * @return The SplitMetrics this evaluator records its time in.
+     */
+    public SplitMetrics getMetrics()
+    {
+        return metrics;
+    }
+
+    /**
+     * Wraps the ConstraintProjector so that it records the time it spends in CONSTRAINT_EVALUATION_TIME.
+     *
+     * @param metrics The SplitMetrics to record the time in.
+     * @param projector The ConstraintProjector to time.
+     * @return The projector itself if metrics are disabled, otherwise a ConstraintProjector that times it.
+     */
+    public static ConstraintProjector timed(SplitMetrics metrics, ConstraintProjector projector)
+    {
+        if (projector == null || !metrics.isEnabled()) {
+            return projector;
+        }
+        return (Object value) -> {
+            long start = System.nanoTime();
+            try {
+                return projector.apply(value);
+            }
+            finally {
+                metrics.add(SplitMetric.CONSTRAINT_EVALUATION_TIME, System.nanoTime() - start);
+            }
+        };
+    }
+
     /**
      * Frees any Apache Arrow resources held by this Constraint Evaluator.
      *
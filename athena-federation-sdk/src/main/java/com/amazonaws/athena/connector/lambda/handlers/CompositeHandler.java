@@ -95,14 +95,15 @@ public class CompositeHandler
             throws IOException
     {
         try (BlockAllocatorImpl allocator = new BlockAllocatorImpl()) {
-            int resolvedSerDeVersion = SerDeVersion.SERDE_VERSION;
             byte[] allInputBytes = com.google.common.io.ByteStreams.toByteArray(inputStream);
+            int resolvedSerDeVersion = VersionedObjectMapperFactory.resolveSerDeVersion(allInputBytes);
             FederationRequest rawReq = null;
             ObjectMapper objectMapper = null;
             while (resolvedSerDeVersion >= 1) {
                 try {
-                    objectMapper = VersionedObjectMapperFactory.create(allocator, resolvedSerDeVersion);
-                    rawReq = objectMapper.readValue(allInputBytes, FederationRequest.class);
+                    objectMapper = VersionedObjectMapperFactory.getShared(resolvedSerDeVersion);
+                    rawReq = VersionedObjectMapperFactory.createReader(objectMapper, FederationRequest.class, allocator)
+                            .readValue(allInputBytes);
                     break;
                 }
                 catch (IllegalStateException e) { // if client has not upgraded to our latest, fallback to lower version
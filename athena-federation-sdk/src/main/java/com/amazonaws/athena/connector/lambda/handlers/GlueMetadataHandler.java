@@ -32,6 +32,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequest;
 import com.amazonaws.athena.connector.lambda.metadata.glue.GlueFieldLexer;
+import com.amazonaws.athena.connector.lambda.metadata.glue.GlueMetadataCache;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
 import com.amazonaws.services.athena.AmazonAthena;
 import com.amazonaws.services.glue.AWSGlue;
@@ -138,6 +139,7 @@ public abstract class GlueMetadataHandler
     public static final String GLUE_TABLE_CONTAINS_PREVIOUSLY_UNSUPPORTED_TYPE = "glueTableContainsPreviouslyUnsupportedType";
 
     private final AWSGlue awsGlue;
+    private final GlueMetadataCache metadataCache;
 
     /**
      * Basic constructor which is recommended when extending this class.
@@ -159,6 +161,7 @@ public abstract class GlueMetadataHandler
         awsGlue = disabled ? null : (AWSGlueClientBuilder.standard()
                 .withClientConfiguration(new ClientConfiguration().withConnectionTimeout(CONNECT_TIMEOUT))
                 .build());
+        metadataCache = new GlueMetadataCache(configOptions);
     }
 
     /**
@@ -172,6 +175,7 @@ public abstract class GlueMetadataHandler
     {
         super(sourceType, configOptions);
         this.awsGlue = awsGlue;
+        this.metadataCache = new GlueMetadataCache(configOptions);
     }
 
     /**
@@ -198,6 +202,7 @@ public abstract class GlueMetadataHandler
     {
         super(encryptionKeyFactory, secretsManager, athena, sourceType, spillBucket, spillPrefix, configOptions);
         this.awsGlue = awsGlue;
+        this.metadataCache = new GlueMetadataCache(configOptions);
     }
 
     /**
@@ -211,6 +216,17 @@ public abstract class GlueMetadataHandler
         return awsGlue;
     }
 
+    /**
+     * Provides access to the cache of Glue metadata used by this class, e.g. so that extenders which modify the
+     * catalog can invalidate it.
+     *
+     * @return The GlueMetadataCache being used by this class.
+     */
+    protected GlueMetadataCache getMetadataCache()
+    {
+        return metadataCache;
+    }
+
     /**
      * Provides access to the current AWS Glue DataCatalog being used by this class.
      *
@@ -259,24 +275,29 @@ public abstract class GlueMetadataHandler
     protected ListSchemasResponse doListSchemaNames(BlockAllocator blockAllocator, ListSchemasRequest request, DatabaseFilter filter)
             throws Exception
     {
-        GetDatabasesRequest getDatabasesRequest = new GetDatabasesRequest();
-        getDatabasesRequest.setCatalogId(getCatalog(request));
+        String catalogId = getCatalog(request);
+        List<Database> databases = metadataCache.getDatabases(catalogId, () -> {
+            GetDatabasesRequest getDatabasesRequest = new GetDatabasesRequest();
+            getDatabasesRequest.setCatalogId(catalogId);
+
+            List<Database> result = new ArrayList<>();
+            String nextToken = null;
+            do {
+                getDatabasesRequest.setNextToken(nextToken);
+                GetDatabasesResult page = awsGlue.getDatabases(getDatabasesRequest);
+                result.addAll(page.getDatabaseList());
+                nextToken = page.getNextToken();
+            }
+            while (nextToken != null);
+            return result;
+        });
 
         List<String> schemas = new ArrayList<>();
-        String nextToken = null;
-        do {
-            getDatabasesRequest.setNextToken(nextToken);
-            GetDatabasesResult result = awsGlue.getDatabases(getDatabasesRequest);
-
-            for (Database next : result.getDatabaseList()) {
-                if (filter == null || filter.filter(next)) {
-                    schemas.add(next.getName());
-                }
+        for (Database next : databases) {
+            if (filter == null || filter.filter(next)) {
+                schemas.add(next.getName());
             }
-
-            nextToken = result.getNextToken();
         }
-        while (nextToken != null);
 
         return new ListSchemasResponse(request.getCatalogName(), schemas);
     }
@@ -309,8 +330,9 @@ public abstract class GlueMetadataHandler
     protected ListTablesResponse doListTables(BlockAllocator blockAllocator, ListTablesRequest request, TableFilter filter)
             throws Exception
     {
+        String catalogId = getCatalog(request);
         GetTablesRequest getTablesRequest = new GetTablesRequest();
-        getTablesRequest.setCatalogId(getCatalog(request));
+        getTablesRequest.setCatalogId(catalogId);
         getTablesRequest.setDatabaseName(request.getSchemaName());
 
         Set<TableName> tables = new HashSet<>();
@@ -325,7 +347,9 @@ public abstract class GlueMetadataHandler
                 getTablesRequest.setMaxResults(maxResults);
                 pageSize -= maxResults;
             }
-            GetTablesResult result = awsGlue.getTables(getTablesRequest);
+            GetTablesResult result = metadataCache.getTables(catalogId, request.getSchemaName(),
+                    getTablesRequest.getNextToken(), getTablesRequest.getMaxResults(),
+                    () -> awsGlue.getTables(getTablesRequest));
 
             for (Table next : result.getTableList()) {
                 if (filter == null || filter.filter(next)) {
@@ -387,18 +411,34 @@ public abstract class GlueMetadataHandler
             throws Exception
     {
         TableName tableName = request.getTableName();
-        com.amazonaws.services.glue.model.GetTableRequest getTableRequest = new com.amazonaws.services.glue.model.GetTableRequest();
-        getTableRequest.setCatalogId(getCatalog(request));
-        getTableRequest.setDatabaseName(tableName.getSchemaName());
-        getTableRequest.setName(tableName.getTableName());
+        String catalogId = getCatalog(request);
+        Table table = metadataCache.getTable(catalogId, tableName.getSchemaName(), tableName.getTableName(), () -> {
+            com.amazonaws.services.glue.model.GetTableRequest getTableRequest = new com.amazonaws.services.glue.model.GetTableRequest();
+            getTableRequest.setCatalogId(catalogId);
+            getTableRequest.setDatabaseName(tableName.getSchemaName());
+            getTableRequest.setName(tableName.getTableName());
 
-        GetTableResult result = awsGlue.getTable(getTableRequest);
-        Table table = result.getTable();
+            GetTableResult result = awsGlue.getTable(getTableRequest);
+            return result.getTable();
+        });
 
         if (filter != null && !filter.filter(table)) {
             throw new RuntimeException("No matching table found " + request.getTableName());
         }
 
+        GetTableResponse converted = metadataCache.getConvertedTable(catalogId, tableName.getSchemaName(),
+                tableName.getTableName(), table, () -> convertTable(request, table));
+        return new GetTableResponse(request.getCatalogName(),
+                request.getTableName(),
+                converted.getSchema(),
+                converted.getPartitionColumns());
+    }
+
+    /**
+     * Converts a Glue Table to the Apache Arrow Schema and partition columns of a GetTableResponse.
+     */
+    private GetTableResponse convertTable(GetTableRequest request, Table table)
+    {
         SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
         if (table.getParameters() != null) {
             table.getParameters()
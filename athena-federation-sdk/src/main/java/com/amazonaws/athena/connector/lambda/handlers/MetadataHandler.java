@@ -48,6 +48,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequest;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequestType;
+import com.amazonaws.athena.connector.lambda.metadata.SplitFactory;
 import com.amazonaws.athena.connector.lambda.request.FederationRequest;
 import com.amazonaws.athena.connector.lambda.request.FederationResponse;
 import com.amazonaws.athena.connector.lambda.request.PingRequest;
@@ -73,11 +74,13 @@ import org.apache.arrow.vector.types.pojo.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.Collections;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 import static com.amazonaws.athena.connector.lambda.handlers.AthenaExceptionFilter.ATHENA_EXCEPTION_FILTER;
 import static com.amazonaws.athena.connector.lambda.handlers.FederationCapabilities.CAPABILITIES;
@@ -118,6 +121,12 @@ public abstract class MetadataHandler
     protected static final String SPILL_PREFIX_ENV = "spill_prefix";
     protected static final String KMS_KEY_ID_ENV = "kms_key_id";
     protected static final String DISABLE_SPILL_ENCRYPTION = "disable_spill_encryption";
+    //Config that enables deriving spill keys locally from one KMS data key instead of calling KMS for every split.
+    protected static final String KMS_KEY_DERIVATION = "kms_key_derivation";
+    //Config that controls the max number of spill keys derived from a single KMS data key.
+    protected static final String KMS_KEY_DERIVATION_MAX_KEYS = "kms_key_derivation_max_keys";
+    //Config that controls the max age (in seconds) of a KMS data key used to derive spill keys.
+    protected static final String KMS_DATA_KEY_MAX_AGE_SECONDS = "kms_data_key_max_age_seconds";
     private final CachableSecretsManager secretsManager;
     private final AmazonAthena athena;
     private final ThrottlingInvoker athenaInvoker;
@@ -126,6 +135,7 @@ public abstract class MetadataHandler
     private final String spillPrefix;
     private final String sourceType;
     private final SpillLocationVerifier verifier;
+    private SplitFactory splitFactory;
 
     /**
      * When MetadataHandler is used as a Lambda, the "Main" class will pass in System.getenv() as the configOptions.
@@ -146,7 +156,7 @@ public abstract class MetadataHandler
         }
         else {
             this.encryptionKeyFactory = (this.configOptions.get(KMS_KEY_ID_ENV) != null) ?
-                    new KmsKeyFactory(AWSKMSClientBuilder.standard().build(), this.configOptions.get(KMS_KEY_ID_ENV)) :
+                    makeKmsKeyFactory(this.configOptions.get(KMS_KEY_ID_ENV)) :
                     new LocalKeyFactory();
             logger.debug("ENABLE_SPILL_ENCRYPTION with encryption factory: " + encryptionKeyFactory.getClass().getSimpleName());
         }
@@ -157,6 +167,20 @@ public abstract class MetadataHandler
         this.athenaInvoker = ThrottlingInvoker.newDefaultBuilder(ATHENA_EXCEPTION_FILTER, configOptions).build();
     }
 
+    private KmsKeyFactory makeKmsKeyFactory(String kmsKeyId)
+    {
+        if (!Boolean.parseBoolean(configOptions.getOrDefault(KMS_KEY_DERIVATION, "false"))) {
+            return new KmsKeyFactory(AWSKMSClientBuilder.standard().build(), kmsKeyId);
+        }
+
+        int maxDerivedKeys = configOptions.containsKey(KMS_KEY_DERIVATION_MAX_KEYS) ?
+                Integer.parseInt(configOptions.get(KMS_KEY_DERIVATION_MAX_KEYS)) : KmsKeyFactory.DEFAULT_MAX_DERIVED_KEYS;
+        long maxDataKeyAgeMillis = configOptions.containsKey(KMS_DATA_KEY_MAX_AGE_SECONDS) ?
+                TimeUnit.SECONDS.toMillis(Long.parseLong(configOptions.get(KMS_DATA_KEY_MAX_AGE_SECONDS))) :
+                KmsKeyFactory.DEFAULT_MAX_DATA_KEY_AGE_MILLIS;
+        return new KmsKeyFactory(AWSKMSClientBuilder.standard().build(), kmsKeyId, maxDerivedKeys, maxDataKeyAgeMillis);
+    }
+
     /**
      * @param sourceType Used to aid in logging diagnostic info when raising a support case.
      */
@@ -221,12 +245,28 @@ public abstract class MetadataHandler
                 .build();
     }
 
+    /**
+     * Provides a SplitFactory which builds splits a page at a time, generating their spill locations (using
+     * makeSpillLocation) and encryption keys (using makeEncryptionKey) in parallel.
+     *
+     * @return The SplitFactory for this handler.
+     */
+    protected synchronized SplitFactory getSplitFactory()
+    {
+        if (splitFactory == null) {
+            splitFactory = new SplitFactory(this::makeSpillLocation, this::makeEncryptionKey, configOptions);
+        }
+        return splitFactory;
+    }
+
     public final void handleRequest(InputStream inputStream, OutputStream outputStream, final Context context)
             throws IOException
     {
         try (BlockAllocator allocator = new BlockAllocatorImpl()) {
-            ObjectMapper objectMapper = VersionedObjectMapperFactory.create(allocator);
-            try (FederationRequest rawReq = objectMapper.readValue(inputStream, FederationRequest.class)) {
+            InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+            ObjectMapper objectMapper = VersionedObjectMapperFactory.getShared(VersionedObjectMapperFactory.resolveSerDeVersion(in));
+            try (FederationRequest rawReq = VersionedObjectMapperFactory.createReader(objectMapper, FederationRequest.class, allocator)
+                    .readValue(in)) {
                 if (rawReq instanceof PingRequest) {
                     try (PingResponse response = doPing((PingRequest) rawReq)) {
                         assertNotNull(response);
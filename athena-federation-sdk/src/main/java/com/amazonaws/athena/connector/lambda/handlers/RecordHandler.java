@@ -28,6 +28,9 @@ import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.S3BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.SpillConfig;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.metrics.MetricsPublisher;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetric;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetrics;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsResponse;
 import com.amazonaws.athena.connector.lambda.records.RecordRequest;
@@ -52,6 +55,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -76,6 +80,7 @@ public abstract class RecordHandler
     private final CachableSecretsManager secretsManager;
     private final AmazonAthena athena;
     private final ThrottlingInvoker athenaInvoker;
+    private final MetricsPublisher metricsPublisher;
 
     /**
      * @param sourceType Used to aid in logging diagnostic info when raising a support case.
@@ -88,12 +93,23 @@ public abstract class RecordHandler
         this.athena = AmazonAthenaClientBuilder.defaultClient();
         this.configOptions = configOptions;
         this.athenaInvoker = ThrottlingInvoker.newDefaultBuilder(ATHENA_EXCEPTION_FILTER, configOptions).build();
+        this.metricsPublisher = MetricsPublisher.fromConfig(configOptions);
     }
 
     /**
      * @param sourceType Used to aid in logging diagnostic info when raising a support case.
      */
     public RecordHandler(AmazonS3 amazonS3, AWSSecretsManager secretsManager, AmazonAthena athena, String sourceType, java.util.Map<String, String> configOptions)
+    {
+        this(amazonS3, secretsManager, athena, MetricsPublisher.fromConfig(configOptions), sourceType, configOptions);
+    }
+
+    /**
+     * @param metricsPublisher Used to publish the metrics of each Split, overriding the metrics_publisher config option.
+     * @param sourceType Used to aid in logging diagnostic info when raising a support case.
+     */
+    public RecordHandler(AmazonS3 amazonS3, AWSSecretsManager secretsManager, AmazonAthena athena, MetricsPublisher metricsPublisher,
+            String sourceType, java.util.Map<String, String> configOptions)
     {
         this.sourceType = sourceType;
         this.amazonS3 = amazonS3;
@@ -101,6 +117,7 @@ public abstract class RecordHandler
         this.athena = athena;
         this.configOptions = configOptions;
         this.athenaInvoker = ThrottlingInvoker.newDefaultBuilder(ATHENA_EXCEPTION_FILTER, configOptions).build();
+        this.metricsPublisher = metricsPublisher;
     }
 
     /**
@@ -127,8 +144,10 @@ public abstract class RecordHandler
             throws IOException
     {
         try (BlockAllocator allocator = new BlockAllocatorImpl()) {
-            ObjectMapper objectMapper = VersionedObjectMapperFactory.create(allocator);
-            try (FederationRequest rawReq = objectMapper.readValue(inputStream, FederationRequest.class)) {
+            InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+            ObjectMapper objectMapper = VersionedObjectMapperFactory.getShared(VersionedObjectMapperFactory.resolveSerDeVersion(in));
+            try (FederationRequest rawReq = VersionedObjectMapperFactory.createReader(objectMapper, FederationRequest.class, allocator)
+                    .readValue(in)) {
                 if (rawReq instanceof PingRequest) {
                     try (PingResponse response = doPing((PingRequest) rawReq)) {
                         assertNotNull(response);
@@ -188,22 +207,42 @@ public abstract class RecordHandler
     {
         logger.info("doReadRecords: {}:{}", request.getSchema(), request.getSplit().getSpillLocation());
         SpillConfig spillConfig = getSpillConfig(request);
-        try (ConstraintEvaluator evaluator = new ConstraintEvaluator(allocator,
-                request.getSchema(),
-                request.getConstraints());
-                S3BlockSpiller spiller = new S3BlockSpiller(amazonS3, spillConfig, allocator, request.getSchema(), evaluator, configOptions);
-                QueryStatusChecker queryStatusChecker = new QueryStatusChecker(athena, athenaInvoker, request.getQueryId())
-        ) {
-            readWithConstraint(spiller, request, queryStatusChecker);
+        //The metrics are closed, and so published, after the spiller has finished its background spills.
+        try (SplitMetrics metrics = metricsPublisher.newSplitMetrics(request)) {
+            long start = metrics.isEnabled() ? System.nanoTime() : 0;
+            try (ConstraintEvaluator evaluator = new ConstraintEvaluator(allocator,
+                    request.getSchema(),
+                    request.getConstraints(),
+                    metrics);
+                    S3BlockSpiller spiller = new S3BlockSpiller(amazonS3, spillConfig, allocator, request.getSchema(), evaluator,
+                            configOptions, metrics);
+                    QueryStatusChecker queryStatusChecker = new QueryStatusChecker(athena, athenaInvoker, request.getQueryId())
+            ) {
+                long readStart = metrics.isEnabled() ? System.nanoTime() : 0;
+                readWithConstraint(spiller, request, queryStatusChecker);
+                if (metrics.isEnabled()) {
+                    long readTime = System.nanoTime() - readStart;
+                    metrics.add(SplitMetric.SOURCE_FETCH_TIME, Math.max(0, readTime - metrics.get(SplitMetric.SPILLER_TIME)));
+                }
 
-            if (!spiller.spilled()) {
-                return new ReadRecordsResponse(request.getCatalogName(), spiller.getBlock());
+                if (!spiller.spilled()) {
+                    if (metrics.isEnabled()) {
+                        metrics.add(SplitMetric.BYTES_WRITTEN, spiller.getBlock().getSize());
+                    }
+                    return new ReadRecordsResponse(request.getCatalogName(), spiller.getBlock());
+                }
+                else {
+                    return new RemoteReadRecordsResponse(request.getCatalogName(),
+                            request.getSchema(),
+                            spiller.getSpillLocations(),
+                            spillConfig.getEncryptionKey());
+                }
             }
-            else {
-                return new RemoteReadRecordsResponse(request.getCatalogName(),
-                        request.getSchema(),
-                        spiller.getSpillLocations(),
-                        spillConfig.getEncryptionKey());
+            finally {
+                if (metrics.isEnabled()) {
+                    metrics.max(SplitMetric.ALLOCATOR_PEAK_BYTES, allocator.getPeakUsage());
+                    metrics.add(SplitMetric.SPLIT_TIME, System.nanoTime() - start);
+                }
             }
         }
     }
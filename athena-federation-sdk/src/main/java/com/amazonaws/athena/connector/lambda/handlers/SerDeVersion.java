@@ -25,10 +25,13 @@ package com.amazonaws.athena.connector.lambda.handlers;
  * Athena. You can think of this like a version number that is specific to the protocol used by the SDK.
  * Any modification in the way existing over-the-wire objects are serialized would require incrementing
  * this value.
+ *
+ * Version history (since 5):
+ * 6 - requests lead with the caller's SerDe version, responses are written as CBOR instead of JSON
  */
 public class SerDeVersion
 {
     private SerDeVersion() {}
 
-    public static final int SERDE_VERSION = 5;
+    public static final int SERDE_VERSION = 6;
 }
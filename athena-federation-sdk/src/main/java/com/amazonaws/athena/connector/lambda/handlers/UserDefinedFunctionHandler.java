@@ -51,6 +51,7 @@ import com.amazonaws.athena.connector.lambda.request.FederationResponse;
 import com.amazonaws.athena.connector.lambda.request.PingRequest;
 import com.amazonaws.athena.connector.lambda.request.PingResponse;
 import com.amazonaws.athena.connector.lambda.serde.VersionedObjectMapperFactory;
+import com.amazonaws.athena.connector.lambda.udf.ThreadSafeFunction;
 import com.amazonaws.athena.connector.lambda.udf.UserDefinedFunctionRequest;
 import com.amazonaws.athena.connector.lambda.udf.UserDefinedFunctionResponse;
 import com.amazonaws.athena.connector.lambda.udf.UserDefinedFunctionType;
@@ -59,6 +60,7 @@ import com.amazonaws.services.lambda.runtime.RequestStreamHandler;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import com.google.common.primitives.Primitives;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.complex.reader.FieldReader;
 import org.apache.arrow.vector.holders.NullableBigIntHolder;
@@ -73,19 +75,25 @@ import org.apache.arrow.vector.holders.NullableTinyIntHolder;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.arrow.vector.util.TransferPair;
+import org.apache.arrow.vector.util.VectorBatchAppender;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connector.lambda.handlers.FederationCapabilities.CAPABILITIES;
@@ -94,6 +102,19 @@ import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Athena UDF users are expected to extend this class to create UDFs.
+ * <p>
+ * A scalar UDF is a public method whose name matches the function name used in Athena and whose argument and return
+ * types are the Java types of the function's SQL types (e.g. {@code public String compress(String input)}). Such
+ * methods are invoked once per row.
+ * <p>
+ * For better performance a UDF may also (or instead) be implemented as a vectorized method which processes a whole
+ * batch of rows at once. A vectorized method has the same name, takes one Apache Arrow vector per SQL argument
+ * followed by the output vector, and returns void (e.g. {@code public void compress(VarCharVector input,
+ * VarCharVector output)}). It must set a value (or null) in the output vector for every input row, the handler sets
+ * the output's row count afterwards. When both forms exist the vectorized method is preferred.
+ * <p>
+ * UDF methods (of either form) annotated with {@link ThreadSafeFunction} may be invoked concurrently on chunks of a
+ * large batch to make use of all of the Lambda's vCPUs.
  */
 public abstract class UserDefinedFunctionHandler
         implements RequestStreamHandler
@@ -101,6 +122,10 @@ public abstract class UserDefinedFunctionHandler
     private static final Logger logger = LoggerFactory.getLogger(UserDefinedFunctionHandler.class);
 
     private static final int RETURN_COLUMN_COUNT = 1;
+    //Min number of rows per chunk when a ThreadSafeFunction's rows are processed in parallel.
+    private static final int MIN_CHUNK_ROWS = 1_024;
+    //Chunks start on a multiple of this many rows so slicing the input doesn't have to shift its validity bits.
+    private static final int CHUNK_ALIGNMENT = 8;
     //Used to tag log lines generated by this connector for diagnostic purposes when interacting with Athena.
     private final String sourceType;
 
@@ -113,8 +138,10 @@ public abstract class UserDefinedFunctionHandler
     public final void handleRequest(InputStream inputStream, OutputStream outputStream, Context context)
     {
         try (BlockAllocator allocator = new BlockAllocatorImpl()) {
-            ObjectMapper objectMapper = VersionedObjectMapperFactory.create(allocator);
-            try (FederationRequest rawRequest = objectMapper.readValue(inputStream, FederationRequest.class)) {
+            InputStream in = inputStream.markSupported() ? inputStream : new BufferedInputStream(inputStream);
+            ObjectMapper objectMapper = VersionedObjectMapperFactory.getShared(VersionedObjectMapperFactory.resolveSerDeVersion(in));
+            try (FederationRequest rawRequest = VersionedObjectMapperFactory.createReader(objectMapper, FederationRequest.class, allocator)
+                    .readValue(in)) {
                 if (rawRequest instanceof PingRequest) {
                     try (PingResponse response = doPing((PingRequest) rawRequest)) {
                         assertNotNull(response);
@@ -166,6 +193,11 @@ public abstract class UserDefinedFunctionHandler
     private UserDefinedFunctionResponse processScalarFunction(BlockAllocator allocator, UserDefinedFunctionRequest req)
             throws Exception
     {
+        UserDefinedFunctionResponse vectorizedResponse = processVectorizedScalarFunction(allocator, req);
+        if (vectorizedResponse != null) {
+            return vectorizedResponse;
+        }
+
         Method udfMethod = extractScalarFunctionMethod(req);
         Block inputRecords = req.getInputRecords();
         Schema outputSchema = req.getOutputSchema();
@@ -174,14 +206,118 @@ public abstract class UserDefinedFunctionHandler
         return new UserDefinedFunctionResponse(outputRecords, udfMethod.getName());
     }
 
+    /**
+     * Runs the vectorized form of the UDF, if the handler implements one.
+     *
+     * @return The response, or null if the handler has no vectorized method matching the request.
+     */
+    private UserDefinedFunctionResponse processVectorizedScalarFunction(BlockAllocator allocator, UserDefinedFunctionRequest req)
+            throws Exception
+    {
+        Method udfMethod = extractVectorizedFunctionMethod(allocator, req);
+        if (udfMethod == null) {
+            return null;
+        }
+
+        Block inputRecords = req.getInputRecords();
+        Schema outputSchema = req.getOutputSchema();
+        int rowCount = inputRecords.getRowCount();
+        int chunkCount = getChunkCount(udfMethod, rowCount);
+        if (chunkCount > 1) {
+            Block outputRecords = processInParallel(allocator, inputRecords, outputSchema, chunkCount,
+                    (inputVectors, outputChunk, length) -> writeVectors(udfMethod, inputVectors, outputChunk, length));
+            return new UserDefinedFunctionResponse(outputRecords, udfMethod.getName());
+        }
+
+        Block outputRecords = allocator.createBlock(outputSchema);
+        try {
+            writeVectors(udfMethod, inputRecords.getFieldVectors(), outputRecords, rowCount);
+        }
+        catch (Throwable t) {
+            closeQuietly(outputRecords);
+            throw t;
+        }
+        return new UserDefinedFunctionResponse(outputRecords, udfMethod.getName());
+    }
+
+    /**
+     * Finds the vectorized java method matching the UDF, see the class documentation.
+     *
+     * @return The vectorized method, or null if the handler has none for the request's method name and types.
+     */
+    private Method extractVectorizedFunctionMethod(BlockAllocator allocator, UserDefinedFunctionRequest req)
+            throws Exception
+    {
+        String methodName = req.getMethodName();
+        Block inputRecords = req.getInputRecords();
+        int vectorCount = inputRecords.getFieldVectors().size() + RETURN_COLUMN_COUNT;
+        boolean hasCandidate = Arrays.stream(this.getClass().getMethods())
+                .anyMatch(next -> next.getName().equals(methodName)
+                        && next.getReturnType() == void.class
+                        && next.getParameterCount() == vectorCount
+                        && Arrays.stream(next.getParameterTypes()).allMatch(FieldVector.class::isAssignableFrom));
+        if (!hasCandidate || req.getOutputSchema().getFields().size() != RETURN_COLUMN_COUNT) {
+            return null;
+        }
+
+        //The output vector's class is only known once it has been created, creating it doesn't allocate any buffers.
+        try (Block outputRecords = allocator.createBlock(req.getOutputSchema())) {
+            List<FieldVector> vectors = Lists.newArrayList(inputRecords.getFieldVectors());
+            vectors.add(outputRecords.getFieldVectors().get(0));
+            Class[] vectorTypes = vectors.stream().map(Object::getClass).toArray(Class[]::new);
+
+            Method udfMethod = this.getClass().getMethod(methodName, vectorTypes);
+            logger.info("Found vectorized UDF method {} with vector types {}", methodName, Arrays.toString(vectorTypes));
+            return udfMethod;
+        }
+        catch (NoSuchMethodException e) {
+            //A vectorized method with this name exists but for different types, so fall back to the scalar form.
+            return null;
+        }
+    }
+
+    /**
+     * Invokes the vectorized UDF method for the input vectors and sets the output Block's row count.
+     */
+    private void writeVectors(Method udfMethod, List<FieldVector> inputVectors, Block outputRecords, int rowCount)
+    {
+        List<FieldVector> vectors = Lists.newArrayList(inputVectors);
+        vectors.add(outputRecords.getFieldVectors().get(0));
+        processVectors(udfMethod, vectors);
+        outputRecords.setRowCount(rowCount);
+    }
+
+    /**
+     * Invokes a vectorized UDF method once for the whole batch, or once per chunk of the batch if the method is
+     * annotated with {@link ThreadSafeFunction}.
+     *
+     * @param udfMethod the vectorized java method matching the User-Defined-Function defined in Athena.
+     * @param vectors the input vectors followed by the output vector.
+     */
+    protected void processVectors(Method udfMethod, List<FieldVector> vectors)
+    {
+        try {
+            MethodHandles.lookup().unreflect(udfMethod).bindTo(this).invokeWithArguments(vectors);
+        }
+        catch (RuntimeException e) {
+            throw e;
+        }
+        catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
     /**
      * Processes a group by rows. This method takes in a block of data (containing multiple rows), process them and
      * returns multiple rows of the output column in a block.
      * <p>
      * UDF methods are invoked row-by-row in a for loop. Arrow values are converted to Java Objects and then passed into
      * the UDF java method. This is not very efficient because we might potentially be doing a lot of data copying.
-     * Advanced users could choose to override this method and directly deal with Arrow data to achieve better
-     * performance.
+     * Advanced users could choose to implement a vectorized form of the UDF (see the class documentation), which is
+     * used instead of this method, and directly deal with Arrow data to achieve better performance.
+     * <p>
+     * If the UDF method is annotated with {@link ThreadSafeFunction} and the batch is large enough, the rows are split
+     * into chunks which are processed in parallel on the common ForkJoinPool.
      *
      * @param allocator arrow memory allocator
      * @param udfMethod the extracted java method matching the User-Defined-Function defined in Athena.
@@ -193,37 +329,166 @@ public abstract class UserDefinedFunctionHandler
             throws Exception
     {
         int rowCount = inputRecords.getRowCount();
+        int chunkCount = getChunkCount(udfMethod, rowCount);
+        if (chunkCount > 1) {
+            return processInParallel(allocator, inputRecords, outputSchema, chunkCount,
+                    (inputVectors, outputChunk, length) -> writeRows(udfMethod, inputVectors, outputChunk, length));
+        }
 
-        List<ArrowValueProjector> valueProjectors = Lists.newArrayList();
+        Block outputRecords = allocator.createBlock(outputSchema);
+        try {
+            writeRows(udfMethod, inputRecords.getFieldVectors(), outputRecords, rowCount);
+        }
+        catch (Throwable t) {
+            closeQuietly(outputRecords);
+            throw t;
+        }
 
-        for (Field field : inputRecords.getFields()) {
-            FieldReader fieldReader = inputRecords.getFieldReader(field.getName());
-            ArrowValueProjector arrowValueProjector = ProjectorUtils.createArrowValueProjector(fieldReader);
-            valueProjectors.add(arrowValueProjector);
+        return outputRecords;
+    }
+
+    /**
+     * @return The number of chunks to split the rows into, 1 if the rows should be processed on the calling thread.
+     */
+    private int getChunkCount(Method udfMethod, int rowCount)
+    {
+        if (!udfMethod.isAnnotationPresent(ThreadSafeFunction.class)) {
+            return 1;
         }
+        return Math.max(1, Math.min(getParallelism(), rowCount / MIN_CHUNK_ROWS));
+    }
 
-        Field outputField = outputSchema.getFields().get(0);
-        GeneratedRowWriter outputRowWriter = createOutputRowWriter(outputField, valueProjectors, udfMethod);
+    /**
+     * @return The max number of chunks the rows of a ThreadSafeFunction are processed in, defaults to the number of
+     * available processors.
+     */
+    protected int getParallelism()
+    {
+        return Runtime.getRuntime().availableProcessors();
+    }
 
-        Block outputRecords = allocator.createBlock(outputSchema);
-        outputRecords.setRowCount(rowCount);
+    /**
+     * Splits the input rows into chunks which are processed in parallel, each with its own readers and projectors.
+     * Arrow vectors can't safely be written by multiple threads (e.g. neighbouring rows share validity bytes and
+     * variable width values depend on the previous row's offset) so each chunk writes to its own output Block, the
+     * chunks are then appended (copying their buffers) to the output Block in order.
+     */
+    private Block processInParallel(BlockAllocator allocator, Block inputRecords, Schema outputSchema, int chunkCount, ChunkWriter chunkWriter)
+            throws Exception
+    {
+        int rowCount = inputRecords.getRowCount();
+        int chunkRows = (rowCount + chunkCount - 1) / chunkCount;
+        int alignedChunkRows = (chunkRows + CHUNK_ALIGNMENT - 1) / CHUNK_ALIGNMENT * CHUNK_ALIGNMENT;
 
+        List<List<FieldVector>> inputChunks = new ArrayList<>(chunkCount);
+        List<Block> outputChunks = new ArrayList<>(chunkCount);
+        Block outputRecords = null;
         try {
-            for (int rowNum = 0; rowNum < rowCount; ++rowNum) {
-                outputRowWriter.writeRow(outputRecords, rowNum, rowNum);
+            List<ForkJoinTask<Void>> tasks = new ArrayList<>(chunkCount);
+            for (int startRow = 0; startRow < rowCount; startRow += alignedChunkRows) {
+                int length = Math.min(alignedChunkRows, rowCount - startRow);
+                List<FieldVector> inputChunk = sliceVectors(inputRecords.getFieldVectors(), startRow, length);
+                inputChunks.add(inputChunk);
+                Block outputChunk = allocator.createBlock(outputSchema);
+                outputChunks.add(outputChunk);
+                tasks.add(ForkJoinTask.adapt(() -> {
+                    chunkWriter.write(inputChunk, outputChunk, length);
+                    return null;
+                }));
             }
+            logger.info("processInParallel: processing {} rows in {} chunks", rowCount, tasks.size());
+            //ForkJoinTask.invokeAll returns on the first failure and only cancels the other tasks, which keep running
+            //if they already started. Every task must be done with its input slices and output chunk before they are
+            //closed below, so wait on all of them before rethrowing the first failure.
+            tasks.forEach(ForkJoinTask::fork);
+            tasks.forEach(ForkJoinTask::quietlyJoin);
+            tasks.forEach(ForkJoinTask::join);
+
+            outputRecords = allocator.createBlock(outputSchema);
+            FieldVector outputVector = outputRecords.getFieldVectors().get(0);
+            outputVector.setInitialCapacity(rowCount);
+            outputVector.allocateNew();
+            VectorBatchAppender.batchAppend(outputVector,
+                    outputChunks.stream().map(next -> next.getFieldVectors().get(0)).toArray(FieldVector[]::new));
+            outputRecords.setRowCount(rowCount);
+            return outputRecords;
         }
         catch (Throwable t) {
-            try {
-                outputRecords.close();
-            }
-            catch (Exception e) {
-                logger.error("Error closing output block", e);
+            if (outputRecords != null) {
+                closeQuietly(outputRecords);
             }
             throw t;
         }
+        finally {
+            for (List<FieldVector> next : inputChunks) {
+                next.forEach(FieldVector::close);
+            }
+            for (Block next : outputChunks) {
+                closeQuietly(next);
+            }
+        }
+    }
 
-        return outputRecords;
+    /**
+     * Makes zero-copy (where the vector type allows) slices of the given rows of each vector.
+     */
+    private List<FieldVector> sliceVectors(List<FieldVector> vectors, int startRow, int length)
+    {
+        List<FieldVector> slices = new ArrayList<>(vectors.size());
+        try {
+            for (FieldVector next : vectors) {
+                TransferPair transferPair = next.getTransferPair(next.getAllocator());
+                transferPair.splitAndTransfer(startRow, length);
+                slices.add((FieldVector) transferPair.getTo());
+            }
+        }
+        catch (RuntimeException ex) {
+            slices.forEach(FieldVector::close);
+            throw ex;
+        }
+        return slices;
+    }
+
+    /**
+     * Invokes the UDF method for each input row and writes the results to the same rows of the output Block.
+     */
+    private void writeRows(Method udfMethod, List<FieldVector> inputVectors, Block outputRecords, int rowCount)
+            throws Exception
+    {
+        List<ArrowValueProjector> valueProjectors = Lists.newArrayList();
+
+        for (FieldVector next : inputVectors) {
+            FieldReader fieldReader = next.getReader();
+            ArrowValueProjector arrowValueProjector = ProjectorUtils.createArrowValueProjector(fieldReader);
+            valueProjectors.add(arrowValueProjector);
+        }
+
+        Field outputField = outputRecords.getSchema().getFields().get(0);
+        GeneratedRowWriter outputRowWriter = createOutputRowWriter(outputField, valueProjectors, udfMethod);
+
+        outputRecords.setRowCount(rowCount);
+        for (int rowNum = 0; rowNum < rowCount; ++rowNum) {
+            outputRowWriter.writeRow(outputRecords, rowNum, rowNum);
+        }
+    }
+
+    /**
+     * Writes the results for a chunk of input rows to the output Block.
+     */
+    private interface ChunkWriter
+    {
+        void write(List<FieldVector> inputVectors, Block outputRecords, int rowCount)
+                throws Exception;
+    }
+
+    private void closeQuietly(Block block)
+    {
+        try {
+            block.close();
+        }
+        catch (Exception e) {
+            logger.error("Error closing output block", e);
+        }
     }
 
     /**
@@ -302,13 +567,14 @@ public abstract class UserDefinedFunctionHandler
 
     private GeneratedRowWriter createOutputRowWriter(Field outputField, List<ArrowValueProjector> valueProjectors, Method udfMethod)
     {
+        ScalarFunctionInvoker invoker = new ScalarFunctionInvoker(udfMethod, valueProjectors);
         GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder();
-        Extractor extractor = makeExtractor(outputField, valueProjectors, udfMethod);
+        Extractor extractor = makeExtractor(outputField, invoker);
         if (extractor != null) {
             builder.withExtractor(outputField.getName(), extractor);
         }
         else {
-            builder.withFieldWriterFactory(outputField.getName(), makeFactory(outputField, valueProjectors, udfMethod));
+            builder.withFieldWriterFactory(outputField.getName(), makeFactory(outputField, invoker));
         }
         return builder.build();
     }
@@ -316,21 +582,18 @@ public abstract class UserDefinedFunctionHandler
     /**
      * Creates an Extractor for the given outputField.
      * @param outputField  outputField
-     * @param valueProjectors projectors that we use to read input data.
-     * @param udfMethod
+     * @param invoker invokes the UDF method with the projected input values of a row.
      * @return
      */
-    private Extractor makeExtractor(Field outputField, List<ArrowValueProjector> valueProjectors, Method udfMethod)
+    private Extractor makeExtractor(Field outputField, ScalarFunctionInvoker invoker)
     {
         Types.MinorType fieldType = Types.getMinorTypeForArrowType(outputField.getType());
 
-        Object[] arguments = new Object[valueProjectors.size()];
-
         switch (fieldType) {
             case INT:
                 return (IntExtractor) (Object inputRowNum, NullableIntHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -343,7 +606,7 @@ public abstract class UserDefinedFunctionHandler
             case DATEMILLI:
                 return (DateMilliExtractor) (Object inputRowNum, NullableDateMilliHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -356,7 +619,7 @@ public abstract class UserDefinedFunctionHandler
             case DATEDAY:
                 return (DateDayExtractor) (Object inputRowNum, NullableDateDayHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -369,7 +632,7 @@ public abstract class UserDefinedFunctionHandler
             case TINYINT:
                 return (TinyIntExtractor) (Object inputRowNum, NullableTinyIntHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -382,7 +645,7 @@ public abstract class UserDefinedFunctionHandler
             case SMALLINT:
                 return (SmallIntExtractor) (Object inputRowNum, NullableSmallIntHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -395,7 +658,7 @@ public abstract class UserDefinedFunctionHandler
             case FLOAT4:
                 return (Float4Extractor) (Object inputRowNum, NullableFloat4Holder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -408,7 +671,7 @@ public abstract class UserDefinedFunctionHandler
             case FLOAT8:
                 return (Float8Extractor) (Object inputRowNum, NullableFloat8Holder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -421,7 +684,7 @@ public abstract class UserDefinedFunctionHandler
             case DECIMAL:
                 return (DecimalExtractor) (Object inputRowNum, NullableDecimalHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -434,7 +697,7 @@ public abstract class UserDefinedFunctionHandler
             case BIT:
                 return (BitExtractor) (Object inputRowNum, NullableBitHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -447,7 +710,7 @@ public abstract class UserDefinedFunctionHandler
             case BIGINT:
                 return (BigIntExtractor) (Object inputRowNum, NullableBigIntHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -460,7 +723,7 @@ public abstract class UserDefinedFunctionHandler
             case VARCHAR:
                 return (VarCharExtractor) (Object inputRowNum, NullableVarCharHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -473,7 +736,7 @@ public abstract class UserDefinedFunctionHandler
             case VARBINARY:
                 return (VarBinaryExtractor) (Object inputRowNum, NullableVarBinaryHolder dst) ->
                 {
-                    Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                    Object result = invoker.invoke((int) inputRowNum);
 
                     if (result == null) {
                         dst.isSet = 0;
@@ -488,17 +751,15 @@ public abstract class UserDefinedFunctionHandler
         }
     }
 
-    private FieldWriterFactory makeFactory(Field field, List<ArrowValueProjector> valueProjectors, Method udfMethod)
+    private FieldWriterFactory makeFactory(Field field, ScalarFunctionInvoker invoker)
     {
-        Object[] arguments = new Object[valueProjectors.size()];
-
         Types.MinorType fieldType = Types.getMinorTypeForArrowType(field.getType());
         switch (fieldType) {
             case LIST:
             case STRUCT:
                 return (FieldVector vector, Extractor extractor, ConstraintProjector ignored) ->
                         (Object inputRowNum, int outputRowNum) -> {
-                            Object result = invokeMethod(udfMethod, arguments, (int) inputRowNum, valueProjectors);
+                            Object result = invoker.invoke((int) inputRowNum);
                             BlockUtils.setComplexValue(vector, outputRowNum, FieldResolver.DEFAULT, result);
                             return true;    // push-down does not apply in UDFs
                         };
@@ -508,33 +769,67 @@ public abstract class UserDefinedFunctionHandler
         }
     }
 
-    private Object invokeMethod(Method udfMethod,
-                                Object[] arguments,
-                                int inputRowNum,
-                                List<ArrowValueProjector> valueProjectors)
+    /**
+     * Invokes a scalar UDF method row by row. The method is bound to a MethodHandle once per batch, rather than being
+     * invoked reflectively for every row, which avoids the access checks and argument copying of Method.invoke and
+     * lets the JIT inline the call. Argument types are checked before invoking the handle so that a ClassCastException
+     * thrown by the UDF itself is not mistaken for a type mismatch.
+     */
+    private class ScalarFunctionInvoker
     {
-        for (int col = 0; col < valueProjectors.size(); ++col) {
-            arguments[col] = valueProjectors.get(col).project(inputRowNum);
+        private final MethodHandle udfHandle;
+        private final Class<?>[] parameterTypes;
+        private final List<ArrowValueProjector> valueProjectors;
+        private final Object[] arguments;
+
+        ScalarFunctionInvoker(Method udfMethod, List<ArrowValueProjector> valueProjectors)
+        {
+            this.parameterTypes = udfMethod.getParameterTypes();
+            this.valueProjectors = valueProjectors;
+            this.arguments = new Object[valueProjectors.size()];
+            try {
+                this.udfHandle = MethodHandles.lookup().unreflect(udfMethod)
+                        .bindTo(UserDefinedFunctionHandler.this)
+                        .asSpreader(Object[].class, udfMethod.getParameterCount())
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            }
+            catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
         }
 
-        try {
-            return udfMethod.invoke(this, arguments);
-        }
-        catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
-        }
-        catch (InvocationTargetException e) {
-            if (Objects.isNull(e)) {
-                throw new RuntimeException(e);
+        Object invoke(int inputRowNum)
+        {
+            for (int col = 0; col < valueProjectors.size(); ++col) {
+                arguments[col] = valueProjectors.get(col).project(inputRowNum);
+            }
+            checkArgumentTypes();
+
+            try {
+                return (Object) udfHandle.invokeExact(arguments);
+            }
+            catch (Throwable t) {
+                throw new RuntimeException(t);
             }
-            throw new RuntimeException(e.getCause());
         }
-        catch (IllegalArgumentException e) {
-            String msg = String.format("%s. Expected function types %s, got types %s",
-                    e.getMessage(),
-                    Arrays.stream(udfMethod.getParameterTypes()).map(clazz -> clazz.getName()).collect(Collectors.toList()),
-                    Arrays.stream(arguments).map(arg -> arg.getClass().getName()).collect(Collectors.toList()));
-            throw new RuntimeException(msg, e);
+
+        /**
+         * Rejects the arguments the same way Method.invoke would, i.e. a value of the wrong type or a null for a
+         * primitive parameter.
+         */
+        private void checkArgumentTypes()
+        {
+            for (int col = 0; col < arguments.length; ++col) {
+                Object arg = arguments[col];
+                Class<?> type = parameterTypes[col];
+                boolean matches = (arg == null) ? !type.isPrimitive() : Primitives.wrap(type).isInstance(arg);
+                if (!matches) {
+                    String msg = String.format("argument type mismatch. Expected function types %s, got types %s",
+                            Arrays.stream(parameterTypes).map(clazz -> clazz.getName()).collect(Collectors.toList()),
+                            Arrays.stream(arguments).map(next -> next == null ? "null" : next.getClass().getName()).collect(Collectors.toList()));
+                    throw new RuntimeException(msg);
+                }
+            }
         }
     }
 }
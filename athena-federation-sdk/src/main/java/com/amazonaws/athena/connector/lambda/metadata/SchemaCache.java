@@ -0,0 +1,315 @@
+package com.amazonaws.athena.connector.lambda.metadata;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import com.amazonaws.services.s3.AmazonS3URI;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.apache.arrow.util.VisibleForTesting;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches schemas which a connector had to infer from its source (e.g. by sampling documents or reading an index
+ * mapping) so that GetTable calls for the same table don't repeat the inference round trip. Entries expire after a
+ * TTL and, where the source offers a cheap signal that the schema may have changed (e.g. a mapping version), are
+ * also invalidated when that version changes.
+ * <p>
+ * Entries can optionally be persisted to a local directory or an S3 prefix so that they survive a Lambda cold start
+ * or are shared by concurrent Lambda instances. Persisted entries are subject to the same TTL and version checks.
+ * Failures to read or write persisted entries are logged and otherwise ignored, the schema is simply inferred again.
+ *
+ * @note Schemas loaded from Glue should not be cached here, Glue is already the source of truth for those.
+ */
+public class SchemaCache
+{
+    private static final Logger logger = LoggerFactory.getLogger(SchemaCache.class);
+
+    //Config that controls how long (in seconds) inferred schemas are cached for, 0 disables caching.
+    public static final String SCHEMA_CACHE_TTL_SECONDS = "schema_cache_ttl_seconds";
+    //Config that controls the max number of schemas to keep in memory.
+    public static final String SCHEMA_CACHE_MAX_ENTRIES = "schema_cache_max_entries";
+    //Config that enables persisting cached schemas, either a local directory (e.g. /tmp/schemas) or s3://bucket/prefix.
+    public static final String SCHEMA_CACHE_LOCATION = "schema_cache_location";
+
+    private static final long DEFAULT_TTL_SECONDS = 300;
+    private static final long DEFAULT_MAX_ENTRIES = 1_000;
+    private static final String S3_SCHEME = "s3://";
+
+    private static final String VERSION_FIELD = "version";
+    private static final String CREATED_FIELD = "createdMillis";
+    private static final String SCHEMA_FIELD = "schema";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final long ttlMillis;
+    private final String location;
+    //Null when caching has been disabled.
+    private final Cache<String, CacheEntry> cache;
+    private AmazonS3 amazonS3;
+
+    /**
+     * Constructs a SchemaCache using the TTL, size limit, and persistence location found in the supplied config.
+     *
+     * @param configOptions The connector's config.
+     */
+    public SchemaCache(Map<String, String> configOptions)
+    {
+        this(getLong(configOptions, SCHEMA_CACHE_TTL_SECONDS, DEFAULT_TTL_SECONDS),
+                getLong(configOptions, SCHEMA_CACHE_MAX_ENTRIES, DEFAULT_MAX_ENTRIES),
+                configOptions.get(SCHEMA_CACHE_LOCATION),
+                null);
+    }
+
+    /**
+     * Constructs a SchemaCache.
+     *
+     * @param ttlSeconds How long a cached schema remains valid, 0 disables caching.
+     * @param maxEntries The max number of schemas to keep in memory.
+     * @param location Where to persist cached schemas, a local directory or s3://bucket/prefix. Null disables persistence.
+     * @param amazonS3 The S3 client to use for an S3 location, if null one will be created when first needed.
+     */
+    @VisibleForTesting
+    protected SchemaCache(long ttlSeconds, long maxEntries, String location, AmazonS3 amazonS3)
+    {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.location = (location == null || location.isEmpty()) ? null : location;
+        this.amazonS3 = amazonS3;
+        this.cache = (ttlSeconds <= 0) ? null : CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * Returns the cached schema for the table, or loads (and caches) the schema if there is no valid cached entry.
+     *
+     * @param catalogName The catalog the table belongs to, since a single connector may serve several catalogs.
+     * @param tableName The table whose schema to return.
+     * @param version A cheap signal of the table's current schema version, null if the source has none.
+     * @param loader Infers the schema from the source.
+     * @return The table's schema.
+     * @throws RuntimeException If the loader failed, checked exceptions are wrapped.
+     */
+    public Schema get(String catalogName, TableName tableName, String version, Callable<Schema> loader)
+    {
+        if (cache == null) {
+            return load(loader);
+        }
+
+        String key = catalogName + ":" + tableName.getSchemaName() + "." + tableName.getTableName();
+        CacheEntry entry = cache.getIfPresent(key);
+        if (entry != null && entry.isValid(version)) {
+            return entry.schema;
+        }
+
+        entry = readPersisted(key);
+        if (entry != null && entry.isValid(version)) {
+            logger.info("get: loaded persisted schema for {}", key);
+            cache.put(key, entry);
+            return entry.schema;
+        }
+
+        logger.info("get: inferring schema for {} at version {}", key, version);
+        entry = new CacheEntry(version, System.currentTimeMillis(), load(loader));
+        cache.put(key, entry);
+        writePersisted(key, entry);
+        return entry.schema;
+    }
+
+    /**
+     * Removes the cached (and persisted) schema for the table, if any.
+     *
+     * @param catalogName The catalog the table belongs to.
+     * @param tableName The table whose cached schema to remove.
+     */
+    public void invalidate(String catalogName, TableName tableName)
+    {
+        if (cache == null) {
+            return;
+        }
+        String key = catalogName + ":" + tableName.getSchemaName() + "." + tableName.getTableName();
+        cache.invalidate(key);
+        deletePersisted(key);
+    }
+
+    private Schema load(Callable<Schema> loader)
+    {
+        try {
+            return loader.call();
+        }
+        catch (RuntimeException ex) {
+            throw ex;
+        }
+        catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private CacheEntry readPersisted(String key)
+    {
+        if (location == null) {
+            return null;
+        }
+
+        try {
+            String json;
+            if (location.startsWith(S3_SCHEME)) {
+                AmazonS3URI uri = new AmazonS3URI(objectLocation(key));
+                json = getAmazonS3().getObjectAsString(uri.getBucket(), uri.getKey());
+            }
+            else {
+                Path path = Paths.get(objectLocation(key));
+                if (!Files.exists(path)) {
+                    return null;
+                }
+                json = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+            }
+
+            JsonNode node = objectMapper.readTree(json);
+            JsonNode version = node.get(VERSION_FIELD);
+            return new CacheEntry((version == null || version.isNull()) ? null : version.asText(),
+                    node.get(CREATED_FIELD).asLong(),
+                    Schema.fromJSON(node.get(SCHEMA_FIELD).asText()));
+        }
+        catch (AmazonS3Exception ex) {
+            if (ex.getStatusCode() != 404) {
+                logger.warn("readPersisted: unable to read persisted schema for {}", key, ex);
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            logger.warn("readPersisted: unable to read persisted schema for {}", key, ex);
+        }
+        return null;
+    }
+
+    private void writePersisted(String key, CacheEntry entry)
+    {
+        if (location == null) {
+            return;
+        }
+
+        try {
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put(VERSION_FIELD, entry.version);
+            node.put(CREATED_FIELD, entry.createdMillis);
+            node.put(SCHEMA_FIELD, entry.schema.toJson());
+            String json = objectMapper.writeValueAsString(node);
+
+            if (location.startsWith(S3_SCHEME)) {
+                AmazonS3URI uri = new AmazonS3URI(objectLocation(key));
+                getAmazonS3().putObject(uri.getBucket(), uri.getKey(), json);
+            }
+            else {
+                Path path = Paths.get(objectLocation(key));
+                Files.createDirectories(path.getParent());
+                //Write to a temp file first so that concurrent readers never see a partial entry.
+                Path tempPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+                Files.write(tempPath, json.getBytes(StandardCharsets.UTF_8));
+                Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            logger.warn("writePersisted: unable to persist schema for {}", key, ex);
+        }
+    }
+
+    private void deletePersisted(String key)
+    {
+        if (location == null) {
+            return;
+        }
+
+        try {
+            if (location.startsWith(S3_SCHEME)) {
+                AmazonS3URI uri = new AmazonS3URI(objectLocation(key));
+                getAmazonS3().deleteObject(uri.getBucket(), uri.getKey());
+            }
+            else {
+                Files.deleteIfExists(Paths.get(objectLocation(key)));
+            }
+        }
+        catch (IOException | RuntimeException ex) {
+            logger.warn("deletePersisted: unable to delete persisted schema for {}", key, ex);
+        }
+    }
+
+    /**
+     * Table names may contain characters which aren't valid in file names so we persist each entry under a hash of its key.
+     */
+    private String objectLocation(String key)
+    {
+        String name = Hashing.sha256().hashString(key, StandardCharsets.UTF_8).toString() + ".json";
+        return location.endsWith("/") ? location + name : location + "/" + name;
+    }
+
+    private synchronized AmazonS3 getAmazonS3()
+    {
+        if (amazonS3 == null) {
+            amazonS3 = AmazonS3ClientBuilder.defaultClient();
+        }
+        return amazonS3;
+    }
+
+    private static long getLong(Map<String, String> configOptions, String key, long defaultValue)
+    {
+        String value = configOptions.get(key);
+        return (value != null) ? Long.parseLong(value) : defaultValue;
+    }
+
+    private class CacheEntry
+    {
+        private final String version;
+        private final long createdMillis;
+        private final Schema schema;
+
+        CacheEntry(String version, long createdMillis, Schema schema)
+        {
+            this.version = version;
+            this.createdMillis = createdMillis;
+            this.schema = schema;
+        }
+
+        boolean isValid(String currentVersion)
+        {
+            return System.currentTimeMillis() - createdMillis < ttlMillis && Objects.equals(version, currentVersion);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.amazonaws.athena.connector.lambda.metadata;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
+import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
+import org.apache.arrow.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Builds the splits of a GetSplitsRequest a page at a time. Each split needs a unique spill location and encryption
+ * key, and generating the key can require a round trip to KMS, so these are generated in parallel batches ahead of
+ * the (single threaded) code that fills in each split's properties.
+ * <p>
+ * A page ends once it holds the max number of splits or its estimated serialized size reaches a limit chosen to
+ * stay well under the Lambda response payload limit. The response then carries a continuation token (the index of
+ * the next split) so that the engine can start scheduling the splits it already has while the next page is built.
+ */
+public class SplitFactory
+{
+    private static final Logger logger = LoggerFactory.getLogger(SplitFactory.class);
+
+    //Config that controls how many spill locations and encryption keys are generated concurrently.
+    public static final String SPLIT_FACTORY_PARALLELISM = "split_factory_parallelism";
+    //Config that controls the max estimated size (in bytes) of the splits in a single GetSplitsResponse.
+    public static final String SPLIT_FACTORY_MAX_RESPONSE_BYTES = "split_factory_max_response_bytes";
+
+    private static final int DEFAULT_PARALLELISM = 8;
+    //Lambda responses are limited to 6MB, this leaves room for the rest of the response and estimation error.
+    private static final long DEFAULT_MAX_RESPONSE_BYTES = 4 * 1024 * 1024;
+    //The max number of spill locations and keys generated ahead of the splits that will use them.
+    private static final int BATCH_SIZE = 64;
+    //Approximate JSON overhead of a serialized split beyond its strings and key material.
+    private static final int SPLIT_OVERHEAD_BYTES = 256;
+    private static final int PROPERTY_OVERHEAD_BYTES = 8;
+
+    /**
+     * Fills in the properties of a single split, always called on the thread which called makeSplits(...).
+     */
+    public interface SplitCustomizer
+    {
+        /**
+         * @param index The index of the split, e.g. the row of the partitions Block the split reads.
+         * @param builder The builder for the split, with its spill location and encryption key already set.
+         */
+        void customize(int index, Split.Builder builder);
+    }
+
+    private final Function<MetadataRequest, SpillLocation> spillLocations;
+    private final Supplier<EncryptionKey> encryptionKeys;
+    private final int parallelism;
+    private final long maxResponseBytes;
+    private ExecutorService executor;
+
+    /**
+     * Constructs a SplitFactory using the parallelism and response size limit found in the supplied config.
+     *
+     * @param spillLocations Makes a unique spill location for a split of the request.
+     * @param encryptionKeys Makes an encryption key for a split, may return null if spill encryption is disabled.
+     * @param configOptions The connector's config.
+     */
+    public SplitFactory(Function<MetadataRequest, SpillLocation> spillLocations,
+            Supplier<EncryptionKey> encryptionKeys,
+            Map<String, String> configOptions)
+    {
+        this(spillLocations, encryptionKeys,
+                Integer.parseInt(configOptions.getOrDefault(SPLIT_FACTORY_PARALLELISM, String.valueOf(DEFAULT_PARALLELISM))),
+                Long.parseLong(configOptions.getOrDefault(SPLIT_FACTORY_MAX_RESPONSE_BYTES, String.valueOf(DEFAULT_MAX_RESPONSE_BYTES))));
+    }
+
+    @VisibleForTesting
+    public SplitFactory(Function<MetadataRequest, SpillLocation> spillLocations,
+            Supplier<EncryptionKey> encryptionKeys,
+            int parallelism,
+            long maxResponseBytes)
+    {
+        this.spillLocations = spillLocations;
+        this.encryptionKeys = encryptionKeys;
+        this.parallelism = parallelism;
+        this.maxResponseBytes = maxResponseBytes;
+    }
+
+    /**
+     * Makes the next page of splits for the request, one split per index from start up to (but excluding) end.
+     *
+     * @param request The request to make splits for.
+     * @param start The index of the first split on the page, usually decoded from the request's continuation token.
+     * @param end The index after the last split of the request, e.g. the row count of the partitions Block.
+     * @param maxSplits The max number of splits on the page.
+     * @param customizer Fills in the properties of each split.
+     * @return A page of splits with a continuation token if there are more splits to make.
+     */
+    public GetSplitsResponse makeSplits(GetSplitsRequest request, int start, int end, int maxSplits, SplitCustomizer customizer)
+    {
+        Set<Split> splits = new HashSet<>();
+        long responseBytes = 0;
+        int next = start;
+        while (next < end) {
+            int remaining = Math.min(Math.min(end - next, maxSplits - splits.size()), fitsInPage(splits.size(), responseBytes));
+            int batchSize = Math.min(remaining, BATCH_SIZE);
+            for (Split.Builder builder : prepare(request, batchSize)) {
+                customizer.customize(next, builder);
+                Split split = builder.build();
+                splits.add(split);
+                responseBytes += estimateSize(split);
+                next++;
+
+                if (next < end && (splits.size() >= maxSplits || responseBytes >= maxResponseBytes)) {
+                    logger.info("makeSplits: {} splits ({} bytes) in page, continuing from {} of {}",
+                            splits.size(), responseBytes, next, end);
+                    return new GetSplitsResponse(request.getCatalogName(), splits, String.valueOf(next));
+                }
+            }
+        }
+        return new GetSplitsResponse(request.getCatalogName(), splits, null);
+    }
+
+    /**
+     * Estimates how many more splits fit in the page before it reaches maxResponseBytes, so that keys aren't prepared
+     * (each potentially a KMS call) for splits that would only be discarded when the page ends. Until the first split
+     * has been sized this is one split per thread.
+     */
+    private int fitsInPage(int pageSplits, long pageBytes)
+    {
+        if (pageSplits == 0) {
+            return Math.max(1, parallelism);
+        }
+        long avgSplitBytes = Math.max(1, pageBytes / pageSplits);
+        long fits = (maxResponseBytes - pageBytes + avgSplitBytes - 1) / avgSplitBytes;
+        return (int) Math.max(1, Math.min(fits, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Decodes the continuation token of a response made by makeSplits(...).
+     *
+     * @param request The request whose continuation token to decode.
+     * @return The index of the next split to make, 0 if the request has no continuation token.
+     */
+    public static int decodeContinuationToken(GetSplitsRequest request)
+    {
+        return request.hasContinuationToken() ? Integer.parseInt(request.getContinuationToken()) : 0;
+    }
+
+    /**
+     * Makes split builders with unique spill locations and encryption keys, in parallel if there is more than one.
+     */
+    private List<Split.Builder> prepare(MetadataRequest request, int count)
+    {
+        List<Split.Builder> builders = new ArrayList<>(count);
+        if (count <= 1 || parallelism <= 1) {
+            for (int i = 0; i < count; i++) {
+                builders.add(Split.newBuilder(spillLocations.apply(request), encryptionKeys.get()));
+            }
+            return builders;
+        }
+
+        List<Future<Split.Builder>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(getExecutor().submit(() -> Split.newBuilder(spillLocations.apply(request), encryptionKeys.get())));
+        }
+        try {
+            for (Future<Split.Builder> next : futures) {
+                builders.add(next.get());
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        }
+        catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new RuntimeException(ex.getCause());
+        }
+        finally {
+            futures.forEach(next -> next.cancel(true));
+        }
+        return builders;
+    }
+
+    private synchronized ExecutorService getExecutor()
+    {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "SplitFactory");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    private static long estimateSize(Split split)
+    {
+        long size = SPLIT_OVERHEAD_BYTES;
+        if (split.getSpillLocation() instanceof S3SpillLocation) {
+            S3SpillLocation location = (S3SpillLocation) split.getSpillLocation();
+            size += length(location.getBucket()) + length(location.getKey());
+        }
+        if (split.getEncryptionKey() != null) {
+            //Key material is base64 encoded.
+            size += (split.getEncryptionKey().getKey().length + split.getEncryptionKey().getNonce().length) * 4 / 3 + 8;
+        }
+        for (Map.Entry<String, String> next : split.getProperties().entrySet()) {
+            size += length(next.getKey()) + length(next.getValue()) + PROPERTY_OVERHEAD_BYTES;
+        }
+        return size;
+    }
+
+    private static int length(String value)
+    {
+        return (value != null) ? value.length() : 0;
+    }
+}
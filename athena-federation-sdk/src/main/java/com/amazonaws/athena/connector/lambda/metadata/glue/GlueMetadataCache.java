@@ -0,0 +1,251 @@
+package com.amazonaws.athena.connector.lambda.metadata.glue;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
+import com.amazonaws.services.glue.model.Database;
+import com.amazonaws.services.glue.model.GetTablesResult;
+import com.amazonaws.services.glue.model.Table;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.arrow.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the responses of AWS Glue DataCatalog calls made by GlueMetadataHandler, along with the Arrow Schema that
+ * GlueMetadataHandler converts each Glue Table to, so that bursts of queries against the same tables (e.g. from BI
+ * tools) don't repeat identical Glue calls and conversions. Concurrent requests for the same missing entry share a
+ * single Glue call.
+ * <p>
+ * Raw Glue responses are cached for a TTL. When UpdateTime validation is enabled Glue tables are instead always read
+ * from Glue, so changes are seen immediately, and only the conversion is skipped while the table's UpdateTime and
+ * VersionId are unchanged.
+ */
+public class GlueMetadataCache
+{
+    private static final Logger logger = LoggerFactory.getLogger(GlueMetadataCache.class);
+
+    //Config that controls how long (in seconds) Glue metadata is cached for, 0 disables caching.
+    public static final String GLUE_CACHE_TTL_SECONDS = "glue_cache_ttl_seconds";
+    //Config that controls the max number of entries in each of the caches.
+    public static final String GLUE_CACHE_MAX_ENTRIES = "glue_cache_max_entries";
+    //Config that makes GetTable always call Glue and only reuse a converted schema if the table's UpdateTime is unchanged.
+    public static final String GLUE_CACHE_VALIDATE_UPDATE_TIME = "glue_cache_validate_update_time";
+
+    private static final long DEFAULT_TTL_SECONDS = 60;
+    private static final long DEFAULT_MAX_ENTRIES = 1_000;
+
+    private final boolean enabled;
+    private final Cache<String, List<Database>> databases;
+    private final Cache<String, GetTablesResult> tablePages;
+    //Null when UpdateTime validation is enabled, since tables are then always read from Glue.
+    private final Cache<String, Table> tables;
+    private final Cache<String, ConvertedTable> convertedTables;
+
+    /**
+     * Constructs a GlueMetadataCache using the TTL, size limit, and validation mode found in the supplied config.
+     *
+     * @param configOptions The connector's config.
+     */
+    public GlueMetadataCache(Map<String, String> configOptions)
+    {
+        this(getLong(configOptions, GLUE_CACHE_TTL_SECONDS, DEFAULT_TTL_SECONDS),
+                getLong(configOptions, GLUE_CACHE_MAX_ENTRIES, DEFAULT_MAX_ENTRIES),
+                Boolean.parseBoolean(configOptions.getOrDefault(GLUE_CACHE_VALIDATE_UPDATE_TIME, "false")));
+    }
+
+    /**
+     * Constructs a GlueMetadataCache.
+     *
+     * @param ttlSeconds How long cached metadata remains valid, 0 disables caching.
+     * @param maxEntries The max number of entries in each of the caches.
+     * @param validateUpdateTime True if tables should always be read from Glue and only their conversion cached.
+     */
+    @VisibleForTesting
+    public GlueMetadataCache(long ttlSeconds, long maxEntries, boolean validateUpdateTime)
+    {
+        this.enabled = ttlSeconds > 0;
+        this.databases = newCache(ttlSeconds, maxEntries);
+        this.tablePages = newCache(ttlSeconds, maxEntries);
+        this.tables = validateUpdateTime ? null : newCache(ttlSeconds, maxEntries);
+        this.convertedTables = newCache(ttlSeconds, maxEntries);
+    }
+
+    /**
+     * @param catalogId The Glue catalog.
+     * @param loader Reads every database in the catalog from Glue.
+     * @return The (unfiltered) databases in the catalog.
+     */
+    public List<Database> getDatabases(String catalogId, Callable<List<Database>> loader)
+            throws Exception
+    {
+        return get(databases, String.valueOf(catalogId), loader);
+    }
+
+    /**
+     * @param catalogId The Glue catalog.
+     * @param databaseName The database whose tables to list.
+     * @param nextToken The Glue pagination token, null for the first page.
+     * @param maxResults The max number of tables on the page, null if unbounded.
+     * @param loader Reads the page from Glue.
+     * @return The (unfiltered) page of tables.
+     */
+    public GetTablesResult getTables(String catalogId, String databaseName, String nextToken, Integer maxResults,
+            Callable<GetTablesResult> loader)
+            throws Exception
+    {
+        return get(tablePages, catalogId + ":" + databaseName + ":" + nextToken + ":" + maxResults, loader);
+    }
+
+    /**
+     * @param catalogId The Glue catalog.
+     * @param databaseName The database the table belongs to.
+     * @param tableName The table to read.
+     * @param loader Reads the table from Glue.
+     * @return The Glue table.
+     */
+    public Table getTable(String catalogId, String databaseName, String tableName, Callable<Table> loader)
+            throws Exception
+    {
+        return get(tables, tableKey(catalogId, databaseName, tableName), loader);
+    }
+
+    /**
+     * Returns the result of converting the Glue table, converting it again if the table has changed since it was
+     * last converted.
+     *
+     * @param catalogId The Glue catalog.
+     * @param databaseName The database the table belongs to.
+     * @param tableName The name of the table.
+     * @param table The Glue table, as returned by getTable(...).
+     * @param converter Converts the Glue table, typically to its Arrow Schema and partition columns.
+     * @return The converted table.
+     */
+    public GetTableResponse getConvertedTable(String catalogId, String databaseName, String tableName, Table table,
+            Callable<GetTableResponse> converter)
+            throws Exception
+    {
+        if (!enabled) {
+            return converter.call();
+        }
+
+        String key = tableKey(catalogId, databaseName, tableName);
+        ConvertedTable converted = convertedTables.getIfPresent(key);
+        if (converted != null && converted.isVersion(table)) {
+            return converted.response;
+        }
+
+        logger.debug("getConvertedTable: converting {} updated at {}", key, table.getUpdateTime());
+        converted = new ConvertedTable(table, converter.call());
+        convertedTables.put(key, converted);
+        return converted.response;
+    }
+
+    /**
+     * Removes every cached entry, e.g. after the connector has modified the catalog.
+     */
+    public void invalidateAll()
+    {
+        if (enabled) {
+            databases.invalidateAll();
+            tablePages.invalidateAll();
+            if (tables != null) {
+                tables.invalidateAll();
+            }
+            convertedTables.invalidateAll();
+        }
+    }
+
+    /**
+     * Gets the cached value or loads it, unwrapping load failures so callers see the same exceptions that an
+     * uncached Glue call would have thrown (e.g. EntityNotFoundException).
+     */
+    private <V> V get(Cache<String, V> cache, String key, Callable<V> loader)
+            throws Exception
+    {
+        if (!enabled || cache == null) {
+            return loader.call();
+        }
+
+        try {
+            return cache.get(key, loader);
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static String tableKey(String catalogId, String databaseName, String tableName)
+    {
+        return catalogId + ":" + databaseName + "." + tableName;
+    }
+
+    private static <V> Cache<String, V> newCache(long ttlSeconds, long maxEntries)
+    {
+        return (ttlSeconds <= 0) ? null : CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    private static long getLong(Map<String, String> configOptions, String key, long defaultValue)
+    {
+        String value = configOptions.get(key);
+        return (value != null) ? Long.parseLong(value) : defaultValue;
+    }
+
+    private static class ConvertedTable
+    {
+        private final Date updateTime;
+        private final String versionId;
+        private final GetTableResponse response;
+
+        ConvertedTable(Table table, GetTableResponse response)
+        {
+            this.updateTime = table.getUpdateTime();
+            this.versionId = table.getVersionId();
+            this.response = response;
+        }
+
+        boolean isVersion(Table table)
+        {
+            return Objects.equals(updateTime, table.getUpdateTime()) && Objects.equals(versionId, table.getVersionId());
+        }
+    }
+}
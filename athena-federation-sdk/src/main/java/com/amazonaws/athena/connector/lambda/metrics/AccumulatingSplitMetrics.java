@@ -0,0 +1,84 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of SplitMetrics which keeps a running total of every metric in memory and hands itself to a
+ * callback, exactly once, when closed. MetricsPublishers can use it so that they only need to implement publishing.
+ */
+public class AccumulatingSplitMetrics
+        implements SplitMetrics
+{
+    private static final SplitMetric[] METRICS = SplitMetric.values();
+
+    private final AtomicLongArray values = new AtomicLongArray(METRICS.length);
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+    private final Consumer<AccumulatingSplitMetrics> onClose;
+
+    /**
+     * @param onClose Called with these metrics when they are closed, typically to publish them.
+     */
+    public AccumulatingSplitMetrics(Consumer<AccumulatingSplitMetrics> onClose)
+    {
+        this.onClose = requireNonNull(onClose, "onClose was null");
+    }
+
+    @Override
+    public boolean isEnabled()
+    {
+        return true;
+    }
+
+    @Override
+    public void add(SplitMetric metric, long value)
+    {
+        if (!closed.get()) {
+            values.addAndGet(metric.ordinal(), value);
+        }
+    }
+
+    @Override
+    public void max(SplitMetric metric, long value)
+    {
+        if (!closed.get()) {
+            values.accumulateAndGet(metric.ordinal(), value, Math::max);
+        }
+    }
+
+    @Override
+    public long get(SplitMetric metric)
+    {
+        return values.get(metric.ordinal());
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed.compareAndSet(false, true)) {
+            onClose.accept(this);
+        }
+    }
+}
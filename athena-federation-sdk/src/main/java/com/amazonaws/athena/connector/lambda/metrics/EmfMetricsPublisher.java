@@ -0,0 +1,124 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.metrics;
+
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.apache.arrow.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.util.Map;
+
+/**
+ * Implementation of MetricsPublisher which prints one CloudWatch Embedded Metric Format (EMF) record per Split to
+ * stdout. In Lambda, stdout goes to CloudWatch Logs, which extracts the metrics from the records automatically,
+ * elsewhere you can scrape them from the process output. Metrics are published with the Catalog and Table as
+ * dimensions, the query id and the Split's properties are included in the record to help find slow Splits.
+ */
+public class EmfMetricsPublisher
+        implements MetricsPublisher
+{
+    private static final Logger logger = LoggerFactory.getLogger(EmfMetricsPublisher.class);
+
+    //Config that sets the CloudWatch namespace metrics are published in.
+    public static final String METRICS_NAMESPACE = "metrics_namespace";
+    public static final String DEFAULT_NAMESPACE = "AthenaFederation";
+
+    private static final String CATALOG = "Catalog";
+    private static final String TABLE = "Table";
+    private static final double NANOS_PER_MILLI = 1_000_000D;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String namespace;
+    private final PrintStream out;
+
+    public EmfMetricsPublisher(Map<String, String> configOptions)
+    {
+        this(configOptions, System.out);
+    }
+
+    @VisibleForTesting
+    EmfMetricsPublisher(Map<String, String> configOptions, PrintStream out)
+    {
+        this.namespace = configOptions.getOrDefault(METRICS_NAMESPACE, DEFAULT_NAMESPACE);
+        this.out = out;
+    }
+
+    @Override
+    public SplitMetrics newSplitMetrics(ReadRecordsRequest request)
+    {
+        return new AccumulatingSplitMetrics(metrics -> publish(request, metrics));
+    }
+
+    private void publish(ReadRecordsRequest request, AccumulatingSplitMetrics metrics)
+    {
+        try {
+            out.println(mapper.writeValueAsString(toRecord(request, metrics)));
+        }
+        catch (JsonProcessingException | RuntimeException ex) {
+            //Failing to publish metrics must not fail the query.
+            logger.warn("publish: Unable to publish split metrics.", ex);
+        }
+    }
+
+    @VisibleForTesting
+    ObjectNode toRecord(ReadRecordsRequest request, SplitMetrics metrics)
+    {
+        ObjectNode record = mapper.createObjectNode();
+
+        ObjectNode directive = mapper.createObjectNode();
+        directive.put("Namespace", namespace);
+        directive.putArray("Dimensions").addArray().add(CATALOG).add(TABLE);
+        ArrayNode metricDefinitions = directive.putArray("Metrics");
+        for (SplitMetric next : SplitMetric.values()) {
+            metricDefinitions.addObject()
+                    .put("Name", next.getMetricName())
+                    .put("Unit", next.getKind().getUnit());
+        }
+
+        ObjectNode aws = record.putObject("_aws");
+        aws.put("Timestamp", System.currentTimeMillis());
+        aws.putArray("CloudWatchMetrics").add(directive);
+
+        record.put(CATALOG, request.getCatalogName());
+        record.put(TABLE, request.getTableName().getQualifiedTableName());
+        record.put("QueryId", request.getQueryId());
+        ObjectNode splitProperties = record.putObject("SplitProperties");
+        for (Map.Entry<String, String> next : request.getSplit().getProperties().entrySet()) {
+            splitProperties.put(next.getKey(), next.getValue());
+        }
+
+        for (SplitMetric next : SplitMetric.values()) {
+            long value = metrics.get(next);
+            if (next.getKind() == SplitMetric.Kind.TIME) {
+                record.put(next.getMetricName(), value / NANOS_PER_MILLI);
+            }
+            else {
+                record.put(next.getMetricName(), value);
+            }
+        }
+        return record;
+    }
+}
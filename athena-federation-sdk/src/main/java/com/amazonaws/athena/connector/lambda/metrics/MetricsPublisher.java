@@ -0,0 +1,75 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.metrics;
+
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+
+import java.util.Map;
+
+/**
+ * Service provider interface for publishing the metrics that RecordHandler collects for each Split. The publisher is
+ * chosen by the metrics_publisher config option:
+ * <p>
+ * 1. none (the default) - NoOpMetricsPublisher, nothing is measured.
+ * 2. emf - EmfMetricsPublisher, which prints CloudWatch Embedded Metric Format records to stdout.
+ * 3. The fully qualified name of your own MetricsPublisher, which must have a public constructor that takes the
+ * config options as a Map of String to String.
+ */
+public interface MetricsPublisher
+{
+    //Config that selects the MetricsPublisher, see above.
+    String METRICS_PUBLISHER = "metrics_publisher";
+
+    /**
+     * Creates the SplitMetrics for a ReadRecords request. The SDK closes them, which should publish them, once the
+     * response is ready.
+     *
+     * @param request The request whose Split is being read.
+     * @return The SplitMetrics to record the Split's metrics with.
+     */
+    SplitMetrics newSplitMetrics(ReadRecordsRequest request);
+
+    /**
+     * Creates the MetricsPublisher selected by the metrics_publisher config option.
+     *
+     * @param configOptions The connector's config options.
+     * @return The configured MetricsPublisher, a NoOpMetricsPublisher if none is configured.
+     */
+    static MetricsPublisher fromConfig(Map<String, String> configOptions)
+    {
+        String publisher = configOptions.get(METRICS_PUBLISHER);
+        if (publisher == null || publisher.trim().isEmpty() || publisher.trim().equalsIgnoreCase("none")) {
+            return NoOpMetricsPublisher.INSTANCE;
+        }
+        if (publisher.trim().equalsIgnoreCase("emf")) {
+            return new EmfMetricsPublisher(configOptions);
+        }
+
+        try {
+            return Class.forName(publisher.trim())
+                    .asSubclass(MetricsPublisher.class)
+                    .getConstructor(Map.class)
+                    .newInstance(configOptions);
+        }
+        catch (ReflectiveOperationException | ClassCastException ex) {
+            throw new IllegalArgumentException("Unable to create the MetricsPublisher " + publisher, ex);
+        }
+    }
+}
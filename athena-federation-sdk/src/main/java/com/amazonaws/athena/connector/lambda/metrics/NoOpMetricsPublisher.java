@@ -0,0 +1,39 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.metrics;
+
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+
+/**
+ * Implementation of MetricsPublisher which disables metrics, every Split gets the shared NoOpSplitMetrics.
+ */
+public final class NoOpMetricsPublisher
+        implements MetricsPublisher
+{
+    public static final NoOpMetricsPublisher INSTANCE = new NoOpMetricsPublisher();
+
+    private NoOpMetricsPublisher() {}
+
+    @Override
+    public SplitMetrics newSplitMetrics(ReadRecordsRequest request)
+    {
+        return NoOpSplitMetrics.INSTANCE;
+    }
+}
@@ -0,0 +1,62 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.metrics;
+
+/**
+ * Implementation of SplitMetrics which discards everything. This is the default, callers that check isEnabled()
+ * before reading the clock pay nothing for it.
+ */
+public final class NoOpSplitMetrics
+        implements SplitMetrics
+{
+    public static final NoOpSplitMetrics INSTANCE = new NoOpSplitMetrics();
+
+    private NoOpSplitMetrics() {}
+
+    @Override
+    public boolean isEnabled()
+    {
+        return false;
+    }
+
+    @Override
+    public void add(SplitMetric metric, long value)
+    {
+        //NoOp
+    }
+
+    @Override
+    public void max(SplitMetric metric, long value)
+    {
+        //NoOp
+    }
+
+    @Override
+    public long get(SplitMetric metric)
+    {
+        return 0;
+    }
+
+    @Override
+    public void close()
+    {
+        //NoOp
+    }
+}
@@ -0,0 +1,98 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.metrics;
+
+/**
+ * The metrics the SDK records while reading a Split. Times are recorded in nanoseconds and published in
+ * milliseconds, all other metrics are published as recorded.
+ */
+public enum SplitMetric
+{
+    //Wall clock time of the whole ReadRecords request, from creating the BlockSpiller until the response is ready.
+    SPLIT_TIME("SplitTime", Kind.TIME),
+    //Time readWithConstraint(...) spent outside of BlockSpiller.writeRows(...), which is typically spent reading from the source.
+    SOURCE_FETCH_TIME("SourceFetchTime", Kind.TIME),
+    //Time callers spent in BlockSpiller.writeRows(...), including row conversion and waiting for a spill to be accepted.
+    SPILLER_TIME("SpillerTime", Kind.TIME),
+    //Time spent by RowWriters converting source rows into Blocks, including constraint evaluation.
+    ROW_CONVERSION_TIME("RowConversionTime", Kind.TIME),
+    //Time spent applying the query's constraints to values.
+    CONSTRAINT_EVALUATION_TIME("ConstraintEvaluationTime", Kind.TIME),
+    //Time spent serializing Blocks before they are spilled.
+    SERIALIZATION_TIME("SerializationTime", Kind.TIME),
+    //Time spent encrypting serialized Blocks before they are spilled.
+    ENCRYPTION_TIME("EncryptionTime", Kind.TIME),
+    //Time spent writing spilled Blocks to S3.
+    S3_PUT_TIME("S3PutTime", Kind.TIME),
+    //The number of rows written.
+    ROWS_WRITTEN("RowsWritten", Kind.COUNT),
+    //The number of bytes returned, spilled or inline.
+    BYTES_WRITTEN("BytesWritten", Kind.BYTES),
+    //The number of Blocks spilled to S3.
+    BLOCKS_SPILLED("BlocksSpilled", Kind.COUNT),
+    //The number of throttling events seen by ThrottlingInvokers that were given the Split's BlockSpiller.
+    THROTTLE_EVENTS("ThrottleEvents", Kind.COUNT),
+    //The most memory the Split's BlockAllocator had allocated at once.
+    ALLOCATOR_PEAK_BYTES("AllocatorPeakBytes", Kind.BYTES);
+
+    public enum Kind
+    {
+        TIME("Milliseconds"),
+        COUNT("Count"),
+        BYTES("Bytes");
+
+        private final String unit;
+
+        Kind(String unit)
+        {
+            this.unit = unit;
+        }
+
+        /**
+         * @return The CloudWatch unit metrics of this kind are published in.
+         */
+        public String getUnit()
+        {
+            return unit;
+        }
+    }
+
+    private final String metricName;
+    private final Kind kind;
+
+    SplitMetric(String metricName, Kind kind)
+    {
+        this.metricName = metricName;
+        this.kind = kind;
+    }
+
+    /**
+     * @return The name the metric is published under.
+     */
+    public String getMetricName()
+    {
+        return metricName;
+    }
+
+    public Kind getKind()
+    {
+        return kind;
+    }
+}
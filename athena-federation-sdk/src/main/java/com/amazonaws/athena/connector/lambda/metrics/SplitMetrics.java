@@ -0,0 +1,72 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.metrics;
+
+/**
+ * Collects the metrics of a single Split and publishes them when closed. Implementations must be thread safe
+ * because Blocks are spilled from background threads.
+ * <p>
+ * Measuring time is not free, so callers should only read the clock when isEnabled() returns true, e.g.
+ * <pre>
+ * long start = metrics.isEnabled() ? System.nanoTime() : 0;
+ * ...
+ * if (metrics.isEnabled()) {
+ *     metrics.add(SplitMetric.SOURCE_FETCH_TIME, System.nanoTime() - start);
+ * }
+ * </pre>
+ *
+ * @see MetricsPublisher
+ */
+public interface SplitMetrics
+        extends AutoCloseable
+{
+    /**
+     * @return True if recorded metrics are published, False if they are discarded.
+     */
+    boolean isEnabled();
+
+    /**
+     * Adds the value to the metric, nanoseconds for TIME metrics.
+     *
+     * @param metric The metric to add to.
+     * @param value The amount to add.
+     */
+    void add(SplitMetric metric, long value);
+
+    /**
+     * Raises the metric to the value if it is larger than the metric's current value.
+     *
+     * @param metric The metric to raise.
+     * @param value The candidate maximum.
+     */
+    void max(SplitMetric metric, long value);
+
+    /**
+     * @param metric The metric to read.
+     * @return The metric's current value, 0 if nothing was recorded or metrics are disabled.
+     */
+    long get(SplitMetric metric);
+
+    /**
+     * Publishes the metrics, later calls to add(...) or max(...) are ignored.
+     */
+    @Override
+    void close();
+}
@@ -23,118 +23,103 @@ package com.amazonaws.athena.connector.lambda.security;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.RecordBatchSerDe;
+import com.amazonaws.athena.connector.lambda.metrics.NoOpSplitMetrics;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetric;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetrics;
 import org.apache.arrow.vector.types.pojo.Schema;
-import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import javax.crypto.BadPaddingException;
-import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
-import javax.crypto.spec.GCMParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
-import java.security.NoSuchProviderException;
-import java.security.Security;
 
 /**
  * Implementation of BlockCrypto which uses AES-GCM for encrypting and decrypting blocks.
  *
  * @see BlockCrypto
+ * @see AesGcmCipherEngine
  */
 public class AesGcmBlockCrypto
         implements BlockCrypto
 {
-    private static final Logger logger = LoggerFactory.getLogger(AesGcmBlockCrypto.class);
     protected static final int GCM_TAG_LENGTH_BITS = 16 * 8;
     protected static final int NONCE_BYTES = 12;
     protected static final int KEY_BYTES = 32;
     protected static final String KEYSPEC = "AES";
     protected static final String ALGO = "AES/GCM/NoPadding";
-    protected static final String ALGO_BC = "BC";
+    protected static final String ALGO_BC = AesGcmCipherEngine.BOUNCY_CASTLE;
 
     private final RecordBatchSerDe serDe;
     private final BlockAllocator allocator;
+    private final AesGcmCipherEngine engine;
 
-    static {
-        Security.addProvider(new BouncyCastleProvider());
+    public AesGcmBlockCrypto(BlockAllocator allocator)
+    {
+        this(allocator, AesGcmCipherEngine.getDefault());
     }
 
-    public AesGcmBlockCrypto(BlockAllocator allocator)
+    public AesGcmBlockCrypto(BlockAllocator allocator, AesGcmCipherEngine engine)
     {
         this.serDe = new RecordBatchSerDe(allocator);
         this.allocator = allocator;
+        this.engine = engine;
     }
 
+    @Override
     public byte[] encrypt(EncryptionKey key, Block block)
+    {
+        return encrypt(key, block, NoOpSplitMetrics.INSTANCE);
+    }
+
+    @Override
+    public byte[] encrypt(EncryptionKey key, Block block, SplitMetrics metrics)
     {
         try {
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long start = metrics.isEnabled() ? System.nanoTime() : 0;
+            ExposedByteArrayOutputStream out = new ExposedByteArrayOutputStream();
             serDe.serialize(block.getRecordBatch(), out);
-
-            Cipher cipher = makeCipher(Cipher.ENCRYPT_MODE, key);
-            return cipher.doFinal(out.toByteArray());
+            long serialized = metrics.isEnabled() ? System.nanoTime() : 0;
+            byte[] bytes = engine.encrypt(key, out.getBuffer(), 0, out.size());
+            if (metrics.isEnabled()) {
+                metrics.add(SplitMetric.SERIALIZATION_TIME, serialized - start);
+                metrics.add(SplitMetric.ENCRYPTION_TIME, System.nanoTime() - serialized);
+            }
+            return bytes;
         }
-        catch (BadPaddingException | IllegalBlockSizeException | IOException ex) {
+        catch (IOException ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    @Override
     public Block decrypt(EncryptionKey key, byte[] bytes, Schema schema)
     {
         try {
-            Cipher cipher = makeCipher(Cipher.DECRYPT_MODE, key);
-            byte[] clear = cipher.doFinal(bytes);
+            byte[] clear = engine.decrypt(key, bytes);
 
             Block resultBlock = allocator.createBlock(schema);
             resultBlock.loadRecordBatch(serDe.deserialize(clear));
 
             return resultBlock;
         }
-        catch (BadPaddingException | IllegalBlockSizeException | IOException ex) {
+        catch (IOException ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    @Override
     public byte[] decrypt(EncryptionKey key, byte[] bytes)
     {
-        try {
-            Cipher cipher = makeCipher(Cipher.DECRYPT_MODE, key);
-            return cipher.doFinal(bytes);
-        }
-        catch (BadPaddingException | IllegalBlockSizeException ex) {
-            throw new RuntimeException(ex);
-        }
+        return engine.decrypt(key, bytes);
     }
 
-    private Cipher makeCipher(int mode, EncryptionKey key)
+    /**
+     * Lets us encrypt the serialized batch in place rather than copying it with toByteArray().
+     */
+    private static class ExposedByteArrayOutputStream
+            extends ByteArrayOutputStream
     {
-        if (key.getNonce().length != NONCE_BYTES) {
-            throw new RuntimeException("Expected " + NONCE_BYTES + " nonce bytes but found " + key.getNonce().length);
-        }
-
-        logger.debug("Cipher key bytes length: " + key.getKey().length);
-        if (key.getKey() == null || key.getKey().length == 0) {
-            throw new RuntimeException("Invalid key");
-        }
-
-        GCMParameterSpec spec = new GCMParameterSpec(GCM_TAG_LENGTH_BITS, key.getNonce());
-        SecretKeySpec secretKeySpec = new SecretKeySpec(key.getKey(), KEYSPEC);
-
-        try {
-            Cipher cipher = Cipher.getInstance(ALGO, ALGO_BC);
-            cipher.init(mode, secretKeySpec, spec);
-            return cipher;
-        }
-        catch (NoSuchAlgorithmException | InvalidKeyException | InvalidAlgorithmParameterException
-                | NoSuchProviderException | NoSuchPaddingException ex) {
-            throw new RuntimeException(ex);
+        byte[] getBuffer()
+        {
+            return buf;
         }
     }
 }
@@ -0,0 +1,155 @@
+package com.amazonaws.athena.connector.lambda.security;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.BadPaddingException;
+import javax.crypto.Cipher;
+import javax.crypto.IllegalBlockSizeException;
+import javax.crypto.NoSuchPaddingException;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidAlgorithmParameterException;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.NoSuchProviderException;
+import java.security.Security;
+
+/**
+ * Performs AES-GCM encryption and decryption for AesGcmBlockCrypto. Decryption uses Ciphers which are cached per
+ * thread, since Ciphers are not thread safe. Encryption uses a new Cipher for every call: spillers encrypt every block
+ * of a split with the split's key and nonce, and a Cipher refuses to be initialized for encryption with the key and
+ * nonce it last used. Creating the Cipher is cheap next to encrypting a block, see AesGcmCipherEngineBenchmark in
+ * athena-federation-sdk-benchmarks.
+ * <p>
+ * The default engine prefers the JDK's SunJCE provider, whose AES-GCM implementation uses the CPU's AES and carry-less
+ * multiply instructions (via JIT intrinsics) where available, and falls back to BouncyCastle otherwise. Both providers
+ * produce the same output (ciphertext followed by a 128 bit tag) so blocks written by one can be read by the other.
+ */
+public class AesGcmCipherEngine
+{
+    private static final Logger logger = LoggerFactory.getLogger(AesGcmCipherEngine.class);
+
+    public static final String SUN_JCE = "SunJCE";
+    public static final String BOUNCY_CASTLE = "BC";
+
+    static {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    private static final AesGcmCipherEngine DEFAULT = new AesGcmCipherEngine(selectProvider());
+
+    private final String provider;
+    private final ThreadLocal<Cipher> ciphers;
+
+    /**
+     * @param provider The name of the JCE provider to obtain AES-GCM Ciphers from.
+     */
+    public AesGcmCipherEngine(String provider)
+    {
+        this.provider = provider;
+        this.ciphers = ThreadLocal.withInitial(this::newCipher);
+    }
+
+    /**
+     * @return The shared engine, backed by SunJCE when available and BouncyCastle otherwise.
+     */
+    public static AesGcmCipherEngine getDefault()
+    {
+        return DEFAULT;
+    }
+
+    public String getProvider()
+    {
+        return provider;
+    }
+
+    public byte[] encrypt(EncryptionKey key, byte[] clear, int offset, int length)
+    {
+        try {
+            return init(Cipher.ENCRYPT_MODE, key).doFinal(clear, offset, length);
+        }
+        catch (BadPaddingException | IllegalBlockSizeException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    public byte[] decrypt(EncryptionKey key, byte[] cipherText)
+    {
+        try {
+            return init(Cipher.DECRYPT_MODE, key).doFinal(cipherText);
+        }
+        catch (BadPaddingException | IllegalBlockSizeException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private Cipher init(int mode, EncryptionKey key)
+    {
+        if (key.getNonce().length != AesGcmBlockCrypto.NONCE_BYTES) {
+            throw new RuntimeException("Expected " + AesGcmBlockCrypto.NONCE_BYTES + " nonce bytes but found " + key.getNonce().length);
+        }
+
+        logger.debug("Cipher key bytes length: " + key.getKey().length);
+        if (key.getKey() == null || key.getKey().length == 0) {
+            throw new RuntimeException("Invalid key");
+        }
+
+        GCMParameterSpec spec = new GCMParameterSpec(AesGcmBlockCrypto.GCM_TAG_LENGTH_BITS, key.getNonce());
+        SecretKeySpec secretKeySpec = new SecretKeySpec(key.getKey(), AesGcmBlockCrypto.KEYSPEC);
+
+        Cipher cipher = (mode == Cipher.DECRYPT_MODE) ? ciphers.get() : newCipher();
+        try {
+            cipher.init(mode, secretKeySpec, spec);
+            return cipher;
+        }
+        catch (InvalidKeyException | InvalidAlgorithmParameterException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private Cipher newCipher()
+    {
+        try {
+            return Cipher.getInstance(AesGcmBlockCrypto.ALGO, provider);
+        }
+        catch (NoSuchAlgorithmException | NoSuchProviderException | NoSuchPaddingException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private static String selectProvider()
+    {
+        try {
+            Cipher.getInstance(AesGcmBlockCrypto.ALGO, SUN_JCE);
+            return SUN_JCE;
+        }
+        catch (GeneralSecurityException ex) {
+            logger.info("selectProvider: {} is unavailable, using {}", SUN_JCE, BOUNCY_CASTLE, ex);
+            return BOUNCY_CASTLE;
+        }
+    }
+}
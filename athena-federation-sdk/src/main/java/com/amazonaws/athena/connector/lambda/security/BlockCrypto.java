@@ -21,6 +21,7 @@ package com.amazonaws.athena.connector.lambda.security;
  */
 
 import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetrics;
 import org.apache.arrow.vector.types.pojo.Schema;
 
 /**
@@ -37,6 +38,20 @@ public interface BlockCrypto
      */
     byte[] encrypt(EncryptionKey key, Block block);
 
+    /**
+     * Used to encrypt the provided Block in its serialized form while recording the time spent serializing and
+     * encrypting it. Implementations that can't tell the two apart record nothing.
+     *
+     * @param key The EncryptionKey to use when encrypting the Block.
+     * @param block The Block to serialize and encrypt.
+     * @param metrics The SplitMetrics to record SERIALIZATION_TIME and ENCRYPTION_TIME in.
+     * @return The encrypted byte[] representation of the serialized Block, excluding its Schema.
+     */
+    default byte[] encrypt(EncryptionKey key, Block block, SplitMetrics metrics)
+    {
+        return encrypt(key, block);
+    }
+
     /**
      * Used to decrypt and deserialize a Block from the provided bytes and schema.
      *
@@ -87,21 +87,28 @@ public class CachableSecretsManager
 
     /**
      * Retrieves a secret from SecretsManager, first checking the cache. Newly fetched secrets are added to the cache.
+     * This method is thread safe, though concurrent callers which miss the cache may each fetch the secret.
      *
      * @param secretName The name of the secret to retrieve.
      * @return The value of the secret, throws if no such secret is found.
      */
     public String getSecret(String secretName)
     {
-        CacheEntry cacheEntry = cache.get(secretName);
+        CacheEntry cacheEntry;
+        synchronized (cache) {
+            cacheEntry = cache.get(secretName);
+        }
 
         if (cacheEntry == null || cacheEntry.getAge() > MAX_CACHE_AGE_MS) {
             logger.info("getSecret: Resolving secret[{}].", secretName);
+            //Fetched without holding the lock so a slow call doesn't block lookups of other secrets.
             GetSecretValueResult secretValueResult = secretsManager.getSecretValue(new GetSecretValueRequest()
                     .withSecretId(secretName));
             cacheEntry = new CacheEntry(secretName, secretValueResult.getSecretString());
-            evictCache(cache.size() >= MAX_CACHE_SIZE);
-            cache.put(secretName, cacheEntry);
+            synchronized (cache) {
+                evictCache(cache.size() >= MAX_CACHE_SIZE);
+                cache.put(secretName, cacheEntry);
+            }
         }
 
         return cacheEntry.getValue();
@@ -132,7 +139,9 @@ public class CachableSecretsManager
     @VisibleForTesting
     protected void addCacheEntry(String name, String value, long createTime)
     {
-        cache.put(name, new CacheEntry(name, value, createTime));
+        synchronized (cache) {
+            cache.put(name, new CacheEntry(name, value, createTime));
+        }
     }
 
     private class CacheEntry
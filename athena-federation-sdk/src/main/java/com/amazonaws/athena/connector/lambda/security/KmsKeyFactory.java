@@ -26,22 +26,74 @@ import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
 import com.amazonaws.services.kms.model.GenerateDataKeyResult;
 import com.amazonaws.services.kms.model.GenerateRandomRequest;
 import com.amazonaws.services.kms.model.GenerateRandomResult;
+import org.apache.arrow.util.VisibleForTesting;
+import org.bouncycastle.crypto.digests.SHA256Digest;
+import org.bouncycastle.crypto.generators.HKDFBytesGenerator;
+import org.bouncycastle.crypto.params.HKDFParameters;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
 
 /**
  * An EncryptionKeyFactory that is backed by AWS KMS.
+ * <p>
+ * By default every call to create() makes two KMS calls (GenerateDataKey and GenerateRandom). When key derivation
+ * is enabled the factory instead fetches a single KMS data key and derives each split's AES-GCM key and nonce from
+ * it locally using HKDF-SHA256 (RFC 5869) with a random 256 bit salt, so the derived keys are unique and independent
+ * of one another. The data key is replaced after a configurable number of derivations or age, which bounds its use
+ * to roughly one query (or one page of splits). Derived keys have the same format as KMS generated keys so readers
+ * of spilled data are unaffected.
  *
  * @see com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory
  */
 public class KmsKeyFactory
         implements EncryptionKeyFactory
 {
+    private static final Logger logger = LoggerFactory.getLogger(KmsKeyFactory.class);
+
+    //The default max number of keys derived from a single KMS data key, about one page of splits.
+    public static final int DEFAULT_MAX_DERIVED_KEYS = 1_000;
+    //The default max age of a KMS data key used for derivation.
+    public static final long DEFAULT_MAX_DATA_KEY_AGE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private static final int SALT_BYTES = 32;
+    //Binds derived keys to their purpose so the same data key could safely be used to derive other material.
+    private static final byte[] HKDF_INFO = "athena-federation-spill-key-v1".getBytes(StandardCharsets.UTF_8);
+
     private final AWSKMS kmsClient;
     private final String masterKeyId;
+    //0 when key derivation is disabled.
+    private final int maxDerivedKeys;
+    private final long maxDataKeyAgeMillis;
+    private final SecureRandom random = new SecureRandom();
+
+    private byte[] dataKey;
+    private long dataKeyCreatedMillis;
+    private int derivedKeys;
 
     public KmsKeyFactory(AWSKMS kmsClient, String masterKeyId)
+    {
+        this(kmsClient, masterKeyId, 0, 0);
+    }
+
+    /**
+     * Creates a KmsKeyFactory which derives keys from a KMS data key rather than asking KMS for every key.
+     *
+     * @param kmsClient The KMS client to use.
+     * @param masterKeyId The KMS key used to generate data keys.
+     * @param maxDerivedKeys The max number of keys to derive from a single data key, 0 disables key derivation.
+     * @param maxDataKeyAgeMillis The max age of a data key before a new one is generated.
+     */
+    public KmsKeyFactory(AWSKMS kmsClient, String masterKeyId, int maxDerivedKeys, long maxDataKeyAgeMillis)
     {
         this.kmsClient = kmsClient;
         this.masterKeyId = masterKeyId;
+        this.maxDerivedKeys = maxDerivedKeys;
+        this.maxDataKeyAgeMillis = maxDataKeyAgeMillis;
     }
 
     /**
@@ -49,16 +101,59 @@ public class KmsKeyFactory
      */
     public EncryptionKey create()
     {
-        GenerateDataKeyResult dataKeyResult =
-                kmsClient.generateDataKey(
-                        new GenerateDataKeyRequest()
-                                .withKeyId(masterKeyId)
-                                .withKeySpec(DataKeySpec.AES_256));
+        if (maxDerivedKeys > 0) {
+            return derive(nextDataKey());
+        }
 
         GenerateRandomRequest randomRequest = new GenerateRandomRequest()
                 .withNumberOfBytes(AesGcmBlockCrypto.NONCE_BYTES);
         GenerateRandomResult randomResult = kmsClient.generateRandom(randomRequest);
 
-        return new EncryptionKey(dataKeyResult.getPlaintext().array(), randomResult.getPlaintext().array());
+        return new EncryptionKey(generateDataKey(), randomResult.getPlaintext().array());
+    }
+
+    /**
+     * Derives a key and nonce from the data key, HKDF output is split into KEY_BYTES of key followed by
+     * NONCE_BYTES of nonce.
+     */
+    @VisibleForTesting
+    protected EncryptionKey derive(byte[] dataKey)
+    {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+
+        HKDFBytesGenerator hkdf = new HKDFBytesGenerator(new SHA256Digest());
+        hkdf.init(new HKDFParameters(dataKey, salt, HKDF_INFO));
+        byte[] okm = new byte[AesGcmBlockCrypto.KEY_BYTES + AesGcmBlockCrypto.NONCE_BYTES];
+        hkdf.generateBytes(okm, 0, okm.length);
+
+        return new EncryptionKey(Arrays.copyOfRange(okm, 0, AesGcmBlockCrypto.KEY_BYTES),
+                Arrays.copyOfRange(okm, AesGcmBlockCrypto.KEY_BYTES, okm.length));
+    }
+
+    /**
+     * @return The current data key, replacing it first if it has been used for maxDerivedKeys keys or is too old.
+     */
+    private synchronized byte[] nextDataKey()
+    {
+        long now = System.currentTimeMillis();
+        if (dataKey == null || derivedKeys >= maxDerivedKeys || now - dataKeyCreatedMillis >= maxDataKeyAgeMillis) {
+            logger.debug("nextDataKey: generating data key after {} derived keys", derivedKeys);
+            dataKey = generateDataKey();
+            dataKeyCreatedMillis = now;
+            derivedKeys = 0;
+        }
+        derivedKeys++;
+        return dataKey;
+    }
+
+    private byte[] generateDataKey()
+    {
+        GenerateDataKeyResult dataKeyResult =
+                kmsClient.generateDataKey(
+                        new GenerateDataKeyRequest()
+                                .withKeyId(masterKeyId)
+                                .withKeySpec(DataKeySpec.AES_256));
+        return dataKeyResult.getPlaintext().array();
     }
 }
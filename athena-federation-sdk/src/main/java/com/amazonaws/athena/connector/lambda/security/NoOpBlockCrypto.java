@@ -23,6 +23,9 @@ package com.amazonaws.athena.connector.lambda.security;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.RecordBatchSerDe;
+import com.amazonaws.athena.connector.lambda.metrics.NoOpSplitMetrics;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetric;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetrics;
 import org.apache.arrow.vector.types.pojo.Schema;
 
 import java.io.ByteArrayOutputStream;
@@ -46,21 +49,34 @@ public class NoOpBlockCrypto
         this.allocator = allocator;
     }
 
+    @Override
     public byte[] encrypt(EncryptionKey key, Block block)
+    {
+        return encrypt(key, block, NoOpSplitMetrics.INSTANCE);
+    }
+
+    @Override
+    public byte[] encrypt(EncryptionKey key, Block block, SplitMetrics metrics)
     {
         if (key != null) {
             throw new RuntimeException("Real key provided to NoOpBlockCrypto, likely indicates you wanted real crypto.");
         }
         try {
+            long start = metrics.isEnabled() ? System.nanoTime() : 0;
             ByteArrayOutputStream out = new ByteArrayOutputStream();
             serDe.serialize(block.getRecordBatch(), out);
-            return out.toByteArray();
+            byte[] bytes = out.toByteArray();
+            if (metrics.isEnabled()) {
+                metrics.add(SplitMetric.SERIALIZATION_TIME, System.nanoTime() - start);
+            }
+            return bytes;
         }
         catch (IOException ex) {
             throw new RuntimeException(ex);
         }
     }
 
+    @Override
     public Block decrypt(EncryptionKey key, byte[] bytes, Schema schema)
     {
         try {
@@ -73,6 +89,7 @@ public class NoOpBlockCrypto
         }
     }
 
+    @Override
     public byte[] decrypt(EncryptionKey key, byte[] bytes)
     {
         return bytes;
@@ -0,0 +1,211 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2020 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.serde;
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.fasterxml.jackson.core.JsonParser;
+import org.apache.arrow.flatbuf.MessageHeader;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.ipc.ReadChannel;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.ipc.message.MessageMetadataResult;
+import org.apache.arrow.vector.ipc.message.MessageSerializer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import static java.lang.Math.toIntExact;
+
+/**
+ * Reads a serialized (Arrow IPC) ArrowRecordBatch from the current binary value of a JsonParser without first
+ * materializing it as a byte[]. The binary value is decoded (e.g. from base64 for JSON) straight into an ArrowBuf
+ * obtained from the BlockAllocator and the resulting batch's buffers are slices of that ArrowBuf, so the record batch
+ * body is never copied once decoded. Only the small flatbuffer message header is read through a heap buffer.
+ */
+public final class ArrowRecordBatchStreamReader
+{
+    //Initial size of the buffer the batch is decoded into, the buffer doubles in size as needed. The binary value's
+    //length isn't known upfront without Jackson first materializing the whole value, which is what this class avoids.
+    private static final int INITIAL_CAPACITY = 4 * 1024;
+
+    private ArrowRecordBatchStreamReader() {}
+
+    /**
+     * Reads the binary value at the parser's current token into an ArrowRecordBatch registered with the allocator.
+     *
+     * @param jparser The parser, positioned on the binary value (e.g. a base64 encoded string in JSON).
+     * @param allocator The BlockAllocator that will own the resulting batch.
+     * @return The ArrowRecordBatch, or null if the binary value was empty.
+     * @throws RuntimeException If the value could not be read or does not contain a record batch.
+     */
+    public static ArrowRecordBatch read(JsonParser jparser, BlockAllocator allocator)
+    {
+        return allocator.registerBatch((BufferAllocator root) -> {
+            ArrowBufOutputStream out = new ArrowBufOutputStream(root);
+            try {
+                jparser.readBinaryValue(out);
+                if (out.size == 0) {
+                    out.close();
+                    return null;
+                }
+                out.trim();
+                return deserialize(out.buffer, out.size);
+            }
+            catch (Exception ex) {
+                out.close();
+                throw ex;
+            }
+        });
+    }
+
+    /**
+     * Builds an ArrowRecordBatch whose buffers are slices of the supplied ArrowBuf. On success the caller's reference to
+     * the ArrowBuf is transferred to the batch.
+     */
+    private static ArrowRecordBatch deserialize(ArrowBuf buffer, long size)
+            throws IOException
+    {
+        ReadChannel in = new ReadChannel(new ByteBufferChannel(buffer.nioBuffer(0, toIntExact(size))));
+        MessageMetadataResult message = MessageSerializer.readMessage(in);
+        if (message == null) {
+            throw new IOException("Unexpected end of input while reading record batch");
+        }
+        if (message.headerType() != MessageHeader.RecordBatch) {
+            throw new IOException("Expected a record batch but found message type " + message.headerType());
+        }
+
+        long bodyLength = message.getMessageBodyLength();
+        if (in.bytesRead() + bodyLength > size) {
+            throw new IOException("Record batch body of " + bodyLength + " bytes exceeds the " + size + " bytes available");
+        }
+        //Releases the body's (i.e. our) reference once the batch has taken its own references to the slices.
+        return MessageSerializer.deserializeRecordBatch(message, buffer.slice(in.bytesRead(), bodyLength));
+    }
+
+    /**
+     * Collects written bytes in an ArrowBuf, doubling its capacity as needed and trimming it to size once done.
+     */
+    private static final class ArrowBufOutputStream
+            extends OutputStream
+    {
+        private final BufferAllocator allocator;
+        private ArrowBuf buffer;
+        private long size;
+
+        ArrowBufOutputStream(BufferAllocator allocator)
+        {
+            this.allocator = allocator;
+            this.buffer = allocator.buffer(INITIAL_CAPACITY);
+        }
+
+        @Override
+        public void write(int b)
+        {
+            ensureCapacity(1);
+            buffer.setByte(size++, b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len)
+        {
+            ensureCapacity(len);
+            buffer.setBytes(size, b, off, len);
+            size += len;
+        }
+
+        @Override
+        public void close()
+        {
+            if (buffer != null) {
+                buffer.close();
+                buffer = null;
+            }
+        }
+
+        /**
+         * Moves the bytes into a buffer of their exact size, as the record batch's slices keep the whole buffer alive.
+         * Skipped when the allocator would round the exact size up to the current capacity anyway.
+         */
+        void trim()
+        {
+            if (allocator.getRoundingPolicy().getRoundedSize(size) >= buffer.capacity()) {
+                return;
+            }
+            ArrowBuf exact = allocator.buffer(size);
+            exact.setBytes(0, buffer, 0, size);
+            buffer.close();
+            buffer = exact;
+        }
+
+        private void ensureCapacity(long additional)
+        {
+            long required = size + additional;
+            if (required <= buffer.capacity()) {
+                return;
+            }
+            ArrowBuf larger = allocator.buffer(Math.max(required, buffer.capacity() * 2));
+            larger.setBytes(0, buffer, 0, size);
+            buffer.close();
+            buffer = larger;
+        }
+    }
+
+    /**
+     * ReadableByteChannel over a ByteBuffer, used to read the message header.
+     */
+    private static final class ByteBufferChannel
+            implements ReadableByteChannel
+    {
+        private final ByteBuffer source;
+
+        ByteBufferChannel(ByteBuffer source)
+        {
+            this.source = source;
+        }
+
+        @Override
+        public int read(ByteBuffer dst)
+        {
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            int length = Math.min(dst.remaining(), source.remaining());
+            ByteBuffer slice = source.duplicate();
+            slice.limit(slice.position() + length);
+            dst.put(slice);
+            source.position(source.position() + length);
+            return length;
+        }
+
+        @Override
+        public boolean isOpen()
+        {
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
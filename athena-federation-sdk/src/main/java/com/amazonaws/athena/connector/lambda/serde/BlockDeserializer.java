@@ -62,7 +62,7 @@ public class BlockDeserializer
     {
         super(Block.class);
         this.schemaSerDe = new SchemaSerDe();
-        this.recordBatchSerDe = new RecordBatchSerDe(allocator);
+        this.recordBatchSerDe = (allocator != null) ? new RecordBatchSerDe(allocator) : null;
         this.allocator = allocator;
         this.allocatorRegistry = null;
     }
@@ -86,34 +86,35 @@ public class BlockDeserializer
         byte[] batchBytes = node.get(BlockSerializer.BATCH_FIELD_NAME).binaryValue();
 
         Schema schema = schemaSerDe.deserialize(new ByteArrayInputStream(schemaBytes));
-        Block block = getOrCreateAllocator(allocatorId).createBlock(schema);
+        Block block = getOrCreateAllocator(deserializationContext, allocatorId).createBlock(schema);
 
         if (batchBytes.length > 0) {
-            ArrowRecordBatch batch = deserializeBatch(allocatorId, batchBytes);
+            ArrowRecordBatch batch = deserializeBatch(deserializationContext, allocatorId, batchBytes);
             block.loadRecordBatch(batch);
         }
         return block;
     }
 
-    private ArrowRecordBatch deserializeBatch(String allocatorId, byte[] batchBytes)
+    private ArrowRecordBatch deserializeBatch(DeserializationContext ctxt, String allocatorId, byte[] batchBytes)
             throws IOException
     {
-        return getOrCreateBatchSerde(allocatorId).deserialize(batchBytes);
+        return getOrCreateBatchSerde(ctxt, allocatorId).deserialize(batchBytes);
     }
 
-    private RecordBatchSerDe getOrCreateBatchSerde(String allocatorId)
+    private RecordBatchSerDe getOrCreateBatchSerde(DeserializationContext ctxt, String allocatorId)
     {
-        if (recordBatchSerDe != null) {
+        if (recordBatchSerDe != null && VersionedObjectMapperFactory.getAllocator(ctxt, null) == null) {
             return recordBatchSerDe;
         }
 
-        return new RecordBatchSerDe(getOrCreateAllocator(allocatorId));
+        return new RecordBatchSerDe(getOrCreateAllocator(ctxt, allocatorId));
     }
 
-    private BlockAllocator getOrCreateAllocator(String allocatorId)
+    private BlockAllocator getOrCreateAllocator(DeserializationContext ctxt, String allocatorId)
     {
-        if (allocator != null) {
-            return allocator;
+        BlockAllocator requestAllocator = VersionedObjectMapperFactory.getAllocator(ctxt, allocator);
+        if (requestAllocator != null) {
+            return requestAllocator;
         }
 
         return allocatorRegistry.getOrCreateAllocator(allocatorId);
@@ -25,16 +25,56 @@ import com.amazonaws.athena.connector.lambda.serde.v2.ObjectMapperFactoryV2;
 import com.amazonaws.athena.connector.lambda.serde.v3.ObjectMapperFactoryV3;
 import com.amazonaws.athena.connector.lambda.serde.v4.ObjectMapperFactoryV4;
 import com.amazonaws.athena.connector.lambda.serde.v5.ObjectMapperFactoryV5;
+import com.amazonaws.athena.connector.lambda.serde.v6.FederationRequestSerDeV6;
+import com.amazonaws.athena.connector.lambda.serde.v6.ObjectMapperFactoryV6;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.io.ByteStreams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * Vends {@link ObjectMapper} instances that correspond to SerDe versions.
+ * <p>
+ * Building an ObjectMapper is relatively expensive and a new mapper also starts with cold serializer and deserializer
+ * caches. Handlers should therefore use the shared, per version, mappers from {@link #getShared(int)} and pass the
+ * BlockAllocator for each request to the deserializers as a context attribute using {@link #createReader}.
  */
 public class VersionedObjectMapperFactory
 {
     private static final Logger logger = LoggerFactory.getLogger(VersionedObjectMapperFactory.class);
+
+    /**
+     * Name of the Jackson context attribute used to pass the BlockAllocator for the current request to the
+     * deserializers of a shared ObjectMapper.
+     */
+    public static final String ALLOCATOR_ATTRIBUTE = VersionedObjectMapperFactory.class.getName() + ".allocator";
+
+    /**
+     * The latest SerDe version whose requests do not lead with the caller's SerDe version, requests which don't should
+     * be read with this version or, failing that, older ones.
+     */
+    public static final int UNVERSIONED_REQUEST_SERDE_VERSION = 5;
+
+    //Max number of bytes resolveSerDeVersion may read before resetting the stream.
+    private static final int RESOLVE_READ_LIMIT = 16 * 1024;
+    //Leaves closing the request stream to its owner.
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+    private static final Map<Integer, ObjectMapper> SHARED_MAPPERS = new ConcurrentHashMap<>();
+
     private VersionedObjectMapperFactory() {}
 
     /**
@@ -69,8 +109,117 @@ public class VersionedObjectMapperFactory
                 return ObjectMapperFactoryV4.create(allocator);
             case 5:
                 return ObjectMapperFactoryV5.create(allocator);
+            case 6:
+                return ObjectMapperFactoryV6.create(allocator);
             default:
                 throw new IllegalArgumentException("No serde version " + version);
         }
     }
+
+    /**
+     * Returns the shared {@link ObjectMapper} for the current SDK SerDe version.
+     *
+     * @return The shared ObjectMapper.
+     */
+    public static ObjectMapper getShared()
+    {
+        return getShared(SerDeVersion.SERDE_VERSION);
+    }
+
+    /**
+     * Returns the shared {@link ObjectMapper} for the provided SerDe version, building it on first use. The shared mapper
+     * has no BlockAllocator of its own, so it can be used as is to serialize but requests or responses which contain
+     * Blocks must be read using a reader from {@link #createReader}.
+     *
+     * @param version The SerDe version.
+     * @return The shared ObjectMapper.
+     */
+    public static ObjectMapper getShared(int version)
+    {
+        return SHARED_MAPPERS.computeIfAbsent(version, (Integer next) -> create(null, next));
+    }
+
+    /**
+     * Creates an {@link ObjectReader} for the provided type that deserializes any Blocks using the provided
+     * BlockAllocator. Readers are immutable and cheap to create, the underlying mapper's caches are shared.
+     *
+     * @param objectMapper The (typically shared) ObjectMapper to read with.
+     * @param type The type to read.
+     * @param allocator The BlockAllocator for the current request.
+     * @return The ObjectReader.
+     */
+    public static ObjectReader createReader(ObjectMapper objectMapper, Class<?> type, BlockAllocator allocator)
+    {
+        return objectMapper.readerFor(type).withAttribute(ALLOCATOR_ATTRIBUTE, allocator);
+    }
+
+    /**
+     * Used by deserializers to find the BlockAllocator for the current request.
+     *
+     * @param ctxt The current DeserializationContext.
+     * @param defaultAllocator The allocator the deserializer was built with, may be null.
+     * @return The allocator passed as a context attribute if there is one, otherwise the default allocator.
+     */
+    public static BlockAllocator getAllocator(DeserializationContext ctxt, BlockAllocator defaultAllocator)
+    {
+        Object allocator = (ctxt != null) ? ctxt.getAttribute(ALLOCATOR_ATTRIBUTE) : null;
+        return (allocator != null) ? (BlockAllocator) allocator : defaultAllocator;
+    }
+
+    /**
+     * Peeks at the start of a serialized request to find the SerDe version it should be read with. Requests from
+     * SerDe version 6 onwards lead with the caller's SerDe version, for older requests (or anything we can't parse)
+     * this returns {@link #UNVERSIONED_REQUEST_SERDE_VERSION} and leaves it to the ObjectMapper to report problems.
+     *
+     * @param in The request, must support mark/reset (e.g. a BufferedInputStream). The stream is reset before returning.
+     * @return The SerDe version to read the request with.
+     */
+    public static int resolveSerDeVersion(InputStream in)
+    {
+        in.mark(RESOLVE_READ_LIMIT);
+        try (JsonParser parser = JSON_FACTORY.createParser(ByteStreams.limit(in, RESOLVE_READ_LIMIT))) {
+            return resolveSerDeVersion(parser);
+        }
+        catch (IOException ex) {
+            logger.debug("resolveSerDeVersion: unable to parse request header", ex);
+            return UNVERSIONED_REQUEST_SERDE_VERSION;
+        }
+        finally {
+            try {
+                in.reset();
+            }
+            catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Variant of {@link #resolveSerDeVersion(InputStream)} for requests which are already in memory.
+     *
+     * @param in The request.
+     * @return The SerDe version to read the request with.
+     */
+    public static int resolveSerDeVersion(byte[] in)
+    {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            return resolveSerDeVersion(parser);
+        }
+        catch (IOException ex) {
+            logger.debug("resolveSerDeVersion: unable to parse request header", ex);
+            return UNVERSIONED_REQUEST_SERDE_VERSION;
+        }
+    }
+
+    private static int resolveSerDeVersion(JsonParser parser)
+            throws IOException
+    {
+        if (parser.nextToken() == JsonToken.START_OBJECT
+                && parser.nextToken() == JsonToken.FIELD_NAME
+                && FederationRequestSerDeV6.SERDE_VERSION_FIELD.equals(parser.getCurrentName())
+                && parser.nextToken() == JsonToken.VALUE_NUMBER_INT) {
+            return Math.min(parser.getIntValue(), SerDeVersion.SERDE_VERSION);
+        }
+        return UNVERSIONED_REQUEST_SERDE_VERSION;
+    }
 }
@@ -24,6 +24,7 @@ import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorRegistry;
 import com.amazonaws.athena.connector.lambda.serde.BaseDeserializer;
 import com.amazonaws.athena.connector.lambda.serde.BaseSerializer;
+import com.amazonaws.athena.connector.lambda.serde.VersionedObjectMapperFactory;
 import com.amazonaws.athena.connector.lambda.serde.VersionedSerDe;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
@@ -126,19 +127,20 @@ public class BlockSerDeV3
             Schema schema = schemaDeserializer.deserialize(jparser, ctxt);
 
             byte[] batchBytes = getNextBinaryField(jparser, BATCH_FIELD_NAME);
-            Block block = getOrCreateAllocator(allocatorId).createBlock(schema);
+            Block block = getOrCreateAllocator(ctxt, allocatorId).createBlock(schema);
             if (batchBytes.length > 0) {
-                ArrowRecordBatch batch = deserializeBatch(allocatorId, batchBytes);
+                ArrowRecordBatch batch = deserializeBatch(ctxt, allocatorId, batchBytes);
                 block.loadRecordBatch(batch);
             }
 
             return block;
         }
 
-        private BlockAllocator getOrCreateAllocator(String allocatorId)
+        private BlockAllocator getOrCreateAllocator(DeserializationContext ctxt, String allocatorId)
         {
-            if (allocator != null) {
-                return allocator;
+            BlockAllocator requestAllocator = VersionedObjectMapperFactory.getAllocator(ctxt, allocator);
+            if (requestAllocator != null) {
+                return requestAllocator;
             }
             else if (allocatorRegistry != null) {
                 return allocatorRegistry.getOrCreateAllocator(allocatorId);
@@ -148,10 +150,10 @@ public class BlockSerDeV3
             }
         }
 
-        private ArrowRecordBatch deserializeBatch(String allocatorId, byte[] batchBytes)
+        private ArrowRecordBatch deserializeBatch(DeserializationContext ctxt, String allocatorId, byte[] batchBytes)
                 throws IOException
         {
-            return deserializeRecordBatch(getOrCreateAllocator(allocatorId), batchBytes);
+            return deserializeRecordBatch(getOrCreateAllocator(ctxt, allocatorId), batchBytes);
         }
 
         private ArrowRecordBatch deserializeRecordBatch(BlockAllocator allocator, byte[] in)
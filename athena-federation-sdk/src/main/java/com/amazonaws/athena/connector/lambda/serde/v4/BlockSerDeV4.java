@@ -22,25 +22,23 @@ package com.amazonaws.athena.connector.lambda.serde.v4;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorRegistry;
+import com.amazonaws.athena.connector.lambda.serde.ArrowRecordBatchStreamReader;
 import com.amazonaws.athena.connector.lambda.serde.BaseDeserializer;
 import com.amazonaws.athena.connector.lambda.serde.BaseSerializer;
+import com.amazonaws.athena.connector.lambda.serde.VersionedObjectMapperFactory;
 import com.amazonaws.athena.connector.lambda.serde.VersionedSerDe;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.SerializerProvider;
-import org.apache.arrow.memory.BufferAllocator;
-import org.apache.arrow.vector.ipc.ReadChannel;
 import org.apache.arrow.vector.ipc.WriteChannel;
 import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.ipc.message.MessageSerializer;
 import org.apache.arrow.vector.types.pojo.Schema;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.channels.Channels;
-import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Objects.requireNonNull;
 
@@ -125,20 +123,24 @@ public class BlockSerDeV4
             assertFieldName(jparser, SCHEMA_FIELD_NAME);
             Schema schema = schemaDeserializer.deserialize(jparser, ctxt);
 
-            byte[] batchBytes = getNextBinaryField(jparser, BATCH_FIELD_NAME);
-            Block block = getOrCreateAllocator(allocatorId).createBlock(schema);
-            if (batchBytes.length > 0) {
-                ArrowRecordBatch batch = deserializeBatch(allocatorId, batchBytes);
+            assertFieldName(jparser, BATCH_FIELD_NAME);
+            jparser.nextToken();
+            BlockAllocator blockAllocator = getOrCreateAllocator(ctxt, allocatorId);
+            Block block = blockAllocator.createBlock(schema);
+            // Decodes the batch straight into Arrow memory rather than materializing it as a byte[] first
+            ArrowRecordBatch batch = ArrowRecordBatchStreamReader.read(jparser, blockAllocator);
+            if (batch != null) {
                 block.loadRecordBatch(batch);
             }
 
             return block;
         }
 
-        private BlockAllocator getOrCreateAllocator(String allocatorId)
+        private BlockAllocator getOrCreateAllocator(DeserializationContext ctxt, String allocatorId)
         {
-            if (allocator != null) {
-                return allocator;
+            BlockAllocator requestAllocator = VersionedObjectMapperFactory.getAllocator(ctxt, allocator);
+            if (requestAllocator != null) {
+                return requestAllocator;
             }
             else if (allocatorRegistry != null) {
                 return allocatorRegistry.getOrCreateAllocator(allocatorId);
@@ -147,29 +149,5 @@ public class BlockSerDeV4
                 throw new IllegalStateException("allocator and allocatorRegistry are both null");
             }
         }
-
-        private ArrowRecordBatch deserializeBatch(String allocatorId, byte[] batchBytes)
-                throws IOException
-        {
-            return deserializeRecordBatch(getOrCreateAllocator(allocatorId), batchBytes);
-        }
-
-        private ArrowRecordBatch deserializeRecordBatch(BlockAllocator allocator, byte[] in)
-        {
-            AtomicReference<ArrowRecordBatch> batch = new AtomicReference<>();
-            try {
-                return allocator.registerBatch((BufferAllocator root) -> {
-                    batch.set((ArrowRecordBatch) MessageSerializer.deserializeMessageBatch(
-                            new ReadChannel(Channels.newChannel(new ByteArrayInputStream(in))), root));
-                    return batch.get();
-                });
-            }
-            catch (Exception ex) {
-                if (batch.get() != null) {
-                    batch.get().close();
-                }
-                throw ex;
-            }
-        }
     }
 }
@@ -85,7 +85,9 @@ public final class SchemaSerDeV4 implements VersionedSerDe
         public Schema doDeserialize(JsonParser jparser, DeserializationContext ctxt)
                 throws IOException
         {
-            if (!JsonToken.VALUE_STRING.equals(jparser.nextToken())) {
+            // Binary formats (e.g. CBOR in SerDe V6) expose the schema bytes as an embedded object rather than a string
+            JsonToken token = jparser.nextToken();
+            if (!JsonToken.VALUE_STRING.equals(token) && !JsonToken.VALUE_EMBEDDED_OBJECT.equals(token)) {
                 throw new IllegalStateException("Expected " + JsonToken.VALUE_STRING + " found " + jparser.getText());
             }
             byte[] schemaBytes = jparser.getBinaryValue();
@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2022 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.serde.v6;
+
+import com.amazonaws.athena.connector.lambda.request.FederationRequest;
+import com.amazonaws.athena.connector.lambda.serde.BaseDeserializer;
+import com.amazonaws.athena.connector.lambda.serde.BaseSerializer;
+import com.amazonaws.athena.connector.lambda.serde.VersionedSerDe;
+import com.amazonaws.athena.connector.lambda.serde.v5.FederationRequestSerDeV5;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * V6 requests are V5 requests which lead with the SerDe version of the caller, e.g. {"serDeVersion":6,"@type":...}.
+ * Requests stay JSON (Lambda only accepts JSON payloads), the leading version tells the connector that the caller
+ * can read binary (CBOR) responses. V5 requests fail the version check with an IllegalStateException which lets
+ * callers fall back to an older SerDe version.
+ */
+public class FederationRequestSerDeV6
+{
+    public static final String SERDE_VERSION_FIELD = "serDeVersion";
+    public static final int SERDE_VERSION = 6;
+
+    private FederationRequestSerDeV6() {}
+
+    public static final class Serializer extends BaseSerializer<FederationRequest> implements VersionedSerDe.Serializer<FederationRequest>
+    {
+        private final FederationRequestSerDeV5.Serializer delegate;
+
+        public Serializer(FederationRequestSerDeV5.Serializer delegate)
+        {
+            super(FederationRequest.class);
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        @Override
+        public void doSerialize(FederationRequest request, JsonGenerator jgen, SerializerProvider provider)
+                throws IOException
+        {
+            jgen.writeNumberField(SERDE_VERSION_FIELD, SERDE_VERSION);
+            delegate.doSerialize(request, jgen, provider);
+        }
+    }
+
+    public static final class Deserializer extends BaseDeserializer<FederationRequest> implements VersionedSerDe.Deserializer<FederationRequest>
+    {
+        private final FederationRequestSerDeV5.Deserializer delegate;
+
+        public Deserializer(FederationRequestSerDeV5.Deserializer delegate)
+        {
+            super(FederationRequest.class);
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser jp, DeserializationContext ctxt, TypeDeserializer typeDeserializer)
+                throws IOException
+        {
+            return doDeserialize(jp, ctxt);
+        }
+
+        @Override
+        public FederationRequest doDeserialize(JsonParser jparser, DeserializationContext ctxt)
+                throws IOException
+        {
+            int serDeVersion = getNextIntField(jparser, SERDE_VERSION_FIELD);
+            if (serDeVersion < SERDE_VERSION) {
+                throw new IllegalStateException("Expected SerDe version " + SERDE_VERSION + " or later but found " + serDeVersion);
+            }
+            return delegate.doDeserialize(jparser, ctxt);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2024 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.serde.v6;
+
+import com.amazonaws.athena.connector.lambda.request.FederationResponse;
+import com.amazonaws.athena.connector.lambda.serde.BaseDeserializer;
+import com.amazonaws.athena.connector.lambda.serde.BaseSerializer;
+import com.amazonaws.athena.connector.lambda.serde.VersionedSerDe;
+import com.amazonaws.athena.connector.lambda.serde.v4.FederationResponseSerDeV4;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeDeserializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.cbor.CBORParser;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * V6 responses are V4 responses which are only ever written and read as CBOR. This is enforced here, rather than by
+ * each ObjectMapper entry point, so that an entry point which is bound to the JSON factory (e.g. writeValueAsString or
+ * readValue(String)) fails instead of silently using the wrong wire format for a response.
+ */
+public class FederationResponseSerDeV6
+{
+    private FederationResponseSerDeV6() {}
+
+    public static final class Serializer extends BaseSerializer<FederationResponse> implements VersionedSerDe.Serializer<FederationResponse>
+    {
+        private final FederationResponseSerDeV4.Serializer delegate;
+
+        public Serializer(FederationResponseSerDeV4.Serializer delegate)
+        {
+            super(FederationResponse.class);
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        @Override
+        public void doSerialize(FederationResponse response, JsonGenerator jgen, SerializerProvider provider)
+                throws IOException
+        {
+            if (!(jgen instanceof CBORGenerator)) {
+                throw new IllegalStateException("SerDe version " + FederationRequestSerDeV6.SERDE_VERSION
+                        + " responses must be written as CBOR, not with a " + jgen.getClass().getSimpleName());
+            }
+            delegate.doSerialize(response, jgen, provider);
+        }
+    }
+
+    public static final class Deserializer extends BaseDeserializer<FederationResponse> implements VersionedSerDe.Deserializer<FederationResponse>
+    {
+        private final FederationResponseSerDeV4.Deserializer delegate;
+
+        public Deserializer(FederationResponseSerDeV4.Deserializer delegate)
+        {
+            super(FederationResponse.class);
+            this.delegate = requireNonNull(delegate, "delegate is null");
+        }
+
+        @Override
+        public Object deserializeWithType(JsonParser jp, DeserializationContext ctxt, TypeDeserializer typeDeserializer)
+                throws IOException
+        {
+            return doDeserialize(jp, ctxt);
+        }
+
+        @Override
+        public FederationResponse doDeserialize(JsonParser jparser, DeserializationContext ctxt)
+                throws IOException
+        {
+            if (!(jparser instanceof CBORParser)) {
+                throw new IllegalStateException("SerDe version " + FederationRequestSerDeV6.SERDE_VERSION
+                        + " responses must be read as CBOR, not with a " + jparser.getClass().getSimpleName());
+            }
+            return delegate.doDeserialize(jparser, ctxt);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda;
+
+import com.amazonaws.athena.connector.lambda.exceptions.FederationThrottleException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class CongestionControllerTest
+{
+    private static final int NUM_THREADS = 8;
+
+    @After
+    public void tearDown()
+    {
+        CongestionController.clearShared();
+    }
+
+    @Test
+    public void aimd()
+    {
+        CongestionController controller = new CongestionController(10, 100, 0.5, 10, 0);
+        assertEquals(ThrottlingInvoker.State.FAST_START, controller.getState());
+        assertEquals(Double.POSITIVE_INFINITY, controller.getCurrentRate(), 0.0);
+
+        controller.onSuccess();
+        assertEquals(ThrottlingInvoker.State.FAST_START, controller.getState());
+        assertEquals(0, controller.getDelayMs());
+
+        assertEquals(10, controller.onThrottle(new FederationThrottleException()));
+        assertEquals(20, controller.onThrottle(new FederationThrottleException()));
+        assertEquals(40, controller.onThrottle(new FederationThrottleException()));
+        assertEquals(80, controller.onThrottle(new FederationThrottleException()));
+        assertEquals(100, controller.onThrottle(new FederationThrottleException()));
+        assertEquals(ThrottlingInvoker.State.CONGESTED, controller.getState());
+        assertEquals(10D, controller.getCurrentRate(), 0.0);
+        assertEquals(5, controller.getThrottleCount());
+
+        controller.onSuccess();
+        assertEquals(ThrottlingInvoker.State.AVOIDANCE, controller.getState());
+        assertEquals(90, controller.getDelayMs());
+        for (int i = 0; i < 20; i++) {
+            controller.onSuccess();
+        }
+        assertEquals(ThrottlingInvoker.State.AVOIDANCE, controller.getState());
+        assertEquals(0, controller.getDelayMs());
+    }
+
+    @Test
+    public void acquireWithoutCongestionDoesNotWait()
+    {
+        CongestionController controller = new CongestionController(10, 1_000, 0.5, 10, 0.2);
+        for (int i = 0; i < 1_000; i++) {
+            controller.acquire();
+        }
+        assertEquals(1_000, controller.getCallCount());
+        assertEquals(0, controller.getWaitMillis());
+    }
+
+    @Test
+    public void acquireSharesRateAcrossThreads()
+            throws Exception
+    {
+        //A 20ms delay allows 50 calls per second in total, no matter how many threads are calling.
+        CongestionController controller = new CongestionController(20, 20, 0.5, 1, 0.2);
+        controller.onThrottle(new FederationThrottleException());
+        assertEquals(20, controller.getDelayMs());
+
+        int callsPerThread = 5;
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < NUM_THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < callsPerThread; j++) {
+                        controller.acquire();
+                    }
+                    return null;
+                }));
+            }
+            long startNanos = System.nanoTime();
+            start.countDown();
+            for (Future<?> next : futures) {
+                next.get();
+            }
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+
+            //40 permits, the first of which was reserved by the throttle, at an average of 20ms (+/- 20%) apart.
+            int permits = NUM_THREADS * callsPerThread;
+            assertTrue("elapsed " + elapsedMs, elapsedMs >= (long) (permits * 20 * 0.8) - 20);
+            assertEquals(permits, controller.getCallCount());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void concurrentThrottles()
+            throws Exception
+    {
+        CongestionController controller = new CongestionController(1, 1_000_000, 0.99, 1, 0);
+        int throttlesPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < NUM_THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < throttlesPerThread; j++) {
+                        controller.onThrottle(new FederationThrottleException());
+                    }
+                }));
+            }
+            for (Future<?> next : futures) {
+                next.get();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        //No update may be lost, so the delay must match applying every throttle in sequence.
+        CongestionController expected = new CongestionController(1, 1_000_000, 0.99, 1, 0);
+        for (int i = 0; i < NUM_THREADS * throttlesPerThread; i++) {
+            expected.onThrottle(new FederationThrottleException());
+        }
+        assertEquals(expected.getDelayMs(), controller.getDelayMs());
+        assertEquals(NUM_THREADS * throttlesPerThread, controller.getThrottleCount());
+        assertEquals(ThrottlingInvoker.State.CONGESTED, controller.getState());
+    }
+
+    @Test
+    public void getOrCreate()
+    {
+        CongestionController first = CongestionController.getOrCreate("endpoint", () -> new CongestionController(10, 100, 0.5, 10, 0));
+        CongestionController second = CongestionController.getOrCreate("endpoint", () -> new CongestionController(20, 200, 0.5, 10, 0));
+        CongestionController other = CongestionController.getOrCreate("other", () -> new CongestionController(10, 100, 0.5, 10, 0));
+        assertSame(first, second);
+        assertNotSame(first, other);
+
+        first.onThrottle(new FederationThrottleException());
+        assertEquals(10, second.getDelayMs());
+        assertEquals(0, other.getDelayMs());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidJitter()
+    {
+        new CongestionController(10, 100, 0.5, 10, 1.5);
+    }
+}
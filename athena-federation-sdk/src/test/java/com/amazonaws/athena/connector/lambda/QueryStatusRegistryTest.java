@@ -0,0 +1,257 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.athena.AmazonAthena;
+import com.amazonaws.services.athena.model.BatchGetQueryExecutionRequest;
+import com.amazonaws.services.athena.model.BatchGetQueryExecutionResult;
+import com.amazonaws.services.athena.model.GetQueryExecutionRequest;
+import com.amazonaws.services.athena.model.GetQueryExecutionResult;
+import com.amazonaws.services.athena.model.QueryExecution;
+import com.amazonaws.services.athena.model.QueryExecutionStatus;
+import com.amazonaws.services.athena.model.UnprocessedQueryExecutionId;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.HashSet;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static com.amazonaws.athena.connector.lambda.handlers.AthenaExceptionFilter.ATHENA_EXCEPTION_FILTER;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class QueryStatusRegistryTest
+{
+    private final ThrottlingInvoker athenaInvoker = ThrottlingInvoker.newDefaultBuilder(ATHENA_EXCEPTION_FILTER, com.google.common.collect.ImmutableMap.of()).build();
+
+    private ScheduledThreadPoolExecutor executor;
+    private QueryStatusRegistry registry;
+
+    @Mock
+    private AmazonAthena athena;
+
+    @Before
+    public void setUp()
+    {
+        executor = new ScheduledThreadPoolExecutor(1);
+        registry = new QueryStatusRegistry(executor);
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void sharedPollerPerQuery()
+            throws Exception
+    {
+        String queryId = "query0";
+        when(athena.getQueryExecution(new GetQueryExecutionRequest().withQueryExecutionId(queryId)))
+                .thenReturn(makeResult(queryId, "RUNNING"))
+                .thenReturn(makeResult(queryId, "SUCCEEDED"));
+
+        QueryStatusChecker checker1 = new QueryStatusChecker(registry, athena, athenaInvoker, queryId);
+        QueryStatusChecker checker2 = new QueryStatusChecker(registry, athena, athenaInvoker, queryId);
+        assertTrue(checker1.isQueryRunning());
+        assertTrue(checker2.isQueryRunning());
+        assertEquals(1, registry.getActiveQueryCount());
+
+        Thread.sleep(1500);
+        assertTrue(checker1.isQueryRunning());
+        assertTrue(checker2.isQueryRunning());
+        verify(athena, times(1)).getQueryExecution(any());
+
+        Thread.sleep(1000);
+        assertFalse(checker1.isQueryRunning());
+        assertFalse(checker2.isQueryRunning());
+        verify(athena, times(2)).getQueryExecution(any());
+        assertEquals(0, registry.getActiveQueryCount());
+
+        checker1.close();
+        checker2.close();
+    }
+
+    @Test
+    public void stopsPollingWithoutSubscribers()
+            throws Exception
+    {
+        QueryStatusChecker checker1 = new QueryStatusChecker(registry, athena, athenaInvoker, "query1");
+        QueryStatusChecker checker2 = new QueryStatusChecker(registry, athena, athenaInvoker, "query1");
+        assertTrue(checker1.isQueryRunning());
+        assertTrue(checker2.isQueryRunning());
+
+        checker1.close();
+        //Closing is idempotent, so the other subscriber keeps the query polled.
+        checker1.close();
+        assertEquals(1, registry.getActiveQueryCount());
+        checker2.close();
+        assertEquals(0, registry.getActiveQueryCount());
+
+        Thread.sleep(1500);
+        verify(athena, never()).getQueryExecution(any());
+        assertEquals(0, executor.getQueue().size());
+    }
+
+    @Test
+    public void batchesQueriesDueTogether()
+            throws Exception
+    {
+        when(athena.batchGetQueryExecution(any()))
+                .thenReturn(new BatchGetQueryExecutionResult().withQueryExecutions(
+                        makeResult("query2", "RUNNING").getQueryExecution(),
+                        makeResult("query3", "CANCELLED").getQueryExecution()));
+
+        try (QueryStatusChecker checker2 = new QueryStatusChecker(registry, athena, athenaInvoker, "query2");
+                QueryStatusChecker checker3 = new QueryStatusChecker(registry, athena, athenaInvoker, "query3")) {
+            assertTrue(checker2.isQueryRunning());
+            assertTrue(checker3.isQueryRunning());
+
+            Thread.sleep(1500);
+            assertTrue(checker2.isQueryRunning());
+            assertFalse(checker3.isQueryRunning());
+
+            ArgumentCaptor<BatchGetQueryExecutionRequest> captor = ArgumentCaptor.forClass(BatchGetQueryExecutionRequest.class);
+            verify(athena, times(1)).batchGetQueryExecution(captor.capture());
+            assertEquals(ImmutableSet.of("query2", "query3"), new HashSet<>(captor.getValue().getQueryExecutionIds()));
+            verify(athena, never()).getQueryExecution(any());
+            assertEquals(1, registry.getActiveQueryCount());
+
+            //query2 is now polled on its own.
+            when(athena.getQueryExecution(new GetQueryExecutionRequest().withQueryExecutionId("query2")))
+                    .thenReturn(makeResult("query2", "SUCCEEDED"));
+            Thread.sleep(2000);
+            assertFalse(checker2.isQueryRunning());
+        }
+    }
+
+    @Test
+    public void unprocessedQueriesPolledIndividually()
+            throws Exception
+    {
+        when(athena.batchGetQueryExecution(any()))
+                .thenReturn(new BatchGetQueryExecutionResult()
+                        .withQueryExecutions(makeResult("query4", "FAILED").getQueryExecution())
+                        .withUnprocessedQueryExecutionIds(new UnprocessedQueryExecutionId().withQueryExecutionId("query5")));
+        when(athena.getQueryExecution(new GetQueryExecutionRequest().withQueryExecutionId("query5")))
+                .thenReturn(makeResult("query5", "SUCCEEDED"));
+
+        try (QueryStatusChecker checker4 = new QueryStatusChecker(registry, athena, athenaInvoker, "query4");
+                QueryStatusChecker checker5 = new QueryStatusChecker(registry, athena, athenaInvoker, "query5")) {
+            assertTrue(checker4.isQueryRunning());
+            assertTrue(checker5.isQueryRunning());
+            Thread.sleep(1500);
+            assertFalse(checker4.isQueryRunning());
+            assertFalse(checker5.isQueryRunning());
+            verify(athena, times(1)).getQueryExecution(any());
+        }
+    }
+
+    @Test
+    public void fallsBackWithoutBatchPermission()
+            throws Exception
+    {
+        AmazonServiceException accessDenied = new AmazonServiceException("not authorized to perform: athena:BatchGetQueryExecution");
+        accessDenied.setStatusCode(403);
+        when(athena.batchGetQueryExecution(any())).thenThrow(accessDenied);
+        when(athena.getQueryExecution(any()))
+                .thenAnswer(invocation -> makeResult(((GetQueryExecutionRequest) invocation.getArgument(0)).getQueryExecutionId(), "RUNNING"));
+
+        try (QueryStatusChecker checker6 = new QueryStatusChecker(registry, athena, athenaInvoker, "query6");
+                QueryStatusChecker checker7 = new QueryStatusChecker(registry, athena, athenaInvoker, "query7")) {
+            assertTrue(checker6.isQueryRunning());
+            assertTrue(checker7.isQueryRunning());
+            Thread.sleep(2500);
+            assertTrue(checker6.isQueryRunning());
+            assertTrue(checker7.isQueryRunning());
+            //Only the first round tries to batch.
+            verify(athena, times(1)).batchGetQueryExecution(any());
+            verify(athena, times(4)).getQueryExecution(any());
+        }
+    }
+
+    @Test
+    public void fallsBackOnAccessDeniedErrorCode()
+            throws Exception
+    {
+        //Athena reports a missing IAM permission with HTTP 400 rather than 403.
+        AmazonServiceException accessDenied = new AmazonServiceException("not authorized to perform: athena:BatchGetQueryExecution");
+        accessDenied.setStatusCode(400);
+        accessDenied.setErrorCode("AccessDeniedException");
+        when(athena.batchGetQueryExecution(any())).thenThrow(accessDenied);
+        when(athena.getQueryExecution(any()))
+                .thenAnswer(invocation -> makeResult(((GetQueryExecutionRequest) invocation.getArgument(0)).getQueryExecutionId(), "RUNNING"));
+
+        try (QueryStatusChecker checker8 = new QueryStatusChecker(registry, athena, athenaInvoker, "query8");
+                QueryStatusChecker checker9 = new QueryStatusChecker(registry, athena, athenaInvoker, "query9")) {
+            assertTrue(checker8.isQueryRunning());
+            assertTrue(checker9.isQueryRunning());
+            Thread.sleep(2500);
+            assertTrue(checker8.isQueryRunning());
+            assertTrue(checker9.isQueryRunning());
+            verify(athena, times(1)).batchGetQueryExecution(any());
+            verify(athena, times(4)).getQueryExecution(any());
+        }
+    }
+
+    @Test
+    public void pollsIndividuallyWhenBatchFails()
+            throws Exception
+    {
+        AmazonServiceException internalError = new AmazonServiceException("internal error");
+        internalError.setStatusCode(500);
+        internalError.setErrorCode("InternalServerException");
+        when(athena.batchGetQueryExecution(any())).thenThrow(internalError);
+        when(athena.getQueryExecution(any()))
+                .thenAnswer(invocation -> makeResult(((GetQueryExecutionRequest) invocation.getArgument(0)).getQueryExecutionId(), "CANCELLED"));
+
+        try (QueryStatusChecker checker10 = new QueryStatusChecker(registry, athena, athenaInvoker, "query10");
+                QueryStatusChecker checker11 = new QueryStatusChecker(registry, athena, athenaInvoker, "query11")) {
+            assertTrue(checker10.isQueryRunning());
+            assertTrue(checker11.isQueryRunning());
+            Thread.sleep(1500);
+            //The failed batch doesn't hide the cancellation from either query.
+            assertFalse(checker10.isQueryRunning());
+            assertFalse(checker11.isQueryRunning());
+            verify(athena, times(1)).batchGetQueryExecution(any());
+            verify(athena, times(2)).getQueryExecution(any());
+        }
+    }
+
+    private static GetQueryExecutionResult makeResult(String queryId, String state)
+    {
+        return new GetQueryExecutionResult().withQueryExecution(new QueryExecution()
+                .withQueryExecutionId(queryId)
+                .withStatus(new QueryExecutionStatus().withState(state)));
+    }
+}
@@ -21,6 +21,8 @@ package com.amazonaws.athena.connector.lambda;
 
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.exceptions.FederationThrottleException;
+import com.amazonaws.athena.connector.lambda.metrics.AccumulatingSplitMetrics;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetric;
 import org.junit.Test;
 
 import java.sql.Time;
@@ -119,4 +121,83 @@ public class ThrottlingInvokerTest
         when(spiller.spilled()).thenReturn(false);
         invoker.invoke(() -> {throw new RuntimeException();}, 2_000);
     }
+
+    @Test
+    public void invokeWithThrottleRecordsMetrics()
+            throws TimeoutException
+    {
+        AccumulatingSplitMetrics metrics = new AccumulatingSplitMetrics(m -> {});
+        BlockSpiller spiller = mock(BlockSpiller.class);
+        when(spiller.spilled()).thenReturn(true);
+        when(spiller.getMetrics()).thenReturn(metrics);
+        ThrottlingInvoker invoker = ThrottlingInvoker.newBuilder()
+                .withDecrease(0.5)
+                .withIncrease(10)
+                .withInitialDelayMs(10)
+                .withMaxDelayMs(500)
+                .withFilter((Exception ex) -> ex instanceof FederationThrottleException)
+                .withSpiller(spiller)
+                .build();
+
+        AtomicLong count = new AtomicLong(0);
+        invoker.invoke(() -> {
+            if (count.incrementAndGet() < 4) {
+                throw new FederationThrottleException();
+            }
+            return count.get();
+        }, 10_000);
+
+        assertEquals(3, metrics.get(SplitMetric.THROTTLE_EVENTS));
+    }
+
+    @Test
+    public void invokeWithSharedCongestionController()
+            throws TimeoutException
+    {
+        ThrottlingInvoker.Builder builder = ThrottlingInvoker.newBuilder()
+                .withDecrease(0.5)
+                .withIncrease(10)
+                .withInitialDelayMs(10)
+                .withMaxDelayMs(500)
+                .withFilter((Exception ex) -> ex instanceof FederationThrottleException);
+        ThrottlingInvoker invoker1 = builder.withSharedCongestionController("invokeWithSharedCongestionController").build();
+        ThrottlingInvoker invoker2 = builder.withSharedCongestionController("invokeWithSharedCongestionController").build();
+        assertSame(invoker1.getCongestionController(), invoker2.getCongestionController());
+
+        AtomicLong count = new AtomicLong(0);
+        invoker1.invoke(() -> {
+            if (count.incrementAndGet() < 3) {
+                throw new FederationThrottleException();
+            }
+            return count.get();
+        }, 10_000);
+
+        //The throttling seen by the first invoker also slows down the second.
+        assertEquals(ThrottlingInvoker.State.AVOIDANCE, invoker2.getState());
+        assertEquals(10, invoker2.getDelay());
+        assertEquals(2, invoker2.getCongestionController().getThrottleCount());
+        assertEquals(3, invoker2.getCongestionController().getCallCount());
+        assertEquals(100D, invoker2.getCongestionController().getCurrentRate(), 0.0);
+
+        //Invokers that aren't given a controller still get their own.
+        ThrottlingInvoker invoker3 = ThrottlingInvoker.newBuilder()
+                .withDecrease(0.5)
+                .withIncrease(10)
+                .withInitialDelayMs(10)
+                .withMaxDelayMs(500)
+                .withFilter((Exception ex) -> ex instanceof FederationThrottleException)
+                .build();
+        assertEquals(ThrottlingInvoker.State.FAST_START, invoker3.getState());
+        assertEquals(0, invoker3.getDelay());
+    }
+
+    @Test
+    public void newDefaultBuilder()
+    {
+        ThrottlingInvoker invoker = ThrottlingInvoker.newDefaultBuilder((Exception ex) -> true,
+                com.google.common.collect.ImmutableMap.of("throttle_decrease_factor", "0.25", "throttle_jitter", "0"))
+                .build();
+        assertTrue(invoker.getCongestionController().toString().contains("decrease=0.25"));
+        assertTrue(invoker.getCongestionController().toString().contains("jitter=0.0"));
+    }
 }
@@ -0,0 +1,204 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2024 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.data;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class RecordPipelineTest
+{
+    private static final int RECORD_COUNT = 2_000;
+
+    private QueryStatusChecker queryStatusChecker;
+    private AtomicInteger closedDecoders;
+
+    @Before
+    public void setup()
+    {
+        queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+        closedDecoders = new AtomicInteger();
+    }
+
+    @Test
+    public void runReadsEveryRecord()
+    {
+        Set<String> written = new HashSet<>();
+        boolean completed = new RecordPipeline<Integer, String>("test", 3)
+                .run(new CountingSource(700), () -> decoder(-1), queryStatusChecker, written::add);
+
+        assertTrue(completed);
+        assertEquals(RECORD_COUNT, written.size());
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            assertTrue(written.contains("value" + i));
+        }
+        assertEquals(3, closedDecoders.get());
+    }
+
+    @Test
+    public void runKeepsOrderWithOneDecoder()
+    {
+        List<String> written = new ArrayList<>();
+        new RecordPipeline<Integer, String>("test", 1)
+                .run(new CountingSource(700), () -> decoder(-1), queryStatusChecker, written::add);
+
+        assertEquals(RECORD_COUNT, written.size());
+        for (int i = 0; i < RECORD_COUNT; i++) {
+            assertEquals("value" + i, written.get(i));
+        }
+    }
+
+    @Test
+    public void runRethrowsDecoderFailure()
+    {
+        try {
+            new RecordPipeline<Integer, String>("test", 2)
+                    .run(new CountingSource(700), () -> decoder(1_234), queryStatusChecker, record -> {});
+            fail("Expected the decoder's failure");
+        }
+        catch (IllegalStateException ex) {
+            assertEquals("bad record 1234", ex.getMessage());
+        }
+        assertEquals(2, closedDecoders.get());
+    }
+
+    @Test
+    public void runStopsWhenQueryIsNotRunning()
+    {
+        when(queryStatusChecker.isQueryRunning()).thenReturn(false);
+        CountingSource source = new CountingSource(700);
+
+        assertFalse(new RecordPipeline<Integer, String>("test", 2)
+                .run(source, () -> decoder(-1), queryStatusChecker, record -> {}));
+        assertTrue(source.wokenUp.get() > 0);
+    }
+
+    @Test
+    public void runWaitsForThePollerToExit()
+    {
+        //Ignores interrupts and only returns once it has been woken up twice, after the pipeline's shutdown timed out.
+        AtomicBoolean pollReturned = new AtomicBoolean(false);
+        CountingSource source = new CountingSource(700)
+        {
+            @Override
+            public List<Integer> poll()
+            {
+                while (wokenUp.get() < 2) {
+                    try {
+                        Thread.sleep(10);
+                    }
+                    catch (InterruptedException ex) {
+                        //Keep going.
+                    }
+                }
+                pollReturned.set(true);
+                return Collections.emptyList();
+            }
+        };
+        when(queryStatusChecker.isQueryRunning()).thenReturn(false);
+
+        new RecordPipeline<Integer, String>("test", 1, 100).run(source, () -> decoder(-1), queryStatusChecker, record -> {});
+
+        assertTrue(pollReturned.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructorRejectsNoDecoderThreads()
+    {
+        new RecordPipeline<Integer, String>("test", 0);
+    }
+
+    private RecordPipeline.RecordDecoder<Integer, String> decoder(int failOn)
+    {
+        return new RecordPipeline.RecordDecoder<Integer, String>()
+        {
+            @Override
+            public String decode(Integer raw)
+            {
+                if (raw == failOn) {
+                    throw new IllegalStateException("bad record " + raw);
+                }
+                return "value" + raw;
+            }
+
+            @Override
+            public void close()
+            {
+                closedDecoders.incrementAndGet();
+            }
+        };
+    }
+
+    /**
+     * Returns the numbers up to RECORD_COUNT in batches, with an empty batch in between.
+     */
+    private static class CountingSource
+            implements RecordPipeline.RecordSource<Integer>
+    {
+        final AtomicInteger wokenUp = new AtomicInteger();
+        private final int batchSize;
+        private int next;
+        private boolean empty;
+
+        CountingSource(int batchSize)
+        {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public List<Integer> poll()
+        {
+            if (next >= RECORD_COUNT) {
+                return null;
+            }
+            empty = !empty;
+            if (empty) {
+                return Collections.emptyList();
+            }
+            List<Integer> batch = new ArrayList<>();
+            for (; next < RECORD_COUNT && batch.size() < batchSize; next++) {
+                batch.add(next);
+            }
+            return batch;
+        }
+
+        @Override
+        public void wakeup()
+        {
+            wokenUp.incrementAndGet();
+        }
+    }
+}
@@ -23,6 +23,8 @@ package com.amazonaws.athena.connector.lambda.data;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connector.lambda.metrics.AccumulatingSplitMetrics;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetric;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
 import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
 import com.amazonaws.services.s3.AmazonS3;
@@ -196,6 +198,41 @@ public class S3BlockSpillerTest
         logger.info("spillTest: exit");
     }
 
+    @Test
+    public void spillRecordsMetrics()
+    {
+        when(mockS3.putObject(any())).thenReturn(mock(PutObjectResult.class));
+        AccumulatingSplitMetrics metrics = new AccumulatingSplitMetrics(m -> {});
+        SpillConfig config = SpillConfig.newBuilder()
+                .withEncryptionKey(keyFactory.create())
+                .withRequestId(requestId)
+                .withSpillLocation(spillConfig.getSpillLocation())
+                .withMaxBlockBytes(1)
+                .build();
+
+        try (S3BlockSpiller spiller = new S3BlockSpiller(mockS3, config, allocator, expected.getSchema(),
+                ConstraintEvaluator.emptyEvaluator(), com.google.common.collect.ImmutableMap.of(), metrics)) {
+            assertSame(metrics, spiller.getMetrics());
+            for (int i = 0; i < 3; i++) {
+                int value = i;
+                spiller.writeRows((Block block, int rowNum) -> {
+                    block.setValue("col1", rowNum, value);
+                    block.setValue("col2", rowNum, "VarChar" + value);
+                    return 1;
+                });
+            }
+        }
+
+        //Every row exceeds the 1 byte max block size and so is spilled in its own Block.
+        assertEquals(3, metrics.get(SplitMetric.ROWS_WRITTEN));
+        assertEquals(3, metrics.get(SplitMetric.BLOCKS_SPILLED));
+        assertTrue(metrics.get(SplitMetric.BYTES_WRITTEN) > 0);
+        assertTrue(metrics.get(SplitMetric.SERIALIZATION_TIME) > 0);
+        assertTrue(metrics.get(SplitMetric.ENCRYPTION_TIME) > 0);
+        assertTrue(metrics.get(SplitMetric.SPILLER_TIME) >= metrics.get(SplitMetric.ROW_CONVERSION_TIME));
+        verify(mockS3, times(3)).putObject(any());
+    }
+
     private class ByteHolder
     {
         private byte[] bytes;
@@ -396,6 +396,35 @@ public class GlueMetadataHandlerTest
         assertTrue(Types.getMinorTypeForArrowType(res.getSchema().findField("col7").getType()).equals(Types.MinorType.TIMESTAMPMILLITZ));
     }
 
+    @Test
+    public void doGetTableCached()
+            throws Exception
+    {
+        Table glueTable = new Table()
+                .withName(table)
+                .withParameters(new HashMap<>())
+                .withStorageDescriptor(new StorageDescriptor()
+                        .withColumns(new Column().withName("col1").withType("int")));
+        when(mockGlue.getTable(nullable(com.amazonaws.services.glue.model.GetTableRequest.class)))
+                .thenReturn(new GetTableResult().withTable(glueTable));
+        when(mockGlue.getDatabases(nullable(GetDatabasesRequest.class)))
+                .thenReturn(new GetDatabasesResult().withDatabaseList(new Database().withName(schema)));
+
+        GetTableRequest req = new GetTableRequest(IdentityUtil.fakeIdentity(), queryId, catalog, new TableName(schema, table), Collections.emptyMap());
+        GetTableResponse first = handler.doGetTable(allocator, req);
+        GetTableResponse second = handler.doGetTable(allocator, req);
+        assertEquals(first, second);
+        verify(mockGlue, times(1)).getTable(nullable(com.amazonaws.services.glue.model.GetTableRequest.class));
+
+        ListSchemasRequest listReq = new ListSchemasRequest(IdentityUtil.fakeIdentity(), queryId, catalog);
+        assertEquals(handler.doListSchemaNames(allocator, listReq), handler.doListSchemaNames(allocator, listReq));
+        verify(mockGlue, times(1)).getDatabases(nullable(GetDatabasesRequest.class));
+
+        handler.getMetadataCache().invalidateAll();
+        handler.doGetTable(allocator, req);
+        verify(mockGlue, times(2)).getTable(nullable(com.amazonaws.services.glue.model.GetTableRequest.class));
+    }
+
     @Test
     public void populateSourceTableFromLocation() {
         Map<String, String> params = new HashMap<>();
@@ -29,6 +29,7 @@ import com.amazonaws.athena.connector.lambda.data.UnitTestBlockUtils;
 import com.amazonaws.athena.connector.lambda.metadata.ListSchemasRequest;
 import com.amazonaws.athena.connector.lambda.request.FederationRequest;
 import com.amazonaws.athena.connector.lambda.serde.VersionedObjectMapperFactory;
+import com.amazonaws.athena.connector.lambda.udf.ThreadSafeFunction;
 import com.amazonaws.athena.connector.lambda.udf.UserDefinedFunctionRequest;
 import com.amazonaws.athena.connector.lambda.udf.UserDefinedFunctionResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -58,6 +59,10 @@ import java.io.ByteArrayOutputStream;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connector.lambda.udf.UserDefinedFunctionType.SCALAR;
@@ -67,6 +72,8 @@ import static org.junit.Assert.*;
 public class UserDefinedFunctionHandlerTest
 {
     private static final String COLUMN_PREFIX = "col_";
+    //Enough rows for the failing thread safe UDF to be split into several chunks.
+    private static final int FAILING_UDF_ROWS = 10_003;
 
     private TestUserDefinedFunctionHandler handler;
 
@@ -185,6 +192,100 @@ public class UserDefinedFunctionHandlerTest
         }
     }
 
+    @Test
+    public void testVectorizedInvocation()
+            throws Exception
+    {
+        int rowCount = 20;
+        UserDefinedFunctionRequest udfRequest = createUDFRequest(rowCount, Integer.class, "test_vectorized_udf", true, Integer.class, Integer.class);
+
+        UserDefinedFunctionResponse udfResponse = handler.processFunction(allocator, udfRequest);
+        Block responseBlock = udfResponse.getRecords();
+
+        assertEquals(1, handler.vectorizedCalls.get());
+        assertEquals(rowCount, responseBlock.getRowCount());
+        FieldReader fieldReader = responseBlock.getFieldReaders().get(0);
+        for (int pos = 0; pos < rowCount; ++pos) {
+            fieldReader.setPosition(pos);
+            assertEquals(handler.test_vectorized_udf(pos + 100, pos + 100), UnitTestBlockUtils.getValue(fieldReader, pos));
+        }
+    }
+
+    @Test
+    public void testVectorizedInvocationFallsBackForOtherTypes()
+            throws Exception
+    {
+        int rowCount = 20;
+        UserDefinedFunctionRequest udfRequest = createUDFRequest(rowCount, Double.class, "test_vectorized_udf", true, Double.class, Double.class);
+
+        UserDefinedFunctionResponse udfResponse = handler.processFunction(allocator, udfRequest);
+        Block responseBlock = udfResponse.getRecords();
+
+        assertEquals(0, handler.vectorizedCalls.get());
+        FieldReader fieldReader = responseBlock.getFieldReaders().get(0);
+        for (int pos = 0; pos < rowCount; ++pos) {
+            fieldReader.setPosition(pos);
+            assertEquals(handler.test_vectorized_udf(pos + 100.2, pos + 100.2), UnitTestBlockUtils.getValue(fieldReader, pos));
+        }
+    }
+
+    @Test
+    public void testParallelInvocation()
+            throws Exception
+    {
+        //Not a multiple of the chunk size or alignment so the last chunk is a partial one.
+        int rowCount = 10_003;
+        UserDefinedFunctionRequest udfRequest = createUDFRequest(rowCount, String.class, "test_thread_safe_udf", true, String.class, Integer.class);
+
+        UserDefinedFunctionResponse udfResponse = handler.processFunction(allocator, udfRequest);
+        Block responseBlock = udfResponse.getRecords();
+
+        assertTrue(handler.threadSafeCalls.size() > 1);
+        assertEquals(rowCount, responseBlock.getRowCount());
+        FieldReader fieldReader = responseBlock.getFieldReaders().get(0);
+        for (int pos = 0; pos < rowCount; ++pos) {
+            fieldReader.setPosition(pos);
+            assertEquals(handler.test_thread_safe_udf(pos + "-my-varchar", pos + 100), UnitTestBlockUtils.getValue(fieldReader, pos));
+        }
+    }
+
+    @Test
+    public void testParallelVectorizedInvocation()
+            throws Exception
+    {
+        int rowCount = 10_003;
+        UserDefinedFunctionRequest udfRequest = createUDFRequest(rowCount, Integer.class, "test_vectorized_udf", true, Integer.class, Integer.class);
+
+        UserDefinedFunctionResponse udfResponse = handler.processFunction(allocator, udfRequest);
+        Block responseBlock = udfResponse.getRecords();
+
+        assertEquals(4, handler.vectorizedCalls.get());
+        assertEquals(rowCount, responseBlock.getRowCount());
+        FieldReader fieldReader = responseBlock.getFieldReaders().get(0);
+        for (int pos = 0; pos < rowCount; ++pos) {
+            fieldReader.setPosition(pos);
+            assertEquals(handler.test_vectorized_udf(pos + 100, pos + 100), UnitTestBlockUtils.getValue(fieldReader, pos));
+        }
+    }
+
+    @Test
+    public void testParallelInvocationFailureWaitsForAllChunks()
+            throws Exception
+    {
+        UserDefinedFunctionRequest udfRequest = createUDFRequest(FAILING_UDF_ROWS, Integer.class, "test_failing_thread_safe_udf", true, Integer.class, Integer.class);
+
+        try {
+            handler.processFunction(allocator, udfRequest);
+            fail("Expected the failing chunk to fail the invocation.");
+        }
+        catch (RuntimeException e) {
+            //expected
+        }
+
+        //The last chunk was still running when the first row failed, it may not be left running on closed buffers.
+        assertEquals(0, handler.inFlightCalls.get());
+    }
+
     @Test
     public void testRequestTypeValidation()
             throws Exception
@@ -223,6 +324,21 @@ public class UserDefinedFunctionHandlerTest
         }
     }
 
+    @Test
+    public void testUdfClassCastExceptionIsNotATypeMismatch()
+    {
+        UserDefinedFunctionRequest udfRequest = createUDFRequest(20, Integer.class, "test_class_cast_udf", true, Integer.class, Integer.class);
+
+        try {
+            handler.processFunction(allocator, udfRequest);
+            fail("Expected the UDF's own failure.");
+        }
+        catch (Exception e) {
+            assertTrue(e.getCause() instanceof ClassCastException);
+            assertFalse(e.getMessage().contains("Expected function types"));
+        }
+    }
+
     private UserDefinedFunctionRequest createUDFRequest(int rowCount, Class returnType, String methodName, boolean nonNullData, Class... argumentTypes)
     {
         Schema inputSchema = buildSchema(argumentTypes);
@@ -354,16 +470,90 @@ public class UserDefinedFunctionHandlerTest
     private static class TestUserDefinedFunctionHandler
             extends UserDefinedFunctionHandler
     {
+        private final AtomicInteger vectorizedCalls = new AtomicInteger();
+        private final Map<Thread, Boolean> threadSafeCalls = new ConcurrentHashMap<>();
+        private final AtomicInteger inFlightCalls = new AtomicInteger();
+        private final CountDownLatch lastChunkStarted = new CountDownLatch(1);
+        private final CountDownLatch failed = new CountDownLatch(1);
+
         public TestUserDefinedFunctionHandler()
         {
             super("test_type");
         }
 
+        @Override
+        protected int getParallelism()
+        {
+            return 4;
+        }
+
+        @ThreadSafeFunction
+        public Integer test_failing_thread_safe_udf(Integer col1, Integer col2)
+                throws InterruptedException
+        {
+            inFlightCalls.incrementAndGet();
+            try {
+                if (col1 == 100) {
+                    //The first row of the first chunk fails, but only once the last chunk is busy with its last row.
+                    lastChunkStarted.await(1, TimeUnit.SECONDS);
+                    failed.countDown();
+                    throw new IllegalStateException("test failure");
+                }
+                if (col1 == 100 + FAILING_UDF_ROWS - 1) {
+                    //Keep the last chunk running past the failure.
+                    lastChunkStarted.countDown();
+                    failed.await(1, TimeUnit.SECONDS);
+                    Thread.sleep(200);
+                }
+                return col1 + col2;
+            }
+            finally {
+                inFlightCalls.decrementAndGet();
+            }
+        }
+
+        @ThreadSafeFunction
+        public String test_thread_safe_udf(String col1, Integer col2)
+        {
+            threadSafeCalls.put(Thread.currentThread(), true);
+            return col1 + ":" + col2;
+        }
+
+        public Integer test_vectorized_udf(Integer col1, Integer col2)
+        {
+            return col1 * col2;
+        }
+
+        public Double test_vectorized_udf(Double col1, Double col2)
+        {
+            return col1 * col2;
+        }
+
+        @ThreadSafeFunction
+        public void test_vectorized_udf(IntVector col1, IntVector col2, IntVector output)
+        {
+            vectorizedCalls.incrementAndGet();
+            for (int i = 0; i < col1.getValueCount(); i++) {
+                if (col1.isNull(i) || col2.isNull(i)) {
+                    output.setNull(i);
+                }
+                else {
+                    output.setSafe(i, col1.get(i) * col2.get(i));
+                }
+            }
+        }
+
         public Integer test_scalar_udf(Integer col1, Integer col2)
         {
             return col1 + col2;
         }
 
+        public Integer test_class_cast_udf(Integer col1, Integer col2)
+        {
+            Object value = String.valueOf(col1);
+            return (Integer) value + col2;
+        }
+
         public Boolean test_scalar_function_with_null_value(Integer col1)
         {
             if (col1 == null) {
@@ -0,0 +1,157 @@
+package com.amazonaws.athena.connector.lambda.metadata;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SchemaCacheTest
+{
+    private static final String CATALOG = "catalog";
+    private static final TableName TABLE = new TableName("schema", "table");
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private Schema loadSchema()
+    {
+        return SchemaBuilder.newBuilder()
+                .addField("col" + loads.incrementAndGet(), Types.MinorType.VARCHAR.getType())
+                .addMetadata("meta", "value")
+                .build();
+    }
+
+    @Test
+    public void getCachesSchema()
+    {
+        SchemaCache schemaCache = new SchemaCache(300, 10, null, null);
+        Schema schema = schemaCache.get(CATALOG, TABLE, null, this::loadSchema);
+        assertEquals(schema, schemaCache.get(CATALOG, TABLE, null, this::loadSchema));
+        assertEquals(1, loads.get());
+
+        //Different catalogs don't share entries.
+        schemaCache.get("otherCatalog", TABLE, null, this::loadSchema);
+        assertEquals(2, loads.get());
+
+        schemaCache.invalidate(CATALOG, TABLE);
+        schemaCache.get(CATALOG, TABLE, null, this::loadSchema);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void getReloadsChangedVersion()
+    {
+        SchemaCache schemaCache = new SchemaCache(300, 10, null, null);
+        schemaCache.get(CATALOG, TABLE, "1", this::loadSchema);
+        schemaCache.get(CATALOG, TABLE, "1", this::loadSchema);
+        assertEquals(1, loads.get());
+
+        Schema schema = schemaCache.get(CATALOG, TABLE, "2", this::loadSchema);
+        assertEquals(2, loads.get());
+        assertEquals("col2", schema.getFields().get(0).getName());
+    }
+
+    @Test
+    public void getWithCachingDisabled()
+    {
+        SchemaCache schemaCache = new SchemaCache(ImmutableMap.of(SchemaCache.SCHEMA_CACHE_TTL_SECONDS, "0"));
+        schemaCache.get(CATALOG, TABLE, null, this::loadSchema);
+        schemaCache.get(CATALOG, TABLE, null, this::loadSchema);
+        assertEquals(2, loads.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void getPropagatesLoaderFailure()
+    {
+        new SchemaCache(300, 10, null, null).get(CATALOG, TABLE, null, () -> {
+            throw new IllegalStateException("unable to infer schema");
+        });
+    }
+
+    @Test
+    public void getUsesPersistedFile()
+            throws Exception
+    {
+        String location = tempFolder.newFolder("schemas").getAbsolutePath();
+        Schema schema = new SchemaCache(300, 10, location, null).get(CATALOG, TABLE, "1", this::loadSchema);
+
+        //A new cache, e.g. in a new Lambda instance, uses the persisted schema.
+        SchemaCache coldCache = new SchemaCache(300, 10, location, null);
+        Schema persisted = coldCache.get(CATALOG, TABLE, "1", this::loadSchema);
+        assertEquals(1, loads.get());
+        assertEquals(schema, persisted);
+        assertEquals("value", persisted.getCustomMetadata().get("meta"));
+
+        //Unless the version has changed.
+        new SchemaCache(300, 10, location, null).get(CATALOG, TABLE, "2", this::loadSchema);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void getUsesPersistedS3Object()
+    {
+        Map<String, String> objects = new HashMap<>();
+        AmazonS3 amazonS3 = mock(AmazonS3.class);
+        when(amazonS3.putObject(eq("bucket"), anyString(), anyString())).thenAnswer(invocation -> {
+            objects.put(invocation.getArgument(1), invocation.getArgument(2));
+            return null;
+        });
+        when(amazonS3.getObjectAsString(eq("bucket"), anyString())).thenAnswer(invocation -> {
+            String value = objects.get(invocation.<String>getArgument(1));
+            if (value == null) {
+                AmazonS3Exception ex = new AmazonS3Exception("Not Found");
+                ex.setStatusCode(404);
+                throw ex;
+            }
+            return value;
+        });
+
+        Schema schema = new SchemaCache(300, 10, "s3://bucket/prefix", amazonS3).get(CATALOG, TABLE, null, this::loadSchema);
+        assertEquals(1, objects.size());
+        assertEquals(true, objects.keySet().iterator().next().startsWith("prefix/"));
+
+        Schema persisted = new SchemaCache(300, 10, "s3://bucket/prefix", amazonS3).get(CATALOG, TABLE, null, this::loadSchema);
+        assertEquals(1, loads.get());
+        assertEquals(schema, persisted);
+        verify(amazonS3).putObject(eq("bucket"), anyString(), anyString());
+    }
+}
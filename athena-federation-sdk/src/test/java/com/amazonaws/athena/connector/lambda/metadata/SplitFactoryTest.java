@@ -0,0 +1,161 @@
+package com.amazonaws.athena.connector.lambda.metadata;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
+import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
+import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SplitFactoryTest
+{
+    private final LocalKeyFactory keyFactory = new LocalKeyFactory();
+    private final AtomicInteger keys = new AtomicInteger();
+    private GetSplitsRequest request;
+
+    @Before
+    public void setUp()
+    {
+        request = mock(GetSplitsRequest.class);
+        when(request.getCatalogName()).thenReturn("catalog");
+        when(request.getQueryId()).thenReturn("queryId");
+    }
+
+    private SpillLocation makeSpillLocation(MetadataRequest request)
+    {
+        return S3SpillLocation.newBuilder()
+                .withBucket("bucket")
+                .withPrefix("prefix")
+                .withQueryId(request.getQueryId())
+                .withSplitId(UUID.randomUUID().toString())
+                .build();
+    }
+
+    private EncryptionKey makeEncryptionKey()
+    {
+        keys.incrementAndGet();
+        return keyFactory.create();
+    }
+
+    @Test
+    public void makeSplits()
+    {
+        SplitFactory splitFactory = new SplitFactory(this::makeSpillLocation, this::makeEncryptionKey, 4, 1_000_000);
+        GetSplitsResponse response = splitFactory.makeSplits(request, 0, 200, 1_000,
+                (index, builder) -> builder.add("partition", String.valueOf(index)));
+
+        assertNull(response.getContinuationToken());
+        assertEquals(200, response.getSplits().size());
+        assertEquals(200, keys.get());
+
+        Set<String> partitions = new HashSet<>();
+        Set<SpillLocation> locations = new HashSet<>();
+        Set<ByteBuffer> nonces = new HashSet<>();
+        for (Split next : response.getSplits()) {
+            partitions.add(next.getProperty("partition"));
+            locations.add(next.getSpillLocation());
+            nonces.add(ByteBuffer.wrap(next.getEncryptionKey().getNonce()));
+        }
+        assertEquals(200, partitions.size());
+        assertEquals(200, locations.size());
+        assertEquals(200, nonces.size());
+    }
+
+    @Test
+    public void makeSplitsPagesByCount()
+    {
+        SplitFactory splitFactory = new SplitFactory(this::makeSpillLocation, this::makeEncryptionKey, 4, 1_000_000);
+        GetSplitsResponse response = splitFactory.makeSplits(request, 0, 250, 100, (index, builder) -> {});
+        assertEquals(100, response.getSplits().size());
+        assertEquals("100", response.getContinuationToken());
+
+        when(request.hasContinuationToken()).thenReturn(true);
+        when(request.getContinuationToken()).thenReturn(response.getContinuationToken());
+        int start = SplitFactory.decodeContinuationToken(request);
+        response = splitFactory.makeSplits(request, start, 250, 100, (index, builder) -> {});
+        assertEquals("200", response.getContinuationToken());
+
+        response = splitFactory.makeSplits(request, 200, 250, 100, (index, builder) -> {});
+        assertEquals(50, response.getSplits().size());
+        assertNull(response.getContinuationToken());
+    }
+
+    @Test
+    public void makeSplitsPagesBySize()
+    {
+        //Each split is estimated to be at least a few hundred bytes so 10KB holds a handful of them.
+        SplitFactory splitFactory = new SplitFactory(this::makeSpillLocation, this::makeEncryptionKey, 1, 10_000);
+        GetSplitsResponse response = splitFactory.makeSplits(request, 0, 1_000, 1_000,
+                (index, builder) -> builder.add("partition", String.valueOf(index)));
+
+        assertNotNull(response.getContinuationToken());
+        int pageSize = response.getSplits().size();
+        assertEquals(String.valueOf(pageSize), response.getContinuationToken());
+        assertEquals(true, pageSize > 1 && pageSize < 100);
+    }
+
+    @Test
+    public void makeSplitsOnlyMakesKeysForSplitsInPage()
+    {
+        //A 10KB page holds far fewer splits than a full batch, keys must not be made for the splits that don't fit.
+        SplitFactory splitFactory = new SplitFactory(this::makeSpillLocation, this::makeEncryptionKey, 4, 10_000);
+        GetSplitsResponse response = splitFactory.makeSplits(request, 0, 1_000, 1_000,
+                (index, builder) -> builder.add("partition", String.valueOf(index)));
+
+        int pageSize = response.getSplits().size();
+        assertEquals(String.valueOf(pageSize), response.getContinuationToken());
+        assertTrue("made " + keys.get() + " keys for " + pageSize + " splits", keys.get() <= pageSize + 1);
+    }
+
+    @Test
+    public void makeSplitsWithoutEncryption()
+    {
+        SplitFactory splitFactory = new SplitFactory(this::makeSpillLocation, () -> null, 4, 1_000_000);
+        GetSplitsResponse response = splitFactory.makeSplits(request, 0, 10, 1_000, (index, builder) -> {});
+        assertEquals(10, response.getSplits().size());
+        response.getSplits().forEach(next -> assertNull(next.getEncryptionKey()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void makeSplitsPropagatesKeyFailure()
+    {
+        SplitFactory splitFactory = new SplitFactory(this::makeSpillLocation, () -> {
+            throw new IllegalStateException("KMS unavailable");
+        }, 4, 1_000_000);
+        splitFactory.makeSplits(request, 0, 10, 1_000, (index, builder) -> {});
+    }
+}
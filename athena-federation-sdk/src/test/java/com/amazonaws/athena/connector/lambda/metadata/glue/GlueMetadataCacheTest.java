@@ -0,0 +1,134 @@
+package com.amazonaws.athena.connector.lambda.metadata.glue;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
+import com.amazonaws.services.glue.model.Database;
+import com.amazonaws.services.glue.model.EntityNotFoundException;
+import com.amazonaws.services.glue.model.GetTablesResult;
+import com.amazonaws.services.glue.model.Table;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.Types;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class GlueMetadataCacheTest
+{
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private GetTableResponse convert(Table table)
+    {
+        loads.incrementAndGet();
+        return new GetTableResponse("catalog", new TableName("db", table.getName()),
+                SchemaBuilder.newBuilder().addField("col1", Types.MinorType.INT.getType()).build(),
+                Collections.emptySet());
+    }
+
+    @Test
+    public void getCachesGlueResponses()
+            throws Exception
+    {
+        GlueMetadataCache cache = new GlueMetadataCache(60, 10, false);
+
+        List<Database> databases = Collections.singletonList(new Database().withName("db"));
+        cache.getDatabases("account", () -> {
+            loads.incrementAndGet();
+            return databases;
+        });
+        assertSame(databases, cache.getDatabases("account", () -> {
+            throw new IllegalStateException("should be cached");
+        }));
+
+        GetTablesResult page = new GetTablesResult().withNextToken("token");
+        cache.getTables("account", "db", null, 3, () -> page);
+        assertSame(page, cache.getTables("account", "db", null, 3, GetTablesResult::new));
+        //Pages are cached per token and page size.
+        cache.getTables("account", "db", "token", 3, () -> {
+            loads.incrementAndGet();
+            return new GetTablesResult();
+        });
+
+        Table table = new Table().withName("table");
+        cache.getTable("account", "db", "table", () -> table);
+        assertSame(table, cache.getTable("account", "db", "table", Table::new));
+        assertEquals(2, loads.get());
+
+        cache.invalidateAll();
+        cache.getTable("account", "db", "table", () -> {
+            loads.incrementAndGet();
+            return table;
+        });
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void getConvertedTableChecksUpdateTime()
+            throws Exception
+    {
+        GlueMetadataCache cache = new GlueMetadataCache(60, 10, true);
+        Table table = new Table().withName("table").withUpdateTime(new Date(1_000)).withVersionId("1");
+
+        GetTableResponse converted = cache.getConvertedTable("account", "db", "table", table, () -> convert(table));
+        assertSame(converted, cache.getConvertedTable("account", "db", "table", table, () -> convert(table)));
+        assertEquals(1, loads.get());
+
+        Table updated = new Table().withName("table").withUpdateTime(new Date(2_000)).withVersionId("2");
+        cache.getConvertedTable("account", "db", "table", updated, () -> convert(updated));
+        assertEquals(2, loads.get());
+
+        //With UpdateTime validation tables are always read from Glue.
+        cache.getTable("account", "db", "table", () -> updated);
+        cache.getTable("account", "db", "table", () -> {
+            loads.incrementAndGet();
+            return updated;
+        });
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void getWithCachingDisabled()
+            throws Exception
+    {
+        GlueMetadataCache cache = new GlueMetadataCache(ImmutableMap.of(GlueMetadataCache.GLUE_CACHE_TTL_SECONDS, "0"));
+        Table table = new Table().withName("table");
+        cache.getConvertedTable("account", "db", "table", table, () -> convert(table));
+        cache.getConvertedTable("account", "db", "table", table, () -> convert(table));
+        assertEquals(2, loads.get());
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void getPropagatesGlueFailure()
+            throws Exception
+    {
+        new GlueMetadataCache(60, 10, false).getTable("account", "db", "missing", () -> {
+            throw new EntityNotFoundException("missing");
+        });
+    }
+}
@@ -0,0 +1,143 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.metrics;
+
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
+import com.amazonaws.athena.connector.lambda.security.IdentityUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EmfMetricsPublisherTest
+{
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private ReadRecordsRequest request;
+
+    @Before
+    public void setup()
+    {
+        request = new ReadRecordsRequest(IdentityUtil.fakeIdentity(),
+                "catalog",
+                "queryId",
+                new TableName("schema", "table"),
+                SchemaBuilder.newBuilder().addIntField("col1").build(),
+                Split.newBuilder(null, null).add("partition", "p1").build(),
+                new Constraints(new HashMap<>(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT),
+                100_000_000L,
+                100_000_000L);
+    }
+
+    @Test
+    public void publishesOneRecordPerSplit()
+            throws Exception
+    {
+        EmfMetricsPublisher publisher = new EmfMetricsPublisher(ImmutableMap.of(EmfMetricsPublisher.METRICS_NAMESPACE, "MyNamespace"),
+                new PrintStream(out, true, StandardCharsets.UTF_8.name()));
+
+        SplitMetrics metrics = publisher.newSplitMetrics(request);
+        assertTrue(metrics.isEnabled());
+        metrics.add(SplitMetric.S3_PUT_TIME, 1_500_000);
+        metrics.add(SplitMetric.S3_PUT_TIME, 1_000_000);
+        metrics.add(SplitMetric.ROWS_WRITTEN, 42);
+        metrics.max(SplitMetric.ALLOCATOR_PEAK_BYTES, 2048);
+        metrics.max(SplitMetric.ALLOCATOR_PEAK_BYTES, 1024);
+        metrics.close();
+        //Metrics are only published once, and ignore updates after being published.
+        metrics.add(SplitMetric.ROWS_WRITTEN, 1);
+        metrics.close();
+
+        String[] lines = out.toString(StandardCharsets.UTF_8.name()).split("\n");
+        assertEquals(1, lines.length);
+        JsonNode record = new ObjectMapper().readTree(lines[0]);
+
+        JsonNode directive = record.get("_aws").get("CloudWatchMetrics").get(0);
+        assertEquals("MyNamespace", directive.get("Namespace").asText());
+        assertEquals("Catalog", directive.get("Dimensions").get(0).get(0).asText());
+        assertEquals("Table", directive.get("Dimensions").get(0).get(1).asText());
+        assertEquals(SplitMetric.values().length, directive.get("Metrics").size());
+        assertEquals("S3PutTime", directive.get("Metrics").get(SplitMetric.S3_PUT_TIME.ordinal()).get("Name").asText());
+        assertEquals("Milliseconds", directive.get("Metrics").get(SplitMetric.S3_PUT_TIME.ordinal()).get("Unit").asText());
+        assertTrue(record.get("_aws").get("Timestamp").isNumber());
+
+        assertEquals("catalog", record.get("Catalog").asText());
+        assertEquals("schema.table", record.get("Table").asText());
+        assertEquals("queryId", record.get("QueryId").asText());
+        assertEquals("p1", record.get("SplitProperties").get("partition").asText());
+        assertEquals(2.5D, record.get("S3PutTime").asDouble(), 0.0);
+        assertEquals(42, record.get("RowsWritten").asLong());
+        assertEquals(2048, record.get("AllocatorPeakBytes").asLong());
+        assertEquals(0, record.get("BlocksSpilled").asLong());
+    }
+
+    @Test
+    public void fromConfig()
+    {
+        assertSame(NoOpMetricsPublisher.INSTANCE, MetricsPublisher.fromConfig(ImmutableMap.of()));
+        assertSame(NoOpMetricsPublisher.INSTANCE, MetricsPublisher.fromConfig(ImmutableMap.of(MetricsPublisher.METRICS_PUBLISHER, "none")));
+        assertFalse(NoOpMetricsPublisher.INSTANCE.newSplitMetrics(request).isEnabled());
+        assertTrue(MetricsPublisher.fromConfig(ImmutableMap.of(MetricsPublisher.METRICS_PUBLISHER, "EMF")) instanceof EmfMetricsPublisher);
+
+        MetricsPublisher custom = MetricsPublisher.fromConfig(ImmutableMap.of(MetricsPublisher.METRICS_PUBLISHER, CustomPublisher.class.getName()));
+        assertTrue(custom instanceof CustomPublisher);
+        assertEquals(CustomPublisher.class.getName(), ((CustomPublisher) custom).configOptions.get(MetricsPublisher.METRICS_PUBLISHER));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fromConfigUnknownPublisher()
+    {
+        MetricsPublisher.fromConfig(ImmutableMap.of(MetricsPublisher.METRICS_PUBLISHER, String.class.getName()));
+    }
+
+    public static class CustomPublisher
+            implements MetricsPublisher
+    {
+        private final Map<String, String> configOptions;
+
+        public CustomPublisher(Map<String, String> configOptions)
+        {
+            this.configOptions = configOptions;
+        }
+
+        @Override
+        public SplitMetrics newSplitMetrics(ReadRecordsRequest request)
+        {
+            return NoOpSplitMetrics.INSTANCE;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.amazonaws.athena.connector.lambda.security;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AesGcmCipherEngineTest
+{
+    private static final byte[] CLEAR = "some spilled block bytes".getBytes(StandardCharsets.UTF_8);
+
+    private final EncryptionKeyFactory keyFactory = new LocalKeyFactory();
+
+    @Test
+    public void defaultPrefersSunJce()
+    {
+        assertEquals(AesGcmCipherEngine.SUN_JCE, AesGcmCipherEngine.getDefault().getProvider());
+    }
+
+    @Test
+    public void providersAreInterchangeable()
+    {
+        AesGcmCipherEngine sunJce = new AesGcmCipherEngine(AesGcmCipherEngine.SUN_JCE);
+        AesGcmCipherEngine bouncyCastle = new AesGcmCipherEngine(AesGcmCipherEngine.BOUNCY_CASTLE);
+        EncryptionKey key = keyFactory.create();
+
+        byte[] cipherText = sunJce.encrypt(key, CLEAR, 0, CLEAR.length);
+        assertArrayEquals(cipherText, bouncyCastle.encrypt(key, CLEAR, 0, CLEAR.length));
+        assertArrayEquals(CLEAR, bouncyCastle.decrypt(key, cipherText));
+        assertArrayEquals(CLEAR, sunJce.decrypt(key, cipherText));
+    }
+
+    @Test
+    public void encryptReusingKey()
+    {
+        AesGcmCipherEngine engine = new AesGcmCipherEngine(AesGcmCipherEngine.SUN_JCE);
+        EncryptionKey key = keyFactory.create();
+
+        //Spillers encrypt every block of a split with the same key, each with its own Cipher.
+        byte[] first = engine.encrypt(key, CLEAR, 0, CLEAR.length);
+        byte[] second = engine.encrypt(key, CLEAR, 0, CLEAR.length);
+        assertArrayEquals(first, second);
+        assertArrayEquals(CLEAR, engine.decrypt(key, second));
+    }
+
+    @Test
+    public void encryptRange()
+    {
+        AesGcmCipherEngine engine = AesGcmCipherEngine.getDefault();
+        EncryptionKey key = keyFactory.create();
+
+        byte[] cipherText = engine.encrypt(key, CLEAR, 5, 7);
+        assertArrayEquals("spilled".getBytes(StandardCharsets.UTF_8), engine.decrypt(key, cipherText));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void decryptTampered()
+    {
+        AesGcmCipherEngine engine = AesGcmCipherEngine.getDefault();
+        EncryptionKey key = keyFactory.create();
+
+        byte[] cipherText = engine.encrypt(key, CLEAR, 0, CLEAR.length);
+        cipherText[0] ^= 1;
+        engine.decrypt(key, cipherText);
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void encryptInvalidNonce()
+    {
+        EncryptionKey key = keyFactory.create();
+        AesGcmCipherEngine.getDefault().encrypt(new EncryptionKey(key.getKey(), new byte[4]), CLEAR, 0, CLEAR.length);
+    }
+
+    @Test
+    public void encryptInvalidKey()
+    {
+        EncryptionKey key = keyFactory.create();
+        try {
+            AesGcmCipherEngine.getDefault().encrypt(new EncryptionKey(new byte[5], key.getNonce()), CLEAR, 0, CLEAR.length);
+            fail("Expected an invalid key to fail.");
+        }
+        catch (RuntimeException ex) {
+            assertTrue(ex.getCause() instanceof InvalidKeyException);
+        }
+    }
+
+    @Test
+    public void decryptInvalidKeyThenValidKey()
+    {
+        AesGcmCipherEngine engine = new AesGcmCipherEngine(AesGcmCipherEngine.SUN_JCE);
+        EncryptionKey key = keyFactory.create();
+        byte[] cipherText = engine.encrypt(key, CLEAR, 0, CLEAR.length);
+
+        try {
+            engine.decrypt(new EncryptionKey(new byte[5], key.getNonce()), cipherText);
+            fail("Expected an invalid key to fail.");
+        }
+        catch (RuntimeException ex) {
+            assertTrue(ex.getCause() instanceof InvalidKeyException);
+        }
+        //The failed init leaves this thread's cached Cipher usable.
+        assertArrayEquals(CLEAR, engine.decrypt(key, cipherText));
+    }
+
+    @Test
+    public void concurrentUse()
+            throws Exception
+    {
+        AesGcmCipherEngine engine = AesGcmCipherEngine.getDefault();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> {
+                    EncryptionKey key = keyFactory.create();
+                    byte[] cipherText = engine.encrypt(key, CLEAR, 0, CLEAR.length);
+                    return Arrays.equals(CLEAR, engine.decrypt(key, cipherText));
+                }));
+            }
+            for (Future<Boolean> next : results) {
+                assertEquals(true, next.get());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+}
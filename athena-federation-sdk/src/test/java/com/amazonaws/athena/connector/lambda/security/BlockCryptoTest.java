@@ -24,6 +24,8 @@ import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.data.BlockUtils;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.metrics.AccumulatingSplitMetrics;
+import com.amazonaws.athena.connector.lambda.metrics.SplitMetric;
 import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.junit.After;
@@ -71,4 +73,31 @@ public class BlockCryptoTest
         Block actual = crypto.decrypt(key, cypher, schema);
         assertEquals(expected, actual);
     }
+
+    @Test
+    public void encryptRecordsSplitMetrics()
+    {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addField("col1", new ArrowType.Int(32, true))
+                .build();
+        Block expected = allocator.createBlock(schema);
+        BlockUtils.setValue(expected.getFieldVector("col1"), 0, 100);
+        expected.setRowCount(1);
+
+        AccumulatingSplitMetrics aesMetrics = new AccumulatingSplitMetrics(metrics -> {});
+        AesGcmBlockCrypto aesCrypto = new AesGcmBlockCrypto(allocator);
+        EncryptionKey key = keyFactory.create();
+        byte[] cypher = aesCrypto.encrypt(key, expected, aesMetrics);
+        assertEquals(expected, aesCrypto.decrypt(key, cypher, schema));
+        assertTrue(aesMetrics.get(SplitMetric.SERIALIZATION_TIME) > 0);
+        assertTrue(aesMetrics.get(SplitMetric.ENCRYPTION_TIME) > 0);
+
+        AccumulatingSplitMetrics noOpMetrics = new AccumulatingSplitMetrics(metrics -> {});
+        NoOpBlockCrypto noOpCrypto = new NoOpBlockCrypto(allocator);
+        byte[] clear = noOpCrypto.encrypt(null, expected, noOpMetrics);
+        assertArrayEquals(noOpCrypto.encrypt(null, expected), clear);
+        assertEquals(expected, noOpCrypto.decrypt(null, clear, schema));
+        assertTrue(noOpMetrics.get(SplitMetric.SERIALIZATION_TIME) > 0);
+        assertEquals(0, noOpMetrics.get(SplitMetric.ENCRYPTION_TIME));
+    }
 }
@@ -0,0 +1,138 @@
+package com.amazonaws.athena.connector.lambda.security;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.services.kms.AWSKMS;
+import com.amazonaws.services.kms.model.GenerateDataKeyRequest;
+import com.amazonaws.services.kms.model.GenerateDataKeyResult;
+import com.amazonaws.services.kms.model.GenerateRandomRequest;
+import com.amazonaws.services.kms.model.GenerateRandomResult;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class KmsKeyFactoryTest
+{
+    private final Random random = new Random();
+    private AWSKMS kmsClient;
+
+    @Before
+    public void setup()
+    {
+        kmsClient = mock(AWSKMS.class);
+        when(kmsClient.generateDataKey(any(GenerateDataKeyRequest.class))).thenAnswer(invocation ->
+                new GenerateDataKeyResult().withPlaintext(ByteBuffer.wrap(randomBytes(AesGcmBlockCrypto.KEY_BYTES))));
+        when(kmsClient.generateRandom(any(GenerateRandomRequest.class))).thenAnswer(invocation ->
+                new GenerateRandomResult().withPlaintext(ByteBuffer.wrap(randomBytes(AesGcmBlockCrypto.NONCE_BYTES))));
+    }
+
+    @Test
+    public void createWithoutDerivation()
+    {
+        KmsKeyFactory keyFactory = new KmsKeyFactory(kmsClient, "keyId");
+        keyFactory.create();
+        keyFactory.create();
+
+        verify(kmsClient, times(2)).generateDataKey(any(GenerateDataKeyRequest.class));
+        verify(kmsClient, times(2)).generateRandom(any(GenerateRandomRequest.class));
+    }
+
+    @Test
+    public void createDerivesUniqueKeys()
+    {
+        KmsKeyFactory keyFactory = new KmsKeyFactory(kmsClient, "keyId", 1_000, TimeUnit.MINUTES.toMillis(5));
+
+        Set<ByteBuffer> keys = new HashSet<>();
+        Set<ByteBuffer> nonces = new HashSet<>();
+        for (int i = 0; i < 1_000; i++) {
+            EncryptionKey key = keyFactory.create();
+            assertEquals(AesGcmBlockCrypto.KEY_BYTES, key.getKey().length);
+            assertEquals(AesGcmBlockCrypto.NONCE_BYTES, key.getNonce().length);
+            keys.add(ByteBuffer.wrap(key.getKey()));
+            nonces.add(ByteBuffer.wrap(key.getNonce()));
+        }
+
+        assertEquals(1_000, keys.size());
+        assertEquals(1_000, nonces.size());
+        verify(kmsClient, times(1)).generateDataKey(any(GenerateDataKeyRequest.class));
+        verify(kmsClient, never()).generateRandom(any(GenerateRandomRequest.class));
+    }
+
+    @Test
+    public void createRotatesDataKey()
+    {
+        KmsKeyFactory keyFactory = new KmsKeyFactory(kmsClient, "keyId", 10, TimeUnit.MINUTES.toMillis(5));
+        for (int i = 0; i < 25; i++) {
+            keyFactory.create();
+        }
+        verify(kmsClient, times(3)).generateDataKey(any(GenerateDataKeyRequest.class));
+
+        //A data key which has expired is replaced regardless of how many keys were derived from it.
+        KmsKeyFactory expiringKeyFactory = new KmsKeyFactory(kmsClient, "keyId", 10, 0);
+        expiringKeyFactory.create();
+        expiringKeyFactory.create();
+        verify(kmsClient, times(5)).generateDataKey(any(GenerateDataKeyRequest.class));
+    }
+
+    @Test
+    public void derivedKeyEncryptsBlock()
+    {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addField("col1", new ArrowType.Int(32, true))
+                .build();
+
+        try (BlockAllocatorImpl allocator = new BlockAllocatorImpl()) {
+            Block expected = allocator.createBlock(schema);
+            BlockUtils.setValue(expected.getFieldVector("col1"), 0, 100);
+            expected.setRowCount(1);
+
+            EncryptionKey key = new KmsKeyFactory(kmsClient, "keyId", 10, TimeUnit.MINUTES.toMillis(5)).create();
+            AesGcmBlockCrypto crypto = new AesGcmBlockCrypto(allocator);
+            assertEquals(expected, crypto.decrypt(key, crypto.encrypt(key, expected), schema));
+        }
+    }
+
+    private byte[] randomBytes(int length)
+    {
+        byte[] bytes = new byte[length];
+        random.nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,141 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2020 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.serde;
+
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsResponse;
+import com.amazonaws.athena.connector.lambda.request.FederationResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.vector.ipc.WriteChannel;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
+import org.apache.arrow.vector.ipc.message.MessageSerializer;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ArrowRecordBatchStreamReaderTest
+{
+    //Large enough that the decode buffer has to grow several times.
+    private static final int NUM_ROWS = 100_000;
+
+    @Test
+    public void roundTripLargeBlock()
+            throws IOException
+    {
+        for (int version = 4; version <= 6; version++) {
+            try (BlockAllocatorImpl writeAllocator = new BlockAllocatorImpl();
+                    BlockAllocatorImpl readAllocator = new BlockAllocatorImpl()) {
+                Schema schema = SchemaBuilder.newBuilder()
+                        .addField("col1", Types.MinorType.INT.getType())
+                        .addField("col2", Types.MinorType.VARCHAR.getType())
+                        .build();
+                Block block = writeAllocator.createBlock(schema);
+                for (int i = 0; i < NUM_ROWS; i++) {
+                    BlockUtils.setValue(block.getFieldVector("col1"), i, i);
+                    BlockUtils.setValue(block.getFieldVector("col2"), i, "value_" + i);
+                }
+                block.setRowCount(NUM_ROWS);
+
+                ObjectMapper mapper = VersionedObjectMapperFactory.getShared(version);
+                byte[] serialized = mapper.writeValueAsBytes(new ReadRecordsResponse("catalog", block));
+                ReadRecordsResponse actual = VersionedObjectMapperFactory
+                        .createReader(mapper, FederationResponse.class, readAllocator).readValue(serialized);
+
+                assertEquals("version " + version, block, actual.getRecords());
+                assertEquals(NUM_ROWS, actual.getRecordCount());
+            }
+        }
+    }
+
+    @Test
+    public void readSmallBlockOnlyKeepsItsSize()
+            throws IOException
+    {
+        for (int version = 4; version <= 6; version++) {
+            try (BlockAllocatorImpl writeAllocator = new BlockAllocatorImpl();
+                    BlockAllocatorImpl readAllocator = new BlockAllocatorImpl()) {
+                Schema schema = SchemaBuilder.newBuilder().addField("col1", Types.MinorType.INT.getType()).build();
+                Block block = writeAllocator.createBlock(schema);
+                BlockUtils.setValue(block.getFieldVector("col1"), 0, 1);
+                block.setRowCount(1);
+
+                ObjectMapper mapper = VersionedObjectMapperFactory.getShared(version);
+                byte[] serialized = mapper.writeValueAsBytes(new ReadRecordsResponse("catalog", block));
+                ReadRecordsResponse actual = VersionedObjectMapperFactory
+                        .createReader(mapper, FederationResponse.class, readAllocator).readValue(serialized);
+
+                assertEquals("version " + version, block, actual.getRecords());
+                //The block's vectors are slices of the buffer its batch was decoded into, which for a single row is a
+                //few hundred bytes and must not keep a larger buffer alive.
+                assertTrue("version " + version + " used " + readAllocator.getUsage(), readAllocator.getUsage() <= 1024);
+            }
+        }
+    }
+
+    @Test
+    public void readEmptyValue()
+            throws IOException
+    {
+        try (BlockAllocatorImpl allocator = new BlockAllocatorImpl()) {
+            JsonParser jparser = new JsonFactory().createParser("\"\"");
+            jparser.nextToken();
+            assertNull(ArrowRecordBatchStreamReader.read(jparser, allocator));
+            assertEquals(0, allocator.getUsage());
+        }
+    }
+
+    @Test
+    public void readRejectsNonRecordBatch()
+            throws IOException
+    {
+        Schema schema = SchemaBuilder.newBuilder().addField("col1", Types.MinorType.INT.getType()).build();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MessageSerializer.serialize(new WriteChannel(Channels.newChannel(out)), schema);
+
+        try (BlockAllocatorImpl allocator = new BlockAllocatorImpl()) {
+            JsonParser jparser = new JsonFactory().createParser("\"" + Base64.getEncoder().encodeToString(out.toByteArray()) + "\"");
+            jparser.nextToken();
+            try {
+                ArrowRecordBatch batch = ArrowRecordBatchStreamReader.read(jparser, allocator);
+                fail("Expected an exception but got " + batch);
+            }
+            catch (RuntimeException ex) {
+                //The partially decoded buffer must have been released.
+                assertEquals(0, allocator.getUsage());
+            }
+        }
+    }
+}
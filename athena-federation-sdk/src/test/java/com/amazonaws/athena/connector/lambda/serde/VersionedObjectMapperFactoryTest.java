@@ -0,0 +1,82 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2020 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.serde;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.handlers.SerDeVersion;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsResponse;
+import com.amazonaws.athena.connector.lambda.request.FederationResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VersionedObjectMapperFactoryTest
+{
+    @Test
+    public void getSharedReusesMapper()
+    {
+        assertSame(VersionedObjectMapperFactory.getShared(), VersionedObjectMapperFactory.getShared(SerDeVersion.SERDE_VERSION));
+        assertSame(VersionedObjectMapperFactory.getShared(2), VersionedObjectMapperFactory.getShared(2));
+        assertNotSame(VersionedObjectMapperFactory.getShared(2), VersionedObjectMapperFactory.getShared(3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getSharedUnknownVersion()
+    {
+        VersionedObjectMapperFactory.getShared(SerDeVersion.SERDE_VERSION + 1);
+    }
+
+    @Test
+    public void createReaderUsesRequestAllocator()
+            throws IOException
+    {
+        for (int version = 2; version <= SerDeVersion.SERDE_VERSION; version++) {
+            try (BlockAllocatorImpl writeAllocator = new BlockAllocatorImpl();
+                    BlockAllocatorImpl firstAllocator = new BlockAllocatorImpl();
+                    BlockAllocatorImpl secondAllocator = new BlockAllocatorImpl()) {
+                Block block = BlockUtils.newBlock(writeAllocator, "col1", new ArrowType.Int(32, true), ImmutableList.of(10, 20));
+                ObjectMapper mapper = VersionedObjectMapperFactory.getShared(version);
+                byte[] serialized = mapper.writeValueAsBytes(new ReadRecordsResponse("catalog", block));
+
+                //The same shared mapper deserializes each request's Blocks using that request's allocator.
+                ReadRecordsResponse first = VersionedObjectMapperFactory
+                        .createReader(mapper, FederationResponse.class, firstAllocator).readValue(serialized);
+                assertEquals(2, first.getRecordCount());
+                assertTrue(firstAllocator.getUsage() > 0);
+                assertEquals(0, secondAllocator.getUsage());
+
+                ReadRecordsResponse second = VersionedObjectMapperFactory
+                        .createReader(mapper, FederationResponse.class, secondAllocator).readValue(serialized);
+                assertEquals(block, second.getRecords());
+                assertTrue(secondAllocator.getUsage() > 0);
+            }
+        }
+    }
+}
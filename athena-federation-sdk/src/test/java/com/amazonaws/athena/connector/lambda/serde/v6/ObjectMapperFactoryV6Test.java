@@ -0,0 +1,209 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 - 2020 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda.serde.v6;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsResponse;
+import com.amazonaws.athena.connector.lambda.request.FederationRequest;
+import com.amazonaws.athena.connector.lambda.request.FederationResponse;
+import com.amazonaws.athena.connector.lambda.request.PingRequest;
+import com.amazonaws.athena.connector.lambda.request.PingResponse;
+import com.amazonaws.athena.connector.lambda.serde.VersionedObjectMapperFactory;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.amazonaws.athena.connector.lambda.utils.TestUtils.SERDE_VERSION_FIVE;
+import static com.amazonaws.athena.connector.lambda.utils.TestUtils.SERDE_VERSION_SIX;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ObjectMapperFactoryV6Test
+{
+    private BlockAllocator allocator;
+
+    @Before
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void testStrictSerializer()
+            throws JsonProcessingException
+    {
+        ObjectMapper mapper = VersionedObjectMapperFactory.create(allocator, SERDE_VERSION_SIX);
+        mapper.writeValueAsString(new ArrowType.Null());
+    }
+
+    @Test
+    public void requestLeadsWithSerDeVersion()
+            throws IOException
+    {
+        ObjectMapper mapper = VersionedObjectMapperFactory.create(allocator, SERDE_VERSION_SIX);
+        PingRequest request = new PingRequest(null, "catalog", "queryId");
+        byte[] serialized = mapper.writeValueAsBytes(request);
+
+        assertTrue(new String(serialized, StandardCharsets.UTF_8).startsWith("{\"serDeVersion\":6,"));
+        assertEquals(SERDE_VERSION_SIX, VersionedObjectMapperFactory.resolveSerDeVersion(serialized));
+        assertEquals(request, mapper.readValue(serialized, FederationRequest.class));
+    }
+
+    @Test
+    public void unversionedRequestFallsBack()
+            throws IOException
+    {
+        byte[] serialized = VersionedObjectMapperFactory.create(allocator, SERDE_VERSION_FIVE)
+                .writeValueAsBytes(new PingRequest(null, "catalog", "queryId"));
+        assertEquals(SERDE_VERSION_FIVE, VersionedObjectMapperFactory.resolveSerDeVersion(serialized));
+
+        try {
+            VersionedObjectMapperFactory.create(allocator, SERDE_VERSION_SIX).readValue(serialized, FederationRequest.class);
+            throw new AssertionError("Expected an IllegalStateException");
+        }
+        catch (IllegalStateException ex) {
+            //Expected, this is what lets the CompositeHandler fall back to an older SerDe version.
+        }
+    }
+
+    @Test
+    public void resolveSerDeVersionResetsStream()
+            throws IOException
+    {
+        byte[] serialized = VersionedObjectMapperFactory.create(allocator, SERDE_VERSION_SIX)
+                .writeValueAsBytes(new PingRequest(null, "catalog", "queryId"));
+        InputStream in = new BufferedInputStream(new ByteArrayInputStream(serialized));
+
+        assertEquals(SERDE_VERSION_SIX, VersionedObjectMapperFactory.resolveSerDeVersion(in));
+        assertArrayEquals(serialized, ByteStreams.toByteArray(in));
+    }
+
+    @Test
+    public void responseIsBinary()
+            throws IOException
+    {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addField("id", Types.MinorType.INT.getType())
+                .addField("name", Types.MinorType.VARCHAR.getType())
+                .build();
+        Block block = allocator.createBlock(schema);
+        for (int i = 0; i < 1_000; i++) {
+            BlockUtils.setValue(block.getFieldVector("id"), i, i);
+            BlockUtils.setValue(block.getFieldVector("name"), i, "name_" + i);
+        }
+        block.setRowCount(1_000);
+        ReadRecordsResponse response = new ReadRecordsResponse("catalog", block);
+
+        ObjectMapper mapper = VersionedObjectMapperFactory.create(allocator, SERDE_VERSION_SIX);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mapper.writeValue(out, response);
+        byte[] binary = out.toByteArray();
+        byte[] json = VersionedObjectMapperFactory.create(allocator, SERDE_VERSION_FIVE).writeValueAsBytes(response);
+
+        //Starts with the CBOR self-describe tag and avoids the base64 overhead of JSON.
+        assertEquals((byte) 0xD9, binary[0]);
+        assertEquals((byte) 0xD9, binary[1]);
+        assertEquals((byte) 0xF7, binary[2]);
+        assertTrue(binary.length + " vs " + json.length, binary.length < json.length * 0.8);
+
+        ReadRecordsResponse deserialized = (ReadRecordsResponse) mapper.readValue(new ByteArrayInputStream(binary), FederationResponse.class);
+        assertEquals(response, deserialized);
+        deserialized = VersionedObjectMapperFactory.createReader(VersionedObjectMapperFactory.getShared(SERDE_VERSION_SIX),
+                FederationResponse.class, allocator).readValue(binary);
+        assertEquals(response, deserialized);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void writerPicksFormatByType()
+            throws IOException
+    {
+        ObjectMapper mapper = VersionedObjectMapperFactory.create(allocator, SERDE_VERSION_SIX);
+        PingRequest request = new PingRequest(null, "catalog", "queryId");
+        PingResponse response = new PingResponse("catalog", "queryId", "type", 23, SERDE_VERSION_SIX);
+
+        //Untyped writers are JSON, which is only right for requests.
+        assertTrue(mapper.writer().writeValueAsString(request).startsWith("{\"serDeVersion\":6,"));
+        try {
+            mapper.writer().writeValueAsString(response);
+            throw new AssertionError("Expected responses not to be written as JSON");
+        }
+        catch (JsonMappingException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("must be written as CBOR"));
+        }
+        try {
+            mapper.writeValueAsString(response);
+            throw new AssertionError("Expected responses not to be written as JSON");
+        }
+        catch (JsonMappingException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("must be written as CBOR"));
+        }
+
+        byte[] binary = mapper.writerFor(FederationResponse.class).writeValueAsBytes(response);
+        assertEquals((byte) 0xD9, binary[0]);
+        assertEquals(response, mapper.readValue(binary, FederationResponse.class));
+        //As used by LambdaInvokerFactory.
+        assertEquals(response, mapper.reader(mapper.getTypeFactory().constructType(FederationResponse.class)).readValue(binary));
+    }
+
+    @Test
+    public void readValueStringOnlyReadsRequests()
+            throws IOException
+    {
+        ObjectMapper mapper = VersionedObjectMapperFactory.create(allocator, SERDE_VERSION_SIX);
+        PingRequest request = new PingRequest(null, "catalog", "queryId");
+        assertEquals(request, mapper.readValue(mapper.writer().writeValueAsString(request), FederationRequest.class));
+
+        String jsonResponse = VersionedObjectMapperFactory.create(allocator, SERDE_VERSION_FIVE)
+                .writeValueAsString(new PingResponse("catalog", "queryId", "type", 23, SERDE_VERSION_FIVE));
+        try {
+            mapper.readValue(jsonResponse, FederationResponse.class);
+            throw new AssertionError("Expected responses not to be read as JSON");
+        }
+        catch (IllegalStateException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains("must be read as CBOR"));
+        }
+    }
+}
@@ -38,6 +38,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListSchemasResponse;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequest;
+import com.amazonaws.athena.connector.lambda.metadata.SchemaCache;
 import com.amazonaws.athena.connector.lambda.metadata.glue.GlueFieldLexer;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.OptimizationSubType;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
@@ -110,12 +111,15 @@ public class HbaseMetadataHandler
     private final HbaseConnectionFactory connectionFactory;
 
     private final HbaseQueryPassthrough queryPassthrough = new HbaseQueryPassthrough();
+    //Caches the schemas we infer by sampling rows, since sampling adds a round trip to every query.
+    private final SchemaCache schemaCache;
 
     public HbaseMetadataHandler(java.util.Map<String, String> configOptions)
     {
         super(SOURCE_TYPE, configOptions);
         this.awsGlue = getAwsGlue();
         this.connectionFactory = new HbaseConnectionFactory();
+        this.schemaCache = new SchemaCache(configOptions);
     }
 
     @VisibleForTesting
@@ -132,6 +136,7 @@ public class HbaseMetadataHandler
         super(awsGlue, keyFactory, secretsManager, athena, SOURCE_TYPE, spillBucket, spillPrefix, configOptions);
         this.awsGlue = awsGlue;
         this.connectionFactory = connectionFactory;
+        this.schemaCache = new SchemaCache(configOptions);
     }
 
     @Override
@@ -240,7 +245,10 @@ public class HbaseMetadataHandler
     {
         TableName hbaseName = HbaseTableNameUtils.getHbaseTableName(configOptions, getOrCreateConn(request), tableName);
         if (origSchema == null) {
-            origSchema = HbaseSchemaUtils.inferSchema(getOrCreateConn(request), hbaseName, NUM_ROWS_TO_SCAN);
+            origSchema = schemaCache.get(request.getCatalogName(),
+                    new com.amazonaws.athena.connector.lambda.domain.TableName(hbaseName.getNamespaceAsString(), hbaseName.getNameAsString()),
+                    null,
+                    () -> HbaseSchemaUtils.inferSchema(getOrCreateConn(request), hbaseName, NUM_ROWS_TO_SCAN));
         }
 
         SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
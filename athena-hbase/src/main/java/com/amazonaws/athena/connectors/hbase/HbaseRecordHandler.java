@@ -25,6 +25,9 @@ import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Marker;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
@@ -47,8 +50,11 @@ import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.filter.BinaryComparator;
+import org.apache.hadoop.hbase.filter.BinaryPrefixComparator;
+import org.apache.hadoop.hbase.filter.ByteArrayComparable;
 import org.apache.hadoop.hbase.filter.CompareFilter;
 import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
 import org.apache.hadoop.hbase.filter.ParseFilter;
 import org.apache.hadoop.hbase.filter.RowFilter;
 import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
@@ -58,6 +64,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.nio.charset.CharacterCodingException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static com.amazonaws.athena.connectors.hbase.HbaseMetadataHandler.END_KEY_FIELD;
@@ -83,6 +92,20 @@ public class HbaseRecordHandler
     //Used to denote the 'type' of this connector for diagnostic purposes.
     private static final String SOURCE_TYPE = "hbase";
 
+    //Config that sets the number of rows fetched per scanner RPC, defaults to the HBase client's setting.
+    protected static final String SCAN_CACHING = "hbase_scan_caching";
+    //Config that sets the max bytes fetched per scanner RPC, defaults to the HBase client's setting.
+    protected static final String SCAN_MAX_RESULT_SIZE = "hbase_scan_max_result_size";
+    //Config that controls if scanned blocks are added to the region server's block cache, defaults to false.
+    protected static final String SCAN_CACHE_BLOCKS = "hbase_scan_cache_blocks";
+    //Config that controls if rows are fetched on a background thread while the previous rows are written.
+    protected static final String PIPELINED_READ = "hbase_pipelined_read";
+    //Config that sets the number of concurrent sub-range scans used to read each split, implies a pipelined read.
+    protected static final String SCAN_PARALLELISM = "hbase_scan_parallelism";
+
+    //Used in place of an unbounded (empty) stop row when calculating the boundaries of sub-range scans.
+    private static final byte[] UNBOUNDED_STOP_ROW = new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+
     private final AmazonS3 amazonS3;
     private final HbaseConnectionFactory connectionFactory;
 
@@ -150,6 +173,11 @@ public class HbaseRecordHandler
         else {
             //setup the scan so that we only read the key range associated with the region represented by our Split.
             scan = new Scan(split.getProperty(START_KEY_FIELD).getBytes(), split.getProperty(END_KEY_FIELD).getBytes());
+            //further narrow the key range using any predicate on the row key.
+            if (!pushdownRowRange(isNative, scan, request.getConstraints())) {
+                logger.info("readWithConstraint: no rows of split {} can match the row key predicate", split.getSpillLocation());
+                return;
+            }
             //attempts to push down a partial predicate using HBase Filters
             scan.setFilter(pushdownPredicate(isNative, request.getConstraints()));
             schemaName = request.getTableName().getSchemaName();
@@ -161,10 +189,23 @@ public class HbaseRecordHandler
         for (Field next : request.getSchema().getFields()) {
             addToProjection(scan, next);
         }
+        configureScan(scan);
 
-        getOrCreateConn(conStr).scanTable(HbaseTableNameUtils.getQualifiedTable(tableNameObj),
-                scan,
-                (ResultScanner scanner) -> scanFilterProject(scanner, request, blockSpiller, queryStatusChecker));
+        HBaseConnection connection = getOrCreateConn(conStr);
+        org.apache.hadoop.hbase.TableName hbaseTableName = HbaseTableNameUtils.getQualifiedTable(tableNameObj);
+        int parallelism = Integer.parseInt(configOptions.getOrDefault(SCAN_PARALLELISM, "1"));
+        if (parallelism > 1 || Boolean.parseBoolean(configOptions.getOrDefault(PIPELINED_READ, "false"))) {
+            List<Scan> scans = splitScan(scan, parallelism);
+            logger.info("readWithConstraint: reading {} with {} pipelined scans", hbaseTableName, scans.size());
+            new HbaseScanPipeline(connection, hbaseTableName).run(scans,
+                    queryStatusChecker,
+                    (Result row) -> writeRow(blockSpiller, projection, isNative, row));
+        }
+        else {
+            connection.scanTable(hbaseTableName,
+                    scan,
+                    (ResultScanner scanner) -> scanFilterProject(scanner, request, blockSpiller, queryStatusChecker));
+        }
     }
 
     private boolean scanFilterProject(ResultScanner scanner, ReadRecordsRequest request, BlockSpiller blockSpiller, QueryStatusChecker queryStatusChecker)
@@ -176,19 +217,90 @@ public class HbaseRecordHandler
             if (!queryStatusChecker.isQueryRunning()) {
                 return true;
             }
-            blockSpiller.writeRows((Block block, int rowNum) -> {
-                boolean match = true;
-                for (Field field : projection.getFields()) {
-                    if (match) {
-                        match &= writeField(block, field, isNative, row, rowNum);
-                    }
-                }
-                return match ? 1 : 0;
-            });
+            writeRow(blockSpiller, projection, isNative, row);
         }
         return true;
     }
 
+    /**
+     * Writes the projected fields of a single HBase row, if the row passes the query's constraints.
+     *
+     * @param blockSpiller The BlockSpiller to write the row to.
+     * @param projection The fields to write.
+     * @param isNative Boolean indicating if the HBase value is stored as a String (false) or as Native byte[] (true).
+     * @param row The HBase row to write.
+     */
+    private void writeRow(BlockSpiller blockSpiller, Schema projection, boolean isNative, Result row)
+    {
+        blockSpiller.writeRows((Block block, int rowNum) -> {
+            boolean match = true;
+            for (Field field : projection.getFields()) {
+                if (match) {
+                    match &= writeField(block, field, isNative, row, rowNum);
+                }
+            }
+            return match ? 1 : 0;
+        });
+    }
+
+    /**
+     * Applies the scanner tuning settings found in the connector's config. Caching controls the number of rows
+     * fetched per RPC and max result size bounds the bytes fetched per RPC. Block caching is disabled by default
+     * since a full region scan would otherwise evict the region server's working set.
+     *
+     * @param scan The scan to configure.
+     * @note We deliberately don't set a batch size since that splits wide rows into partial Results.
+     */
+    private void configureScan(Scan scan)
+    {
+        String caching = configOptions.get(SCAN_CACHING);
+        if (caching != null) {
+            scan.setCaching(Integer.parseInt(caching));
+        }
+        String maxResultSize = configOptions.get(SCAN_MAX_RESULT_SIZE);
+        if (maxResultSize != null) {
+            scan.setMaxResultSize(Long.parseLong(maxResultSize));
+        }
+        scan.setCacheBlocks(Boolean.parseBoolean(configOptions.getOrDefault(SCAN_CACHE_BLOCKS, "false")));
+    }
+
+    /**
+     * Divides the key range of the supplied scan into the requested number of non-overlapping sub-range scans
+     * which together cover the same rows. The boundaries are calculated by treating the row keys as numbers, so
+     * the sub-ranges are only evenly sized if the keys are evenly distributed over the byte range.
+     *
+     * @param scan The scan to divide, this scan is not modified.
+     * @param parts The number of sub-range scans to create.
+     * @return The sub-range scans, or just the original scan if its key range could not be divided.
+     * @throws IOException If the scan could not be copied.
+     */
+    @VisibleForTesting
+    protected static List<Scan> splitScan(Scan scan, int parts)
+            throws IOException
+    {
+        byte[] startRow = scan.getStartRow();
+        byte[] stopRow = scan.getStopRow();
+        byte[] splitStopRow = (stopRow.length == 0) ? UNBOUNDED_STOP_ROW : stopRow;
+        if (parts <= 1 || Bytes.compareTo(startRow, splitStopRow) >= 0) {
+            return Collections.singletonList(scan);
+        }
+
+        byte[][] boundaries = Bytes.split(startRow, splitStopRow, parts - 1);
+        if (boundaries == null) {
+            //The key range is too small to divide.
+            return Collections.singletonList(scan);
+        }
+
+        List<Scan> scans = new ArrayList<>(parts);
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            Scan next = new Scan(scan);
+            next.withStartRow((i == 0) ? startRow : boundaries[i], true);
+            next.withStopRow((i == boundaries.length - 2) ? stopRow : boundaries[i + 1], false);
+            scans.add(next);
+        }
+        return scans;
+    }
+
     /**
      * Used to filter and write field values from the HBase scan to the response block.
      *
@@ -262,29 +374,171 @@ public class HbaseRecordHandler
     }
 
     /**
-     * Attempts to push down at basic Filter predicate into HBase.
+     * Narrows the key range of the scan to the span of any predicate on the special 'row' column.
+     *
+     * @param isNative True if the values are stored in HBase using native byte[] vs being serialized as Strings.
+     * @param scan The scan whose start and stop rows should be narrowed.
+     * @param constraints The constraints that we can attempt to push into HBase as part of the scan.
+     * @return False if no row in the scan's original key range can satisfy the predicate, true otherwise.
+     */
+    @VisibleForTesting
+    protected boolean pushdownRowRange(boolean isNative, Scan scan, Constraints constraints)
+    {
+        ValueSet valueSet = constraints.getSummary().get(HbaseSchemaUtils.ROW_COLUMN_NAME);
+        if (!(valueSet instanceof SortedRangeSet) || ((SortedRangeSet) valueSet).getRangeCount() == 0) {
+            return true;
+        }
+
+        Range span = ((SortedRangeSet) valueSet).getSpan();
+        byte[] startRow = scan.getStartRow();
+        byte[] stopRow = scan.getStopRow();
+        if (!span.getLow().isLowerUnbounded()) {
+            byte[] low = HbaseSchemaUtils.toBytes(isNative, span.getLow().getValue());
+            if (span.getLow().getBound() == Marker.Bound.ABOVE) {
+                //The smallest key which is greater than the bound.
+                low = Bytes.add(low, new byte[] {0});
+            }
+            if (Bytes.compareTo(low, startRow) > 0) {
+                startRow = low;
+            }
+        }
+        if (!span.getHigh().isUpperUnbounded()) {
+            byte[] high = HbaseSchemaUtils.toBytes(isNative, span.getHigh().getValue());
+            if (span.getHigh().getBound() == Marker.Bound.EXACTLY) {
+                //The stop row is exclusive so we stop at the smallest key which is greater than the bound.
+                high = Bytes.add(high, new byte[] {0});
+            }
+            if (stopRow.length == 0 || Bytes.compareTo(high, stopRow) < 0) {
+                stopRow = high;
+            }
+        }
+
+        if (stopRow.length > 0 && Bytes.compareTo(startRow, stopRow) >= 0) {
+            return false;
+        }
+        scan.withStartRow(startRow, true);
+        scan.withStopRow(stopRow, false);
+        return true;
+    }
+
+    /**
+     * Attempts to push down the query's predicates into HBase as Filters. Every predicate we can express is
+     * added to a FilterList which all rows must pass. Since HBase compares values as raw bytes, range and prefix
+     * predicates are only pushed down for VARCHAR values, for which byte order matches the value's order.
      *
      * @param isNative True if the values are stored in HBase using native byte[] vs being serialized as Strings.
      * @param constraints The constraints that we can attempt to push into HBase as part of the scan.
      * @return A filter if we found a predicate we can push down, null otherwise/
-     * @note Currently this method only supports constraints that can be represented by HBase's SingleColumnValueFilter
-     * or RowFilter and CompareOp of EQUAL. In the future we can add > and < for certain field types.
+     * @note Filters are a partial pushdown, rows which are missing the filtered column still pass and all
+     * predicates are applied again by the ConstraintEvaluator when the rows are written.
      */
-    private Filter pushdownPredicate(boolean isNative, Constraints constraints)
+    @VisibleForTesting
+    protected Filter pushdownPredicate(boolean isNative, Constraints constraints)
     {
+        List<Filter> filters = new ArrayList<>();
         for (Map.Entry<String, ValueSet> next : constraints.getSummary().entrySet()) {
-            if (next.getValue().isSingleValue() && !next.getValue().isNullAllowed()) {
-                byte[] value = HbaseSchemaUtils.toBytes(isNative, next.getValue().getSingleValue());
-                String[] colParts = HbaseSchemaUtils.extractColumnParts(next.getKey());
-                CompareFilter.CompareOp compareOp = CompareFilter.CompareOp.EQUAL;
-                boolean isRowKey = next.getKey().equals(HbaseSchemaUtils.ROW_COLUMN_NAME);
-
-                return isRowKey ?
-                       new RowFilter(compareOp, new BinaryComparator(value)) :
-                       new SingleColumnValueFilter(colParts[0].getBytes(), colParts[1].getBytes(), compareOp, value);
+            Filter filter = makeFilter(isNative, next.getKey(), next.getValue());
+            if (filter != null) {
+                filters.add(filter);
+            }
+        }
+
+        if (filters.isEmpty()) {
+            return null;
+        }
+        return (filters.size() == 1) ? filters.get(0) : new FilterList(FilterList.Operator.MUST_PASS_ALL, filters);
+    }
+
+    /**
+     * Creates a Filter for the predicate on a single column, if the predicate can be expressed as a Filter.
+     *
+     * @param isNative True if the values are stored in HBase using native byte[] vs being serialized as Strings.
+     * @param columnName The name of the column, either the special 'row' column or <FAMILY>:<QUALIFIER>.
+     * @param valueSet The predicate on the column.
+     * @return The filter, or null if the predicate can't be pushed down.
+     */
+    private Filter makeFilter(boolean isNative, String columnName, ValueSet valueSet)
+    {
+        if (valueSet.isNullAllowed()) {
+            return null;
+        }
+
+        if (valueSet.isSingleValue()) {
+            return makeFilter(columnName, CompareFilter.CompareOp.EQUAL, new BinaryComparator(HbaseSchemaUtils.toBytes(isNative, valueSet.getSingleValue())));
+        }
+
+        //The row key range has already been applied to the scan's start and stop rows.
+        if (!(valueSet instanceof SortedRangeSet) || HbaseSchemaUtils.ROW_COLUMN_NAME.equals(columnName)
+                || !Types.MinorType.VARCHAR.getType().equals(valueSet.getType())) {
+            return null;
+        }
+
+        List<Filter> rangeFilters = new ArrayList<>();
+        for (Range range : valueSet.getRanges().getOrderedRanges()) {
+            Filter rangeFilter = makeRangeFilter(isNative, columnName, range);
+            if (rangeFilter == null) {
+                //One of the ranges allows every value so the predicate as a whole can't narrow the scan.
+                return null;
+            }
+            rangeFilters.add(rangeFilter);
+        }
+        return (rangeFilters.size() == 1) ? rangeFilters.get(0) : new FilterList(FilterList.Operator.MUST_PASS_ONE, rangeFilters);
+    }
+
+    /**
+     * Creates a Filter for a single VARCHAR range. A range which covers exactly the values starting with a given
+     * prefix (e.g. [abc, abd) as produced by LIKE 'abc%') is pushed down as a single prefix comparison.
+     */
+    private Filter makeRangeFilter(boolean isNative, String columnName, Range range)
+    {
+        if (range.isSingleValue()) {
+            return makeFilter(columnName, CompareFilter.CompareOp.EQUAL, new BinaryComparator(HbaseSchemaUtils.toBytes(isNative, range.getSingleValue())));
+        }
+
+        List<Filter> bounds = new ArrayList<>(2);
+        byte[] low = null;
+        if (!range.getLow().isLowerUnbounded()) {
+            low = HbaseSchemaUtils.toBytes(isNative, range.getLow().getValue());
+            CompareFilter.CompareOp op = (range.getLow().getBound() == Marker.Bound.EXACTLY) ?
+                    CompareFilter.CompareOp.GREATER_OR_EQUAL : CompareFilter.CompareOp.GREATER;
+            bounds.add(makeFilter(columnName, op, new BinaryComparator(low)));
+        }
+        if (!range.getHigh().isUpperUnbounded()) {
+            byte[] high = HbaseSchemaUtils.toBytes(isNative, range.getHigh().getValue());
+            if (low != null && range.getLow().getBound() == Marker.Bound.EXACTLY
+                    && range.getHigh().getBound() == Marker.Bound.BELOW && isPrefixRange(low, high)) {
+                return makeFilter(columnName, CompareFilter.CompareOp.EQUAL, new BinaryPrefixComparator(low));
             }
+            CompareFilter.CompareOp op = (range.getHigh().getBound() == Marker.Bound.EXACTLY) ?
+                    CompareFilter.CompareOp.LESS_OR_EQUAL : CompareFilter.CompareOp.LESS;
+            bounds.add(makeFilter(columnName, op, new BinaryComparator(high)));
+        }
+
+        if (bounds.isEmpty()) {
+            return null;
+        }
+        return (bounds.size() == 1) ? bounds.get(0) : new FilterList(FilterList.Operator.MUST_PASS_ALL, bounds);
+    }
+
+    private Filter makeFilter(String columnName, CompareFilter.CompareOp compareOp, ByteArrayComparable comparator)
+    {
+        if (HbaseSchemaUtils.ROW_COLUMN_NAME.equals(columnName)) {
+            return new RowFilter(compareOp, comparator);
         }
+        String[] colParts = HbaseSchemaUtils.extractColumnParts(columnName);
+        return new SingleColumnValueFilter(colParts[0].getBytes(), colParts[1].getBytes(), compareOp, comparator);
+    }
 
-        return null;
+    /**
+     * @return True if high is the smallest value greater than every value starting with low, i.e. low with its
+     * last byte incremented.
+     */
+    private static boolean isPrefixRange(byte[] low, byte[] high)
+    {
+        if (low.length == 0 || low.length != high.length || low[low.length - 1] == (byte) 0xFF) {
+            return false;
+        }
+        return Bytes.equals(low, 0, low.length - 1, high, 0, high.length - 1)
+                && high[high.length - 1] == (byte) (low[low.length - 1] + 1);
     }
 }
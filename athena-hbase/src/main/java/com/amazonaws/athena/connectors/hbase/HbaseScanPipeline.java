@@ -0,0 +1,191 @@
+/*-
+ * #%L
+ * athena-hbase
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.hbase;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connectors.hbase.connection.HBaseConnection;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Runs one or more HBase scans on background threads and hands their results, in batches, to the calling thread
+ * through a bounded queue. This keeps the region servers busy fetching the next rows while the calling thread
+ * converts and writes the previous ones to the BlockSpiller (which is not thread safe).
+ * <p>
+ * When more than one scan is supplied the rows of the different scans are interleaved, rows are only guaranteed
+ * to be in key order within a single scan.
+ */
+public class HbaseScanPipeline
+{
+    private static final Logger logger = LoggerFactory.getLogger(HbaseScanPipeline.class);
+
+    //Max number of rows handed to the calling thread at once.
+    private static final int BATCH_SIZE = 256;
+    //Max number of batches waiting to be written.
+    private static final int QUEUE_CAPACITY = 16;
+    private static final long HANDOFF_POLL_MILLIS = 100;
+    private static final long SHUTDOWN_MILLIS = 5_000;
+
+    private final HBaseConnection connection;
+    private final TableName tableName;
+
+    /**
+     * @param connection The connection to run the scans on.
+     * @param tableName The fully qualified HBase table to scan.
+     */
+    public HbaseScanPipeline(HBaseConnection connection, TableName tableName)
+    {
+        this.connection = connection;
+        this.tableName = tableName;
+    }
+
+    /**
+     * Runs the supplied scans concurrently, one thread per scan, and writes every row they return using the
+     * supplied writer. All scan threads have exited by the time this method returns.
+     *
+     * @param scans The scans to run, typically non-overlapping key ranges of the same region.
+     * @param queryStatusChecker Used to stop scanning early if the query is no longer running.
+     * @param writer Writes a single row, always called on the thread which called this method.
+     */
+    public void run(List<Scan> scans, QueryStatusChecker queryStatusChecker, Consumer<Result> writer)
+    {
+        BlockingQueue<List<Result>> batches = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        AtomicBoolean stopped = new AtomicBoolean(false);
+        AtomicInteger runningScans = new AtomicInteger(scans.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(scans.size(), runnable -> {
+            Thread thread = new Thread(runnable, "HbaseScanPipeline-" + tableName.getNameAsString());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            for (Scan next : scans) {
+                executor.execute(() -> {
+                    try {
+                        connection.scanTable(tableName, next, (ResultScanner scanner) -> produce(scanner, batches, stopped));
+                    }
+                    catch (RuntimeException ex) {
+                        failure.compareAndSet(null, ex);
+                    }
+                    finally {
+                        runningScans.decrementAndGet();
+                    }
+                });
+            }
+
+            while (true) {
+                List<Result> next = batches.poll(HANDOFF_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (failure.get() != null) {
+                    throw failure.get();
+                }
+                if (!queryStatusChecker.isQueryRunning()) {
+                    logger.info("run: query is no longer running, stopping {} scans of {}", scans.size(), tableName);
+                    break;
+                }
+                if (next != null) {
+                    next.forEach(writer);
+                }
+                else if (runningScans.get() == 0 && batches.isEmpty()) {
+                    //Every scan has finished and every batch they produced has been written.
+                    break;
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(ex);
+        }
+        finally {
+            stopped.set(true);
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+    }
+
+    /**
+     * Reads rows from the scanner and queues them in batches, stopping early if the pipeline was stopped.
+     *
+     * @return True if the scanner was read to completion.
+     */
+    private boolean produce(ResultScanner scanner, BlockingQueue<List<Result>> batches, AtomicBoolean stopped)
+    {
+        List<Result> batch = new ArrayList<>(BATCH_SIZE);
+        for (Result row : scanner) {
+            batch.add(row);
+            if (batch.size() >= BATCH_SIZE) {
+                if (!offer(batch, batches, stopped)) {
+                    return false;
+                }
+                batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        return batch.isEmpty() || offer(batch, batches, stopped);
+    }
+
+    /**
+     * Blocks until the batch has been queued or the pipeline has been stopped. We avoid interrupting scan threads
+     * since that can leave the HBase client's connection in a bad state.
+     */
+    private boolean offer(List<Result> batch, BlockingQueue<List<Result>> batches, AtomicBoolean stopped)
+    {
+        try {
+            while (!batches.offer(batch, HANDOFF_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (stopped.get()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void awaitTermination(ExecutorService executor)
+    {
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_MILLIS, TimeUnit.MILLISECONDS)) {
+                logger.warn("awaitTermination: scan threads did not exit within {} ms", SHUTDOWN_MILLIS);
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -58,11 +58,17 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteStreams;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.hadoop.hbase.CompareOperator;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.Result;
 import org.apache.hadoop.hbase.client.ResultScanner;
 import org.apache.hadoop.hbase.client.Scan;
 import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.filter.BinaryPrefixComparator;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -299,6 +305,126 @@ public class HbaseRecordHandlerTest
         }
     }
 
+    @Test
+    public void doReadRecordsPipelined()
+            throws Exception
+    {
+        handler = new HbaseRecordHandler(amazonS3, mockSecretsManager, mockAthena, mockConnFactory,
+                com.google.common.collect.ImmutableMap.of(HbaseRecordHandler.SCAN_PARALLELISM, "3"));
+        List<Scan> scans = Collections.synchronizedList(new ArrayList<>());
+        ResultScanner mockScanner = mock(ResultScanner.class);
+        when(mockScanner.iterator()).thenAnswer((InvocationOnMock invocationOnMock) -> TestUtils.makeResults(1_000).iterator());
+        when(mockClient.scanTable(any(), nullable(Scan.class), any())).thenAnswer((InvocationOnMock invocationOnMock) -> {
+            scans.add(invocationOnMock.getArgument(1));
+            ResultProcessor processor = (ResultProcessor) invocationOnMock.getArguments()[2];
+            return processor.scan(mockScanner);
+        });
+
+        S3SpillLocation splitLoc = S3SpillLocation.newBuilder()
+                .withBucket(UUID.randomUUID().toString())
+                .withSplitId(UUID.randomUUID().toString())
+                .withQueryId(UUID.randomUUID().toString())
+                .withIsDirectory(true)
+                .build();
+
+        Split.Builder splitBuilder = Split.newBuilder(splitLoc, keyFactory.create())
+                .add(HBASE_CONN_STR, "fake_con_str")
+                .add(START_KEY_FIELD, "a")
+                .add(END_KEY_FIELD, "z")
+                .add(REGION_ID_FIELD, "fake_region_id")
+                .add(REGION_NAME_FIELD, "fake_region_name");
+
+        ReadRecordsRequest request = new ReadRecordsRequest(IDENTITY,
+                DEFAULT_CATALOG,
+                "queryId-" + System.currentTimeMillis(),
+                new TableName(DEFAULT_SCHEMA, TEST_TABLE),
+                schemaForRead,
+                splitBuilder.build(),
+                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT),
+                100_000_000_000L, //100GB don't expect this to spill
+                100_000_000_000L
+        );
+
+        RecordResponse rawResponse = handler.doReadRecords(allocator, request);
+
+        assertTrue(rawResponse instanceof ReadRecordsResponse);
+        assertEquals(3, scans.size());
+        //Each scan returns 3,000 rows.
+        assertEquals(9_000, ((ReadRecordsResponse) rawResponse).getRecords().getRowCount());
+        for (Scan next : scans) {
+            assertFalse(next.getCacheBlocks());
+        }
+    }
+
+    @Test
+    public void splitScan()
+            throws IOException
+    {
+        Scan scan = new Scan().withStartRow("a".getBytes(), true).withStopRow("z".getBytes(), false);
+        List<Scan> scans = HbaseRecordHandler.splitScan(scan, 4);
+        assertEquals(4, scans.size());
+        assertArrayEquals("a".getBytes(), scans.get(0).getStartRow());
+        assertArrayEquals("z".getBytes(), scans.get(3).getStopRow());
+        for (int i = 1; i < scans.size(); i++) {
+            assertArrayEquals(scans.get(i - 1).getStopRow(), scans.get(i).getStartRow());
+            assertTrue(Bytes.compareTo(scans.get(i).getStartRow(), scans.get(i).getStopRow()) < 0);
+        }
+
+        //The unbounded key range of the first and last regions keeps its unbounded ends.
+        scans = HbaseRecordHandler.splitScan(new Scan(), 2);
+        assertEquals(2, scans.size());
+        assertEquals(0, scans.get(0).getStartRow().length);
+        assertEquals(0, scans.get(1).getStopRow().length);
+
+        assertEquals(1, HbaseRecordHandler.splitScan(scan, 1).size());
+    }
+
+    @Test
+    public void pushdownRowRange()
+    {
+        Scan scan = new Scan().withStartRow("b".getBytes(), true).withStopRow("m".getBytes(), false);
+        Map<String, ValueSet> constraintsMap = new HashMap<>();
+        constraintsMap.put(HbaseSchemaUtils.ROW_COLUMN_NAME, SortedRangeSet.copyOf(Types.MinorType.VARCHAR.getType(),
+                ImmutableList.of(Range.range(allocator, Types.MinorType.VARCHAR.getType(), "a", true, "f", true)), false));
+        Constraints constraints = new Constraints(constraintsMap, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT);
+
+        assertTrue(handler.pushdownRowRange(false, scan, constraints));
+        assertArrayEquals("b".getBytes(), scan.getStartRow());
+        assertArrayEquals(Bytes.add("f".getBytes(), new byte[] {0}), scan.getStopRow());
+
+        //The predicate doesn't overlap the region.
+        Scan disjointScan = new Scan().withStartRow("p".getBytes(), true).withStopRow("z".getBytes(), false);
+        assertFalse(handler.pushdownRowRange(false, disjointScan, constraints));
+    }
+
+    @Test
+    public void pushdownPredicate()
+    {
+        Map<String, ValueSet> constraintsMap = new HashMap<>();
+        constraintsMap.put("family1:col1", SortedRangeSet.copyOf(Types.MinorType.VARCHAR.getType(),
+                ImmutableList.of(Range.range(allocator, Types.MinorType.VARCHAR.getType(), "abc", true, "abd", false)), false));
+        constraintsMap.put("family1:col2", SortedRangeSet.copyOf(Types.MinorType.VARCHAR.getType(),
+                ImmutableList.of(Range.greaterThan(allocator, Types.MinorType.VARCHAR.getType(), "m")), false));
+        //Numeric ranges can't be compared as bytes so are not pushed down.
+        constraintsMap.put("family1:col3", SortedRangeSet.copyOf(Types.MinorType.BIGINT.getType(),
+                ImmutableList.of(Range.greaterThan(allocator, Types.MinorType.BIGINT.getType(), 0L)), false));
+        Constraints constraints = new Constraints(constraintsMap, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT);
+
+        Filter filter = handler.pushdownPredicate(false, constraints);
+        assertTrue(filter instanceof FilterList);
+        List<Filter> filters = ((FilterList) filter).getFilters();
+        assertEquals(2, filters.size());
+        for (Filter next : filters) {
+            SingleColumnValueFilter columnFilter = (SingleColumnValueFilter) next;
+            if (Bytes.toString(columnFilter.getQualifier()).equals("col1")) {
+                assertTrue(columnFilter.getComparator() instanceof BinaryPrefixComparator);
+            }
+            else {
+                assertEquals(CompareOperator.GREATER, columnFilter.getCompareOperator());
+            }
+        }
+    }
+
     private class ByteHolder
     {
         private byte[] bytes;
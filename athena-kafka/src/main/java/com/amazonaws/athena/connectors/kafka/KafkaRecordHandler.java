@@ -22,6 +22,7 @@ package com.amazonaws.athena.connectors.kafka;
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.RecordPipeline;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.kafka.dto.KafkaField;
@@ -43,21 +44,30 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.AVRO_DATA_FORMAT;
+import static com.amazonaws.athena.connectors.kafka.KafkaConstants.KAFKA_DESERIALIZER_THREADS;
+import static com.amazonaws.athena.connectors.kafka.KafkaConstants.KAFKA_PIPELINED_READ;
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.PROTOBUF_DATA_FORMAT;
+import static com.amazonaws.athena.connectors.kafka.KafkaConstants.TIMESTAMP_COLUMN;
 
 public class KafkaRecordHandler
         extends RecordHandler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaRecordHandler.class);
     private static final int MAX_EMPTY_RESULT_FOUND_COUNT = 3;
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1L);
+    private static final int DEFAULT_DESERIALIZER_THREADS = 2;
 
     KafkaRecordHandler(java.util.Map<String, String> configOptions)
     {
@@ -87,115 +97,92 @@ public class KafkaRecordHandler
         // Taking the Split parameters in a readable pojo format.
         SplitParameters splitParameters = KafkaUtils.createSplitParam(recordsRequest.getSplit().getProperties());
         LOGGER.info("[kafka] {} RecordHandler running", splitParameters);
-        // Set which topic and partition we are going to read.
-        TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
-        Collection<TopicPartition> partitions = com.google.common.collect.ImmutableList.of(partition);
         GlueRegistryReader registryReader = new GlueRegistryReader();
 
         String dataFormat = registryReader.getGlueSchemaType(recordsRequest.getTableName().getSchemaName(), recordsRequest.getTableName().getTableName());
-        if (dataFormat.equalsIgnoreCase(AVRO_DATA_FORMAT)) {
-            try (Consumer<String, GenericRecord> kafkaAvroConsumer = KafkaUtils.getAvroKafkaConsumer(configOptions)) {
-                // Assign the topic and partition into this consumer.
-                kafkaAvroConsumer.assign(partitions);
-
-                // Setting the start offset from where we are interested to read data from topic partition.
-                // We have configured this start offset when we had created the split on MetadataHandler.
-                kafkaAvroConsumer.seek(partition, splitParameters.startOffset);
-
-                // If endOffsets is 0 that means there is no data close consumer and exit
-                Map<TopicPartition, Long> endOffsets = kafkaAvroConsumer.endOffsets(partitions);
-                if (endOffsets.get(partition) == 0) {
-                    LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-                    kafkaAvroConsumer.close();
-
-                    // For debug insight
-                    splitParameters.info = "endOffset is 0 i.e partition does not have data";
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(splitParameters.debug());
-                    }
-                    return;
-                }
-                // Consume topic data
-                avroConsume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaAvroConsumer);
-            }
+        // A topic field named like the timestamp pseudo column is read from the record value instead.
+        boolean hasTimestampField = KafkaUtils.hasTimestampField(recordsRequest.getSchema());
+        if (Boolean.parseBoolean(configOptions.get(KAFKA_PIPELINED_READ))) {
+            pipelinedConsume(spiller, recordsRequest, queryStatusChecker, splitParameters, dataFormat, hasTimestampField);
+        }
+        else if (dataFormat.equalsIgnoreCase(AVRO_DATA_FORMAT)) {
+            consume(queryStatusChecker, splitParameters, KafkaUtils.getAvroKafkaConsumer(configOptions, splitParameters),
+                    record -> avroExecute(spiller, splitParameters, hasTimestampField, record));
         }
         else if (dataFormat.equalsIgnoreCase(PROTOBUF_DATA_FORMAT)) {
-            try (Consumer<String, DynamicMessage> kafkaProtobufConsumer = KafkaUtils.getProtobufKafkaConsumer(configOptions)) {
-                // Assign the topic and partition into this consumer.
-                kafkaProtobufConsumer.assign(partitions);
-
-                // Setting the start offset from where we are interested to read data from topic partition.
-                // We have configured this start offset when we had created the split on MetadataHandler.
-                kafkaProtobufConsumer.seek(partition, splitParameters.startOffset);
-
-                // If endOffsets is 0 that means there is no data close consumer and exit
-                Map<TopicPartition, Long> endOffsets = kafkaProtobufConsumer.endOffsets(partitions);
-                if (endOffsets.get(partition) == 0) {
-                    LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-                    kafkaProtobufConsumer.close();
-
-                    // For debug insight
-                    splitParameters.info = "endOffset is 0 i.e partition does not have data";
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(splitParameters.debug());
-                    }
-                    return;
-                }
-                // Consume topic data
-                protobufConsume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaProtobufConsumer);
-            }
+            consume(queryStatusChecker, splitParameters, KafkaUtils.getProtobufKafkaConsumer(configOptions, splitParameters),
+                    record -> protobufExecute(spiller, splitParameters, hasTimestampField, record));
         }
         else {
             // Initiate new KafkaConsumer that MUST not belong to any consumer group.
-            try (Consumer<String, TopicResultSet> kafkaConsumer = KafkaUtils.getKafkaConsumer(recordsRequest.getSchema(), configOptions)) {
-                // Assign the topic and partition into this consumer.
-                kafkaConsumer.assign(partitions);
-
-                // Setting the start offset from where we are interested to read data from topic partition.
-                // We have configured this start offset when we had created the split on MetadataHandler.
-                kafkaConsumer.seek(partition, splitParameters.startOffset);
-
-                // If endOffsets is 0 that means there is no data close consumer and exit
-                Map<TopicPartition, Long> endOffsets = kafkaConsumer.endOffsets(partitions);
-                if (endOffsets.get(partition) == 0) {
-                    LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-                    kafkaConsumer.close();
-
-                    // For debug insight
-                    splitParameters.info = "endOffset is 0 i.e partition does not have data";
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(splitParameters.debug());
-                    }
-                    return;
-                }
-                // Consume topic data
-                consume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaConsumer);
-            }
+            consume(queryStatusChecker, splitParameters, KafkaUtils.getKafkaConsumer(recordsRequest.getSchema(), configOptions, splitParameters),
+                    record -> execute(spiller, splitParameters, hasTimestampField, record));
         }
         if (LOGGER.isDebugEnabled()) {
             LOGGER.debug(splitParameters.debug());
         }
     }
 
+    /**
+     * Assigns the consumer to the split's topic partition and seeks to the split's start offset.
+     *
+     * @param consumer - instance of {@link Consumer}
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @return the last offset (inclusive) to read, which is less than the split's start offset if there is nothing to read.
+     */
+    private long seekToSplit(Consumer<String, ?> consumer, SplitParameters splitParameters)
+    {
+        // Set which topic and partition we are going to read.
+        TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
+        Collection<TopicPartition> partitions = com.google.common.collect.ImmutableList.of(partition);
+
+        // Assign the topic and partition into this consumer.
+        consumer.assign(partitions);
+
+        // Setting the start offset from where we are interested to read data from topic partition.
+        // We have configured this start offset when we had created the split on MetadataHandler.
+        consumer.seek(partition, splitParameters.startOffset);
+
+        // If endOffsets is 0 that means there is no data close consumer and exit
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        long logEndOffset = endOffsets.get(partition);
+        if (logEndOffset == 0) {
+            LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
+
+            // For debug insight
+            splitParameters.info = "endOffset is 0 i.e partition does not have data";
+            return -1;
+        }
+
+        // The log end offset is the offset of the next record to be produced, so the split's end offset may
+        // point one past the last record in the partition. Bounding by the last real record lets us stop as
+        // soon as the consumer's position passes it instead of waiting on empty polls.
+        return Math.min(splitParameters.endOffset, logEndOffset - 1);
+    }
+
     /**
      * Consume topic data as batch.
      *
-     * @param spiller - instance of {@link BlockSpiller}
-     * @param recordsRequest - instance of {@link ReadRecordsRequest}
      * @param queryStatusChecker - instance of {@link QueryStatusChecker}
      * @param splitParameters - instance of {@link SplitParameters}
      * @param kafkaConsumer - instance of {@link KafkaConsumer}
+     * @param writer - writes each record to the spiller
      */
-    private void consume(
-            BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
+    private <T> void consume(
             QueryStatusChecker queryStatusChecker,
             SplitParameters splitParameters,
-            Consumer<String, TopicResultSet> kafkaConsumer)
+            Consumer<String, T> kafkaConsumer,
+            RecordPipeline.RecordWriter<ConsumerRecord<String, T>> writer)
     {
-        LOGGER.info("[kafka] {} Polling for data", splitParameters);
-        int emptyResultFoundCount = 0;
-        try (Consumer<String, TopicResultSet> consumer = kafkaConsumer) {
+        try (Consumer<String, T> consumer = kafkaConsumer) {
+            long lastOffset = seekToSplit(consumer, splitParameters);
+            if (lastOffset < splitParameters.startOffset) {
+                return;
+            }
+
+            LOGGER.info("[kafka] {} Polling for data", splitParameters);
+            TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
+            int emptyResultFoundCount = 0;
             while (true) {
                 if (!queryStatusChecker.isQueryRunning()) {
                     LOGGER.debug("[kafka]{}  Stopping and closing consumer due to query execution terminated by athena", splitParameters);
@@ -205,7 +192,7 @@ public class KafkaRecordHandler
 
                 // Call the poll on consumer to fetch data from kafka server
                 // poll returns data as batch which can be configured.
-                ConsumerRecords<String, TopicResultSet> records = consumer.poll(Duration.ofSeconds(1L));
+                ConsumerRecords<String, T> records = consumer.poll(POLL_TIMEOUT);
                 LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
 
                 // For debug insight
@@ -225,47 +212,142 @@ public class KafkaRecordHandler
                     return;
                 }
 
-                for (ConsumerRecord<String, TopicResultSet> record : records) {
+                for (ConsumerRecord<String, T> record : records) {
+                    // The last batch may run past the end of the split, those records belong to the next split.
+                    if (record.offset() > lastOffset) {
+                        break;
+                    }
                     // Pass batch data one by one to be processed to execute. execute method is
                     // a kind of abstraction to keep data filtering and writing on spiller separate.
-                    execute(spiller, recordsRequest, queryStatusChecker, splitParameters, record);
-
-                    // If we have reached at the end offset of the partition. we will not continue
-                    // to call the polling.
-                    if (record.offset() >= splitParameters.endOffset) {
-                        LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
-
-                        // For debug insight
-                        splitParameters.info = String.format(
-                                "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                                record.offset(),
-                                splitParameters.endOffset
-                        );
-                        return;
-                    }
+                    writer.write(record);
+                }
+
+                // If we have reached at the end offset of the split. we will not continue
+                // to call the polling.
+                long position = consumer.position(partition);
+                if (position > lastOffset) {
+                    LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current position is {})", splitParameters, position);
+
+                    // For debug insight
+                    splitParameters.info = String.format(
+                            "reached at the end offset i.e no need to work: condition [if(position > lastOffset) i.e if(%s > %s)]",
+                            position,
+                            lastOffset
+                    );
+                    return;
                 }
             }
         }
     }
 
     /**
-     * Abstraction to keep the data filtering and writing on spiller separate.
+     * Consume topic data using a {@link RecordPipeline}, which deserializes records on separate threads
+     * from the one polling the broker.
      *
      * @param spiller - instance of {@link BlockSpiller}
      * @param recordsRequest - instance of {@link ReadRecordsRequest}
      * @param queryStatusChecker - instance of {@link QueryStatusChecker}
      * @param splitParameters - instance of {@link SplitParameters}
-     * @param record - instance of {@link ConsumerRecord}
+     * @param dataFormat - the topic's data format from the glue registry
+     * @param hasTimestampField - whether the schema has the timestamp pseudo column
      */
-    private void execute(
+    private void pipelinedConsume(
             BlockSpiller spiller,
             ReadRecordsRequest recordsRequest,
             QueryStatusChecker queryStatusChecker,
             SplitParameters splitParameters,
+            String dataFormat,
+            boolean hasTimestampField) throws Exception
+    {
+        int deserializerThreads = Integer.parseInt(configOptions.getOrDefault(KAFKA_DESERIALIZER_THREADS,
+                String.valueOf(DEFAULT_DESERIALIZER_THREADS)));
+        try (Consumer<String, byte[]> consumer = KafkaUtils.getByteArrayKafkaConsumer(configOptions, splitParameters)) {
+            long lastOffset = seekToSplit(consumer, splitParameters);
+            if (lastOffset < splitParameters.startOffset) {
+                return;
+            }
+
+            LOGGER.info("[kafka] {} Polling for data using {} deserializer threads", splitParameters, deserializerThreads);
+            if (dataFormat.equalsIgnoreCase(AVRO_DATA_FORMAT)) {
+                this.<GenericRecord>runPipeline(consumer, splitParameters, lastOffset, deserializerThreads,
+                        () -> registryValueDeserializer(dataFormat), queryStatusChecker,
+                        record -> avroExecute(spiller, splitParameters, hasTimestampField, record));
+            }
+            else if (dataFormat.equalsIgnoreCase(PROTOBUF_DATA_FORMAT)) {
+                this.<DynamicMessage>runPipeline(consumer, splitParameters, lastOffset, deserializerThreads,
+                        () -> registryValueDeserializer(dataFormat), queryStatusChecker,
+                        record -> protobufExecute(spiller, splitParameters, hasTimestampField, record));
+            }
+            else {
+                org.apache.arrow.vector.types.pojo.Schema schema = recordsRequest.getSchema();
+                //Fail fast on an unsupported format rather than on a deserializer thread.
+                KafkaUtils.getValueDeserializer(schema).close();
+                this.<TopicResultSet>runPipeline(consumer, splitParameters, lastOffset, deserializerThreads,
+                        () -> valueDeserializer(schema), queryStatusChecker,
+                        record -> execute(spiller, splitParameters, hasTimestampField, record));
+            }
+        }
+    }
+
+    /**
+     * Reads the split's records with a {@link RecordPipeline}, once this returns the pipeline no longer uses the
+     * consumer so it may be closed.
+     */
+    private <T> void runPipeline(
+            Consumer<String, byte[]> consumer,
+            SplitParameters splitParameters,
+            long lastOffset,
+            int deserializerThreads,
+            Supplier<Deserializer<T>> deserializerFactory,
+            QueryStatusChecker queryStatusChecker,
+            RecordPipeline.RecordWriter<ConsumerRecord<String, T>> writer)
+    {
+        PartitionSource source = new PartitionSource(consumer, splitParameters, lastOffset);
+        boolean completed = new RecordPipeline<ConsumerRecord<String, byte[]>, ConsumerRecord<String, T>>(
+                splitParameters.topic + "-" + splitParameters.partition, deserializerThreads)
+                .run(source, () -> new ValueDecoder<>(deserializerFactory.get()), queryStatusChecker, writer);
+        splitParameters.pulled += source.pulled;
+        if (!completed) {
+            LOGGER.debug("[kafka]{} Stopped pipeline due to query execution terminated by athena", splitParameters);
+            splitParameters.info = "query status is false i.e no need to work";
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Deserializer<T> registryValueDeserializer(String dataFormat)
+    {
+        return (Deserializer<T>) KafkaUtils.getRegistryValueDeserializer(dataFormat, configOptions);
+    }
+
+    private Deserializer<TopicResultSet> valueDeserializer(org.apache.arrow.vector.types.pojo.Schema schema)
+    {
+        try {
+            return KafkaUtils.getValueDeserializer(schema);
+        }
+        catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    /**
+     * Abstraction to keep the data filtering and writing on spiller separate.
+     *
+     * @param spiller - instance of {@link BlockSpiller}
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @param hasTimestampField - whether the schema has the timestamp pseudo column
+     * @param record - instance of {@link ConsumerRecord}
+     */
+    private void execute(
+            BlockSpiller spiller,
+            SplitParameters splitParameters,
+            boolean hasTimestampField,
             ConsumerRecord<String, TopicResultSet> record)
     {
-        final boolean[] isExecuted = {false};
         spiller.writeRows((Block block, int rowNum) -> {
+            if (hasTimestampField && !offerTimestamp(block, rowNum, record)) {
+                LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
+                return 0;
+            }
             for (KafkaField field : record.value().getFields()) {
                 boolean isMatched = block.offerValue(field.getName(), rowNum, field.getValue());
                 if (!isMatched) {
@@ -279,76 +361,27 @@ public class KafkaRecordHandler
         });
     }
 
-    private void avroConsume(
-            BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
-            SplitParameters splitParameters,
-            Consumer<String, GenericRecord> kafkaAvroConsumer)
+    /**
+     * Writes the record's timestamp to the timestamp pseudo column, this is a no-op if the column was not projected.
+     *
+     * @return false if the record's timestamp does not satisfy the query's constraints on the pseudo column.
+     */
+    private boolean offerTimestamp(Block block, int rowNum, ConsumerRecord<String, ?> record)
     {
-        LOGGER.info("[kafka] {} Polling for data", splitParameters);
-        int emptyResultFoundCount = 0;
-        try (Consumer<String, GenericRecord> avroConsumer = kafkaAvroConsumer) {
-            while (true) {
-                if (!queryStatusChecker.isQueryRunning()) {
-                    LOGGER.debug("[kafka]{}  Stopping and closing consumer due to query execution terminated by athena", splitParameters);
-                    splitParameters.info = "query status is false i.e no need to work";
-                    return;
-                }
-
-                // Call the poll on consumer to fetch data from kafka server
-                // poll returns data as batch which can be configured.
-                ConsumerRecords<String, GenericRecord> records = avroConsumer.poll(Duration.ofSeconds(1L));
-                LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
-
-                // For debug insight
-                splitParameters.pulled += records.count();
-
-                // Keep track for how many times we are getting empty result for the polling call.
-                if (records.count() == 0) {
-                    emptyResultFoundCount++;
-                }
-
-                // We will close KafkaConsumer if we are getting empty result again and again.
-                // Here we are comparing with a max threshold (MAX_EMPTY_RESULT_FOUNT_COUNT) to
-                // stop the polling.
-                if (emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
-                    LOGGER.debug("[kafka] {} Closing consumer due to getting empty result from broker", splitParameters);
-                    splitParameters.info = "always getting empty data i.e leaving from work";
-                    return;
-                }
-
-                for (ConsumerRecord<String, GenericRecord> record : records) {
-                    // Pass batch data one by one to be processed to execute. execute method is
-                    // a kind of abstraction to keep data filtering and writing on spiller separate.
-                    avroExecute(spiller, recordsRequest, queryStatusChecker, splitParameters, record);
-
-                    // If we have reached at the end offset of the partition. we will not continue
-                    // to call the polling.
-                    if (record.offset() >= splitParameters.endOffset) {
-                        LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
-
-                        // For debug insight
-                        splitParameters.info = String.format(
-                                "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                                record.offset(),
-                                splitParameters.endOffset
-                        );
-                        return;
-                    }
-                }
-            }
-        }
+        return block.offerValue(TIMESTAMP_COLUMN, rowNum, (record.timestamp() >= 0) ? record.timestamp() : null);
     }
 
     private void avroExecute(
             BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
             SplitParameters splitParameters,
+            boolean hasTimestampField,
             ConsumerRecord<String, GenericRecord> record)
     {
         spiller.writeRows((Block block, int rowNum) -> {
+            if (hasTimestampField && !offerTimestamp(block, rowNum, record)) {
+                LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
+                return 0;
+            }
             for (Schema.Field next : record.value().getSchema().getFields()) {
                 boolean isMatched = block.offerValue(next.name(), rowNum, record.value().get(next.name()));
                 if (!isMatched) {
@@ -362,75 +395,17 @@ public class KafkaRecordHandler
         });
     }
 
-    private void protobufConsume(
-            BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
-            SplitParameters splitParameters,
-            Consumer<String, DynamicMessage> kafkaProtobufConsumer)
-    {
-        LOGGER.info("[kafka] {} Polling for data", splitParameters);
-        int emptyResultFoundCount = 0;
-        try (Consumer<String, DynamicMessage> protobufConsumer = kafkaProtobufConsumer) {
-            while (true) {
-                if (!queryStatusChecker.isQueryRunning()) {
-                    LOGGER.debug("[kafka]{}  Stopping and closing consumer due to query execution terminated by athena", splitParameters);
-                    splitParameters.info = "query status is false i.e no need to work";
-                    return;
-                }
-
-                // Call the poll on consumer to fetch data from kafka server
-                // poll returns data as batch which can be configured.
-                ConsumerRecords<String, DynamicMessage> records = protobufConsumer.poll(Duration.ofSeconds(1L));
-                LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
-
-                // For debug insight
-                splitParameters.pulled += records.count();
-
-                // Keep track for how many times we are getting empty result for the polling call.
-                if (records.count() == 0) {
-                    emptyResultFoundCount++;
-                }
-
-                // We will close KafkaConsumer if we are getting empty result again and again.
-                // Here we are comparing with a max threshold (MAX_EMPTY_RESULT_FOUNT_COUNT) to
-                // stop the polling.
-                if (emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
-                    LOGGER.debug("[kafka] {} Closing consumer due to getting empty result from broker", splitParameters);
-                    splitParameters.info = "always getting empty data i.e leaving from work";
-                    return;
-                }
-
-                for (ConsumerRecord<String, DynamicMessage> record : records) {
-                    // Pass batch data one by one to be processed to execute. execute method is
-                    // a kind of abstraction to keep data filtering and writing on spiller separate.
-                    protobufExecute(spiller, recordsRequest, queryStatusChecker, splitParameters, record);
-
-                    // If we have reached at the end offset of the partition. we will not continue
-                    // to call the polling.
-                    if (record.offset() >= splitParameters.endOffset) {
-                        LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
-
-                        // For debug insight
-                        splitParameters.info = String.format(
-                                "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                                record.offset(),
-                                splitParameters.endOffset
-                        );
-                        return;
-                    }
-                }
-            }
-        }
-    }
     private void protobufExecute(
             BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
             SplitParameters splitParameters,
+            boolean hasTimestampField,
             ConsumerRecord<String, DynamicMessage> record)
     {
         spiller.writeRows((Block block, int rowNum) -> {
+            if (hasTimestampField && !offerTimestamp(block, rowNum, record)) {
+                LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
+                return 0;
+            }
             for (Descriptors.FieldDescriptor next : record.value().getAllFields().keySet()) {
                 boolean isMatched = block.offerValue(next.getName(), rowNum, record.value().getField(next));
                 if (!isMatched) {
@@ -443,4 +418,90 @@ public class KafkaRecordHandler
             return 1;
         });
     }
+
+    /**
+     * Polls the split's topic partition for the {@link RecordPipeline}, up to and including the split's last offset.
+     */
+    private static class PartitionSource
+            implements RecordPipeline.RecordSource<ConsumerRecord<String, byte[]>>
+    {
+        private final Consumer<String, byte[]> consumer;
+        private final SplitParameters splitParameters;
+        private final TopicPartition partition;
+        private final long lastOffset;
+        private int emptyResultFoundCount;
+        private boolean reachedEndOffset;
+        private long pulled;
+
+        PartitionSource(Consumer<String, byte[]> consumer, SplitParameters splitParameters, long lastOffset)
+        {
+            this.consumer = consumer;
+            this.splitParameters = splitParameters;
+            this.partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
+            this.lastOffset = lastOffset;
+        }
+
+        @Override
+        public List<ConsumerRecord<String, byte[]>> poll()
+        {
+            if (reachedEndOffset) {
+                return null;
+            }
+            ConsumerRecords<String, byte[]> polled = consumer.poll(POLL_TIMEOUT);
+            pulled += polled.count();
+            if (polled.count() == 0 && ++emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
+                LOGGER.debug("[kafka] {} Stopping pipeline due to getting empty result from broker", splitParameters);
+                return null;
+            }
+
+            List<ConsumerRecord<String, byte[]>> records = new ArrayList<>(polled.count());
+            for (ConsumerRecord<String, byte[]> record : polled) {
+                // The last batch may run past the end of the split, those records belong to the next split.
+                if (record.offset() > lastOffset) {
+                    break;
+                }
+                records.add(record);
+            }
+            if (consumer.position(partition) > lastOffset) {
+                LOGGER.debug("[kafka] {} Stopping pipeline due to reaching the end offset", splitParameters);
+                reachedEndOffset = true;
+            }
+            return records;
+        }
+
+        @Override
+        public void wakeup()
+        {
+            consumer.wakeup();
+        }
+    }
+
+    /**
+     * Deserializes the record values for the {@link RecordPipeline}, each deserializer thread gets its own instance as
+     * Deserializers are not thread safe.
+     */
+    private static class ValueDecoder<T>
+            implements RecordPipeline.RecordDecoder<ConsumerRecord<String, byte[]>, ConsumerRecord<String, T>>
+    {
+        private final Deserializer<T> deserializer;
+
+        ValueDecoder(Deserializer<T> deserializer)
+        {
+            this.deserializer = deserializer;
+        }
+
+        @Override
+        public ConsumerRecord<String, T> decode(ConsumerRecord<String, byte[]> raw)
+        {
+            T value = deserializer.deserialize(raw.topic(), raw.headers(), raw.value());
+            return new ConsumerRecord<>(raw.topic(), raw.partition(), raw.offset(), raw.timestamp(), raw.timestampType(),
+                    raw.serializedKeySize(), raw.serializedValueSize(), raw.key(), value, raw.headers(), raw.leaderEpoch());
+        }
+
+        @Override
+        public void close()
+        {
+            deserializer.close();
+        }
+    }
 }
@@ -42,11 +42,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.DynamicMessage;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.slf4j.Logger;
@@ -59,6 +62,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
@@ -101,6 +105,9 @@ public class KafkaUtils
     private static final String KAFKA_VALUE_DESERIALIZER_CLASS_CONFIG = "value.deserializer";
     private static final String KAFKA_SCHEMA_REGISTRY_URL = "schema.registry.url";
 
+    private static final long MAX_POLL_RECORDS = 10_000;
+    private static final long MAX_PARTITION_FETCH_BYTES = 1_048_576;
+
     private static final ObjectMapper objectMapper = new ObjectMapper();
 
     private KafkaUtils() {}
@@ -131,48 +138,140 @@ public class KafkaUtils
      * @throws Exception - {@link Exception}
      */
     public static Consumer<String, TopicResultSet> getKafkaConsumer(Schema schema, java.util.Map<String, String> configOptions) throws Exception
+    {
+        return getKafkaConsumer(schema, configOptions, null);
+    }
+
+    /**
+     * Creates instance of Kafka consumer whose fetch settings are sized for the offset range of the given split.
+     *
+     * @param schema - instance of {@link Schema}
+     * @param splitParameters - the split that will be read, or null to use the default fetch settings
+     * @return Consumer {@link Consumer}
+     * @throws Exception - {@link Exception}
+     */
+    public static Consumer<String, TopicResultSet> getKafkaConsumer(Schema schema, java.util.Map<String, String> configOptions, SplitParameters splitParameters) throws Exception
     {
         Properties properties = KafkaUtils.getKafkaProperties(configOptions);
         properties.setProperty(KAFKA_VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
-
-        // Get the topic data type, while we had built the schema we had put it in schema's metadata
-        String dataFormat = schema.getCustomMetadata().get("dataFormat");
-
-        // Based on topic data type we should select Deserializer to be attached to KafkaConsumer
-        Deserializer<TopicResultSet> valueDeserializer;
-        if (dataFormat.equals(Message.DATA_FORMAT_JSON)) {
-            valueDeserializer = new KafkaJsonDeserializer(schema);
-        }
-        else if (dataFormat.equals(Message.DATA_FORMAT_CSV)) {
-            valueDeserializer = new KafkaCsvDeserializer(schema);
-        }
-        else {
-            throw new Exception("Unsupported Format provided" + dataFormat);
-        }
+        tuneFetchProperties(properties, splitParameters);
 
         return new KafkaConsumer<>(
                 properties,
                 new StringDeserializer(),
-                valueDeserializer
+                getValueDeserializer(schema)
         );
     }
 
     public static Consumer<String, GenericRecord> getAvroKafkaConsumer(java.util.Map<String, String> configOptions) throws Exception
+    {
+        return getAvroKafkaConsumer(configOptions, null);
+    }
+
+    public static Consumer<String, GenericRecord> getAvroKafkaConsumer(java.util.Map<String, String> configOptions, SplitParameters splitParameters) throws Exception
     {
         Properties properties = getKafkaProperties(configOptions);
         properties.setProperty(KAFKA_VALUE_DESERIALIZER_CLASS_CONFIG, io.confluent.kafka.serializers.KafkaAvroDeserializer.class.getName());
         properties.setProperty(KAFKA_SCHEMA_REGISTRY_URL, getRequiredConfig(KafkaConstants.KAFKA_SCHEMA_REGISTRY_URL, configOptions));
+        tuneFetchProperties(properties, splitParameters);
         return new KafkaConsumer<>(properties);
     }
 
     public static Consumer<String, DynamicMessage> getProtobufKafkaConsumer(java.util.Map<String, String> configOptions) throws Exception
+    {
+        return getProtobufKafkaConsumer(configOptions, null);
+    }
+
+    public static Consumer<String, DynamicMessage> getProtobufKafkaConsumer(java.util.Map<String, String> configOptions, SplitParameters splitParameters) throws Exception
     {
         Properties properties = getKafkaProperties(configOptions);
         properties.setProperty(KAFKA_VALUE_DESERIALIZER_CLASS_CONFIG, io.confluent.kafka.serializers.protobuf.KafkaProtobufDeserializer.class.getName());
         properties.setProperty(KAFKA_SCHEMA_REGISTRY_URL, getRequiredConfig(KafkaConstants.KAFKA_SCHEMA_REGISTRY_URL, configOptions));
+        tuneFetchProperties(properties, splitParameters);
+        return new KafkaConsumer<>(properties);
+    }
+
+    /**
+     * Creates a Kafka consumer which leaves record values as raw bytes. This is used by the pipelined read mode which
+     * deserializes records on separate threads from the one that polls the broker.
+     *
+     * @param splitParameters - the split that will be read, used to size the consumer's fetches
+     * @return Consumer {@link Consumer}
+     * @throws Exception - {@link Exception}
+     */
+    public static Consumer<String, byte[]> getByteArrayKafkaConsumer(java.util.Map<String, String> configOptions, SplitParameters splitParameters) throws Exception
+    {
+        Properties properties = getKafkaProperties(configOptions);
+        properties.setProperty(KAFKA_VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class.getName());
+        tuneFetchProperties(properties, splitParameters);
         return new KafkaConsumer<>(properties);
     }
 
+    /**
+     * Creates the value Deserializer for JSON or CSV topics, as indicated by the dataFormat in the schema's metadata.
+     * Deserializers are not thread safe, callers that deserialize on several threads need an instance per thread.
+     *
+     * @param schema - instance of {@link Schema}
+     * @return {@link Deserializer}
+     * @throws Exception - {@link Exception}
+     */
+    public static Deserializer<TopicResultSet> getValueDeserializer(Schema schema) throws Exception
+    {
+        // Get the topic data type, while we had built the schema we had put it in schema's metadata
+        String dataFormat = schema.getCustomMetadata().get("dataFormat");
+
+        // Based on topic data type we should select Deserializer to be attached to KafkaConsumer
+        if (dataFormat.equals(Message.DATA_FORMAT_JSON)) {
+            return new KafkaJsonDeserializer(schema);
+        }
+        else if (dataFormat.equals(Message.DATA_FORMAT_CSV)) {
+            return new KafkaCsvDeserializer(schema);
+        }
+        throw new Exception("Unsupported Format provided" + dataFormat);
+    }
+
+    /**
+     * Creates a schema registry backed value Deserializer for avro or protobuf topics.
+     *
+     * @param dataFormat - avro or protobuf
+     * @return {@link Deserializer}
+     */
+    public static Deserializer<?> getRegistryValueDeserializer(String dataFormat, java.util.Map<String, String> configOptions)
+    {
+        Deserializer<?> deserializer;
+        if (dataFormat.equalsIgnoreCase(KafkaConstants.AVRO_DATA_FORMAT)) {
+            deserializer = new io.confluent.kafka.serializers.KafkaAvroDeserializer();
+        }
+        else if (dataFormat.equalsIgnoreCase(KafkaConstants.PROTOBUF_DATA_FORMAT)) {
+            deserializer = new io.confluent.kafka.serializers.protobuf.KafkaProtobufDeserializer<>();
+        }
+        else {
+            throw new IllegalArgumentException("Unsupported schema registry data format " + dataFormat);
+        }
+        deserializer.configure(Collections.singletonMap(KAFKA_SCHEMA_REGISTRY_URL,
+                getRequiredConfig(KafkaConstants.KAFKA_SCHEMA_REGISTRY_URL, configOptions)), false);
+        return deserializer;
+    }
+
+    /**
+     * Sizes the consumer's polls for the offset range of the split. A split never needs more than
+     * (endOffset - startOffset + 1) records so there is no point in asking for larger batches. fetch.min.bytes is
+     * left at the Kafka default, raising it makes the broker hold every fetch for up to fetch.max.wait.ms whenever
+     * the records are small or compressed, which stalls partitions that are not being written to.
+     *
+     * @param properties - the consumer properties to update
+     * @param splitParameters - the split that will be read, or null to leave the defaults in place
+     */
+    static void tuneFetchProperties(Properties properties, SplitParameters splitParameters)
+    {
+        if (splitParameters == null) {
+            return;
+        }
+        long numRecords = Math.max(1, splitParameters.endOffset - splitParameters.startOffset + 1);
+        long maxPollRecords = Math.min(numRecords, MAX_POLL_RECORDS);
+        properties.setProperty(KAFKA_MAX_POLL_RECORDS_CONFIG, Long.toString(maxPollRecords));
+    }
+
     /**
      * Creates the required settings for kafka consumer.
      *
@@ -188,8 +287,8 @@ public class KafkaUtils
         properties.setProperty(KAFKA_EXCLUDE_INTERNAL_TOPICS_CONFIG, "true");
         properties.setProperty(KAFKA_ENABLE_AUTO_COMMIT_CONFIG, "false");
         properties.setProperty(KAFKA_AUTO_OFFSET_RESET_CONFIG, "earliest");
-        properties.setProperty(KAFKA_MAX_POLL_RECORDS_CONFIG, "10000");
-        properties.setProperty(KAFKA_MAX_PARTITION_FETCH_BYTES_CONFIG, "1048576");
+        properties.setProperty(KAFKA_MAX_POLL_RECORDS_CONFIG, Long.toString(MAX_POLL_RECORDS));
+        properties.setProperty(KAFKA_MAX_PARTITION_FETCH_BYTES_CONFIG, Long.toString(MAX_PARTITION_FETCH_BYTES));
         properties.setProperty(KAFKA_KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
 
         //fetch authentication type for the kafka cluster
@@ -453,4 +552,48 @@ public class KafkaUtils
                 return Types.MinorType.VARCHAR.getType();
         }
     }
+
+    /**
+     * Creates the field for the record timestamp pseudo column, marked as such in its metadata.
+     *
+     * @return {@link Field}
+     */
+    public static Field timestampField()
+    {
+        FieldType fieldType = new FieldType(
+                true,
+                Types.MinorType.DATEMILLI.getType(),
+                null,
+                Collections.singletonMap(KafkaConstants.PSEUDO_COLUMN_METADATA, "true")
+        );
+        return new Field(KafkaConstants.TIMESTAMP_COLUMN, fieldType, null);
+    }
+
+    /**
+     * Checks if the field is the record timestamp pseudo column rather than a field of the topic.
+     *
+     * @param field - arrow type field
+     * @return true if the field is the pseudo column
+     */
+    public static boolean isTimestampField(Field field)
+    {
+        return KafkaConstants.TIMESTAMP_COLUMN.equals(field.getName())
+                && field.getMetadata() != null
+                && Boolean.parseBoolean(field.getMetadata().get(KafkaConstants.PSEUDO_COLUMN_METADATA));
+    }
+
+    /**
+     * Checks if the schema has the record timestamp pseudo column, topics that define a field of the same
+     * name do not.
+     *
+     * @param schema - the table or request schema
+     * @return true if the schema has the pseudo column
+     */
+    public static boolean hasTimestampField(Schema schema)
+    {
+        if (schema == null) {
+            return false;
+        }
+        return schema.getFields().stream().anyMatch(KafkaUtils::isTimestampField);
+    }
 }
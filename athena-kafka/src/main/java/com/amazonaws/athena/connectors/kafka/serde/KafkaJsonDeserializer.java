@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connectors.kafka.serde;
 
+import com.amazonaws.athena.connectors.kafka.KafkaUtils;
 import com.amazonaws.athena.connectors.kafka.dto.KafkaField;
 import com.amazonaws.athena.connectors.kafka.dto.Message;
 import com.amazonaws.athena.connectors.kafka.dto.TopicResultSet;
@@ -60,6 +61,10 @@ public class KafkaJsonDeserializer extends KafkaDeserializer
             // Creating Field object for each fields in raw data.
             // Also putting additional information in fields from fields metadata.
             schema.getFields().forEach(field -> {
+                // The timestamp pseudo column is filled from the record's metadata, not its value.
+                if (KafkaUtils.isTimestampField(field)) {
+                    return;
+                }
                 String mapping = field.getMetadata().get("mapping");
                 try {
                     topicResultSet.getFields().add(new KafkaField(
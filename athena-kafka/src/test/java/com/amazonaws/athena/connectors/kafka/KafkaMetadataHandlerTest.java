@@ -23,8 +23,12 @@ package com.amazonaws.athena.connectors.kafka;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.metadata.*;
 import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
 import com.amazonaws.services.glue.AWSGlue;
@@ -33,7 +37,15 @@ import com.amazonaws.services.glue.model.GetSchemaResult;
 import com.amazonaws.services.glue.model.GetSchemaVersionResult;
 import com.amazonaws.services.glue.model.ListRegistriesResult;
 import com.amazonaws.services.glue.model.RegistryListItem;
+import com.amazonaws.athena.connectors.kafka.dto.TopicPartitionPiece;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
@@ -47,6 +59,9 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -54,8 +69,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 
 import static org.mockito.Mockito.mock;
@@ -70,6 +88,7 @@ public class KafkaMetadataHandlerTest {
     private Block partitions;
     private List<String> partitionCols;
     private Constraints constraints;
+    private Map<String, String> configOptions;
 
     private MockedStatic<AWSGlueClientBuilder> awsGlueClientBuilder;
 
@@ -86,7 +105,7 @@ public class KafkaMetadataHandlerTest {
         partitions = Mockito.mock(Block.class);
         partitionCols = Mockito.mock(List.class);
         constraints = Mockito.mock(Constraints.class);
-        java.util.Map configOptions = com.google.common.collect.ImmutableMap.of(
+        configOptions = com.google.common.collect.ImmutableMap.of(
             "aws.region", "us-west-2",
             "glue_registry_arn", "arn:aws:glue:us-west-2:123456789101:registry/Athena-NEW",
             "auth_type", KafkaUtils.AuthType.SSL.toString(),
@@ -173,7 +192,8 @@ public class KafkaMetadataHandlerTest {
         Mockito.when(awsGlue.getSchemaVersion(any())).thenReturn(getSchemaVersionResult);
         GetTableRequest getTableRequest = new GetTableRequest(federatedIdentity, QUERY_ID, "kafka", new TableName("default", "testtable"), Collections.emptyMap());
         GetTableResponse getTableResponse = kafkaMetadataHandler.doGetTable(blockAllocator, getTableRequest);
-        assertEquals(1, getTableResponse.getSchema().getFields().size());
+        assertEquals(2, getTableResponse.getSchema().getFields().size());
+        assertTrue(KafkaUtils.isTimestampField(getTableResponse.getSchema().findField(KafkaConstants.TIMESTAMP_COLUMN)));
     }
 
     @Test
@@ -232,4 +252,88 @@ public class KafkaMetadataHandlerTest {
         assertEquals(500, response.getSplits().size());
         assertNull(response.getContinuationToken());
     }
+
+    @Test
+    public void testGetOffsetRangesPrunesByTimestamp()
+    {
+        TopicPartition partition0 = new TopicPartition("testTopic", 0);
+        TopicPartition partition1 = new TopicPartition("testTopic", 1);
+        TopicPartition partition2 = new TopicPartition("testTopic", 2);
+        List<TopicPartition> topicPartitions = ImmutableList.of(partition0, partition1, partition2);
+        Map<TopicPartition, Long> startOffsets = ImmutableMap.of(partition0, 0L, partition1, 0L, partition2, 0L);
+        Map<TopicPartition, Long> endOffsets = ImmutableMap.of(partition0, 100L, partition1, 100L, partition2, 100L);
+
+        long low = 1_000_000L;
+        long high = 2_000_000L;
+        Map<TopicPartition, OffsetAndTimestamp> lowOffsets = new HashMap<>();
+        // partition 0 has records before, within and after the time range.
+        lowOffsets.put(partition0, new OffsetAndTimestamp(10L, low));
+        // partition 1 only has records within the time range onwards.
+        lowOffsets.put(partition1, new OffsetAndTimestamp(0L, low + 5));
+        // partition 2 has no records at or after the start of the time range.
+        lowOffsets.put(partition2, null);
+
+        MockConsumer<String, String> spyConsumer = Mockito.spy(consumer);
+        Mockito.doReturn(lowOffsets).when(spyConsumer).offsetsForTimes(ImmutableMap.of(partition0, low, partition1, low, partition2, low));
+        KafkaMetadataHandler handler = new KafkaMetadataHandler(spyConsumer, configOptions);
+
+        Map<TopicPartition, TopicPartitionPiece> offsetRanges = handler.getOffsetRanges(timestampSchema(KafkaUtils.timestampField()),
+                timestampConstraints(low, high), topicPartitions, startOffsets, endOffsets);
+        assertEquals(2, offsetRanges.size());
+        assertEquals(10L, offsetRanges.get(partition0).startOffset);
+        // Record timestamps may be out of order with their offsets, so the end offset is never pruned.
+        assertEquals(100L, offsetRanges.get(partition0).endOffset);
+        assertEquals(0L, offsetRanges.get(partition1).startOffset);
+        assertEquals(100L, offsetRanges.get(partition1).endOffset);
+        assertFalse(offsetRanges.containsKey(partition2));
+        Mockito.verify(spyConsumer, Mockito.times(1)).offsetsForTimes(any());
+    }
+
+    @Test
+    public void testGetOffsetRangesWithoutTimestampConstraint()
+    {
+        TopicPartition partition0 = new TopicPartition("testTopic", 0);
+        Map<TopicPartition, TopicPartitionPiece> offsetRanges = kafkaMetadataHandler.getOffsetRanges(timestampSchema(KafkaUtils.timestampField()),
+                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT),
+                ImmutableList.of(partition0), ImmutableMap.of(partition0, 5L), ImmutableMap.of(partition0, 100L));
+        assertEquals(1, offsetRanges.size());
+        assertEquals(5L, offsetRanges.get(partition0).startOffset);
+        assertEquals(100L, offsetRanges.get(partition0).endOffset);
+    }
+
+    @Test
+    public void testGetOffsetRangesWithTopicTimestampField()
+    {
+        TopicPartition partition0 = new TopicPartition("testTopic", 0);
+        MockConsumer<String, String> spyConsumer = Mockito.spy(consumer);
+        KafkaMetadataHandler handler = new KafkaMetadataHandler(spyConsumer, configOptions);
+
+        // The topic defines its own field named like the pseudo column, which is not the record timestamp.
+        Field topicField = new Field(KafkaConstants.TIMESTAMP_COLUMN,
+                new FieldType(true, Types.MinorType.DATEMILLI.getType(), null, ImmutableMap.of("mapping", "ts", "type", "TIMESTAMP")), null);
+        Map<TopicPartition, TopicPartitionPiece> offsetRanges = handler.getOffsetRanges(timestampSchema(topicField),
+                timestampConstraints(1_000_000L, 2_000_000L), ImmutableList.of(partition0),
+                ImmutableMap.of(partition0, 5L), ImmutableMap.of(partition0, 100L));
+        assertEquals(1, offsetRanges.size());
+        assertEquals(5L, offsetRanges.get(partition0).startOffset);
+        assertEquals(100L, offsetRanges.get(partition0).endOffset);
+        Mockito.verify(spyConsumer, Mockito.never()).offsetsForTimes(any());
+    }
+
+    private Schema timestampSchema(Field timestampField)
+    {
+        return SchemaBuilder.newBuilder()
+                .addStringField("name")
+                .addField(timestampField)
+                .build();
+    }
+
+    private Constraints timestampConstraints(long low, long high)
+    {
+        ValueSet timestampRange = SortedRangeSet.of(Range.range(blockAllocator, Types.MinorType.DATEMILLI.getType(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(low), ZoneOffset.UTC), true,
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(high), ZoneOffset.UTC), true));
+        return new Constraints(ImmutableMap.of(KafkaConstants.TIMESTAMP_COLUMN, timestampRange),
+                Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT);
+    }
 }
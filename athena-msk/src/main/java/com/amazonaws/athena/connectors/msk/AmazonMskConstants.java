@@ -64,6 +64,29 @@ public class AmazonMskConstants
 
     public static final int MAX_RECORDS_IN_SPLIT = 10_000;
 
+    /**
+     * When set to true, polling, deserialization and writing records to the spiller run on separate
+     * threads with bounded hand-off between them instead of all running on the polling thread.
+     */
+    public static final String KAFKA_PIPELINED_READ = "kafka_pipelined_read";
+    /**
+     * The number of threads used to deserialize records when the pipelined read mode is enabled.
+     */
+    public static final String KAFKA_DESERIALIZER_THREADS = "kafka_deserializer_threads";
+
+    /**
+     * Pseudo column exposing the timestamp of each record. Range predicates on this column are translated
+     * into offsets, using KafkaConsumer.offsetsForTimes, to prune the offsets each split reads. The pseudo column
+     * is not added to topics that define a field of the same name, in which case neither pruning nor filling in
+     * the record timestamp applies to that field.
+     */
+    public static final String TIMESTAMP_COLUMN = "_timestamp";
+    /**
+     * Field metadata key marking the timestamp pseudo column, so it can be told apart from a topic field of the
+     * same name once the schema comes back in a request.
+     */
+    public static final String PSEUDO_COLUMN_METADATA = "pseudoColumn";
+
     public static final String AVRO_DATA_FORMAT = "avro";
     public static final String PROTOBUF_DATA_FORMAT = "protobuf";
 
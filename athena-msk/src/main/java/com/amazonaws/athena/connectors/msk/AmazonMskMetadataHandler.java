@@ -25,6 +25,11 @@ import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Marker;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
 import com.amazonaws.athena.connector.lambda.handlers.MetadataHandler;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
@@ -57,12 +62,17 @@ import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.FieldType;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.UnsupportedVersionException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -74,6 +84,7 @@ import static com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest.U
 import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.AVRO_DATA_FORMAT;
 import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.MAX_RECORDS_IN_SPLIT;
 import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.PROTOBUF_DATA_FORMAT;
+import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.TIMESTAMP_COLUMN;
 
 public class AmazonMskMetadataHandler extends MetadataHandler
 {
@@ -372,6 +383,13 @@ public class AmazonMskMetadataHandler extends MetadataHandler
             });
         }
 
+        // Narrow the offsets of each topic partition to the records within the queried time range, if any. The
+        // table schema is only looked up when there is a predicate on the timestamp column to prune with.
+        Constraints constraints = request.getConstraints();
+        Schema tableSchema = (constraints.getSummary() != null && constraints.getSummary().containsKey(TIMESTAMP_COLUMN))
+                ? getSchema(glueRegistryName, glueSchemaName) : null;
+        Map<TopicPartition, TopicPartitionPiece> offsetRanges = getOffsetRanges(tableSchema, constraints, topicPartitions, startOffsets, endOffsets);
+
         Set<Split> splits = new HashSet<>();
         SpillLocation spillLocation = makeSpillLocation(request);
         int continuationToken = request.getContinuationToken() == null ? 0 : Integer.parseInt(request.getContinuationToken());
@@ -380,8 +398,14 @@ public class AmazonMskMetadataHandler extends MetadataHandler
             partitionIndex < topicPartitions.size();
             partitionIndex++) {
             TopicPartition partition = topicPartitions.get(partitionIndex);
+            TopicPartitionPiece offsetRange = offsetRanges.get(partition);
+            if (offsetRange == null) {
+                LOGGER.debug("[TopicPartitionPiece] No records in the queried time range for partition {} in topic {}",
+                        partition.partition(), partition.topic());
+                continue;
+            }
             // Calculate how many pieces we can divide a topic partition.
-            List<TopicPartitionPiece>  topicPartitionPieces = pieceTopicPartition(startOffsets.get(partition), endOffsets.get(partition));
+            List<TopicPartitionPiece>  topicPartitionPieces = pieceTopicPartition(offsetRange.startOffset, offsetRange.endOffset);
             LOGGER.info("[TopicPartitionPiece] Total pieces created {} for partition {} in topic {}",
                     topicPartitionPieces.size(), partition.partition(), partition.topic()
             );
@@ -417,6 +441,106 @@ public class AmazonMskMetadataHandler extends MetadataHandler
         return new GetSplitsResponse(request.getCatalogName(), splits);
     }
 
+    /**
+     * Calculates the offsets to read for each topic partition. Without a predicate on the timestamp pseudo column
+     * this is simply each partition's beginning and end offsets. With one, the start of the queried time range is
+     * translated into an offset using offsetsForTimes, which returns the earliest offset whose timestamp is greater
+     * than or equal to the given time. Partitions that have no records at or after that time are left out.
+     *
+     * NOTE: Only the start offset is pruned. Records with CreateTime timestamps, set by the producer, can be out of
+     * order with their offsets, so the end of the time range does not bound the offsets holding matching records.
+     * Records within the pruned offsets are still filtered on their actual timestamp when they are read.
+     *
+     * @param schema - the table's {@link Schema}, pruning is skipped if it has no timestamp pseudo column
+     * @param constraints - the query's {@link Constraints}
+     * @param topicPartitions - the partitions of the topic
+     * @param startOffsets - the beginning offset of each partition
+     * @param endOffsets - the end offset of each partition
+     * @return the offsets to read for each partition that may have matching records
+     */
+    @VisibleForTesting
+    Map<TopicPartition, TopicPartitionPiece> getOffsetRanges(Schema schema,
+            Constraints constraints,
+            List<TopicPartition> topicPartitions,
+            Map<TopicPartition, Long> startOffsets,
+            Map<TopicPartition, Long> endOffsets)
+    {
+        Map<TopicPartition, TopicPartitionPiece> offsetRanges = new HashMap<>();
+        topicPartitions.forEach(it -> offsetRanges.put(it, new TopicPartitionPiece(startOffsets.get(it), endOffsets.get(it))));
+
+        // A topic field of the same name holds the topic's own data rather than the record timestamp.
+        if (!AmazonMskUtils.hasTimestampField(schema)) {
+            return offsetRanges;
+        }
+        ValueSet valueSet = (constraints == null || constraints.getSummary() == null) ? null : constraints.getSummary().get(TIMESTAMP_COLUMN);
+        if (!(valueSet instanceof SortedRangeSet) || ((SortedRangeSet) valueSet).getRangeCount() == 0 || topicPartitions.isEmpty()) {
+            return offsetRanges;
+        }
+
+        Range span = ((SortedRangeSet) valueSet).getSpan();
+        if (span.getLow().isLowerUnbounded()) {
+            return offsetRanges;
+        }
+        long lowTimestamp = toEpochMillis(span.getLow().getValue());
+        if (span.getLow().getBound() == Marker.Bound.ABOVE) {
+            lowTimestamp++;
+        }
+        if (!span.getHigh().isUpperUnbounded()) {
+            long highTimestamp = toEpochMillis(span.getHigh().getValue());
+            if (span.getHigh().getBound() == Marker.Bound.BELOW) {
+                highTimestamp--;
+            }
+            if (lowTimestamp > highTimestamp) {
+                offsetRanges.clear();
+                return offsetRanges;
+            }
+        }
+        LOGGER.info("[KafkaPartitionOffset] pruning offsets for timestamps at or after {}", lowTimestamp);
+
+        Map<TopicPartition, OffsetAndTimestamp> lowOffsets;
+        try {
+            // The first offset at or after the start of the time range, null if there is no such record.
+            lowOffsets = offsetsForTime(topicPartitions, lowTimestamp);
+        }
+        catch (UnsupportedVersionException ex) {
+            LOGGER.warn("[KafkaPartitionOffset] broker does not support offsetsForTimes, reading all offsets", ex);
+            return offsetRanges;
+        }
+
+        for (TopicPartition partition : topicPartitions) {
+            OffsetAndTimestamp low = lowOffsets.get(partition);
+            if (low == null) {
+                offsetRanges.remove(partition);
+                continue;
+            }
+            long startOffset = Math.max(startOffsets.get(partition), low.offset());
+            long endOffset = endOffsets.get(partition);
+            if (startOffset > endOffset) {
+                offsetRanges.remove(partition);
+                continue;
+            }
+            LOGGER.debug("[KafkaPartitionOffset] pruned offsets [topic: {}, partition: {}, start-offset: {}, end-offset: {}]",
+                    partition.topic(), partition.partition(), startOffset, endOffset);
+            offsetRanges.put(partition, new TopicPartitionPiece(startOffset, endOffset));
+        }
+        return offsetRanges;
+    }
+
+    private Map<TopicPartition, OffsetAndTimestamp> offsetsForTime(List<TopicPartition> topicPartitions, long timestamp)
+    {
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        topicPartitions.forEach(it -> timestamps.put(it, timestamp));
+        return kafkaConsumer.offsetsForTimes(timestamps);
+    }
+
+    private static long toEpochMillis(Object value)
+    {
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        return ((Number) value).longValue();
+    }
+
     /**
      * Create the arrow schema for a specific topic. In the metadata
      * we keep the additional information of topic schema and fields.
@@ -494,6 +618,10 @@ public class AmazonMskMetadataHandler extends MetadataHandler
             // Putting the additional schema level information into the metadata in ArrowType schema.
             schemaBuilder.addMetadata("dataFormat", topicSchema.getMessage().getDataFormat());
         }
+        // Expose the record timestamp as a pseudo column, unless the topic has a field of the same name.
+        if (schemaBuilder.getField(TIMESTAMP_COLUMN) == null) {
+            schemaBuilder.addField(AmazonMskUtils.timestampField());
+        }
         // NOTE: these values are being shoved in here for usage later in the calling context
         // of doGetTable() since Java doesn't have tuples.
         schemaBuilder.addMetadata("glueRegistryName", glueRegistryName);
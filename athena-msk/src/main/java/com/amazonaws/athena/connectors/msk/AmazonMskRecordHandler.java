@@ -35,17 +35,25 @@ import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import com.amazonaws.services.secretsmanager.AWSSecretsManagerClientBuilder;
 import com.google.common.annotations.VisibleForTesting;
+import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
 import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.AVRO_DATA_FORMAT;
+import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.KAFKA_DESERIALIZER_THREADS;
+import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.KAFKA_PIPELINED_READ;
 import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.PROTOBUF_DATA_FORMAT;
 
 public class AmazonMskRecordHandler
         extends RecordHandler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(AmazonMskRecordHandler.class);
+    private static final int DEFAULT_DESERIALIZER_THREADS = 2;
 
     AmazonMskRecordHandler(java.util.Map<String, String> configOptions)
     {
@@ -78,21 +86,36 @@ public class AmazonMskRecordHandler
         GlueRegistryReader registryReader = new GlueRegistryReader();
 
         String dataFormat = registryReader.getGlueSchemaType(recordsRequest.getTableName().getSchemaName(), recordsRequest.getTableName().getTableName());
+        // A topic field named like the timestamp pseudo column is read from the record value instead.
+        boolean hasTimestampField = AmazonMskUtils.hasTimestampField(recordsRequest.getSchema());
         MskConsumer mskConsumer;
-        Consumer<?, ?> consumer;
+        switch (dataFormat.toLowerCase()) {
+            case AVRO_DATA_FORMAT:
+                mskConsumer = new MskAvroConsumer(hasTimestampField);
+                break;
+            case PROTOBUF_DATA_FORMAT:
+                mskConsumer = new MskProtobufConsumer(hasTimestampField);
+                break;
+            default:
+                mskConsumer = new MskDefaultConsumer(hasTimestampField);
+                break;
+        }
 
+        if (Boolean.parseBoolean(configOptions.get(KAFKA_PIPELINED_READ))) {
+            pipelinedConsume(spiller, recordsRequest, queryStatusChecker, splitParameters, dataFormat, mskConsumer);
+            return;
+        }
+
+        Consumer<?, ?> consumer;
         switch (dataFormat.toLowerCase()) {
             case AVRO_DATA_FORMAT:
-                consumer = AmazonMskUtils.getAvroKafkaConsumer(configOptions);
-                mskConsumer = new MskAvroConsumer();
+                consumer = AmazonMskUtils.getAvroKafkaConsumer(configOptions, splitParameters);
                 break;
             case PROTOBUF_DATA_FORMAT:
-                consumer = AmazonMskUtils.getProtobufKafkaConsumer(configOptions);
-                mskConsumer = new MskProtobufConsumer();
+                consumer = AmazonMskUtils.getProtobufKafkaConsumer(configOptions, splitParameters);
                 break;
             default:
-                consumer = AmazonMskUtils.getKafkaConsumer(recordsRequest.getSchema(), configOptions);
-                mskConsumer = new MskDefaultConsumer();
+                consumer = AmazonMskUtils.getKafkaConsumer(recordsRequest.getSchema(), configOptions, splitParameters);
                 break;
         }
 
@@ -100,4 +123,54 @@ public class AmazonMskRecordHandler
             mskConsumer.consume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaConsumer);
         }
     }
+
+    /**
+     * Reads the split with polling, deserialization and writing to the spiller running on separate threads.
+     *
+     * @param spiller - instance of {@link BlockSpiller}
+     * @param recordsRequest - instance of {@link ReadRecordsRequest}
+     * @param queryStatusChecker - instance of {@link QueryStatusChecker}
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @param dataFormat - the topic's data format from the glue registry
+     * @param mskConsumer - the {@link MskConsumer} for the topic's data format
+     */
+    private void pipelinedConsume(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker,
+            SplitParameters splitParameters, String dataFormat, MskConsumer mskConsumer) throws Exception
+    {
+        int deserializerThreads = Integer.parseInt(configOptions.getOrDefault(KAFKA_DESERIALIZER_THREADS,
+                String.valueOf(DEFAULT_DESERIALIZER_THREADS)));
+
+        Supplier<? extends Deserializer<?>> deserializerFactory;
+        switch (dataFormat.toLowerCase()) {
+            case AVRO_DATA_FORMAT:
+            case PROTOBUF_DATA_FORMAT:
+                //Fail fast on a bad registry config rather than on a deserializer thread.
+                AmazonMskUtils.getRegistryValueDeserializer(dataFormat, configOptions).close();
+                deserializerFactory = () -> uncheckedDeserializer(() -> AmazonMskUtils.getRegistryValueDeserializer(dataFormat, configOptions));
+                break;
+            default:
+                Schema schema = recordsRequest.getSchema();
+                //Fail fast on an unsupported format rather than on a deserializer thread.
+                AmazonMskUtils.getValueDeserializer(schema).close();
+                deserializerFactory = () -> uncheckedDeserializer(() -> AmazonMskUtils.getValueDeserializer(schema));
+                break;
+        }
+
+        try (Consumer<String, byte[]> consumer = AmazonMskUtils.getByteArrayKafkaConsumer(configOptions, splitParameters)) {
+            mskConsumer.pipelinedConsume(spiller, queryStatusChecker, splitParameters, consumer, deserializerFactory, deserializerThreads);
+        }
+    }
+
+    private static <T> Deserializer<T> uncheckedDeserializer(Callable<Deserializer<T>> factory)
+    {
+        try {
+            return factory.call();
+        }
+        catch (RuntimeException ex) {
+            throw ex;
+        }
+        catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
 }
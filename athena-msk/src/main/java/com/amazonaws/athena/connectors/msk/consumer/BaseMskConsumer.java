@@ -20,47 +20,112 @@
 package com.amazonaws.athena.connectors.msk.consumer;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.RecordPipeline;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.Deserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
+
+import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.TIMESTAMP_COLUMN;
 
 public abstract class BaseMskConsumer<T> implements MskConsumer
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseMskConsumer.class);
     protected static final int MAX_EMPTY_RESULT_FOUND_COUNT = 3;
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1L);
+
+    private final boolean hasTimestampField;
+
+    /**
+     * @param hasTimestampField - whether the request schema has the timestamp pseudo column, rather than a topic
+     * field of the same name, which is then filled in from each record's timestamp
+     */
+    protected BaseMskConsumer(boolean hasTimestampField)
+    {
+        this.hasTimestampField = hasTimestampField;
+    }
 
     @Override
     public void consume(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters, Consumer<?, ?> consumer)
     {
         @SuppressWarnings("unchecked")
         Consumer<String, T> typedConsumer = (Consumer<String, T>) consumer;
-        typedConsumer.assign(Collections.singleton(new TopicPartition(splitParameters.topic, splitParameters.partition)));
-        typedConsumer.seek(new TopicPartition(splitParameters.topic, splitParameters.partition), splitParameters.startOffset);
+        long lastOffset = seekToSplit(typedConsumer, splitParameters);
+        if (lastOffset < splitParameters.startOffset) {
+            return;
+        }
+
+        pollAndProcess(spiller, queryStatusChecker, splitParameters, typedConsumer, lastOffset);
+    }
+
+    @Override
+    public void pipelinedConsume(BlockSpiller spiller, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters,
+            Consumer<String, byte[]> consumer, Supplier<? extends Deserializer<?>> deserializerFactory, int deserializerThreads)
+    {
+        long lastOffset = seekToSplit(consumer, splitParameters);
+        if (lastOffset < splitParameters.startOffset) {
+            return;
+        }
 
-        Map<TopicPartition, Long> endOffsets = typedConsumer.endOffsets(Collections.singleton(new TopicPartition(splitParameters.topic, splitParameters.partition)));
-        if (endOffsets.get(new TopicPartition(splitParameters.topic, splitParameters.partition)) == 0) {
+        LOGGER.info("[kafka] {} Polling for data using {} deserializer threads", splitParameters, deserializerThreads);
+        @SuppressWarnings("unchecked")
+        Supplier<Deserializer<T>> typedFactory = () -> (Deserializer<T>) deserializerFactory.get();
+        PartitionSource source = new PartitionSource(consumer, splitParameters, lastOffset);
+        boolean completed = new RecordPipeline<ConsumerRecord<String, byte[]>, ConsumerRecord<String, T>>(
+                splitParameters.topic + "-" + splitParameters.partition, deserializerThreads)
+                .run(source, () -> new ValueDecoder<>(typedFactory.get()), queryStatusChecker,
+                        record -> processRecord(spiller, splitParameters, record));
+        //The pipeline's polling thread has exited, so the consumer may now be closed by the caller.
+        splitParameters.pulled += source.pulled;
+        if (!completed) {
+            LOGGER.debug("[kafka]{} Stopped pipeline due to query execution terminated by athena", splitParameters);
+            splitParameters.info = "query status is false i.e no need to work";
+        }
+    }
+
+    /**
+     * Assigns the consumer to the split's topic partition and seeks to the split's start offset.
+     *
+     * @return the last offset (inclusive) to read, which is less than the split's start offset if there is nothing to read.
+     */
+    private long seekToSplit(Consumer<String, ?> consumer, SplitParameters splitParameters)
+    {
+        TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
+        consumer.assign(Collections.singleton(partition));
+        consumer.seek(partition, splitParameters.startOffset);
+
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(Collections.singleton(partition));
+        long logEndOffset = endOffsets.get(partition);
+        if (logEndOffset == 0) {
             LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-            typedConsumer.close();
             splitParameters.info = "endOffset is 0 i.e partition does not have data";
-            return;
+            return -1;
         }
 
-        pollAndProcess(spiller, queryStatusChecker, splitParameters, typedConsumer);
+        // The log end offset is the offset of the next record to be produced, so the split's end offset may
+        // point one past the last record in the partition. Bounding by the last real record lets us stop as
+        // soon as the consumer's position passes it instead of waiting on empty polls.
+        return Math.min(splitParameters.endOffset, logEndOffset - 1);
     }
 
-    private void pollAndProcess(BlockSpiller spiller, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters, Consumer<String, T> consumer)
+    private void pollAndProcess(BlockSpiller spiller, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters, Consumer<String, T> consumer, long lastOffset)
     {
         LOGGER.info("[kafka] {} Polling for data", splitParameters);
+        TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
         int emptyResultFoundCount = 0;
         while (true) {
             if (!queryStatusChecker.isQueryRunning()) {
@@ -69,7 +134,7 @@ public abstract class BaseMskConsumer<T> implements MskConsumer
                 return;
             }
 
-            ConsumerRecords<String, T> records = consumer.poll(Duration.ofSeconds(1L));
+            ConsumerRecords<String, T> records = consumer.poll(POLL_TIMEOUT);
             LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
 
             splitParameters.pulled += records.count();
@@ -85,20 +150,125 @@ public abstract class BaseMskConsumer<T> implements MskConsumer
             }
 
             for (ConsumerRecord<String, T> record : records) {
+                // The last batch may run past the end of the split, those records belong to the next split.
+                if (record.offset() > lastOffset) {
+                    break;
+                }
                 processRecord(spiller, splitParameters, record);
+            }
 
-                if (record.offset() >= splitParameters.endOffset) {
-                    LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
-                    splitParameters.info = String.format(
-                            "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                            record.offset(),
-                            splitParameters.endOffset
-                    );
-                    return;
-                }
+            long position = consumer.position(partition);
+            if (position > lastOffset) {
+                LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current position is {})", splitParameters, position);
+                splitParameters.info = String.format(
+                        "reached at the end offset i.e no need to work: condition [if(position > lastOffset) i.e if(%s > %s)]",
+                        position,
+                        lastOffset
+                );
+                return;
             }
         }
     }
 
     protected abstract void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, T> record);
+
+    /**
+     * Writes the record's timestamp to the timestamp pseudo column, this is a no-op if the column was not projected
+     * or the schema has no such pseudo column.
+     *
+     * @return false if the record's timestamp does not satisfy the query's constraints on the pseudo column.
+     */
+    protected boolean offerTimestamp(Block block, int rowNum, ConsumerRecord<String, ?> record)
+    {
+        if (!hasTimestampField) {
+            return true;
+        }
+        return block.offerValue(TIMESTAMP_COLUMN, rowNum, (record.timestamp() >= 0) ? record.timestamp() : null);
+    }
+
+    /**
+     * Polls the split's topic partition for the {@link RecordPipeline}, up to and including the split's last offset.
+     */
+    private static class PartitionSource
+            implements RecordPipeline.RecordSource<ConsumerRecord<String, byte[]>>
+    {
+        private final Consumer<String, byte[]> consumer;
+        private final SplitParameters splitParameters;
+        private final TopicPartition partition;
+        private final long lastOffset;
+        private int emptyResultFoundCount;
+        private boolean reachedEndOffset;
+        private long pulled;
+
+        PartitionSource(Consumer<String, byte[]> consumer, SplitParameters splitParameters, long lastOffset)
+        {
+            this.consumer = consumer;
+            this.splitParameters = splitParameters;
+            this.partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
+            this.lastOffset = lastOffset;
+        }
+
+        @Override
+        public List<ConsumerRecord<String, byte[]>> poll()
+        {
+            if (reachedEndOffset) {
+                return null;
+            }
+            ConsumerRecords<String, byte[]> polled = consumer.poll(POLL_TIMEOUT);
+            pulled += polled.count();
+            if (polled.count() == 0 && ++emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
+                LOGGER.debug("[kafka] {} Stopping pipeline due to getting empty result from broker", splitParameters);
+                return null;
+            }
+
+            List<ConsumerRecord<String, byte[]>> records = new ArrayList<>(polled.count());
+            for (ConsumerRecord<String, byte[]> record : polled) {
+                // The last batch may run past the end of the split, those records belong to the next split.
+                if (record.offset() > lastOffset) {
+                    break;
+                }
+                records.add(record);
+            }
+            if (consumer.position(partition) > lastOffset) {
+                LOGGER.debug("[kafka] {} Stopping pipeline due to reaching the end offset", splitParameters);
+                reachedEndOffset = true;
+            }
+            return records;
+        }
+
+        @Override
+        public void wakeup()
+        {
+            consumer.wakeup();
+        }
+    }
+
+    /**
+     * Deserializes the record values for the {@link RecordPipeline}, each deserializer thread gets its own instance as
+     * Deserializers are not thread safe.
+     */
+    private static class ValueDecoder<T>
+            implements RecordPipeline.RecordDecoder<ConsumerRecord<String, byte[]>, ConsumerRecord<String, T>>
+    {
+        private final Deserializer<T> deserializer;
+
+        ValueDecoder(Deserializer<T> deserializer)
+        {
+            this.deserializer = deserializer;
+        }
+
+        @Override
+        public ConsumerRecord<String, T> decode(ConsumerRecord<String, byte[]> raw)
+        {
+            T value = deserializer.deserialize(raw.topic(), raw.headers(), raw.value());
+            return new ConsumerRecord<>(raw.topic(), raw.partition(), raw.offset(), raw.timestamp(), raw.timestampType(),
+                    raw.serializedKeySize(), raw.serializedValueSize(), raw.key(), value, raw.headers(), raw.leaderEpoch());
+        }
+
+        @Override
+        public void close()
+        {
+            deserializer.close();
+        }
+    }
 }
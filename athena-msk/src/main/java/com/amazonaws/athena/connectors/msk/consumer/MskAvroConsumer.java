@@ -32,6 +32,11 @@ public class MskAvroConsumer extends BaseMskConsumer<GenericRecord>
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(MskAvroConsumer.class);
 
+    public MskAvroConsumer(boolean hasTimestampField)
+    {
+        super(hasTimestampField);
+    }
+
     @Override
     protected void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, GenericRecord> record)
     {
@@ -41,6 +46,10 @@ public class MskAvroConsumer extends BaseMskConsumer<GenericRecord>
     private MskRecordProcessor<GenericRecord> getRecordProcessor()
     {
         return (spiller, splitParameters, record) -> spiller.writeRows((Block block, int rowNum) -> {
+            if (!offerTimestamp(block, rowNum, record)) {
+                LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
+                return 0;
+            }
             for (Schema.Field next : record.value().getSchema().getFields()) {
                 boolean isMatched = block.offerValue(next.name(), rowNum, record.value().get(next.name()));
                 if (!isMatched) {
@@ -21,10 +21,14 @@ package com.amazonaws.athena.connectors.msk.consumer;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.RecordPipeline;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.util.function.Supplier;
 
 public interface MskConsumer
 {
@@ -38,4 +42,18 @@ public interface MskConsumer
      * @param kafkaConsumer - instance of {@link KafkaConsumer}
      */
     void consume(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters, Consumer<?, ?> kafkaConsumer);
+
+    /**
+     * Consume topic data using a {@link RecordPipeline}, which deserializes records on separate threads
+     * from the one polling the broker.
+     *
+     * @param spiller - instance of {@link BlockSpiller}
+     * @param queryStatusChecker - instance of {@link QueryStatusChecker}
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @param kafkaConsumer - instance of {@link KafkaConsumer} which leaves record values as raw bytes
+     * @param deserializerFactory - creates one value Deserializer per deserializer thread
+     * @param deserializerThreads - the number of deserializer threads
+     */
+    void pipelinedConsume(BlockSpiller spiller, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters,
+            Consumer<String, byte[]> kafkaConsumer, Supplier<? extends Deserializer<?>> deserializerFactory, int deserializerThreads);
 }
@@ -32,6 +32,11 @@ public class MskDefaultConsumer extends BaseMskConsumer<TopicResultSet>
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(MskDefaultConsumer.class);
 
+    public MskDefaultConsumer(boolean hasTimestampField)
+    {
+        super(hasTimestampField);
+    }
+
     @Override
     protected void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, TopicResultSet> record)
     {
@@ -41,6 +46,10 @@ public class MskDefaultConsumer extends BaseMskConsumer<TopicResultSet>
     private MskRecordProcessor<TopicResultSet> getRecordProcessor()
     {
         return (spiller, splitParameters, record) -> spiller.writeRows((Block block, int rowNum) -> {
+            if (!offerTimestamp(block, rowNum, record)) {
+                LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
+                return 0;
+            }
             for (MSKField field : record.value().getFields()) {
                 boolean isMatched = block.offerValue(field.getName(), rowNum, field.getValue());
                 if (!isMatched) {
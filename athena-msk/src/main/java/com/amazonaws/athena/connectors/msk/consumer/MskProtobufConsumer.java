@@ -32,6 +32,11 @@ public class MskProtobufConsumer extends BaseMskConsumer<DynamicMessage>
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(MskProtobufConsumer.class);
 
+    public MskProtobufConsumer(boolean hasTimestampField)
+    {
+        super(hasTimestampField);
+    }
+
     @Override
     protected void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, DynamicMessage> record)
     {
@@ -41,6 +46,10 @@ public class MskProtobufConsumer extends BaseMskConsumer<DynamicMessage>
     private MskRecordProcessor<DynamicMessage> getRecordProcessor()
     {
         return (spiller, splitParameters, record) -> spiller.writeRows((Block block, int rowNum) -> {
+            if (!offerTimestamp(block, rowNum, record)) {
+                LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
+                return 0;
+            }
             for (Descriptors.FieldDescriptor next : record.value().getAllFields().keySet()) {
                 boolean isMatched = block.offerValue(next.getName(), rowNum, record.value().getField(next));
                 if (!isMatched) {
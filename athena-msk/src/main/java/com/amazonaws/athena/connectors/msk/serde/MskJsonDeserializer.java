@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connectors.msk.serde;
 
+import com.amazonaws.athena.connectors.msk.AmazonMskUtils;
 import com.amazonaws.athena.connectors.msk.dto.MSKField;
 import com.amazonaws.athena.connectors.msk.dto.Message;
 import com.amazonaws.athena.connectors.msk.dto.TopicResultSet;
@@ -60,6 +61,10 @@ public class MskJsonDeserializer extends MskDeserializer
             // Creating Field object for each fields in raw data.
             // Also putting additional information in fields from fields metadata.
             schema.getFields().forEach(field -> {
+                // The timestamp pseudo column is filled from the record's metadata, not its value.
+                if (AmazonMskUtils.isTimestampField(field)) {
+                    return;
+                }
                 String mapping = field.getMetadata().get("mapping");
                 try {
                     topicResultSet.getFields().add(new MSKField(
@@ -44,6 +44,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
 import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchema;
+import org.apache.arrow.vector.complex.reader.FieldReader;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.FieldType;
 import org.apache.arrow.vector.types.pojo.Schema;
@@ -53,6 +54,8 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.MockConsumer;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -63,6 +66,9 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.UUID;
@@ -174,7 +180,7 @@ public class AmazonMskRecordHandlerTest {
         SplitParameters splitParameters = new SplitParameters("myTopic", 0, 0, 1);
         Schema schema = createSchema(createCsvTopicSchema());
 
-        mockedMskUtils.when(() -> AmazonMskUtils.getKafkaConsumer(schema, com.google.common.collect.ImmutableMap.of())).thenReturn(consumer);
+        mockedMskUtils.when(() -> AmazonMskUtils.getKafkaConsumer(schema, com.google.common.collect.ImmutableMap.of(), splitParameters)).thenReturn(consumer);
         mockedMskUtils.when(() -> AmazonMskUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
 
         Mockito.when(awsGlue.getSchema(any())).thenReturn(getSchemaResult());
@@ -201,7 +207,7 @@ public class AmazonMskRecordHandlerTest {
         SplitParameters splitParameters = new SplitParameters("greetings", 0, 0, 1);
         Schema schema = createAvroSchema(createAvroTopicSchema());
 
-        mockedMskUtils.when(() -> AmazonMskUtils.getAvroKafkaConsumer(com.google.common.collect.ImmutableMap.of())).thenReturn(avroConsumer);
+        mockedMskUtils.when(() -> AmazonMskUtils.getAvroKafkaConsumer(com.google.common.collect.ImmutableMap.of(), splitParameters)).thenReturn(avroConsumer);
         mockedMskUtils.when(() -> AmazonMskUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
 
         Mockito.when(awsGlue.getSchema(any())).thenReturn(getSchemaResult());
@@ -230,7 +236,7 @@ public class AmazonMskRecordHandlerTest {
         SplitParameters splitParameters = new SplitParameters("protobuftest", 0, 0, 1);
         Schema schema = createProtobufSchema(createProtobufTopicSchema());
 
-        mockedMskUtils.when(() -> AmazonMskUtils.getProtobufKafkaConsumer(com.google.common.collect.ImmutableMap.of())).thenReturn(protobufConsumer);
+        mockedMskUtils.when(() -> AmazonMskUtils.getProtobufKafkaConsumer(com.google.common.collect.ImmutableMap.of(), splitParameters)).thenReturn(protobufConsumer);
         mockedMskUtils.when(() -> AmazonMskUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
 
         Mockito.when(awsGlue.getSchema(any())).thenReturn(getSchemaResult());
@@ -259,7 +265,7 @@ public class AmazonMskRecordHandlerTest {
         SplitParameters splitParameters = new SplitParameters("myTopic", 0, 0, 1);
         Schema schema = createSchema(createCsvTopicSchema());
 
-        mockedMskUtils.when(() -> AmazonMskUtils.getKafkaConsumer(schema, com.google.common.collect.ImmutableMap.of())).thenReturn(consumer);
+        mockedMskUtils.when(() -> AmazonMskUtils.getKafkaConsumer(schema, com.google.common.collect.ImmutableMap.of(), splitParameters)).thenReturn(consumer);
         mockedMskUtils.when(() -> AmazonMskUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
 
         Mockito.when(awsGlue.getSchema(any())).thenReturn(getSchemaResult());
@@ -289,7 +295,7 @@ public class AmazonMskRecordHandlerTest {
         SplitParameters splitParameters = new SplitParameters("myTopic", 0, 0, 1);
         Schema schema = createSchema(createCsvTopicSchema());
 
-        mockedMskUtils.when(() -> AmazonMskUtils.getKafkaConsumer(schema, com.google.common.collect.ImmutableMap.of())).thenReturn(consumer);
+        mockedMskUtils.when(() -> AmazonMskUtils.getKafkaConsumer(schema, com.google.common.collect.ImmutableMap.of(), splitParameters)).thenReturn(consumer);
         mockedMskUtils.when(() -> AmazonMskUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
 
         Mockito.when(awsGlue.getSchema(any())).thenReturn(getSchemaResult());
@@ -315,7 +321,7 @@ public class AmazonMskRecordHandlerTest {
         SplitParameters splitParameters = new SplitParameters("myTopic", 0, 0, 1);
         Schema schema = createSchema(createCsvTopicSchema());
 
-        mockedMskUtils.when(() -> AmazonMskUtils.getKafkaConsumer(schema, com.google.common.collect.ImmutableMap.of())).thenReturn(consumer);
+        mockedMskUtils.when(() -> AmazonMskUtils.getKafkaConsumer(schema, com.google.common.collect.ImmutableMap.of(), splitParameters)).thenReturn(consumer);
         mockedMskUtils.when(() -> AmazonMskUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
 
         Mockito.when(awsGlue.getSchema(any())).thenReturn(getSchemaResult());
@@ -328,6 +334,127 @@ public class AmazonMskRecordHandlerTest {
         amazonMskRecordHandler.readWithConstraint(null, request, queryStatusChecker);
     }
 
+    @Test
+    public void testForPipelinedConsumeDataFromTopic() throws Exception {
+        java.util.Map<String, String> configOptions = com.google.common.collect.ImmutableMap.of(
+                AmazonMskConstants.KAFKA_PIPELINED_READ, "true",
+                AmazonMskConstants.KAFKA_DESERIALIZER_THREADS, "2");
+        amazonMskRecordHandler = new AmazonMskRecordHandler(amazonS3, awsSecretsManager, athena, configOptions);
+
+        TopicPartition partition = new TopicPartition("myTopic", 0);
+        MockConsumer<String, byte[]> byteArrayConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        byteArrayConsumer.updateBeginningOffsets(com.google.common.collect.ImmutableMap.of(partition, 0L));
+        byteArrayConsumer.updateEndOffsets(com.google.common.collect.ImmutableMap.of(partition, 1500L));
+        byteArrayConsumer.schedulePollTask(() -> {
+            for (int i = 0; i < 1500; i++) {
+                byteArrayConsumer.addRecord(new ConsumerRecord<>("myTopic", 0, i, "k" + i, (i + ",Smith,true,101").getBytes()));
+            }
+        });
+
+        // The split ends before the last record, which belongs to the next split.
+        SplitParameters splitParameters = new SplitParameters("myTopic", 0, 0, 1498);
+        Schema schema = createSchema(createCsvTopicSchema());
+
+        mockedMskUtils.when(() -> AmazonMskUtils.getByteArrayKafkaConsumer(configOptions, splitParameters)).thenReturn(byteArrayConsumer);
+        mockedMskUtils.when(() -> AmazonMskUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
+
+        Mockito.when(awsGlue.getSchema(any())).thenReturn(getSchemaResult());
+        Mockito.when(awsGlue.getSchemaVersion(any())).thenReturn(getJsonSchemaVersionResult());
+
+        QueryStatusChecker queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+        ReadRecordsRequest request = createReadRecordsRequest(schema);
+        SpillConfig inlineSpillConfig = SpillConfig.newBuilder()
+                .withEncryptionKey(encryptionKey)
+                .withMaxBlockBytes(10_000_000)
+                .withMaxInlineBlockBytes(10_000_000)
+                .withNumSpillThreads(0)
+                .withRequestId(UUID.randomUUID().toString())
+                .withSpillLocation(s3SpillLocation)
+                .build();
+        BlockSpiller spiller = new S3BlockSpiller(amazonS3, inlineSpillConfig, allocator, schema, ConstraintEvaluator.emptyEvaluator(), com.google.common.collect.ImmutableMap.of());
+        amazonMskRecordHandler.readWithConstraint(spiller, request, queryStatusChecker);
+
+        assertEquals(1499, spiller.getBlock().getRowCount());
+        assertEquals(1499, splitParameters.spilled);
+    }
+
+    @Test
+    public void testForPipelinedConsumeJsonWithTimestampColumn() throws Exception {
+        String json = "{\"topicName\":\"myTopic\",\"message\":{\"dataFormat\":\"json\",\"fields\":[" +
+                "{\"name\":\"id\",\"type\":\"INTEGER\",\"mapping\":\"id\",\"formatHint\": \"\"}," +
+                "{\"name\":\"name\",\"type\":\"VARCHAR\",\"mapping\":\"name\",\"formatHint\": \"\"}" +
+                "]}}";
+        Block block = pipelinedConsumeWithTimestampColumn(objectMapper.readValue(json, TopicSchema.class),
+                i -> "{\"id\": \"" + i + "\", \"name\": \"Smith\"}");
+        assertTimestampColumnRows(block);
+    }
+
+    @Test
+    public void testForPipelinedConsumeCsvWithTimestampColumn() throws Exception {
+        Block block = pipelinedConsumeWithTimestampColumn(createCsvTopicSchema(), i -> i + ",Smith,true,101");
+        assertTimestampColumnRows(block);
+    }
+
+    /**
+     * Reads three records, with the timestamps 1000, 2000 and 3000, through the real value deserializer using the
+     * schema the metadata handler builds, which includes the timestamp pseudo column.
+     */
+    private Block pipelinedConsumeWithTimestampColumn(TopicSchema topicSchema, java.util.function.IntFunction<String> value) throws Exception {
+        java.util.Map<String, String> configOptions = com.google.common.collect.ImmutableMap.of(
+                AmazonMskConstants.KAFKA_PIPELINED_READ, "true",
+                AmazonMskConstants.KAFKA_DESERIALIZER_THREADS, "1");
+        amazonMskRecordHandler = new AmazonMskRecordHandler(amazonS3, awsSecretsManager, athena, configOptions);
+
+        TopicPartition partition = new TopicPartition("myTopic", 0);
+        MockConsumer<String, byte[]> byteArrayConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        byteArrayConsumer.updateBeginningOffsets(com.google.common.collect.ImmutableMap.of(partition, 0L));
+        byteArrayConsumer.updateEndOffsets(com.google.common.collect.ImmutableMap.of(partition, 3L));
+        byteArrayConsumer.schedulePollTask(() -> {
+            for (int i = 0; i < 3; i++) {
+                byteArrayConsumer.addRecord(new ConsumerRecord<>("myTopic", 0, i, (i + 1) * 1000L, TimestampType.CREATE_TIME,
+                        -1, -1, "k" + i, value.apply(i).getBytes(), new RecordHeaders(), java.util.Optional.empty()));
+            }
+        });
+
+        SplitParameters splitParameters = new SplitParameters("myTopic", 0, 0, 2);
+        SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
+        createSchema(topicSchema).getFields().forEach(schemaBuilder::addField);
+        Schema schema = schemaBuilder.addField(AmazonMskUtils.timestampField())
+                .addMetadata("dataFormat", topicSchema.getMessage().getDataFormat())
+                .build();
+
+        mockedMskUtils.when(() -> AmazonMskUtils.getByteArrayKafkaConsumer(configOptions, splitParameters)).thenReturn(byteArrayConsumer);
+        mockedMskUtils.when(() -> AmazonMskUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
+
+        Mockito.when(awsGlue.getSchema(any())).thenReturn(getSchemaResult());
+        Mockito.when(awsGlue.getSchemaVersion(any())).thenReturn(getJsonSchemaVersionResult());
+
+        QueryStatusChecker queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+        BlockSpiller spiller = new S3BlockSpiller(amazonS3, spillConfig, allocator, schema, ConstraintEvaluator.emptyEvaluator(), com.google.common.collect.ImmutableMap.of());
+        amazonMskRecordHandler.readWithConstraint(spiller, createReadRecordsRequest(schema), queryStatusChecker);
+        assertEquals(3, splitParameters.spilled);
+        return spiller.getBlock();
+    }
+
+    private void assertTimestampColumnRows(Block block) {
+        assertEquals(3, block.getRowCount());
+        FieldReader idReader = block.getFieldReader("id");
+        FieldReader nameReader = block.getFieldReader("name");
+        FieldReader timestampReader = block.getFieldReader(AmazonMskConstants.TIMESTAMP_COLUMN);
+        for (int i = 0; i < 3; i++) {
+            idReader.setPosition(i);
+            nameReader.setPosition(i);
+            timestampReader.setPosition(i);
+            assertEquals(Integer.valueOf(i), idReader.readInteger());
+            assertEquals("Smith", nameReader.readText().toString());
+            assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli((i + 1) * 1000L), ZoneOffset.UTC), timestampReader.readLocalDateTime());
+        }
+    }
+
     private ReadRecordsRequest createReadRecordsRequest(Schema schema) {
         return new ReadRecordsRequest(
                 federatedIdentity,
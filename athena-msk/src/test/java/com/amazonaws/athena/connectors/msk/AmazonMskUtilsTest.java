@@ -21,6 +21,7 @@ package com.amazonaws.athena.connectors.msk;
 
 import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
 import com.amazonaws.athena.connectors.msk.dto.TopicResultSet;
+import com.amazonaws.athena.connectors.msk.serde.MskJsonDeserializer;
 import com.amazonaws.auth.AWSStaticCredentialsProvider;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
@@ -127,6 +128,9 @@ public class AmazonMskUtilsTest {
 
         Mockito.when(secretValueResult.getSecretString()).thenReturn(creds);
         Mockito.when(awsSecretsManager.getSecretValue(Mockito.isA(GetSecretValueRequest.class))).thenReturn(secretValueResult);
+        // Load the JSON deserializer before mocking ObjectMapper construction, otherwise its static ObjectMapper
+        // is created as a mock here and stays one for every later test in the same JVM.
+        Class.forName(MskJsonDeserializer.class.getName());
         mockedObjectMapper = Mockito.mockConstruction(ObjectMapper.class,
                 (mock, context) -> {
                     Mockito.doReturn(map).when(mock).readValue(Mockito.eq(creds), nullable(TypeReference.class));
@@ -225,6 +229,21 @@ public class AmazonMskUtilsTest {
         assertNotNull(consumer);
     }
 
+    @Test
+    public void testTuneFetchProperties() {
+        Properties properties = new Properties();
+        tuneFetchProperties(properties, null);
+        assertTrue(properties.isEmpty());
+
+        tuneFetchProperties(properties, new SplitParameters("testTopic", 0, 100, 199));
+        assertEquals("100", properties.getProperty("max.poll.records"));
+        assertNull(properties.getProperty("fetch.min.bytes"));
+
+        tuneFetchProperties(properties, new SplitParameters("testTopic", 0, 0, 99_999));
+        assertEquals("10000", properties.getProperty("max.poll.records"));
+        assertNull(properties.getProperty("fetch.min.bytes"));
+    }
+
     @Test
     public void testCreateSplitParam() {
         Map<String, String> params = com.google.common.collect.ImmutableMap.of(
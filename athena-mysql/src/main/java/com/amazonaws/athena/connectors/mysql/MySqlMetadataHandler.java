@@ -24,10 +24,8 @@ import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
-import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.functions.StandardFunctions;
-import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesResponse;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
@@ -35,6 +33,7 @@ import com.amazonaws.athena.connector.lambda.metadata.GetSplitsResponse;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableLayoutRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
+import com.amazonaws.athena.connector.lambda.metadata.SplitFactory;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.DataSourceOptimizations;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.OptimizationSubType;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.pushdown.ComplexExpressionPushdownSubType;
@@ -61,10 +60,8 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import static com.amazonaws.athena.connectors.mysql.MySqlConstants.MYSQL_DEFAULT_PORT;
 import static com.amazonaws.athena.connectors.mysql.MySqlConstants.MYSQL_DRIVER_CLASS;
@@ -199,31 +196,19 @@ public class MySqlMetadataHandler
             return setupQueryPassthroughSplit(getSplitsRequest);
         }
 
-        int partitionContd = decodeContinuationToken(getSplitsRequest);
-        Set<Split> splits = new HashSet<>();
+        int partitionContd = SplitFactory.decodeContinuationToken(getSplitsRequest);
         Block partitions = getSplitsRequest.getPartitions();
+        FieldReader locationReader = partitions.getFieldReader(BLOCK_PARTITION_COLUMN_NAME);
 
         // TODO consider splitting further depending on #rows or data size. Could use Hash key for splitting if no partitions.
-        for (int curPartition = partitionContd; curPartition < partitions.getRowCount(); curPartition++) {
-            FieldReader locationReader = partitions.getFieldReader(BLOCK_PARTITION_COLUMN_NAME);
-            locationReader.setPosition(curPartition);
-
-            SpillLocation spillLocation = makeSpillLocation(getSplitsRequest);
-
-            LOGGER.info("{}: Input partition is {}", getSplitsRequest.getQueryId(), locationReader.readText());
-
-            Split.Builder splitBuilder = Split.newBuilder(spillLocation, makeEncryptionKey())
-                    .add(BLOCK_PARTITION_COLUMN_NAME, String.valueOf(locationReader.readText()));
-
-            splits.add(splitBuilder.build());
-
-            if (splits.size() >= MAX_SPLITS_PER_REQUEST) {
-                //We exceeded the number of split we want to return in a single request, return and provide a continuation token.
-                return new GetSplitsResponse(getSplitsRequest.getCatalogName(), splits, encodeContinuationToken(curPartition + 1));
-            }
-        }
-
-        return new GetSplitsResponse(getSplitsRequest.getCatalogName(), splits, null);
+        // Spill locations and encryption keys are generated in parallel, splits are returned in pages sized to fit the
+        // response payload limit.
+        return getSplitFactory().makeSplits(getSplitsRequest, partitionContd, partitions.getRowCount(), MAX_SPLITS_PER_REQUEST,
+                (curPartition, splitBuilder) -> {
+                    locationReader.setPosition(curPartition);
+                    LOGGER.info("{}: Input partition is {}", getSplitsRequest.getQueryId(), locationReader.readText());
+                    splitBuilder.add(BLOCK_PARTITION_COLUMN_NAME, String.valueOf(locationReader.readText()));
+                });
     }
 
     @VisibleForTesting
@@ -267,19 +252,4 @@ public class MySqlMetadataHandler
     {
         return JDBCUtil.informationSchemaCaseInsensitiveTableMatch(connection, databaseName, tableName);
     }
-
-    private int decodeContinuationToken(GetSplitsRequest request)
-    {
-        if (request.hasContinuationToken()) {
-            return Integer.valueOf(request.getContinuationToken());
-        }
-
-        //No continuation token present
-        return 0;
-    }
-
-    private String encodeContinuationToken(int partition)
-    {
-        return String.valueOf(partition);
-    }
 }
@@ -32,6 +32,8 @@ public class Constants
    public static final String CFG_PORT = "neptune_port";
    public static final String CFG_IAM = "iam_enabled";
    public static final String CFG_REGION = "AWS_REGION";
+   public static final String CFG_GREMLIN_SPLIT_SIZE = "gremlin_split_size";
+   public static final String CFG_RDF_SUBJECT_HASH_SPLITS = "rdf_subject_hash_splits";
     
    public static final String SCHEMA_QUERY = "query";
    public static final String SCHEMA_CASE_INSEN = "enable_caseinsensitivematch";
@@ -52,4 +54,9 @@ public class Constants
    public static final int PREFIX_LEN = PREFIX_KEY.length();
 
    public static final String GREMLIN_QUERY_SUPPORT_TYPE = "valueMap";
+
+   public static final String SPLIT_ID_LOW = "id_low";
+   public static final String SPLIT_ID_HIGH = "id_high";
+   public static final String SPLIT_SUBJECT_HASH_LOW = "subject_hash_low";
+   public static final String SPLIT_SUBJECT_HASH_HIGH = "subject_hash_high";
 }
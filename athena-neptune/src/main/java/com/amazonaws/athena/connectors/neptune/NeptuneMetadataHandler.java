@@ -20,6 +20,7 @@
 package com.amazonaws.athena.connectors.neptune;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
@@ -41,6 +42,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
 import com.amazonaws.athena.connector.lambda.metadata.glue.GlueFieldLexer;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.OptimizationSubType;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
+import com.amazonaws.athena.connectors.neptune.Enums.TableSchemaMetaType;
 import com.amazonaws.athena.connectors.neptune.propertygraph.PropertyGraphHandler;
 import com.amazonaws.athena.connectors.neptune.qpt.NeptuneQueryPassthrough;
 import com.amazonaws.athena.connectors.neptune.rdf.NeptuneSparqlConnection;
@@ -52,8 +54,10 @@ import com.amazonaws.services.glue.model.Table;
 import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import com.google.common.collect.ImmutableMap;
 import org.apache.arrow.util.VisibleForTesting;
+import org.apache.arrow.vector.complex.reader.VarCharReader;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.arrow.vector.util.Text;
 import org.apache.tinkerpop.gremlin.driver.Client;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
@@ -90,6 +94,10 @@ public class NeptuneMetadataHandler extends GlueMetadataHandler
     private final Logger logger = LoggerFactory.getLogger(NeptuneMetadataHandler.class);
     private static final String SOURCE_TYPE = "neptune"; // Used to denote the 'type' of this connector for diagnostic
                                                          // purposes.
+    // The most Splits to break a vertex or edge table into, larger tables get larger windows.
+    private static final long MAX_GREMLIN_SPLITS = 1000;
+    // RDF subjects are split up by the first two hex digits of the MD5 hash of their IRI.
+    private static final int SUBJECT_HASH_BUCKETS = 256;
     private final AWSGlue glue;
     private final String glueDBName;
 
@@ -120,6 +128,7 @@ public class NeptuneMetadataHandler extends GlueMetadataHandler
     {
         super(glue, keyFactory, awsSecretsManager, athena, Constants.SOURCE_TYPE, spillBucket, spillPrefix, configOptions);
         this.glue = glue;
+        this.neptuneConnection = neptuneConnection;
         this.glueDBName = configOptions.get("glue_database_name");
     }
 
@@ -220,14 +229,51 @@ public class NeptuneMetadataHandler extends GlueMetadataHandler
     }
 
     /**
-     * Our table doesn't support complex layouts or partitioning so we simply make
-     * this method a NoOp.
+     * When Gremlin splits are enabled, adds the graph element type and label of vertex and edge tables to the
+     * partition schema, as doGetSplits needs them to count the elements to split up. When RDF subject hash splits
+     * are enabled, adds the subject variable of class tables instead.
+     */
+    @Override
+    public void enhancePartitionSchema(SchemaBuilder partitionSchemaBuilder, GetTableLayoutRequest request)
+    {
+        if (isGremlinSplittable(request)) {
+            partitionSchemaBuilder.addStringField(Constants.SCHEMA_COMPONENT_TYPE)
+                    .addStringField(Constants.SCHEMA_GLABEL);
+        }
+        else if (isRdfSplittable(request)) {
+            partitionSchemaBuilder.addStringField(Constants.SCHEMA_SUBJECT);
+        }
+    }
+
+    /**
+     * Our table doesn't support partitioning, when Gremlin or RDF splits are enabled we still need a single partition
+     * to carry the table's settings to doGetSplits.
      */
     @Override
     public void getPartitions(BlockWriter blockWriter, GetTableLayoutRequest request,
             QueryStatusChecker queryStatusChecker) throws Exception 
     {
-        // No implemenation as connector doesn't support partitioning
+        if (isRdfSplittable(request)) {
+            String subject = request.getSchema().getCustomMetadata().get(Constants.SCHEMA_SUBJECT);
+            blockWriter.writeRows((Block block, int rowNum) -> {
+                block.setValue(Constants.SCHEMA_SUBJECT, rowNum, subject);
+                return 1;
+            });
+            return;
+        }
+        if (!isGremlinSplittable(request)) {
+            return;
+        }
+
+        Map<String, String> metadata = request.getSchema().getCustomMetadata();
+        //AWS Glue converts table name to lowercase, table property 'glabel' stores Amazon Neptune Vertex/Edge labels to be used in Gremlin query
+        String glabel = metadata.get(Constants.SCHEMA_GLABEL);
+        String labelName = (glabel != null && !glabel.trim().isEmpty()) ? glabel : request.getTableName().getTableName();
+        blockWriter.writeRows((Block block, int rowNum) -> {
+            block.setValue(Constants.SCHEMA_COMPONENT_TYPE, rowNum, metadata.get(Constants.SCHEMA_COMPONENT_TYPE));
+            block.setValue(Constants.SCHEMA_GLABEL, rowNum, labelName);
+            return 1;
+        });
     }
 
     /**
@@ -249,19 +295,142 @@ public class NeptuneMetadataHandler extends GlueMetadataHandler
      */
 
     /*
-     * Since our connector does not support parallel scans we generate a single
-     * Split and include the connection details as a property on the split so that
-     * the RecordHandler has easy access to it.
+     * Vertex and edge tables of a property graph are split up into ranges of ids
+     * of gremlin_split_size elements when that config is set. The boundaries are
+     * every gremlin_split_size-th id of the label's ordered ids, so each Split
+     * only reads its own range of elements instead of ordering and skipping the
+     * whole label. Class tables of an RDF graph are split up by the hash of
+     * their subject IRI when rdf_subject_hash_splits is set. Other tables are
+     * read by a single Split.
      */
     @Override
     public GetSplitsResponse doGetSplits(BlockAllocator blockAllocator, GetSplitsRequest request) 
     {
-        // Every split must have a unique location if we wish to spill to avoid failures
-        SpillLocation spillLocation = makeSpillLocation(request);
+        Block partitions = request.getPartitions();
+        if (hasPartitionField(partitions, Constants.SCHEMA_SUBJECT)) {
+            return getSubjectHashSplits(request);
+        }
+        if (!hasPartitionField(partitions, Constants.SCHEMA_COMPONENT_TYPE)) {
+            // Every split must have a unique location if we wish to spill to avoid failures
+            SpillLocation spillLocation = makeSpillLocation(request);
+            return new GetSplitsResponse(request.getCatalogName(),
+                    Split.newBuilder(spillLocation, makeEncryptionKey()).build());
+        }
+
+        TableSchemaMetaType tableSchemaMetaType = TableSchemaMetaType.valueOf(getValue(partitions, Constants.SCHEMA_COMPONENT_TYPE).toUpperCase());
+        String labelName = getValue(partitions, Constants.SCHEMA_GLABEL);
+        List<String> boundaries = new ArrayList<>();
+        Client client = neptuneConnection.getNeptuneClientConnection();
+        try {
+            GraphTraversalSource graphTraversalSource = neptuneConnection.getTraversalSource(client);
+            long count = (Long) PropertyGraphHandler.getElementTraversal(graphTraversalSource, tableSchemaMetaType, labelName).count().next();
+
+            long splitSize = Math.max(getGremlinSplitSize(), (count + MAX_GREMLIN_SPLITS - 1) / MAX_GREMLIN_SPLITS);
+            logger.info("doGetSplits: Splitting {} {} elements with label {} into ranges of {}", count, tableSchemaMetaType, labelName, splitSize);
+
+            GraphTraversal ids = PropertyGraphHandler.getElementTraversal(graphTraversalSource, tableSchemaMetaType, labelName).id().order();
+            for (long i = 0; ids.hasNext(); i++) {
+                Object id = ids.next();
+                if (i > 0 && i % splitSize == 0) {
+                    boundaries.add(id.toString());
+                }
+            }
+        }
+        finally {
+            client.close();
+        }
+
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i <= boundaries.size(); i++) {
+            Split.Builder builder = Split.newBuilder(makeSpillLocation(request), makeEncryptionKey());
+            if (i > 0) {
+                builder.add(Constants.SPLIT_ID_LOW, boundaries.get(i - 1));
+            }
+            if (i < boundaries.size()) {
+                builder.add(Constants.SPLIT_ID_HIGH, boundaries.get(i));
+            }
+            splits.add(builder.build());
+        }
+        return new GetSplitsResponse(request.getCatalogName(), splits);
+    }
+
+    /**
+     * Makes one Split per range of subject hash buckets, each Split's SPARQL query only matches the subjects whose
+     * MD5 hash starts with a two digit hex value in [subject_hash_low, subject_hash_high). The last Split has no
+     * upper bound.
+     */
+    private GetSplitsResponse getSubjectHashSplits(GetSplitsRequest request)
+    {
+        int splitCount = Math.min(getRdfSubjectHashSplits(), SUBJECT_HASH_BUCKETS);
+        logger.info("getSubjectHashSplits: Splitting subjects into {} hash ranges", splitCount);
+
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < splitCount; i++) {
+            Split.Builder builder = Split.newBuilder(makeSpillLocation(request), makeEncryptionKey())
+                    .add(Constants.SPLIT_SUBJECT_HASH_LOW, String.format("%02x", i * SUBJECT_HASH_BUCKETS / splitCount));
+            if (i < splitCount - 1) {
+                builder.add(Constants.SPLIT_SUBJECT_HASH_HIGH, String.format("%02x", (i + 1) * SUBJECT_HASH_BUCKETS / splitCount));
+            }
+            splits.add(builder.build());
+        }
+        return new GetSplitsResponse(request.getCatalogName(), splits);
+    }
+
+    private static boolean hasPartitionField(Block partitions, String fieldName)
+    {
+        return partitions.getRowCount() == 1 && partitions.getSchema().getFields().stream()
+                .anyMatch(field -> field.getName().equals(fieldName));
+    }
+
+    private boolean isRdfSplittable(GetTableLayoutRequest request)
+    {
+        if (getRdfSubjectHashSplits() <= 1 || request.getConstraints().isQueryPassThrough()) {
+            return false;
+        }
+        String graphType = configOptions.get(Constants.CFG_GRAPH_TYPE);
+        if (graphType == null || Enums.GraphType.valueOf(graphType.toUpperCase()) != Enums.GraphType.RDF) {
+            return false;
+        }
+        Map<String, String> metadata = request.getSchema().getCustomMetadata();
+        return Constants.QUERY_MODE_CLASS.equalsIgnoreCase(metadata.get(Constants.SCHEMA_QUERY_MODE))
+                && metadata.get(Constants.SCHEMA_SUBJECT) != null;
+    }
+
+    private int getRdfSubjectHashSplits()
+    {
+        String splits = configOptions.get(Constants.CFG_RDF_SUBJECT_HASH_SPLITS);
+        return (splits == null || splits.trim().isEmpty()) ? 0 : Integer.parseInt(splits.trim());
+    }
+
+    private boolean isGremlinSplittable(GetTableLayoutRequest request)
+    {
+        if (getGremlinSplitSize() <= 0 || request.getConstraints().isQueryPassThrough()) {
+            return false;
+        }
+        String graphType = configOptions.get(Constants.CFG_GRAPH_TYPE);
+        if (graphType != null && Enums.GraphType.valueOf(graphType.toUpperCase()) != Enums.GraphType.PROPERTYGRAPH) {
+            return false;
+        }
+        String type = request.getSchema().getCustomMetadata().get(Constants.SCHEMA_COMPONENT_TYPE);
+        return type != null && (type.equalsIgnoreCase(TableSchemaMetaType.VERTEX.name()) || type.equalsIgnoreCase(TableSchemaMetaType.EDGE.name()));
+    }
+
+    private long getGremlinSplitSize()
+    {
+        String splitSize = configOptions.get(Constants.CFG_GREMLIN_SPLIT_SIZE);
+        return (splitSize == null || splitSize.trim().isEmpty()) ? 0 : Long.parseLong(splitSize.trim());
+    }
+
+    private String getValue(Block block, String fieldName)
+    {
+        VarCharReader reader = block.getFieldReader(fieldName);
+        reader.setPosition(0);
+        if (reader.isSet()) {
+            Text result = reader.readText();
+            return (result == null) ? null : result.toString();
+        }
 
-        // Since our connector does not support parallel reads we return a fixed split.
-        return new GetSplitsResponse(request.getCatalogName(),
-                Split.newBuilder(spillLocation, makeEncryptionKey()).build());
+        return null;
     }
 
     @Override
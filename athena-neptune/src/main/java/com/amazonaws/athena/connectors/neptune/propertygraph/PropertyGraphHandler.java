@@ -23,8 +23,10 @@ import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.neptune.Constants;
+import com.amazonaws.athena.connectors.neptune.Enums.SpecialKeys;
 import com.amazonaws.athena.connectors.neptune.Enums.TableSchemaMetaType;
 import com.amazonaws.athena.connectors.neptune.NeptuneConnection;
 import com.amazonaws.athena.connectors.neptune.propertygraph.rowwriters.CustomSchemaRowWriter;
@@ -33,12 +35,15 @@ import com.amazonaws.athena.connectors.neptune.propertygraph.rowwriters.VertexRo
 import com.amazonaws.athena.connectors.neptune.qpt.NeptuneQueryPassthrough;
 import org.apache.arrow.util.VisibleForTesting;
 import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.tinkerpop.gremlin.driver.Client;
 import org.apache.tinkerpop.gremlin.driver.Result;
 import org.apache.tinkerpop.gremlin.groovy.jsr223.GremlinGroovyScriptEngine;
+import org.apache.tinkerpop.gremlin.process.traversal.P;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversal;
 import org.apache.tinkerpop.gremlin.process.traversal.dsl.graph.GraphTraversalSource;
 import org.apache.tinkerpop.gremlin.process.traversal.step.util.WithOptions;
+import org.apache.tinkerpop.gremlin.structure.T;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,6 +51,7 @@ import javax.script.Bindings;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -142,8 +148,9 @@ public class PropertyGraphHandler
             switch (tableSchemaMetaType) {
                 case VERTEX:
                     if (!recordsRequest.getConstraints().isQueryPassThrough()) {
-                        graphTraversal = graphTraversalSource.V().hasLabel(labelName);
-                        graphTraversal = graphTraversal.valueMap().with(WithOptions.tokens);
+                        graphTraversal = getElementTraversal(graphTraversalSource, tableSchemaMetaType, labelName);
+                        graphTraversal = applySplitRange(graphTraversal, recordsRequest.getSplit());
+                        graphTraversal = graphTraversal.valueMap(getPropertyKeys(recordsRequest.getSchema(), configOptions)).with(WithOptions.tokens);
                     }
 
                     for (final Field nextField : recordsRequest.getSchema().getFields()) {
@@ -156,8 +163,9 @@ public class PropertyGraphHandler
 
                 case EDGE:
                     if (!recordsRequest.getConstraints().isQueryPassThrough()) {
-                        graphTraversal = graphTraversalSource.E().hasLabel(labelName);
-                        graphTraversal = graphTraversal.elementMap();
+                        graphTraversal = getElementTraversal(graphTraversalSource, tableSchemaMetaType, labelName);
+                        graphTraversal = applySplitRange(graphTraversal, recordsRequest.getSplit());
+                        graphTraversal = graphTraversal.elementMap(getPropertyKeys(recordsRequest.getSchema(), configOptions));
                     }
 
                     for (final Field nextField : recordsRequest.getSchema().getFields()) {
@@ -197,6 +205,61 @@ public class PropertyGraphHandler
         }
     }
 
+    /**
+     * Builds the traversal over all the vertices or edges with the given label. Splits read a range of ids of this
+     * traversal, NeptuneMetadataHandler picks the boundaries of the ranges from its ordered ids.
+     *
+     * @param graphTraversalSource The graph to traverse.
+     * @param tableSchemaMetaType  VERTEX or EDGE.
+     * @param labelName            The label of the vertices or edges.
+     * @return The traversal.
+     */
+    public static GraphTraversal getElementTraversal(GraphTraversalSource graphTraversalSource, TableSchemaMetaType tableSchemaMetaType, String labelName)
+    {
+        return (tableSchemaMetaType == TableSchemaMetaType.EDGE) ? graphTraversalSource.E().hasLabel(labelName)
+                : graphTraversalSource.V().hasLabel(labelName);
+    }
+
+    /**
+     * Limits the traversal to the Split's range of ids, if the table was split up. The first range has no lower bound
+     * and the last has no upper bound, so that elements added since the Splits were made are still read. Neptune ids
+     * are strings, so the ranges compare them as strings.
+     */
+    private static GraphTraversal applySplitRange(GraphTraversal graphTraversal, Split split)
+    {
+        String low = split.getProperty(Constants.SPLIT_ID_LOW);
+        String high = split.getProperty(Constants.SPLIT_ID_HIGH);
+        if (low != null && high != null) {
+            return graphTraversal.has(T.id, P.gte(low).and(P.lt(high)));
+        }
+        if (low != null) {
+            return graphTraversal.has(T.id, P.gte(low));
+        }
+        if (high != null) {
+            return graphTraversal.has(T.id, P.lt(high));
+        }
+        return graphTraversal;
+    }
+
+    /**
+     * Lists the properties to fetch for the requested columns, so that Neptune doesn't return the properties of
+     * columns that aren't part of the query. Columns are matched to properties case insensitively by default, in
+     * which case every property is fetched as the names of the matching properties aren't known upfront.
+     *
+     * @return The keys of the properties to fetch, empty to fetch every property.
+     */
+    private static String[] getPropertyKeys(Schema schema, java.util.Map<String, String> configOptions)
+    {
+        boolean enableCaseinsensitivematch = (configOptions.get(Constants.SCHEMA_CASE_INSEN) == null) || Boolean.parseBoolean(configOptions.get(Constants.SCHEMA_CASE_INSEN));
+        if (enableCaseinsensitivematch) {
+            return new String[0];
+        }
+        return schema.getFields().stream()
+                .map(Field::getName)
+                .filter(name -> Arrays.stream(SpecialKeys.values()).noneMatch(key -> key.toString().toLowerCase().equals(name)))
+                .toArray(String[]::new);
+    }
+
     public Object getResponseFromGremlinQuery(GraphTraversalSource graphTraversalSource, String gremlinQuery) throws ScriptException
     {
         ScriptEngine engine = new GremlinGroovyScriptEngine();
@@ -31,6 +31,7 @@ import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.QueryLanguage;
 import org.eclipse.rdf4j.query.TupleQuery;
 import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.query.TupleQueryResultHandler;
 import org.eclipse.rdf4j.repository.RepositoryConnection;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.slf4j.Logger;
@@ -98,14 +99,21 @@ public class NeptuneSparqlConnection extends NeptuneConnection
 
     public Map<String, Object> next(boolean trimURI) 
     {
-        Map<String, Object> ret = new HashMap<String, Object>();
-        BindingSet bindingSet = this.queryResult.next();
+        return toRow(this.queryResult.next(), trimURI);
+    }
 
+    /**
+     * Converts the bindings of a single query solution into a row keyed by variable name, literals are converted to
+     * the Java type of their XML Schema datatype.
+     */
+    public Map<String, Object> toRow(BindingSet bindingSet, boolean trimURI) 
+    {
+        Map<String, Object> ret = new HashMap<String, Object>();
         for (String varName : bindingSet.getBindingNames()) {
             Value val = bindingSet.getValue(varName);
             String sval = val.stringValue();
             Object oval = sval;
-            if (this.trimURI && val instanceof IRI) {
+            if (trimURI && val instanceof IRI) {
                 oval = ((IRI) val).getLocalName();
                 logger.debug("IRI " + varName + "=" + oval);
             } 
@@ -210,4 +218,15 @@ public class NeptuneSparqlConnection extends NeptuneConnection
         TupleQuery tupleQuery = this.connection.prepareTupleQuery(QueryLanguage.SPARQL, sparql);
         this.queryResult = tupleQuery.evaluate();
     }
+
+    /**
+     * Runs the query and pushes each solution to the handler as it is parsed from the response, rather than queueing
+     * them up for hasNext()/next() on a background thread.
+     */
+    public void runQuery(String sparql, TupleQueryResultHandler handler) 
+    {
+        logger.info("Streaming SPARQL query " + sparql);
+        TupleQuery tupleQuery = this.connection.prepareTupleQuery(QueryLanguage.SPARQL, sparql);
+        tupleQuery.evaluate(handler);
+    }
 }
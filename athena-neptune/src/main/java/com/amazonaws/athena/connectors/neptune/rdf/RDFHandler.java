@@ -23,11 +23,15 @@ import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.neptune.Constants;
 import com.amazonaws.athena.connectors.neptune.NeptuneConnection;
 import com.amazonaws.athena.connectors.neptune.qpt.NeptuneQueryPassthrough;
 import org.apache.arrow.vector.types.pojo.Field;
+import org.eclipse.rdf4j.query.AbstractTupleQueryResultHandler;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.QueryInterruptedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +56,8 @@ import java.util.Map;
 public class RDFHandler 
 {
     private static final Logger logger = LoggerFactory.getLogger(RDFHandler.class);
+    // The hash bucket the first subject hash Split starts at.
+    private static final String FIRST_SUBJECT_HASH_BUCKET = "00";
 
     /**
      * used to aid in debugging. Athena will use this name in conjunction with your
@@ -157,6 +163,7 @@ public class RDFHandler
                                 + " .");
                     }
                 }
+                appendSubjectHashFilter(sparql, subject, recordsRequest.getSplit());
                 sparql.append(" }");
             }
             else {
@@ -176,12 +183,54 @@ public class RDFHandler
         // get results
         String strim = recordsRequest.getSchema().getCustomMetadata().get(Constants.SCHEMA_STRIP_URI);
         boolean trimURI = strim == null ? false : Boolean.parseBoolean(strim);
-        neptuneConnection.runQuery(sparql.toString());
-        while (neptuneConnection.hasNext() && queryStatusChecker.isQueryRunning()) {
-            Map<String, Object> result = neptuneConnection.next(trimURI);
-            spiller.writeRows((final Block block, final int rowNum) -> {
-                return (rowWriter.writeRow(block, rowNum, (Object) result) ? 1 : 0);
+        // results are written as they are parsed from the response, so rows are never queued up in memory
+        try {
+            neptuneConnection.runQuery(sparql.toString(), new AbstractTupleQueryResultHandler()
+            {
+                @Override
+                public void handleSolution(BindingSet bindingSet)
+                {
+                    if (!queryStatusChecker.isQueryRunning()) {
+                        throw new QueryInterruptedException("Query is no longer running");
+                    }
+                    Map<String, Object> result = neptuneConnection.toRow(bindingSet, trimURI);
+                    spiller.writeRows((final Block block, final int rowNum) -> {
+                        return (rowWriter.writeRow(block, rowNum, (Object) result) ? 1 : 0);
+                    });
+                }
             });
         }
+        catch (RuntimeException ex) {
+            if (queryStatusChecker.isQueryRunning()) {
+                throw ex;
+            }
+            logger.info("executeQuery: Stopped reading results as the query is no longer running");
+        }
+    }
+
+    /**
+     * Restricts the subjects of the query to those in the Split's range of hash buckets, a bucket being the first
+     * two hex digits of the MD5 hash of the subject's IRI. Splits without a range match every subject. Blank node
+     * subjects have no IRI to hash, STR() raises an error for them which a FILTER treats as false, so they are all
+     * read by the Split of the first bucket instead.
+     */
+    private static void appendSubjectHashFilter(StringBuilder sparql, String subject, Split split)
+    {
+        String low = split.getProperty(Constants.SPLIT_SUBJECT_HASH_LOW);
+        if (low == null) {
+            return;
+        }
+        String hash = "SUBSTR(MD5(STR(?" + subject + ")), 1, 2)";
+        String range = hash + " >= \"" + low + "\"";
+        String high = split.getProperty(Constants.SPLIT_SUBJECT_HASH_HIGH);
+        if (high != null) {
+            range += " && " + hash + " < \"" + high + "\"";
+        }
+        if (FIRST_SUBJECT_HASH_BUCKET.equals(low)) {
+            sparql.append("\nFILTER (!isIRI(?" + subject + ") || (" + range + "))");
+        }
+        else {
+            sparql.append("\nFILTER (isIRI(?" + subject + ") && " + range + ")");
+        }
     }
 }
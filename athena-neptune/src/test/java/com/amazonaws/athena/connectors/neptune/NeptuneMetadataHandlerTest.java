@@ -20,7 +20,13 @@
 package com.amazonaws.athena.connectors.neptune;
 
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
+import com.amazonaws.athena.connector.lambda.metadata.GetTableLayoutRequest;
+import com.amazonaws.athena.connector.lambda.metadata.GetTableLayoutResponse;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableResponse;
 import com.amazonaws.athena.connector.lambda.metadata.ListSchemasRequest;
@@ -37,6 +43,10 @@ import com.amazonaws.services.glue.model.GetTablesResult;
 import com.amazonaws.services.glue.model.StorageDescriptor;
 import com.amazonaws.services.glue.model.Table;
 import com.amazonaws.services.secretsmanager.AWSSecretsManager;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.tinkerpop.gremlin.driver.Client;
+import org.apache.tinkerpop.gremlin.structure.T;
+import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
 
 import org.junit.After;
 import org.junit.Before;
@@ -51,12 +61,16 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest.UNLIMITED_PAGE_SIZE_VALUE;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import org.mockito.junit.MockitoJUnitRunner;
@@ -181,4 +195,76 @@ public class NeptuneMetadataHandlerTest extends TestBase {
         logger.info("doGetTable - exit");
     }
 
+    @Test
+    public void doGetSplitsGremlinIdRanges() throws Exception {
+        TinkerGraph tinkerGraph = TinkerGraph.open();
+        // Added out of id order, the boundaries are taken from the ordered ids.
+        for (int i : new int[] {3, 0, 4, 1, 2}) {
+            tinkerGraph.addVertex(T.id, "airport" + i, T.label, "airport");
+        }
+        tinkerGraph.addVertex(T.id, "country0", T.label, "country");
+        Client client = mock(Client.class);
+        when(neptuneConnection.getNeptuneClientConnection()).thenReturn(client);
+        when(neptuneConnection.getTraversalSource(client)).thenReturn(tinkerGraph.traversal());
+
+        handler = new NeptuneMetadataHandler(glue, neptuneConnection,
+                new LocalKeyFactory(), mock(AWSSecretsManager.class), mock(AmazonAthena.class), "spill-bucket",
+                "spill-prefix", com.google.common.collect.ImmutableMap.of(Constants.CFG_GREMLIN_SPLIT_SIZE, "2"));
+
+        Schema schema = SchemaBuilder.newBuilder()
+                .addMetadata(Constants.SCHEMA_COMPONENT_TYPE, "vertex")
+                .addMetadata(Constants.SCHEMA_GLABEL, "airport")
+                .addStringField("id")
+                .build();
+        Set<Split> splits = getSplits(schema);
+
+        Set<String> ranges = splits.stream()
+                .map(split -> split.getProperty(Constants.SPLIT_ID_LOW) + "-" + split.getProperty(Constants.SPLIT_ID_HIGH))
+                .collect(Collectors.toSet());
+        assertEquals(com.google.common.collect.ImmutableSet.of("null-airport2", "airport2-airport4", "airport4-null"), ranges);
+        verify(client).close();
+    }
+
+    @Test
+    public void doGetSplitsRdfSubjectHash() throws Exception {
+        handler = new NeptuneMetadataHandler(glue, neptuneConnection,
+                new LocalKeyFactory(), mock(AWSSecretsManager.class), mock(AmazonAthena.class), "spill-bucket",
+                "spill-prefix", com.google.common.collect.ImmutableMap.of(Constants.CFG_GRAPH_TYPE, "RDF", Constants.CFG_RDF_SUBJECT_HASH_SPLITS, "4"));
+
+        Schema schema = SchemaBuilder.newBuilder()
+                .addMetadata(Constants.SCHEMA_QUERY_MODE, Constants.QUERY_MODE_CLASS)
+                .addMetadata(Constants.SCHEMA_SUBJECT, "s")
+                .addStringField("s")
+                .build();
+        Set<Split> splits = getSplits(schema);
+
+        Set<String> ranges = splits.stream()
+                .map(split -> split.getProperty(Constants.SPLIT_SUBJECT_HASH_LOW) + "-" + split.getProperty(Constants.SPLIT_SUBJECT_HASH_HIGH))
+                .collect(Collectors.toSet());
+        assertEquals(com.google.common.collect.ImmutableSet.of("00-40", "40-80", "80-c0", "c0-null"), ranges);
+    }
+
+    @Test
+    public void doGetSplitsSingleSplit() throws Exception {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addMetadata(Constants.SCHEMA_COMPONENT_TYPE, "vertex")
+                .addStringField("id")
+                .build();
+        Set<Split> splits = getSplits(schema);
+
+        assertEquals(1, splits.size());
+        assertNull(splits.iterator().next().getProperty(Constants.SPLIT_ID_LOW));
+    }
+
+    private Set<Split> getSplits(Schema schema) throws Exception {
+        Constraints constraints = new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap());
+        GetTableLayoutRequest layoutRequest = new GetTableLayoutRequest(IDENTITY, QUERY_ID, DEFAULT_CATALOG, TABLE_NAME,
+                constraints, schema, Collections.emptySet());
+
+        try (GetTableLayoutResponse layoutResponse = handler.doGetTableLayout(allocator, layoutRequest)) {
+            GetSplitsRequest splitsRequest = new GetSplitsRequest(IDENTITY, QUERY_ID, DEFAULT_CATALOG, TABLE_NAME,
+                    layoutResponse.getPartitions(), Collections.emptyList(), constraints, null);
+            return handler.doGetSplits(allocator, splitsRequest).getSplits();
+        }
+    }
 }
@@ -20,10 +20,14 @@
 package com.amazonaws.athena.connectors.neptune;
 
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -46,6 +50,7 @@ import com.amazonaws.athena.connector.lambda.records.RecordResponse;
 import com.amazonaws.athena.connector.lambda.records.RemoteReadRecordsResponse;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
 import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
+import com.amazonaws.athena.connectors.neptune.rdf.NeptuneSparqlConnection;
 import com.amazonaws.services.athena.AmazonAthena;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.model.PutObjectRequest;
@@ -54,6 +59,7 @@ import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
 import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import com.google.common.io.ByteStreams;
+import org.apache.arrow.vector.complex.reader.FieldReader;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.tinkerpop.gremlin.driver.Client;
@@ -66,6 +72,10 @@ import org.apache.tinkerpop.gremlin.structure.T;
 import org.apache.tinkerpop.gremlin.structure.Vertex;
 import org.apache.tinkerpop.gremlin.structure.VertexProperty.Cardinality;
 import org.apache.tinkerpop.gremlin.tinkergraph.structure.TinkerGraph;
+import org.eclipse.rdf4j.model.util.Values;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.TupleQueryResultHandler;
+import org.eclipse.rdf4j.query.impl.MapBindingSet;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
@@ -85,6 +95,7 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 
@@ -259,6 +270,186 @@ public class NeptuneRecordHandlerTest extends TestBase {
                 GraphTraversal<Edge, Edge>  edgeTraversal = (GraphTraversal<Edge, Edge>) tinkerGraph.traversal().E();
         }
 
+        @Test
+        public void doReadRecordsRdfSubjectHashRange() throws Exception {
+                List<String> queries = new ArrayList<>();
+                try (ReadRecordsResponse response = readRdfSubjectHashRange("40", "80", false, queries)) {
+                        assertEquals(3, response.getRecords().getRowCount());
+                        FieldReader subjectReader = response.getRecords().getFieldReader("s");
+                        subjectReader.setPosition(0);
+                        assertEquals("airport1", subjectReader.readText().toString());
+                }
+                assertEquals(1, queries.size());
+                assertTrue(queries.get(0).contains("FILTER (isIRI(?s) && SUBSTR(MD5(STR(?s)), 1, 2) >= \"40\" && SUBSTR(MD5(STR(?s)), 1, 2) < \"80\")"));
+        }
+
+        @Test
+        public void doReadRecordsRdfFirstSubjectHashRangeReadsBlankNodes() throws Exception {
+                List<String> queries = new ArrayList<>();
+                try (ReadRecordsResponse response = readRdfSubjectHashRange("00", "40", true, queries)) {
+                        assertEquals(4, response.getRecords().getRowCount());
+                        FieldReader subjectReader = response.getRecords().getFieldReader("s");
+                        FieldReader codeReader = response.getRecords().getFieldReader("code");
+                        subjectReader.setPosition(3);
+                        codeReader.setPosition(3);
+                        assertEquals("airport4", subjectReader.readText().toString());
+                        assertEquals("A4", codeReader.readText().toString());
+                }
+                assertEquals(1, queries.size());
+                assertTrue(queries.get(0).contains("FILTER (!isIRI(?s) || (SUBSTR(MD5(STR(?s)), 1, 2) >= \"00\" && SUBSTR(MD5(STR(?s)), 1, 2) < \"40\"))"));
+        }
+
+        /**
+         * Reads a class table through a Split of the given subject hash range, collecting the SPARQL queries run. The
+         * results have three IRI subjects, followed by a blank node subject if withBlankNode is set.
+         */
+        private ReadRecordsResponse readRdfSubjectHashRange(String low, String high, boolean withBlankNode, List<String> queries) throws Exception {
+                NeptuneSparqlConnection sparqlConnection = mock(NeptuneSparqlConnection.class);
+                when(sparqlConnection.toRow(any(BindingSet.class), anyBoolean())).thenCallRealMethod();
+                doAnswer((InvocationOnMock invocation) -> {
+                        queries.add(invocation.getArgument(0));
+                        TupleQueryResultHandler resultHandler = invocation.getArgument(1);
+                        for (int i = 1; i <= 3; i++) {
+                                MapBindingSet bindingSet = new MapBindingSet();
+                                bindingSet.addBinding("s", Values.iri("http://example.org/airport" + i));
+                                bindingSet.addBinding("code", Values.literal("A" + i));
+                                resultHandler.handleSolution(bindingSet);
+                        }
+                        if (withBlankNode) {
+                                MapBindingSet bindingSet = new MapBindingSet();
+                                bindingSet.addBinding("s", Values.bnode("airport4"));
+                                bindingSet.addBinding("code", Values.literal("A4"));
+                                resultHandler.handleSolution(bindingSet);
+                        }
+                        return null;
+                }).when(sparqlConnection).runQuery(anyString(), any(TupleQueryResultHandler.class));
+
+                Schema schema = SchemaBuilder.newBuilder()
+                                .addMetadata("querymode", "class")
+                                .addMetadata("classuri", "ex:Airport")
+                                .addMetadata("subject", "s")
+                                .addMetadata("preds_prefix", "ex")
+                                .addMetadata("prefix_ex", "http://example.org/")
+                                .addMetadata("strip_uri", "true")
+                                .addStringField("s")
+                                .addStringField("code")
+                                .build();
+                Split split = Split.newBuilder(S3SpillLocation.newBuilder().withBucket(UUID.randomUUID().toString())
+                                .withSplitId(UUID.randomUUID().toString()).withQueryId(UUID.randomUUID().toString())
+                                .withIsDirectory(true).build(), keyFactory.create())
+                                .add(Constants.SPLIT_SUBJECT_HASH_LOW, low)
+                                .add(Constants.SPLIT_SUBJECT_HASH_HIGH, high)
+                                .build();
+                ReadRecordsRequest request = new ReadRecordsRequest(IDENTITY, DEFAULT_CATALOG, QUERY_ID, TABLE_NAME,
+                                schema, split, new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap()),
+                                100_000_000_000L, 100_000_000_000L);
+
+                handler = new NeptuneRecordHandler(amazonS3, awsSecretsManager, athena, sparqlConnection,
+                                com.google.common.collect.ImmutableMap.of(Constants.CFG_GRAPH_TYPE, "rdf"));
+                RecordResponse rawResponse = handler.doReadRecords(allocator, request);
+                assertTrue(rawResponse instanceof ReadRecordsResponse);
+                return (ReadRecordsResponse) rawResponse;
+        }
+
+        @Test
+        public void doReadRecordsVertexSplitRange() throws Exception {
+                TinkerGraph tinkerGraph = TinkerGraph.open();
+                // Added out of id order, the split reads its range of ids rather than a window of positions.
+                for (int i : new int[] {3, 0, 4, 1, 2}) {
+                        Vertex vertex = tinkerGraph.addVertex(T.id, "vertex" + i, T.label, "default");
+                        vertex.property("property1", i);
+                        vertex.property("property2", "string" + i);
+                }
+                GraphTraversalSource graphTraversalSource = mockTraversalSource();
+                when(graphTraversalSource.V()).thenReturn(tinkerGraph.traversal().V());
+
+                Schema schema = SchemaBuilder.newBuilder()
+                                .addMetadata("componenttype", "vertex")
+                                .addStringField("id")
+                                .addIntField("property1")
+                                .build();
+
+                try (ReadRecordsResponse response = readSplitRange(schema, "vertex1", "vertex3", false)) {
+                        assertEquals(com.google.common.collect.ImmutableMap.of("vertex1", 1, "vertex2", 2), readRows(response.getRecords()));
+                }
+        }
+
+        @Test
+        public void doReadRecordsEdgeSplitRange() throws Exception {
+                TinkerGraph tinkerGraph = TinkerGraph.open();
+                Vertex vertex1 = tinkerGraph.addVertex(T.id, "vertex1", T.label, "default");
+                Vertex vertex2 = tinkerGraph.addVertex(T.id, "vertex2", T.label, "default");
+                for (int i : new int[] {2, 0, 1}) {
+                        vertex1.addEdge("default", vertex2, T.id, "edge" + i, "property1", i);
+                }
+                GraphTraversalSource graphTraversalSource = mockTraversalSource();
+                when(graphTraversalSource.E()).thenReturn(tinkerGraph.traversal().E());
+
+                Schema schema = SchemaBuilder.newBuilder()
+                                .addMetadata("componenttype", "edge")
+                                .addStringField("in")
+                                .addStringField("out")
+                                .addStringField("id")
+                                .addIntField("property1")
+                                .build();
+
+                try (ReadRecordsResponse response = readSplitRange(schema, null, "edge2", true)) {
+                        assertEquals(com.google.common.collect.ImmutableMap.of("edge0", 0, "edge1", 1), readRows(response.getRecords()));
+                        FieldReader inReader = response.getRecords().getFieldReader("in");
+                        inReader.setPosition(0);
+                        assertEquals("vertex2", inReader.readText().toString());
+                }
+        }
+
+        private GraphTraversalSource mockTraversalSource() {
+                GraphTraversalSource graphTraversalSource = mock(GraphTraversalSource.class);
+                Client client = mock(Client.class);
+                when(neptuneConnection.getNeptuneClientConnection()).thenReturn(client);
+                when(neptuneConnection.getTraversalSource(nullable(Client.class))).thenReturn(graphTraversalSource);
+                return graphTraversalSource;
+        }
+
+        /**
+         * Reads the [low, high) range of ids of the table, a null bound leaves that end of the range open. With case
+         * sensitive column matching only the properties of the requested columns are fetched, otherwise every property is.
+         */
+        private ReadRecordsResponse readSplitRange(Schema schema, String low, String high, boolean caseInsensitive) throws Exception {
+                Split.Builder builder = Split.newBuilder(S3SpillLocation.newBuilder().withBucket(UUID.randomUUID().toString())
+                                .withSplitId(UUID.randomUUID().toString()).withQueryId(UUID.randomUUID().toString())
+                                .withIsDirectory(true).build(), keyFactory.create());
+                if (low != null) {
+                        builder.add(Constants.SPLIT_ID_LOW, low);
+                }
+                if (high != null) {
+                        builder.add(Constants.SPLIT_ID_HIGH, high);
+                }
+                Split split = builder.build();
+                ReadRecordsRequest request = new ReadRecordsRequest(IDENTITY, DEFAULT_CATALOG, QUERY_ID, TABLE_NAME,
+                                schema, split, new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap()),
+                                100_000_000_000L, 100_000_000_000L);
+
+                handler = new NeptuneRecordHandler(amazonS3, awsSecretsManager, athena, neptuneConnection,
+                                com.google.common.collect.ImmutableMap.of(Constants.SCHEMA_CASE_INSEN, String.valueOf(caseInsensitive)));
+                RecordResponse rawResponse = handler.doReadRecords(allocator, request);
+                assertTrue(rawResponse instanceof ReadRecordsResponse);
+                return (ReadRecordsResponse) rawResponse;
+        }
+
+        /**
+         * Reads the property1 value of each row by its id, the rows of a split are in no particular order.
+         */
+        private Map<String, Integer> readRows(Block block) {
+                Map<String, Integer> rows = new HashMap<>();
+                FieldReader idReader = block.getFieldReader("id");
+                FieldReader property1Reader = block.getFieldReader("property1");
+                for (int row = 0; row < block.getRowCount(); row++) {
+                        idReader.setPosition(row);
+                        property1Reader.setPosition(row);
+                        rows.put(idReader.readText().toString(), property1Reader.readInteger());
+                }
+                return rows;
+        }
+
         @Test
         public void doReadRecordsSpill() throws Exception {
                 S3SpillLocation splitLoc = S3SpillLocation.newBuilder().withBucket(UUID.randomUUID().toString())
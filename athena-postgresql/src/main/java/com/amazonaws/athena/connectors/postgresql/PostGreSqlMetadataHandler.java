@@ -35,6 +35,7 @@ import com.amazonaws.athena.connector.lambda.metadata.GetSplitsResponse;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableLayoutRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
+import com.amazonaws.athena.connector.lambda.metadata.SplitFactory;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.DataSourceOptimizations;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.OptimizationSubType;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.pushdown.ComplexExpressionPushdownSubType;
@@ -204,7 +205,7 @@ public class PostGreSqlMetadataHandler
             return setupQueryPassthroughSplit(getSplitsRequest);
         }
 
-        int partitionContd = decodeContinuationToken(getSplitsRequest);
+        int partitionContd = SplitFactory.decodeContinuationToken(getSplitsRequest);
         Set<Split> splits = new HashSet<>();
         Block partitions = getSplitsRequest.getPartitions();
 
@@ -236,27 +237,19 @@ public class PostGreSqlMetadataHandler
         }
 
         if (!splitterUsed) {
-            for (int curPartition = partitionContd; curPartition < partitions.getRowCount(); curPartition++) {
-                FieldReader partitionsSchemaFieldReader = partitions.getFieldReader(BLOCK_PARTITION_SCHEMA_COLUMN_NAME);
-                partitionsSchemaFieldReader.setPosition(curPartition);
-                FieldReader partitionsFieldReader = partitions.getFieldReader(BLOCK_PARTITION_COLUMN_NAME);
-                partitionsFieldReader.setPosition(curPartition);
-
-                //Every split must have a unique location if we wish to spill to avoid failures
-                SpillLocation spillLocation = makeSpillLocation(getSplitsRequest);
-
-                LOGGER.info("{}: Input partition is {}", getSplitsRequest.getQueryId(), String.valueOf(partitionsFieldReader.readText()));
-                Split.Builder splitBuilder = Split.newBuilder(spillLocation, makeEncryptionKey())
-                        .add(BLOCK_PARTITION_SCHEMA_COLUMN_NAME, String.valueOf(partitionsSchemaFieldReader.readText()))
-                        .add(BLOCK_PARTITION_COLUMN_NAME, String.valueOf(partitionsFieldReader.readText()));
-
-                splits.add(splitBuilder.build());
+            FieldReader partitionsSchemaFieldReader = partitions.getFieldReader(BLOCK_PARTITION_SCHEMA_COLUMN_NAME);
+            FieldReader partitionsFieldReader = partitions.getFieldReader(BLOCK_PARTITION_COLUMN_NAME);
 
-                if (splits.size() >= MAX_SPLITS_PER_REQUEST) {
-                    //We exceeded the number of split we want to return in a single request, return and provide a continuation token.
-                    return new GetSplitsResponse(getSplitsRequest.getCatalogName(), splits, encodeContinuationToken(curPartition + 1));
-                }
-            }
+            //Spill locations and encryption keys are generated in parallel, splits are returned in pages sized to fit
+            //the response payload limit.
+            return getSplitFactory().makeSplits(getSplitsRequest, partitionContd, partitions.getRowCount(), MAX_SPLITS_PER_REQUEST,
+                    (curPartition, splitBuilder) -> {
+                        partitionsSchemaFieldReader.setPosition(curPartition);
+                        partitionsFieldReader.setPosition(curPartition);
+                        LOGGER.info("{}: Input partition is {}", getSplitsRequest.getQueryId(), String.valueOf(partitionsFieldReader.readText()));
+                        splitBuilder.add(BLOCK_PARTITION_SCHEMA_COLUMN_NAME, String.valueOf(partitionsSchemaFieldReader.readText()))
+                                .add(BLOCK_PARTITION_COLUMN_NAME, String.valueOf(partitionsFieldReader.readText()));
+                    });
         }
 
         return new GetSplitsResponse(getSplitsRequest.getCatalogName(), splits, null);
@@ -356,21 +349,6 @@ public class PostGreSqlMetadataHandler
         return new TableName(resolvedSchemaName, resolvedTableName);
     }
 
-    private int decodeContinuationToken(GetSplitsRequest request)
-    {
-        if (request.hasContinuationToken()) {
-            return Integer.valueOf(request.getContinuationToken());
-        }
-
-        //No continuation token present
-        return 0;
-    }
-
-    private String encodeContinuationToken(int partition)
-    {
-        return String.valueOf(partition);
-    }
-
     /**
      * Converts an ARRAY column's TYPE_NAME (provided by the jdbc metadata) to an ArrowType.
      * @param typeName The column's TYPE_NAME (e.g. _int4, _text, _float8, etc...)
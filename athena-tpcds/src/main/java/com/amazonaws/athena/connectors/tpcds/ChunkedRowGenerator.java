@@ -0,0 +1,150 @@
+/*-
+ * #%L
+ * athena-tpcds
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.tpcds;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.teradata.tpcds.Session;
+import com.teradata.tpcds.Table;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.teradata.tpcds.Results.constructResults;
+
+/**
+ * Generates a range of TPC-DS chunks on several threads. Generating rows is the bulk of a split's cost and TPC-DS
+ * can generate any chunk independently, but a BlockSpiller must only be written to by one thread. So each thread
+ * generates every n-th chunk and hands its rows, in batches, to the (single) consumer through a bounded queue.
+ */
+class ChunkedRowGenerator
+        implements AutoCloseable
+{
+    private static final int BATCH_SIZE = 1_000;
+    //Marks the end of a thread's chunks, compared by identity.
+    private static final List<List<String>> END_OF_CHUNKS = new ArrayList<>();
+
+    private final BlockingQueue<List<List<String>>> batches;
+    private final ExecutorService executor;
+    private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    private final int numThreads;
+    private int finishedThreads;
+
+    /**
+     * Starts generating the requested chunks.
+     *
+     * @param table The TPC-DS table to generate.
+     * @param scaleFactor The scale factor to generate the table at.
+     * @param parallelism The total number of chunks the table is divided into.
+     * @param firstChunk The first (1 based) chunk to generate.
+     * @param numChunks The number of consecutive chunks to generate.
+     * @param numThreads The number of threads to generate them on.
+     */
+    ChunkedRowGenerator(Table table, int scaleFactor, int parallelism, int firstChunk, int numChunks, int numThreads)
+    {
+        this.numThreads = numThreads;
+        this.batches = new ArrayBlockingQueue<>(numThreads * 2);
+        this.executor = Executors.newFixedThreadPool(numThreads,
+                new ThreadFactoryBuilder().setNameFormat("tpcds-generator-%d").setDaemon(true).build());
+        for (int thread = 0; thread < numThreads; thread++) {
+            int threadFirstChunk = firstChunk + thread;
+            executor.execute(() -> {
+                for (int chunk = threadFirstChunk; chunk < firstChunk + numChunks; chunk += numThreads) {
+                    if (!generate(TPCDSRecordHandler.makeSession(table, scaleFactor, parallelism, chunk))) {
+                        return;
+                    }
+                }
+                offer(END_OF_CHUNKS);
+            });
+        }
+    }
+
+    /**
+     * Blocks until the next batch of rows has been generated.
+     *
+     * @return The next batch of rows, in no particular order across chunks, or null once all chunks are done.
+     * @throws RuntimeException If generating any of the chunks failed.
+     */
+    List<List<String>> nextBatch()
+            throws InterruptedException
+    {
+        while (finishedThreads < numThreads) {
+            List<List<String>> batch = batches.take();
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            if (batch != END_OF_CHUNKS) {
+                return batch;
+            }
+            finishedThreads++;
+        }
+        return null;
+    }
+
+    /**
+     * Stops generating, any thread that is still running is interrupted.
+     */
+    @Override
+    public void close()
+    {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @return True if the chunk was generated, False if generation was stopped.
+     */
+    private boolean generate(Session session)
+    {
+        try {
+            List<List<String>> batch = new ArrayList<>(BATCH_SIZE);
+            for (List<List<String>> next : constructResults(session.getOnlyTableToGenerate(), session)) {
+                batch.add(next.get(0));
+                if (batch.size() == BATCH_SIZE) {
+                    if (!offer(batch)) {
+                        return false;
+                    }
+                    batch = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            return batch.isEmpty() || offer(batch);
+        }
+        catch (RuntimeException ex) {
+            failure.compareAndSet(null, ex);
+            offer(END_OF_CHUNKS);
+            return false;
+        }
+    }
+
+    private boolean offer(List<List<String>> batch)
+    {
+        try {
+            batches.put(batch);
+            return true;
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+/*-
+ * #%L
+ * athena-tpcds
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.tpcds;
+
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.FieldWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.FieldWriterFactory;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintProjector;
+import com.teradata.tpcds.column.Column;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.VarCharVector;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Creates the FieldWriters TPCDSRecordHandler uses to convert TPC-DS' generated rows, which are lists of strings,
+ * into Apache Arrow. Each writer holds on to its (already resolved) vector and parses its cell straight into the
+ * vector's native representation, e.g. dates into epoch days and decimals into unscaled longs. The boxed value the
+ * SDK's constraints operate on is only created for columns that actually have a constraint.
+ */
+final class TPCDSFieldWriters
+{
+    //The largest precision whose unscaled values always fit in a long.
+    private static final int MAX_LONG_PRECISION = 18;
+    private static final long[] POWERS_OF_TEN = new long[MAX_LONG_PRECISION + 1];
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private TPCDSFieldWriters() {}
+
+    /**
+     * Makes a FieldWriterFactory for the provided TPC-DS Column.
+     *
+     * @param column The TPC-DS Column, its position is used to find the cell to write in each generated row.
+     * @return The FieldWriterFactory, which ignores the Extractor it is given since the row is the context.
+     */
+    static FieldWriterFactory makeFactory(Column column)
+    {
+        int position = column.getPosition();
+        switch (column.getType().getBase()) {
+            case IDENTIFIER:
+                return (FieldVector vector, Extractor extractor, ConstraintProjector constraint) ->
+                        makeBigIntWriter((BigIntVector) vector, position, constraint);
+            case INTEGER:
+                return (FieldVector vector, Extractor extractor, ConstraintProjector constraint) ->
+                        makeIntWriter((IntVector) vector, position, constraint);
+            case DATE:
+                return (FieldVector vector, Extractor extractor, ConstraintProjector constraint) ->
+                        makeDateDayWriter((DateDayVector) vector, position, constraint);
+            case DECIMAL:
+                return (FieldVector vector, Extractor extractor, ConstraintProjector constraint) ->
+                        makeDecimalWriter((DecimalVector) vector, position, constraint);
+            case TIME:
+            case CHAR:
+            case VARCHAR:
+                return (FieldVector vector, Extractor extractor, ConstraintProjector constraint) ->
+                        new VarCharWriter((VarCharVector) vector, position, constraint);
+        }
+        throw new IllegalArgumentException("Unsupported TPC-DS type " + column.getName() + ":" + column.getType().getBase());
+    }
+
+    private static FieldWriter makeBigIntWriter(BigIntVector vector, int position, ConstraintProjector constraint)
+    {
+        return (Object context, int rowNum) -> {
+            String rawValue = getCell(context, position);
+            if (rawValue == null) {
+                vector.setNull(rowNum);
+                return constraint == null || constraint.apply(null);
+            }
+            long value = Long.parseLong(rawValue);
+            vector.setSafe(rowNum, value);
+            return constraint == null || constraint.apply(value);
+        };
+    }
+
+    private static FieldWriter makeIntWriter(IntVector vector, int position, ConstraintProjector constraint)
+    {
+        return (Object context, int rowNum) -> {
+            String rawValue = getCell(context, position);
+            if (rawValue == null) {
+                vector.setNull(rowNum);
+                return constraint == null || constraint.apply(null);
+            }
+            int value = Integer.parseInt(rawValue);
+            vector.setSafe(rowNum, value);
+            return constraint == null || constraint.apply(value);
+        };
+    }
+
+    private static FieldWriter makeDateDayWriter(DateDayVector vector, int position, ConstraintProjector constraint)
+    {
+        return (Object context, int rowNum) -> {
+            String rawValue = getCell(context, position);
+            if (rawValue == null) {
+                vector.setNull(rowNum);
+                return constraint == null || constraint.apply(null);
+            }
+            int epochDay = parseEpochDay(rawValue);
+            vector.setSafe(rowNum, epochDay);
+            return constraint == null || constraint.apply(LocalDate.ofEpochDay(epochDay));
+        };
+    }
+
+    private static FieldWriter makeDecimalWriter(DecimalVector vector, int position, ConstraintProjector constraint)
+    {
+        int scale = vector.getScale();
+        boolean fitsInLong = vector.getPrecision() <= MAX_LONG_PRECISION;
+        return (Object context, int rowNum) -> {
+            String rawValue = getCell(context, position);
+            if (rawValue == null) {
+                vector.setNull(rowNum);
+                return constraint == null || constraint.apply(null);
+            }
+            if (fitsInLong) {
+                vector.setSafe(rowNum, parseUnscaledDecimal(rawValue, scale));
+            }
+            else {
+                vector.setSafe(rowNum, new BigDecimal(rawValue).setScale(scale, RoundingMode.HALF_UP));
+            }
+            return constraint == null || constraint.apply(new BigDecimal(rawValue));
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String getCell(Object context, int position)
+    {
+        return ((List<String>) context).get(position);
+    }
+
+    /**
+     * Copies the provided value into the provided buffer if it is entirely ASCII, which is the case for all of
+     * TPC-DS' generated text and is identical to its UTF-8 encoding.
+     *
+     * @return True if the value was ASCII and was copied, False otherwise.
+     */
+    static boolean encodeAscii(String value, byte[] buffer)
+    {
+        for (int i = 0; i < value.length(); i++) {
+            char next = value.charAt(i);
+            if (next >= 0x80) {
+                return false;
+            }
+            buffer[i] = (byte) next;
+        }
+        return true;
+    }
+
+    /**
+     * Converts an ISO-8601 (yyyy-MM-dd) date into days since the epoch without creating a LocalDate. Anything else
+     * is left to LocalDate.parse(...), including its error handling.
+     */
+    static int parseEpochDay(String value)
+    {
+        if (value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            return (int) LocalDate.parse(value).toEpochDay();
+        }
+
+        int year = parseDigits(value, 0, 4);
+        int month = parseDigits(value, 5, 7);
+        int day = parseDigits(value, 8, 10);
+        if (year < 1 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return (int) LocalDate.parse(value).toEpochDay();
+        }
+
+        //Days from the civil calendar, using eras of 400 years which always have the same number of days.
+        int y = (month <= 2) ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Converts a plain decimal string (e.g. -12.5) into its unscaled value at the provided scale (e.g. -1250 at scale
+     * 2) without creating a BigDecimal. Values with more fractional digits than the scale, or too many digits to
+     * fit a long, fall back to BigDecimal and are rounded half up like DecimalFieldWriter does.
+     */
+    static long parseUnscaledDecimal(String value, int scale)
+    {
+        int length = value.length();
+        int start = (length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+')) ? 1 : 0;
+        long unscaled = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (int i = start; i < length; i++) {
+            char next = value.charAt(i);
+            if (next == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            if (next < '0' || next > '9' || digits == MAX_LONG_PRECISION || fractionDigits == scale) {
+                return parseUnscaledDecimalSlow(value, scale);
+            }
+            unscaled = unscaled * 10 + (next - '0');
+            digits++;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+
+        if (digits == 0) {
+            return parseUnscaledDecimalSlow(value, scale);
+        }
+
+        int missingDigits = scale - Math.max(fractionDigits, 0);
+        if (digits + missingDigits > MAX_LONG_PRECISION) {
+            return parseUnscaledDecimalSlow(value, scale);
+        }
+        unscaled *= POWERS_OF_TEN[missingDigits];
+        return (value.charAt(0) == '-') ? -unscaled : unscaled;
+    }
+
+    private static long parseUnscaledDecimalSlow(String value, int scale)
+    {
+        return new BigDecimal(value).setScale(scale, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * @return The non-negative integer in value[start, end), or -1 if that range contains anything but digits.
+     */
+    private static int parseDigits(String value, int start, int end)
+    {
+        int result = 0;
+        for (int i = start; i < end; i++) {
+            char next = value.charAt(i);
+            if (next < '0' || next > '9') {
+                return -1;
+            }
+            result = result * 10 + (next - '0');
+        }
+        return result;
+    }
+
+    private static int lengthOfMonth(int year, int month)
+    {
+        if (month == 2 && (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0)) {
+            return 29;
+        }
+        return DAYS_IN_MONTH[month - 1];
+    }
+
+    /**
+     * Writes strings through a reusable buffer, since nearly all of them are ASCII this avoids allocating a byte[]
+     * per cell. Like every FieldWriter, it is only ever called by one thread.
+     */
+    private static class VarCharWriter
+            implements FieldWriter
+    {
+        private final VarCharVector vector;
+        private final int position;
+        private final ConstraintProjector constraint;
+        private byte[] buffer = new byte[64];
+
+        private VarCharWriter(VarCharVector vector, int position, ConstraintProjector constraint)
+        {
+            this.vector = vector;
+            this.position = position;
+            this.constraint = constraint;
+        }
+
+        @Override
+        public boolean write(Object context, int rowNum)
+        {
+            String rawValue = getCell(context, position);
+            if (rawValue == null) {
+                vector.setNull(rowNum);
+                return constraint == null || constraint.apply(null);
+            }
+            int length = rawValue.length();
+            if (buffer.length < length) {
+                buffer = new byte[Math.max(length, buffer.length * 2)];
+            }
+            if (encodeAscii(rawValue, buffer)) {
+                vector.setSafe(rowNum, buffer, 0, length);
+            }
+            else {
+                vector.setSafe(rowNum, rawValue.getBytes(StandardCharsets.UTF_8));
+            }
+            return constraint == null || constraint.apply(rawValue);
+        }
+    }
+}
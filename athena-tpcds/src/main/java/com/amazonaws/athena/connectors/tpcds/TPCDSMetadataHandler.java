@@ -79,6 +79,12 @@ public class TPCDSMetadataHandler
     protected static final String SPLIT_TOTAL_NUMBER_FIELD = "totalNumSplits";
     //The is the name of the field that contains the scale factor of the schema used in the request.
     protected static final String SPLIT_SCALE_FACTOR_FIELD = "scaleFactor";
+    //The name of the field that contains the number of chunks the split is divided into. This is used for
+    //parallelizing data generation within a split.
+    protected static final String SPLIT_SUB_CHUNKS_FIELD = "subChunks";
+    //Config that controls how many chunks each split is divided into, RecordHandlers generate these concurrently.
+    public static final String SPLIT_SUB_CHUNKS = "split_sub_chunks";
+    protected static final int DEFAULT_SPLIT_SUB_CHUNKS = 4;
     //The list of valid schemas which also convey the scale factor
     protected static final Set<String> SCHEMA_NAMES = ImmutableSet.of("tpcds1", "tpcds10", "tpcds100", "tpcds250", "tpcds1000");
     // Query Passthrough
@@ -237,11 +243,7 @@ public class TPCDSMetadataHandler
         int nextSplit = request.getContinuationToken() == null ? 0 : Integer.parseInt(request.getContinuationToken());
         Set<Split> splits = new HashSet<>();
         for (int i = nextSplit; i < totalSplits; i++) {
-            splits.add(Split.newBuilder(makeSpillLocation(request), makeEncryptionKey())
-                    .add(SPLIT_NUMBER_FIELD, String.valueOf(i))
-                    .add(SPLIT_TOTAL_NUMBER_FIELD, String.valueOf(totalSplits))
-                    .add(SPLIT_SCALE_FACTOR_FIELD, String.valueOf(scaleFactor))
-                    .build());
+            splits.add(makeSplit(request, i, totalSplits, scaleFactor));
             if (splits.size() >= 1000) {
                 return new GetSplitsResponse(catalogName, splits, String.valueOf(i + 1));
             }
@@ -251,6 +253,27 @@ public class TPCDSMetadataHandler
         return new GetSplitsResponse(catalogName, splits);
     }
 
+    /**
+     * Makes one of the splits that a table's data is generated in.
+     *
+     * @param request The GetSplitsRequest the split is for.
+     * @param splitNumber The zero based number of the split.
+     * @param totalSplits The total number of splits the table is divided into.
+     * @param scaleFactor The scale factor of the requested schema.
+     * @return The split. The number of sub-chunks it is divided into is fixed here, rather than by each RecordHandler,
+     * because it determines which rows belong to which split and so must be the same for every split of a query.
+     */
+    protected Split makeSplit(GetSplitsRequest request, int splitNumber, int totalSplits, int scaleFactor)
+    {
+        int subChunks = Integer.parseInt(configOptions.getOrDefault(SPLIT_SUB_CHUNKS, String.valueOf(DEFAULT_SPLIT_SUB_CHUNKS)));
+        return Split.newBuilder(makeSpillLocation(request), makeEncryptionKey())
+                .add(SPLIT_NUMBER_FIELD, String.valueOf(splitNumber))
+                .add(SPLIT_TOTAL_NUMBER_FIELD, String.valueOf(totalSplits))
+                .add(SPLIT_SCALE_FACTOR_FIELD, String.valueOf(scaleFactor))
+                .add(SPLIT_SUB_CHUNKS_FIELD, String.valueOf(Math.max(1, subChunks)))
+                .build();
+    }
+
     /**
      * Helper function that provides a single partition for Query Pass-Through
      *
@@ -22,6 +22,7 @@ package com.amazonaws.athena.connectors.tpcds;
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
@@ -31,20 +32,14 @@ import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import com.amazonaws.services.secretsmanager.AWSSecretsManagerClientBuilder;
-import com.teradata.tpcds.Results;
 import com.teradata.tpcds.Session;
 import com.teradata.tpcds.Table;
 import com.teradata.tpcds.column.Column;
-import com.teradata.tpcds.column.ColumnType;
 import org.apache.arrow.util.VisibleForTesting;
 import org.apache.arrow.vector.types.pojo.Field;
-import org.apache.arrow.vector.types.pojo.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.IOException;
-import java.math.BigDecimal;
-import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -52,6 +47,7 @@ import java.util.Map;
 
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_NUMBER_FIELD;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_SCALE_FACTOR_FIELD;
+import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_SUB_CHUNKS_FIELD;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_TOTAL_NUMBER_FIELD;
 import static com.teradata.tpcds.Results.constructResults;
 
@@ -62,6 +58,7 @@ import static com.teradata.tpcds.Results.constructResults;
  * <p>
  * 1. Generates data for the requested table on the fly.
  * 2. Applies constraints to the data as it is generated, emulating predicate-pushdown.
+ * 3. Generates the sub-chunks of a split concurrently, when more than one cpu is available.
  */
 public class TPCDSRecordHandler
         extends RecordHandler
@@ -74,15 +71,28 @@ public class TPCDSRecordHandler
      */
     private static final String SOURCE_TYPE = "tpcds";
 
+    //Config that controls how many threads generate the sub-chunks of a split, defaults to the number of cpus.
+    public static final String GENERATOR_THREADS = "generator_threads";
+
+    private final int generatorThreads;
+
     public TPCDSRecordHandler(java.util.Map<String, String> configOptions)
     {
         super(AmazonS3ClientBuilder.defaultClient(), AWSSecretsManagerClientBuilder.defaultClient(), AmazonAthenaClientBuilder.defaultClient(), SOURCE_TYPE, configOptions);
+        this.generatorThreads = getGeneratorThreads(configOptions);
     }
 
     @VisibleForTesting
     protected TPCDSRecordHandler(AmazonS3 amazonS3, AWSSecretsManager secretsManager, AmazonAthena athena, java.util.Map<String, String> configOptions)
     {
         super(amazonS3, secretsManager, athena, SOURCE_TYPE, configOptions);
+        this.generatorThreads = getGeneratorThreads(configOptions);
+    }
+
+    private static int getGeneratorThreads(java.util.Map<String, String> configOptions)
+    {
+        String threads = configOptions.get(GENERATOR_THREADS);
+        return (threads != null) ? Math.max(1, Integer.parseInt(threads)) : Runtime.getRuntime().availableProcessors();
     }
 
     /**
@@ -92,12 +102,15 @@ public class TPCDSRecordHandler
      */
     @Override
     protected void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
-            throws IOException
+            throws Exception
     {
         Split split = recordsRequest.getSplit();
         int splitNumber = Integer.parseInt(split.getProperty(SPLIT_NUMBER_FIELD));
         int totalNumSplits = Integer.parseInt(split.getProperty(SPLIT_TOTAL_NUMBER_FIELD));
         int scaleFactor = Integer.parseInt(split.getProperty(SPLIT_SCALE_FACTOR_FIELD));
+        //Splits made before sub-chunks were introduced are generated as a single chunk.
+        String subChunksProperty = split.getProperty(SPLIT_SUB_CHUNKS_FIELD);
+        int subChunks = (subChunksProperty != null) ? Integer.parseInt(subChunksProperty) : 1;
 
         Table table;
         if (recordsRequest.getConstraints().isQueryPassThrough()) {
@@ -107,108 +120,76 @@ public class TPCDSRecordHandler
             table = TPCDSUtils.validateTable(recordsRequest.getTableName());
         }
 
-        Session session = Session.getDefaultSession()
-                .withScale(scaleFactor)
-                .withParallelism(totalNumSplits)
-                .withChunkNumber(splitNumber + 1)
-                .withTable(table)
-                .withNoSexism(true);
-
-        Results results = constructResults(table, session);
-        Iterator<List<List<String>>> itr = results.iterator();
+        GeneratedRowWriter rowWriter = makeRowWriter(recordsRequest, table);
+
+        //TPC-DS generates the same rows for a table regardless of how many chunks it is divided into, so the
+        //sub-chunks of this split cover exactly the rows of its chunk when the table is divided into subChunks times
+        //as many chunks.
+        int parallelism = totalNumSplits * subChunks;
+        int firstChunk = splitNumber * subChunks + 1;
+        int numThreads = Math.min(generatorThreads, subChunks);
+        logger.info("readWithConstraint: table[{}] chunks[{}-{}] of [{}] threads[{}]",
+                table.getName(), firstChunk, firstChunk + subChunks - 1, parallelism, numThreads);
+
+        if (numThreads <= 1) {
+            for (int chunk = firstChunk; chunk < firstChunk + subChunks; chunk++) {
+                Iterator<List<List<String>>> itr = constructResults(table, makeSession(table, scaleFactor, parallelism, chunk)).iterator();
+                while (itr.hasNext() && queryStatusChecker.isQueryRunning()) {
+                    List<String> row = itr.next().get(0);
+                    spiller.writeRows((Block block, int rowNum) -> rowWriter.writeRow(block, rowNum, row) ? 1 : 0);
+                }
+            }
+            return;
+        }
 
-        Map<Integer, CellWriter> writers = makeWriters(recordsRequest.getSchema(), table);
-        while (itr.hasNext() && queryStatusChecker.isQueryRunning()) {
-            List<String> row = itr.next().get(0);
-            spiller.writeRows((Block block, int numRow) -> {
-                boolean matched = true;
-                for (Map.Entry<Integer, CellWriter> nextWriter : writers.entrySet()) {
-                    matched &= nextWriter.getValue().write(block, numRow, row.get(nextWriter.getKey()));
+        try (ChunkedRowGenerator generator = new ChunkedRowGenerator(table, scaleFactor, parallelism, firstChunk, subChunks, numThreads)) {
+            List<List<String>> batch;
+            while (queryStatusChecker.isQueryRunning() && (batch = generator.nextBatch()) != null) {
+                for (List<String> row : batch) {
+                    spiller.writeRows((Block block, int rowNum) -> rowWriter.writeRow(block, rowNum, row) ? 1 : 0);
                 }
-                return matched ? 1 : 0;
-            });
+            }
         }
     }
 
     /**
-     * Generates the CellWriters used to convert the TPCDS Generators data to Apache Arrow.
+     * Makes the TPC-DS Session used to generate one chunk of a table.
      *
-     * @param schemaForRead The schema to read/project.
-     * @param table The TPCDS Table we are reading from.
-     * @return Map<Integer, CellWriter> where integer is the Column position in the TPCDS data set and the CellWriter
-     * can be used to read,convert,write the value at that position for any row into the correct position and type
-     * in our Apache Arrow response.
+     * @param table The TPC-DS Table to generate.
+     * @param scaleFactor The scale factor to generate the table at.
+     * @param parallelism The total number of chunks the table is divided into.
+     * @param chunk The (1 based) chunk to generate.
+     * @return The Session.
      */
-    private Map<Integer, CellWriter> makeWriters(Schema schemaForRead, Table table)
+    static Session makeSession(Table table, int scaleFactor, int parallelism, int chunk)
     {
-        Map<String, Column> columnPositions = new HashMap<>();
-        for (Column next : table.getColumns()) {
-            columnPositions.put(next.getName(), next);
-        }
-
-        //We use this approach to reduce the overhead of field lookups. This isn't as good as true columnar processing
-        //using Arrow but it gets us ~80% of the way there from a rows/second per cpu-cycle perspective.
-        Map<Integer, CellWriter> writers = new HashMap<>();
-        for (Field nextField : schemaForRead.getFields()) {
-            Column column = columnPositions.get(nextField.getName());
-            writers.put(column.getPosition(), makeWriter(nextField, column));
-        }
-        return writers;
+        return Session.getDefaultSession()
+                .withScale(scaleFactor)
+                .withParallelism(parallelism)
+                .withChunkNumber(chunk)
+                .withTable(table)
+                .withNoSexism(true);
     }
 
     /**
-     * Makes a CellWriter for the provided Apache Arrow Field and TPCDS Column.
+     * Makes the GeneratedRowWriter used to convert the TPCDS Generators data to Apache Arrow. Each generated row,
+     * a List of Strings in column order, is the context the row writer's FieldWriters read their cells from.
      *
-     * @param field The Apache Arrow Field.
-     * @param column The corresponding TPCDS Column.
-     * @return The CellWriter that can be used to convert and write values for the provided Field/Column pair.
+     * @param recordsRequest The request, which contains the schema to read/project and the constraints to apply.
+     * @param table The TPCDS Table we are reading from.
+     * @return The GeneratedRowWriter.
      */
-    private CellWriter makeWriter(Field field, Column column)
+    private GeneratedRowWriter makeRowWriter(ReadRecordsRequest recordsRequest, Table table)
     {
-        ColumnType type = column.getType();
-        switch (type.getBase()) {
-            case IDENTIFIER:
-                return (Block block, int rowNum, String rawValue) -> {
-                    Long value = (rawValue != null) ? Long.parseLong(rawValue) : null;
-                    return block.setValue(field.getName(), rowNum, value);
-                };
-            case INTEGER:
-                return (Block block, int rowNum, String rawValue) -> {
-                    Integer value = (rawValue != null) ? Integer.parseInt(rawValue) : null;
-                    return block.setValue(field.getName(), rowNum, value);
-                };
-            case DATE:
-                return (Block block, int rowNum, String rawValue) -> {
-                    LocalDate value = (rawValue != null) ? LocalDate.parse(rawValue) : null;
-                    return block.setValue(field.getName(), rowNum, value);
-                };
-            case DECIMAL:
-                return (Block block, int rowNum, String rawValue) -> {
-                    BigDecimal value = (rawValue != null) ? new BigDecimal(rawValue) : null;
-                    return block.setValue(field.getName(), rowNum, value);
-                };
-            case TIME:
-            case CHAR:
-            case VARCHAR:
-                return (Block block, int rowNum, String rawValue) -> {
-                    return block.setValue(field.getName(), rowNum, rawValue);
-                };
+        Map<String, Column> columns = new HashMap<>();
+        for (Column next : table.getColumns()) {
+            columns.put(next.getName(), next);
         }
-        throw new IllegalArgumentException("Unsupported TPC-DS type " + column.getName() + ":" + column.getType().getBase());
-    }
 
-    public interface CellWriter
-    {
-        /**
-         * Converts a value from TPCDS' string representation into the appropriate Apache Arrow type
-         * and writes it to the correct field in the provided Block and row. The implementation should
-         * also apply constraints as an optimization.
-         *
-         * @param block The Apache Arrow Block to write into.
-         * @param rowNum The row number in the Arrow Block to write into.
-         * @param value The value to convert and write into the Apache Arrow Block.
-         * @return True if the value passed all Contraints.
-         */
-        boolean write(Block block, int rowNum, String value);
+        GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder(recordsRequest.getConstraints());
+        for (Field nextField : recordsRequest.getSchema().getFields()) {
+            builder.withFieldWriterFactory(nextField.getName(), TPCDSFieldWriters.makeFactory(columns.get(nextField.getName())));
+        }
+        return builder.build();
     }
 }
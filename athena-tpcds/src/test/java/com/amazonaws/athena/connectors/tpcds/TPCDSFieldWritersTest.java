@@ -0,0 +1,277 @@
+/*-
+ * #%L
+ * athena-tpcds
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.tpcds;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.teradata.tpcds.Table;
+import com.teradata.tpcds.column.Column;
+import org.apache.arrow.vector.complex.reader.FieldReader;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static com.teradata.tpcds.Results.constructResults;
+import static org.junit.Assert.*;
+
+public class TPCDSFieldWritersTest
+{
+    private static final int NUM_ROWS = 1_000;
+
+    private BlockAllocator allocator;
+
+    @Before
+    public void setUp()
+    {
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void parseEpochDay()
+    {
+        for (LocalDate next = LocalDate.of(1, 1, 1); next.getYear() < 2500; next = next.plusDays(13)) {
+            assertEquals(next.toString(), next.toEpochDay(), TPCDSFieldWriters.parseEpochDay(next.toString()));
+        }
+        assertEquals(LocalDate.of(2000, 2, 29).toEpochDay(), TPCDSFieldWriters.parseEpochDay("2000-02-29"));
+        assertEquals(LocalDate.of(1900, 3, 1).toEpochDay(), TPCDSFieldWriters.parseEpochDay("1900-03-01"));
+        assertEquals(LocalDate.parse("+12345-01-01").toEpochDay(), TPCDSFieldWriters.parseEpochDay("+12345-01-01"));
+    }
+
+    @Test(expected = java.time.format.DateTimeParseException.class)
+    public void parseEpochDayInvalidDay()
+    {
+        TPCDSFieldWriters.parseEpochDay("1900-02-29");
+    }
+
+    @Test(expected = java.time.format.DateTimeParseException.class)
+    public void parseEpochDayNotADate()
+    {
+        TPCDSFieldWriters.parseEpochDay("2000-1a-01");
+    }
+
+    @Test
+    public void parseUnscaledDecimal()
+    {
+        assertEquals(1234L, TPCDSFieldWriters.parseUnscaledDecimal("12.34", 2));
+        assertEquals(-50L, TPCDSFieldWriters.parseUnscaledDecimal("-0.50", 2));
+        assertEquals(700L, TPCDSFieldWriters.parseUnscaledDecimal("7", 2));
+        assertEquals(150L, TPCDSFieldWriters.parseUnscaledDecimal("1.5", 2));
+        assertEquals(150L, TPCDSFieldWriters.parseUnscaledDecimal("+1.5", 2));
+        assertEquals(100L, TPCDSFieldWriters.parseUnscaledDecimal("1.", 2));
+        assertEquals(0L, TPCDSFieldWriters.parseUnscaledDecimal("0.00", 2));
+        assertEquals(12L, TPCDSFieldWriters.parseUnscaledDecimal("12", 0));
+        //More fractional digits than the scale are rounded half up.
+        assertEquals(101L, TPCDSFieldWriters.parseUnscaledDecimal("1.005", 2));
+        assertEquals(-101L, TPCDSFieldWriters.parseUnscaledDecimal("-1.005", 2));
+        //Values with as many digits as a long can hold.
+        assertEquals(999_999_999_999_999_999L, TPCDSFieldWriters.parseUnscaledDecimal("9999999999999999.99", 2));
+        assertEquals(123_456_789_012_345_600L, TPCDSFieldWriters.parseUnscaledDecimal("1234567890123456", 2));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseUnscaledDecimalInvalid()
+    {
+        TPCDSFieldWriters.parseUnscaledDecimal("1.2.3", 2);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void parseUnscaledDecimalSignOnly()
+    {
+        TPCDSFieldWriters.parseUnscaledDecimal("-", 2);
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void parseUnscaledDecimalOverflow()
+    {
+        TPCDSFieldWriters.parseUnscaledDecimal("99999999999999999999", 2);
+    }
+
+    @Test
+    public void encodeAscii()
+    {
+        byte[] buffer = new byte[16];
+        assertTrue(TPCDSFieldWriters.encodeAscii("AAAAAAAABAAAAAAA", buffer));
+        assertArrayEquals("AAAAAAAABAAAAAAA".getBytes(StandardCharsets.UTF_8), buffer);
+        assertFalse(TPCDSFieldWriters.encodeAscii("caf\u00e9", buffer));
+    }
+
+    @Test
+    public void writeNonAsciiAndNulls()
+            throws Exception
+    {
+        Table table = Table.getTable("call_center");
+        Schema schema = makeSchema(table);
+        GeneratedRowWriter rowWriter = makeRowWriter(table, schema, new Constraints(Collections.emptyMap(),
+                Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT));
+
+        List<String> row = Arrays.asList(new String[table.getColumns().length]);
+        row.set(table.getColumn("cc_name").getPosition(), "Caf\u00e9 \u00fcber \u65e5\u672c");
+        row.set(table.getColumn("cc_tax_percentage").getPosition(), "0.11");
+
+        try (Block block = allocator.createBlock(schema)) {
+            assertTrue(rowWriter.writeRow(block, 0, row));
+            block.setRowCount(1);
+            assertEquals("Caf\u00e9 \u00fcber \u65e5\u672c", block.getFieldReader("cc_name").readText().toString());
+            assertEquals(new BigDecimal("0.11"), block.getFieldReader("cc_tax_percentage").readBigDecimal());
+            assertFalse(block.getFieldReader("cc_call_center_sk").isSet());
+            assertFalse(block.getFieldReader("cc_rec_start_date").isSet());
+        }
+    }
+
+    /**
+     * The FieldWriters must produce exactly what writing the parsed values through Block.setValue(...) does. The
+     * values are compared directly since BlockUtils.rowToString(...) can't format null dates.
+     */
+    @Test
+    public void matchesBlockSetValue()
+            throws Exception
+    {
+        for (String tableName : Arrays.asList("catalog_sales", "customer", "item", "call_center", "dbgen_version")) {
+            Table table = Table.getTable(tableName);
+            Schema schema = makeSchema(table);
+            GeneratedRowWriter rowWriter = makeRowWriter(table, schema, new Constraints(Collections.emptyMap(),
+                    Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT));
+
+            try (Block expected = allocator.createBlock(schema);
+                    Block actual = allocator.createBlock(schema)) {
+                int rowNum = 0;
+                Iterator<List<List<String>>> itr = constructResults(table, TPCDSRecordHandler.makeSession(table, 1, 1, 1)).iterator();
+                while (itr.hasNext() && rowNum < NUM_ROWS) {
+                    List<String> row = itr.next().get(0);
+                    for (Column next : table.getColumns()) {
+                        expected.setValue(next.getName(), rowNum, parse(next, row.get(next.getPosition())));
+                    }
+                    assertTrue(rowWriter.writeRow(actual, rowNum, row));
+                    rowNum++;
+                }
+                expected.setRowCount(rowNum);
+                actual.setRowCount(rowNum);
+                for (Field next : schema.getFields()) {
+                    FieldReader expectedReader = expected.getFieldReader(next.getName());
+                    FieldReader actualReader = actual.getFieldReader(next.getName());
+                    for (int i = 0; i < rowNum; i++) {
+                        expectedReader.setPosition(i);
+                        actualReader.setPosition(i);
+                        assertEquals(tableName + "." + next.getName() + "[" + i + "]", expectedReader.readObject(), actualReader.readObject());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void appliesConstraints()
+            throws Exception
+    {
+        Table table = Table.getTable("catalog_sales");
+        Schema schema = makeSchema(table);
+        Field priceField = schema.findField("cs_list_price");
+        Field dateField = schema.findField("cs_sold_date_sk");
+
+        Map<String, ValueSet> constraintsMap = new HashMap<>();
+        constraintsMap.put(priceField.getName(), SortedRangeSet.of(
+                Range.greaterThan(allocator, priceField.getType(), new BigDecimal("100.00"))));
+        constraintsMap.put(dateField.getName(), SortedRangeSet.of(true,
+                Range.lessThanOrEqual(allocator, dateField.getType(), 2451000L)));
+        GeneratedRowWriter rowWriter = makeRowWriter(table, schema, new Constraints(constraintsMap,
+                Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT));
+
+        int pricePosition = table.getColumn(priceField.getName()).getPosition();
+        int datePosition = table.getColumn(dateField.getName()).getPosition();
+        int matched = 0;
+        try (Block block = allocator.createBlock(schema)) {
+            int rowNum = 0;
+            Iterator<List<List<String>>> itr = constructResults(table, TPCDSRecordHandler.makeSession(table, 1, 1, 1)).iterator();
+            while (itr.hasNext() && rowNum < NUM_ROWS) {
+                List<String> row = itr.next().get(0);
+                String price = row.get(pricePosition);
+                String date = row.get(datePosition);
+                boolean expected = price != null && new BigDecimal(price).compareTo(new BigDecimal("100.00")) > 0
+                        && (date == null || Long.parseLong(date) <= 2451000L);
+                assertEquals(expected, rowWriter.writeRow(block, rowNum++, row));
+                matched += expected ? 1 : 0;
+            }
+        }
+        assertTrue(matched > 0 && matched < NUM_ROWS);
+    }
+
+    private Object parse(Column column, String rawValue)
+    {
+        if (rawValue == null) {
+            return null;
+        }
+        switch (column.getType().getBase()) {
+            case IDENTIFIER:
+                return Long.parseLong(rawValue);
+            case INTEGER:
+                return Integer.parseInt(rawValue);
+            case DATE:
+                return LocalDate.parse(rawValue);
+            case DECIMAL:
+                return new BigDecimal(rawValue);
+            default:
+                return rawValue;
+        }
+    }
+
+    private GeneratedRowWriter makeRowWriter(Table table, Schema schema, Constraints constraints)
+    {
+        GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder(constraints);
+        for (Field next : schema.getFields()) {
+            builder.withFieldWriterFactory(next.getName(), TPCDSFieldWriters.makeFactory(table.getColumn(next.getName())));
+        }
+        return builder.build();
+    }
+
+    private static Schema makeSchema(Table table)
+    {
+        SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
+        for (Column next : table.getColumns()) {
+            schemaBuilder.addField(TPCDSUtils.convertColumn(next));
+        }
+        return schemaBuilder.build();
+    }
+}
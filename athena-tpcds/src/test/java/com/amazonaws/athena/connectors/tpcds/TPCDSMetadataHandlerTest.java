@@ -62,7 +62,9 @@ import java.util.Map;
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest.UNLIMITED_PAGE_SIZE_VALUE;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_NUMBER_FIELD;
+import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.DEFAULT_SPLIT_SUB_CHUNKS;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_SCALE_FACTOR_FIELD;
+import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_SUB_CHUNKS_FIELD;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_TOTAL_NUMBER_FIELD;
 import static org.junit.Assert.*;
 
@@ -212,6 +214,7 @@ public class TPCDSMetadataHandlerTest
                 assertNotNull(nextSplit.getProperty(SPLIT_NUMBER_FIELD));
                 assertNotNull(nextSplit.getProperty(SPLIT_TOTAL_NUMBER_FIELD));
                 assertNotNull(nextSplit.getProperty(SPLIT_SCALE_FACTOR_FIELD));
+                assertEquals(String.valueOf(DEFAULT_SPLIT_SUB_CHUNKS), nextSplit.getProperty(SPLIT_SUB_CHUNKS_FIELD));
             }
 
             if (continuationToken != null) {
@@ -76,6 +76,7 @@ import java.util.UUID;
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_NUMBER_FIELD;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_SCALE_FACTOR_FIELD;
+import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_SUB_CHUNKS_FIELD;
 import static com.amazonaws.athena.connectors.tpcds.TPCDSMetadataHandler.SPLIT_TOTAL_NUMBER_FIELD;
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -310,6 +311,84 @@ public class TPCDSRecordHandlerTest
         logger.info("doReadRecordForTPCDSTIMETypeColumn: exit");
     }
 
+    @Test
+    public void doReadRecordsSubChunks()
+            throws Exception
+    {
+        logger.info("doReadRecordsSubChunks: enter");
+
+        //At scale factor 10 catalog_sales is large enough to be divided into chunks (1000 splits of 1600 orders each),
+        //and it derives its dates from the chunk being generated.
+        table = Table.CATALOG_SALES;
+        SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
+        for (Column nextCol : table.getColumns()) {
+            schemaBuilder.addField(TPCDSUtils.convertColumn(nextCol));
+        }
+        schemaForRead = schemaBuilder.build();
+
+        //A split that is generated as one chunk, as splits were before sub-chunks.
+        List<String> expected = readAllRows(handler, makeSplit("7", "1000", null));
+        assertFalse(expected.isEmpty());
+
+        TPCDSRecordHandler singleThreaded = new TPCDSRecordHandler(mockS3, mockSecretsManager, mockAthena,
+                ImmutableMap.of(TPCDSRecordHandler.GENERATOR_THREADS, "1"));
+        assertEquals(expected, readAllRows(singleThreaded, makeSplit("7", "1000", "4")));
+
+        TPCDSRecordHandler multiThreaded = new TPCDSRecordHandler(mockS3, mockSecretsManager, mockAthena,
+                ImmutableMap.of(TPCDSRecordHandler.GENERATOR_THREADS, "3"));
+        assertEquals(expected, readAllRows(multiThreaded, makeSplit("7", "1000", "4")));
+
+        logger.info("doReadRecordsSubChunks: exit");
+    }
+
+    private Split makeSplit(String splitNumber, String totalNumSplits, String subChunks)
+    {
+        Split.Builder builder = Split.newBuilder(S3SpillLocation.newBuilder()
+                        .withBucket(UUID.randomUUID().toString())
+                        .withSplitId(UUID.randomUUID().toString())
+                        .withQueryId(UUID.randomUUID().toString())
+                        .withIsDirectory(true)
+                        .build(),
+                keyFactory.create())
+                .add(SPLIT_NUMBER_FIELD, splitNumber)
+                .add(SPLIT_TOTAL_NUMBER_FIELD, totalNumSplits)
+                .add(SPLIT_SCALE_FACTOR_FIELD, "10");
+        if (subChunks != null) {
+            builder.add(SPLIT_SUB_CHUNKS_FIELD, subChunks);
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return Every row of the split, sorted since sub-chunks generated on several threads arrive in no particular order.
+     */
+    private List<String> readAllRows(TPCDSRecordHandler recordHandler, Split split)
+            throws Exception
+    {
+        ReadRecordsRequest request = new ReadRecordsRequest(identity,
+                "catalog",
+                "queryId-" + System.currentTimeMillis(),
+                new TableName("tpcds10", table.getName()),
+                schemaForRead,
+                split,
+                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT),
+                100_000_000_000L,
+                100_000_000_000L
+        );
+
+        RecordResponse rawResponse = recordHandler.doReadRecords(allocator, request);
+        assertTrue(rawResponse instanceof ReadRecordsResponse);
+
+        List<String> rows = new ArrayList<>();
+        try (ReadRecordsResponse response = (ReadRecordsResponse) rawResponse) {
+            for (int i = 0; i < response.getRecords().getRowCount(); i++) {
+                rows.add(BlockUtils.rowToString(response.getRecords(), i));
+            }
+        }
+        Collections.sort(rows);
+        return rows;
+    }
+
     private class ByteHolder
     {
         private byte[] bytes;
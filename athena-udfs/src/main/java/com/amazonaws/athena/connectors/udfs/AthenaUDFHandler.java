@@ -20,9 +20,11 @@
 package com.amazonaws.athena.connectors.udfs;
 
 import com.amazonaws.athena.connector.lambda.handlers.UserDefinedFunctionHandler;
-import com.amazonaws.athena.connector.lambda.security.CachableSecretsManager;
+import com.amazonaws.athena.connector.lambda.udf.ThreadSafeFunction;
+import com.amazonaws.services.secretsmanager.AWSSecretsManager;
 import com.amazonaws.services.secretsmanager.AWSSecretsManagerClient;
 import com.google.common.annotations.VisibleForTesting;
+import org.apache.arrow.vector.VarCharVector;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -32,7 +34,6 @@ import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 
 import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidAlgorithmParameterException;
@@ -44,25 +45,36 @@ import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
+/**
+ * Common UDFs. Each UDF is implemented both as a scalar method, invoked once per row, and as a vectorized method which
+ * the SDK prefers and which processes a whole batch of rows while reusing the (de)compressor across rows. The
+ * encryption UDFs cache their keys in a {@link SecretKeyCache} and reuse one Cipher per thread.
+ */
 public class AthenaUDFHandler
         extends UserDefinedFunctionHandler
 {
     private static final String SOURCE_TYPE = "athena_common_udfs";
     public static final int GCM_IV_LENGTH = 12;
     public static final int GCM_TAG_LENGTH = 16; // max allowable
+    private static final String CIPHER_TRANSFORMATION = "AES_256/GCM/NoPadding";
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    //Ciphers are not thread safe but can be re-initialized for every value.
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(AthenaUDFHandler::createCipher);
 
-    private final CachableSecretsManager cachableSecretsManager;
+    private final SecretKeyCache secretKeyCache;
 
     public AthenaUDFHandler()
     {
-        this(new CachableSecretsManager(AWSSecretsManagerClient.builder().build()));
+        this(AWSSecretsManagerClient.builder().build());
     }
 
     @VisibleForTesting
-    AthenaUDFHandler(CachableSecretsManager cachableSecretsManager)
+    AthenaUDFHandler(AWSSecretsManager secretsManager)
     {
         super(SOURCE_TYPE);
-        this.cachableSecretsManager = cachableSecretsManager;
+        this.secretKeyCache = new SecretKeyCache(secretsManager);
     }
 
     /**
@@ -72,6 +84,7 @@ public class AthenaUDFHandler
      * @param input the String to be compressed
      * @return the compressed String
      */
+    @ThreadSafeFunction
     public String compress(String input)
     {
         if (input == null) {
@@ -79,30 +92,42 @@ public class AthenaUDFHandler
         }
 
         byte[] inputBytes = input.getBytes(StandardCharsets.UTF_8);
-
-        // create compressor
         Deflater compressor = new Deflater();
-        compressor.setInput(inputBytes);
-        compressor.finish();
-
-        // compress bytes to output stream
-        byte[] buffer = new byte[4096];
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(inputBytes.length);
-        while (!compressor.finished()) {
-            int bytes = compressor.deflate(buffer);
-            byteArrayOutputStream.write(buffer, 0, bytes);
+        try {
+            byte[] compressedBytes = deflate(compressor, inputBytes, new byte[BUFFER_SIZE], new ByteArrayOutputStream(inputBytes.length));
+            return Base64.getEncoder().encodeToString(compressedBytes);
+        }
+        finally {
+            compressor.end();
         }
+    }
 
+    /**
+     * Vectorized form of {@link #compress(String)}.
+     *
+     * @param input the Strings to be compressed
+     * @param output the compressed Strings
+     */
+    @ThreadSafeFunction
+    public void compress(VarCharVector input, VarCharVector output)
+    {
+        Deflater compressor = new Deflater();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(BUFFER_SIZE);
         try {
-            byteArrayOutputStream.close();
+            for (int i = 0; i < input.getValueCount(); i++) {
+                if (input.isNull(i)) {
+                    output.setNull(i);
+                    continue;
+                }
+                compressor.reset();
+                byte[] compressedBytes = deflate(compressor, input.get(i), buffer, byteArrayOutputStream);
+                output.setSafe(i, Base64.getEncoder().encode(compressedBytes));
+            }
         }
-        catch (IOException e) {
-            throw new RuntimeException("Failed to close ByteArrayOutputStream", e);
+        finally {
+            compressor.end();
         }
-
-        // return encoded string
-        byte[] compressedBytes = byteArrayOutputStream.toByteArray();
-        return Base64.getEncoder().encodeToString(compressedBytes);
     }
 
     /**
@@ -112,6 +137,7 @@ public class AthenaUDFHandler
      * @param input the String to be decompressed
      * @return the decompressed String
      */
+    @ThreadSafeFunction
     public String decompress(String input)
     {
         if (input == null) {
@@ -119,37 +145,42 @@ public class AthenaUDFHandler
         }
 
         byte[] inputBytes = Base64.getDecoder().decode((input));
-
-        // create decompressor
         Inflater decompressor = new Inflater();
-        decompressor.setInput(inputBytes, 0, inputBytes.length);
-
-        // decompress bytes to output stream
-        byte[] buffer = new byte[4096];
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(inputBytes.length);
         try {
-            while (!decompressor.finished()) {
-                int bytes = decompressor.inflate(buffer);
-                if (bytes == 0 && decompressor.needsInput()) {
-                    throw new DataFormatException("Input is truncated");
-                }
-                byteArrayOutputStream.write(buffer, 0, bytes);
-            }
+            byte[] decompressedBytes = inflate(decompressor, inputBytes, new byte[BUFFER_SIZE], new ByteArrayOutputStream(inputBytes.length));
+            return new String(decompressedBytes, StandardCharsets.UTF_8);
         }
-        catch (DataFormatException e) {
-            throw new RuntimeException("Failed to decompress string", e);
+        finally {
+            decompressor.end();
         }
+    }
 
+    /**
+     * Vectorized form of {@link #decompress(String)}.
+     *
+     * @param input the Strings to be decompressed
+     * @param output the decompressed Strings
+     */
+    @ThreadSafeFunction
+    public void decompress(VarCharVector input, VarCharVector output)
+    {
+        Inflater decompressor = new Inflater();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(BUFFER_SIZE);
         try {
-            byteArrayOutputStream.close();
+            for (int i = 0; i < input.getValueCount(); i++) {
+                if (input.isNull(i)) {
+                    output.setNull(i);
+                    continue;
+                }
+                decompressor.reset();
+                byte[] inputBytes = Base64.getDecoder().decode(input.get(i));
+                output.setSafe(i, inflate(decompressor, inputBytes, buffer, byteArrayOutputStream));
+            }
         }
-        catch (IOException e) {
-            throw new RuntimeException("Failed to close ByteArrayOutputStream", e);
+        finally {
+            decompressor.end();
         }
-
-        // return decoded string
-        byte[] decompressedBytes = byteArrayOutputStream.toByteArray();
-        return new String(decompressedBytes, StandardCharsets.UTF_8);
     }
 
     /**
@@ -162,24 +193,36 @@ public class AthenaUDFHandler
      * @param secretName
      * @return plaintext
      */
+    @ThreadSafeFunction
     public String decrypt(String ciphertext, String secretName)
     {
         if (ciphertext == null) {
             return null;
         }
 
-        String secretString = cachableSecretsManager.getSecret(secretName);
-        byte[] plaintextKey = Base64.getDecoder().decode(secretString);
+        byte[] encryptedContent = Base64.getDecoder().decode(ciphertext.getBytes(StandardCharsets.UTF_8));
+        return new String(decrypt(CIPHERS.get(), secretKeyCache.getKey(secretName), encryptedContent), StandardCharsets.UTF_8);
+    }
 
-        try {
-            byte[] encryptedContent = Base64.getDecoder().decode(ciphertext.getBytes());
-            // extract IV from first GCM_IV_LENGTH bytes of ciphertext
-            Cipher cipher = getCipher(Cipher.DECRYPT_MODE, plaintextKey, getGCMSpecDecryption(encryptedContent));
-            byte[] plainTextBytes = cipher.doFinal(encryptedContent, GCM_IV_LENGTH, encryptedContent.length - GCM_IV_LENGTH);
-            return new String(plainTextBytes);
-        }
-        catch (IllegalBlockSizeException | BadPaddingException e) {
-            throw new RuntimeException(e);
+    /**
+     * Vectorized form of {@link #decrypt(String, String)}.
+     *
+     * @param ciphertext
+     * @param secretName
+     * @param plaintext the decrypted values
+     */
+    @ThreadSafeFunction
+    public void decrypt(VarCharVector ciphertext, VarCharVector secretName, VarCharVector plaintext)
+    {
+        Cipher cipher = CIPHERS.get();
+        for (int i = 0; i < ciphertext.getValueCount(); i++) {
+            if (ciphertext.isNull(i)) {
+                plaintext.setNull(i);
+                continue;
+            }
+            SecretKeySpec key = secretKeyCache.getKey(getString(secretName, i));
+            byte[] encryptedContent = Base64.getDecoder().decode(ciphertext.get(i));
+            plaintext.setSafe(i, decrypt(cipher, key, encryptedContent));
         }
     }
 
@@ -193,31 +236,109 @@ public class AthenaUDFHandler
      * @param secretName
      * @return ciphertext
      */
+    @ThreadSafeFunction
     public String encrypt(String plaintext, String secretName)
     {
         if (plaintext == null) {
             return null;
         }
 
-        String secretString = cachableSecretsManager.getSecret(secretName);
-        byte[] plaintextKey = Base64.getDecoder().decode(secretString);
+        byte[] encodedContent = Base64.getEncoder().encode(encrypt(CIPHERS.get(), secretKeyCache.getKey(secretName), plaintext.getBytes(StandardCharsets.UTF_8)));
+        return new String(encodedContent, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Vectorized form of {@link #encrypt(String, String)}.
+     *
+     * @param plaintext
+     * @param secretName
+     * @param ciphertext the encrypted values
+     */
+    @ThreadSafeFunction
+    public void encrypt(VarCharVector plaintext, VarCharVector secretName, VarCharVector ciphertext)
+    {
+        Cipher cipher = CIPHERS.get();
+        for (int i = 0; i < plaintext.getValueCount(); i++) {
+            if (plaintext.isNull(i)) {
+                ciphertext.setNull(i);
+                continue;
+            }
+            SecretKeySpec key = secretKeyCache.getKey(getString(secretName, i));
+            ciphertext.setSafe(i, Base64.getEncoder().encode(encrypt(cipher, key, plaintext.get(i))));
+        }
+    }
 
+    /**
+     * @return the IV followed by the encrypted content.
+     */
+    private static byte[] encrypt(Cipher cipher, SecretKeySpec key, byte[] plaintext)
+    {
         try {
-            Cipher cipher = getCipher(Cipher.ENCRYPT_MODE, plaintextKey, getGCMSpecEncryption());
-            byte[] encryptedContent = cipher.doFinal(plaintext.getBytes());
+            initCipher(cipher, Cipher.ENCRYPT_MODE, key, getGCMSpecEncryption());
+            byte[] encryptedContent = cipher.doFinal(plaintext);
             // prepend ciphertext with IV
             ByteBuffer byteBuffer = ByteBuffer.allocate(GCM_IV_LENGTH + encryptedContent.length);
             byteBuffer.put(cipher.getIV());
             byteBuffer.put(encryptedContent);
+            return byteBuffer.array();
+        }
+        catch (IllegalBlockSizeException | BadPaddingException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
-            byte[] encodedContent = Base64.getEncoder().encode(byteBuffer.array());
-            return new String(encodedContent);
+    private static byte[] decrypt(Cipher cipher, SecretKeySpec key, byte[] encryptedContent)
+    {
+        try {
+            // extract IV from first GCM_IV_LENGTH bytes of ciphertext
+            initCipher(cipher, Cipher.DECRYPT_MODE, key, getGCMSpecDecryption(encryptedContent));
+            return cipher.doFinal(encryptedContent, GCM_IV_LENGTH, encryptedContent.length - GCM_IV_LENGTH);
         }
         catch (IllegalBlockSizeException | BadPaddingException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private static byte[] deflate(Deflater compressor, byte[] inputBytes, byte[] buffer, ByteArrayOutputStream byteArrayOutputStream)
+    {
+        compressor.setInput(inputBytes);
+        compressor.finish();
+
+        // compress bytes to output stream
+        byteArrayOutputStream.reset();
+        while (!compressor.finished()) {
+            int bytes = compressor.deflate(buffer);
+            byteArrayOutputStream.write(buffer, 0, bytes);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static byte[] inflate(Inflater decompressor, byte[] inputBytes, byte[] buffer, ByteArrayOutputStream byteArrayOutputStream)
+    {
+        decompressor.setInput(inputBytes, 0, inputBytes.length);
+
+        // decompress bytes to output stream
+        byteArrayOutputStream.reset();
+        try {
+            while (!decompressor.finished()) {
+                int bytes = decompressor.inflate(buffer);
+                if (bytes == 0 && decompressor.needsInput()) {
+                    throw new DataFormatException("Input is truncated");
+                }
+                byteArrayOutputStream.write(buffer, 0, bytes);
+            }
+        }
+        catch (DataFormatException e) {
+            throw new RuntimeException("Failed to decompress string", e);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    private static String getString(VarCharVector vector, int index)
+    {
+        return vector.isNull(index) ? null : new String(vector.get(index), StandardCharsets.UTF_8);
+    }
+
     private static GCMParameterSpec getGCMSpecDecryption(byte[] encryptedText)
     {
         return new GCMParameterSpec(GCM_TAG_LENGTH * Byte.SIZE, encryptedText, 0, GCM_IV_LENGTH);
@@ -226,21 +347,34 @@ public class AthenaUDFHandler
     static GCMParameterSpec getGCMSpecEncryption()
     {
         byte[] iv = new byte[GCM_IV_LENGTH];
-        SecureRandom random = new SecureRandom();
-        random.nextBytes(iv);
+        RANDOM.nextBytes(iv);
 
         return new GCMParameterSpec(GCM_TAG_LENGTH * Byte.SIZE, iv);
     }
 
     static Cipher getCipher(int cipherMode, byte[] plainTextDataKey, GCMParameterSpec gcmParameterSpec)
+    {
+        Cipher cipher = createCipher();
+        initCipher(cipher, cipherMode, new SecretKeySpec(plainTextDataKey, "AES"), gcmParameterSpec);
+        return cipher;
+    }
+
+    private static Cipher createCipher()
+    {
+        try {
+            return Cipher.getInstance(CIPHER_TRANSFORMATION);
+        }
+        catch (NoSuchPaddingException | NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void initCipher(Cipher cipher, int cipherMode, SecretKeySpec key, GCMParameterSpec gcmParameterSpec)
     {
         try {
-            Cipher cipher = Cipher.getInstance("AES_256/GCM/NoPadding");
-            SecretKeySpec skeySpec = new SecretKeySpec(plainTextDataKey, "AES");
-            cipher.init(cipherMode, skeySpec, gcmParameterSpec);
-            return cipher;
+            cipher.init(cipherMode, key, gcmParameterSpec);
         }
-        catch (NoSuchPaddingException | NoSuchAlgorithmException | InvalidKeyException | InvalidAlgorithmParameterException e) {
+        catch (InvalidKeyException | InvalidAlgorithmParameterException e) {
             throw new RuntimeException(e);
         }
     }
@@ -0,0 +1,103 @@
+/*-
+ * #%L
+ * athena-udfs
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.udfs;
+
+import com.amazonaws.services.secretsmanager.AWSSecretsManager;
+import com.amazonaws.services.secretsmanager.model.GetSecretValueRequest;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import java.util.Base64;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Caches the AES data keys used by the encrypt and decrypt UDFs, keyed by the name of the secret which holds the key,
+ * so that rows don't each pay for a secret lookup and key decoding. This class is thread safe.
+ * <p>
+ * Keys are refreshed ahead of time: once a key is older than the refresh interval the next lookup triggers a reload
+ * in the background and keeps using the current key until the reload completes. A key which could not be reloaded
+ * (e.g. Secrets Manager was unavailable) expires after the expiry interval, after which lookups block on loading it.
+ * <p>
+ * Secrets are read from Secrets Manager directly rather than through CachableSecretsManager, whose own cache would
+ * let a rotated key stay in use for up to twice the refresh interval.
+ */
+public class SecretKeyCache
+{
+    private static final long REFRESH_SECONDS = 60;
+    private static final long EXPIRE_SECONDS = 300;
+    private static final long MAX_ENTRIES = 1_000;
+    private static final String KEY_ALGORITHM = "AES";
+
+    private static final Executor REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("SecretKeyCache-%d")
+            .setDaemon(true)
+            .build());
+
+    private final LoadingCache<String, SecretKeySpec> keys;
+
+    /**
+     * @param secretsManager Used to fetch the secrets holding the base64 encoded keys.
+     */
+    public SecretKeyCache(AWSSecretsManager secretsManager)
+    {
+        this(secretName -> secretsManager.getSecretValue(new GetSecretValueRequest().withSecretId(secretName)).getSecretString(),
+                Ticker.systemTicker(), REFRESH_EXECUTOR);
+    }
+
+    @VisibleForTesting
+    SecretKeyCache(Function<String, String> secretLoader, Ticker ticker, Executor refreshExecutor)
+    {
+        this.keys = CacheBuilder.newBuilder()
+                .refreshAfterWrite(REFRESH_SECONDS, TimeUnit.SECONDS)
+                .expireAfterWrite(EXPIRE_SECONDS, TimeUnit.SECONDS)
+                .maximumSize(MAX_ENTRIES)
+                .ticker(ticker)
+                .build(CacheLoader.asyncReloading(CacheLoader.from((String secretName) ->
+                        new SecretKeySpec(Base64.getDecoder().decode(secretLoader.apply(secretName)), KEY_ALGORITHM)),
+                        refreshExecutor));
+    }
+
+    /**
+     * @param secretName The name of the secret holding the base64 encoded key.
+     * @return The key, loading it if it isn't cached.
+     */
+    public SecretKeySpec getKey(String secretName)
+    {
+        try {
+            return keys.get(secretName);
+        }
+        catch (ExecutionException | UncheckedExecutionException ex) {
+            Throwables.throwIfUnchecked(ex.getCause());
+            throw new RuntimeException(ex.getCause());
+        }
+    }
+}
@@ -19,7 +19,13 @@
  */
 package com.amazonaws.athena.connectors.udfs;
 
-import com.amazonaws.athena.connector.lambda.security.CachableSecretsManager;
+import com.amazonaws.services.secretsmanager.AWSSecretsManager;
+import com.amazonaws.services.secretsmanager.model.GetSecretValueRequest;
+import com.amazonaws.services.secretsmanager.model.GetSecretValueResult;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.VarCharVector;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -35,7 +41,10 @@ import java.util.zip.DataFormatException;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class AthenaUDFHandlerTest
@@ -43,6 +52,8 @@ public class AthenaUDFHandlerTest
     private static final String DUMMY_SECRET_NAME = "dummy_secret";
 
     private AthenaUDFHandler athenaUDFHandler;
+    private AWSSecretsManager secretsManager;
+    private BufferAllocator allocator;
 
     private static final String PLAINTEXT_DATA_KEY = "i5YnyBO4gJKWuIQ+gjuJjcJ/5kUph9pmYFUbW7zf3PE=";
     private Base64.Decoder decoder = Base64.getDecoder();
@@ -51,9 +62,85 @@ public class AthenaUDFHandlerTest
     @Before
     public void setup()
     {
-        CachableSecretsManager cachableSecretsManager = mock(CachableSecretsManager.class);
-        when(cachableSecretsManager.getSecret(DUMMY_SECRET_NAME)).thenReturn(PLAINTEXT_DATA_KEY);
-        this.athenaUDFHandler = new AthenaUDFHandler(cachableSecretsManager);
+        secretsManager = mock(AWSSecretsManager.class);
+        when(secretsManager.getSecretValue(any(GetSecretValueRequest.class))).thenAnswer(invocation -> {
+            GetSecretValueRequest request = invocation.getArgument(0, GetSecretValueRequest.class);
+            assertEquals(DUMMY_SECRET_NAME, request.getSecretId());
+            return new GetSecretValueResult().withSecretString(PLAINTEXT_DATA_KEY);
+        });
+        this.athenaUDFHandler = new AthenaUDFHandler(secretsManager);
+        allocator = new RootAllocator();
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void testVectorizedCompressAndDecompress()
+    {
+        String[] values = {"StringToBeCompressed", null, "AnotherString"};
+        try (VarCharVector input = newVector("input", values);
+                VarCharVector compressed = new VarCharVector("compressed", allocator);
+                VarCharVector decompressed = new VarCharVector("decompressed", allocator)) {
+            athenaUDFHandler.compress(input, compressed);
+            compressed.setValueCount(values.length);
+            athenaUDFHandler.decompress(compressed, decompressed);
+            decompressed.setValueCount(values.length);
+
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(athenaUDFHandler.compress(values[i]), getString(compressed, i));
+                assertEquals(values[i], getString(decompressed, i));
+            }
+        }
+    }
+
+    @Test
+    public void testVectorizedEncryptAndDecrypt()
+    {
+        String[] values = {"abcdef", null, "ghijkl", "mnopqr"};
+        String[] secretNames = {DUMMY_SECRET_NAME, DUMMY_SECRET_NAME, DUMMY_SECRET_NAME, DUMMY_SECRET_NAME};
+        try (VarCharVector plaintext = newVector("plaintext", values);
+                VarCharVector secretName = newVector("secretName", secretNames);
+                VarCharVector ciphertext = new VarCharVector("ciphertext", allocator);
+                VarCharVector decrypted = new VarCharVector("decrypted", allocator)) {
+            athenaUDFHandler.encrypt(plaintext, secretName, ciphertext);
+            ciphertext.setValueCount(values.length);
+            athenaUDFHandler.decrypt(ciphertext, secretName, decrypted);
+            decrypted.setValueCount(values.length);
+            //Keys are cached across rows and batches.
+            verify(secretsManager, times(1)).getSecretValue(any(GetSecretValueRequest.class));
+
+            for (int i = 0; i < values.length; i++) {
+                assertEquals(values[i], getString(decrypted, i));
+                if (values[i] != null) {
+                    assertEquals(values[i], athenaUDFHandler.decrypt(getString(ciphertext, i), DUMMY_SECRET_NAME));
+                }
+            }
+        }
+    }
+
+    private VarCharVector newVector(String name, String[] values)
+    {
+        VarCharVector vector = new VarCharVector(name, allocator);
+        vector.allocateNew();
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                vector.setNull(i);
+            }
+            else {
+                vector.setSafe(i, values[i].getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        vector.setValueCount(values.length);
+        return vector;
+    }
+
+    private static String getString(VarCharVector vector, int index)
+    {
+        return vector.isNull(index) ? null : new String(vector.get(index), StandardCharsets.UTF_8);
     }
 
     @Test
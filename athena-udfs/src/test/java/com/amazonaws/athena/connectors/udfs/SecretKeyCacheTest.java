@@ -0,0 +1,108 @@
+/*-
+ * #%L
+ * athena-udfs
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.udfs;
+
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class SecretKeyCacheTest
+{
+    private static final String SECRET_NAME = "secret";
+
+    private final AtomicLong nanos = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private volatile boolean failLoads;
+    private SecretKeyCache secretKeyCache;
+
+    @Before
+    public void setup()
+    {
+        Ticker ticker = new Ticker()
+        {
+            @Override
+            public long read()
+            {
+                return nanos.get();
+            }
+        };
+        secretKeyCache = new SecretKeyCache(this::loadSecret, ticker, MoreExecutors.directExecutor());
+    }
+
+    private String loadSecret(String secretName)
+    {
+        if (failLoads) {
+            throw new IllegalStateException("unable to load " + secretName);
+        }
+        return Base64.getEncoder().encodeToString(new byte[] {(byte) loads.incrementAndGet()});
+    }
+
+    private void advanceSeconds(long seconds)
+    {
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    public void getKeyCachesKey()
+    {
+        assertArrayEquals(new byte[] {1}, secretKeyCache.getKey(SECRET_NAME).getEncoded());
+        assertArrayEquals(new byte[] {1}, secretKeyCache.getKey(SECRET_NAME).getEncoded());
+        assertEquals("AES", secretKeyCache.getKey(SECRET_NAME).getAlgorithm());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void getKeyRefreshesKey()
+    {
+        secretKeyCache.getKey(SECRET_NAME);
+        advanceSeconds(61);
+        assertArrayEquals(new byte[] {2}, secretKeyCache.getKey(SECRET_NAME).getEncoded());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void getKeyKeepsKeyWhenRefreshFails()
+    {
+        secretKeyCache.getKey(SECRET_NAME);
+        failLoads = true;
+        advanceSeconds(61);
+        assertArrayEquals(new byte[] {1}, secretKeyCache.getKey(SECRET_NAME).getEncoded());
+
+        //Until the key expires.
+        advanceSeconds(300);
+        try {
+            secretKeyCache.getKey(SECRET_NAME);
+            fail("Expected the load to fail");
+        }
+        catch (IllegalStateException ex) {
+            assertEquals("unable to load " + SECRET_NAME, ex.getMessage());
+        }
+    }
+}